@@ -2,13 +2,6 @@ package com.kumasuke.fetcher;
 
 import com.kumasuke.fetcher.util.FetcherBuilder;
 
-import java.lang.reflect.Field;
-import java.lang.reflect.Method;
-import java.util.List;
-import java.util.function.Predicate;
-import java.util.stream.Collectors;
-import java.util.stream.Stream;
-
 /**
  * 歌词获取器，可以获取歌曲信息、歌词和歌词来源
  */
@@ -45,54 +38,13 @@ public interface Fetcher {
      *
      * @return 装有歌词文本的 {@code Lyrics} 对象或 {@code null} 值
      * @see Lyrics
-     * @deprecated 使用反射实现的临时方法，今后可能更改或者删除
+     * @deprecated 请判断 {@code Fetcher} 是否实现了 {@link RubyLyricsSupport} 接口，并调用
+     * {@link RubyLyricsSupport#getLyricsWithRuby()} 代替
      */
     @Deprecated
     default Lyrics getLyricsWithRuby() {
-        // 底层实现可确保一定返回非 null 值
-        Class<?> superClass = this.getClass().getSuperclass();
-
-        // 获取存储 Parser 的字段列表
-        List<Field> fetcherFields = Stream.of(superClass.getDeclaredFields())
-                .collect(Collectors.toList());
-        // 查找存储用于获取歌词的 Parser 的字段
-        Predicate<Field> isParser = f -> f.getName().equals("parser");
-        Predicate<Field> isLyricsParser = f -> f.getName().equals("lyricsParser");
-        Field parserField = fetcherFields.stream()
-                .filter(isParser.or(isLyricsParser))
-                .findFirst().get();
-        // 设置访问权限
-        parserField.setAccessible(true);
-
-        // 获取歌词 Parser 对象
-        Object parserObject;
-        try {
-            parserObject = parserField.get(this);
-        } catch (IllegalAccessException e) {
-            throw new AssertionError("Won't happen if coded right.");
-        }
-
-        // 查找是否存在名为 lyricsWithRuby 的方法
-        Class<?> parserClass = parserObject.getClass();
-        Method lyricsWithRubyMethod;
-        try {
-            lyricsWithRubyMethod = parserClass.getDeclaredMethod("lyricsWithRuby");
-        } catch (NoSuchMethodException e) {
-            // 不存在该方法，返回 null 值
-            return null;
-        }
-        // 设置访问权限
-        lyricsWithRubyMethod.setAccessible(true);
-
-        // 调用该方法，并获取返回值
-        Lyrics lyricsWithRuby;
-        try {
-            lyricsWithRuby = (Lyrics) lyricsWithRubyMethod.invoke(parserObject);
-        } catch (ReflectiveOperationException e) {
-            throw new AssertionError("Won't happen if coded right.");
-        }
-
-        return lyricsWithRuby;
+        // 支持该功能的 Fetcher 将通过 RubyLyricsSupport 接口覆盖该方法
+        return null;
     }
 
     /**
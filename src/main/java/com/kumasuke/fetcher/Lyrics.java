@@ -1,6 +1,8 @@
 package com.kumasuke.fetcher;
 
 import java.util.Iterator;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 /**
  * 存放歌词文本的容器，无法进行修改
@@ -29,4 +31,13 @@ public interface Lyrics extends Iterable<String> {
      * @return {@code Iterator} 对象
      */
     Iterator<String> iterator();
+
+    /**
+     * 获取按顺序包含每行歌词文本的 {@code Stream} 对象。
+     *
+     * @return {@code Stream} 对象
+     */
+    default Stream<String> stream() {
+        return StreamSupport.stream(spliterator(), false);
+    }
 }
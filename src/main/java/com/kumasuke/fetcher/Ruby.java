@@ -0,0 +1,103 @@
+package com.kumasuke.fetcher;
+
+import java.util.Objects;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * 歌词中的一处注音，记录被注音的文字、注音及其在不含注音的歌词文本中的位置。<br>
+ * 一旦创建完成，无法修改。
+ *
+ * @see RubyLyricsSupport#getRubies()
+ */
+public final class Ruby {
+    private final int line;
+    private final int offset;
+    private final String base;
+    private final String reading;
+
+    /**
+     * 构造一个 {@code Ruby} 对象。
+     *
+     * @param line    行号，以 0 为始
+     * @param offset  被注音的文字在该行中的起始位置，以 0 为始
+     * @param base    被注音的文字
+     * @param reading 注音
+     */
+    public Ruby(int line, int offset, String base, String reading) {
+        if (line < 0 || offset < 0)
+            throw new IllegalArgumentException("The parameter 'line' and 'offset' should be non-negative.");
+
+        this.line = line;
+        this.offset = offset;
+        this.base = requireNonNull(base, "The parameter 'base' should be non-null value.");
+        this.reading = requireNonNull(reading, "The parameter 'reading' should be non-null value.");
+    }
+
+    /**
+     * 获取注音所在的行号，与 {@link Lyrics#getLine(int)} 的行号一致。
+     *
+     * @return 行号，以 0 为始
+     */
+    public int getLine() {
+        return line;
+    }
+
+    /**
+     * 获取被注音的文字在该行不含注音的歌词文本中的起始位置。
+     *
+     * @return 起始位置（含），以 0 为始
+     */
+    public int getOffset() {
+        return offset;
+    }
+
+    /**
+     * 获取被注音的文字在该行不含注音的歌词文本中的结束位置。
+     *
+     * @return 结束位置（不含）
+     */
+    public int getEnd() {
+        return offset + base.length();
+    }
+
+    /**
+     * 获取被注音的文字。
+     *
+     * @return 被注音的文字
+     */
+    public String getBase() {
+        return base;
+    }
+
+    /**
+     * 获取注音（読み仮名）。
+     *
+     * @return 注音
+     */
+    public String getReading() {
+        return reading;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o)
+            return true;
+        if (!(o instanceof Ruby))
+            return false;
+
+        Ruby other = (Ruby) o;
+        return line == other.line && offset == other.offset
+                && base.equals(other.base) && reading.equals(other.reading);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(line, offset, base, reading);
+    }
+
+    @Override
+    public String toString() {
+        return base + "(" + reading + ")@" + line + ":" + offset;
+    }
+}
@@ -0,0 +1,28 @@
+package com.kumasuke.fetcher;
+
+import java.util.List;
+
+/**
+ * 支持获取含有注音的歌词文本的歌词获取器<br>
+ * 可以通过 {@code instanceof} 判断某个 {@code Fetcher} 是否支持该功能，
+ * 也可以通过 {@link com.kumasuke.fetcher.util.FetcherBuilder#capabilitiesOf(String)} 在获取前查询站点是否支持。
+ */
+public interface RubyLyricsSupport {
+    /**
+     * 获取含有注音的歌词文本，按行存放在 {@code Lyrics} 对象中，如果存在空行则该行对应字符串为空。<br>
+     * 注音以括号的形式紧跟在被注音的文字之后。
+     *
+     * @return 装有歌词文本的 {@code Lyrics} 对象
+     * @see Lyrics
+     */
+    Lyrics getLyricsWithRuby();
+
+    /**
+     * 获取歌词中的所有注音，按出现的先后顺序排列。<br>
+     * 注音的行号和位置对应 {@link Fetcher#getLyrics()} 中不含注音的歌词文本，可用于生成卡拉 OK 字幕等。
+     *
+     * @return 装有注音的 {@code List} 对象，该对象不可修改
+     * @see Ruby
+     */
+    List<Ruby> getRubies();
+}
@@ -3,6 +3,8 @@ package com.kumasuke.fetcher.ftr;
 import com.kumasuke.fetcher.Fetcher;
 import com.kumasuke.fetcher.Header;
 import com.kumasuke.fetcher.Lyrics;
+import com.kumasuke.fetcher.util.SongRef;
+import com.kumasuke.fetcher.util.Transport;
 
 import static java.util.Objects.requireNonNull;
 
@@ -20,15 +22,16 @@ abstract class AbstractSplitFetcher<S extends SongPageParser, L extends LyricsPa
      * 构造一个 {@code AbstractSplitFetcher} 对象，用于获取对应网站歌词相关信息。<br>
      * 本构造器主要用于检查传入参数。
      *
-     * @param page      歌词页地址
-     * @param userAgent {@code UserAgent} 字符串
+     * @param site      获取器对应网站的域名
+     * @param ref       歌曲引用
+     * @param transport 连接设置
      */
-    AbstractSplitFetcher(String page, String userAgent) {
-        requireNonNull(page, "The parameter 'page' should be non-null value.");
-        requireNonNull(userAgent, "The parameter 'userAgent' should be non-null value.");
+    AbstractSplitFetcher(String site, SongRef ref, Transport transport) {
+        requireNonNull(ref, "The parameter 'ref' should be non-null value.");
+        requireNonNull(transport, "The parameter 'transport' should be non-null value.");
 
-        if (page.isEmpty() || userAgent.isEmpty())
-            throw new IllegalArgumentException("The parameters shouldn't be empty value.");
+        if (!ref.getSite().equals(site))
+            throw new IllegalArgumentException("The parameter 'ref' doesn't refer to " + site + ": " + ref);
     }
 
     /**
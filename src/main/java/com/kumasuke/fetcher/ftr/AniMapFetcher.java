@@ -1,6 +1,11 @@
 package com.kumasuke.fetcher.ftr;
 
+import com.kumasuke.fetcher.Fetcher;
 import com.kumasuke.fetcher.util.FetcherBuilder;
+import com.kumasuke.fetcher.util.FetcherFactory;
+import com.kumasuke.fetcher.util.SiteProvider;
+import com.kumasuke.fetcher.util.SongRef;
+import com.kumasuke.fetcher.util.Transport;
 
 import java.io.IOException;
 
@@ -8,6 +13,9 @@ import java.io.IOException;
  * あにまっぷ (AniMap.jp) 的歌词获取器。
  */
 public class AniMapFetcher extends AbstractSplitFetcher<AniMapSongPageParser, AniMapLyricsParser> {
+    // 网站的域名
+    private static final String SITE = "animap.jp";
+
     /**
      * 构造一个 {@code AniMapFetcher} 对象，用于获取对应网站歌词相关信息。<br>
      * 也可使用 {@link FetcherBuilder FetcherBuilder} 来进行构造。
@@ -16,11 +24,64 @@ public class AniMapFetcher extends AbstractSplitFetcher<AniMapSongPageParser, An
      * @param userAgent {@code UserAgent} 字符串
      * @throws IOException 页面连接、处理失败
      */
-    public AniMapFetcher(String page, String userAgent)
-            throws IOException {
-        super(page, userAgent);
+    public AniMapFetcher(String page, String userAgent) throws IOException {
+        this(page, Transport.of(userAgent));
+    }
+
+    /**
+     * 构造一个 {@code AniMapFetcher} 对象，用于获取对应网站歌词相关信息，且指定连接设置。<br>
+     * 也可使用 {@link FetcherFactory FetcherFactory} 来进行构造。
+     *
+     * @param page      歌词页地址或歌曲代码
+     * @param transport 连接设置
+     * @throws IOException 页面连接、处理失败
+     */
+    public AniMapFetcher(String page, Transport transport) throws IOException {
+        this(SongRef.of(SITE, page), transport);
+    }
+
+    /**
+     * 构造一个 {@code AniMapFetcher} 对象，根据歌曲引用获取对应网站歌词相关信息，且指定连接设置。<br>
+     * 也可使用 {@link FetcherFactory FetcherFactory} 来进行构造。
+     *
+     * @param ref       歌曲引用
+     * @param transport 连接设置
+     * @throws IOException 页面连接、处理失败
+     */
+    public AniMapFetcher(SongRef ref, Transport transport) throws IOException {
+        super(SITE, ref, transport);
+
+        songPageParser = new AniMapSongPageParser(ref, transport);
+        lyricsParser = new AniMapLyricsParser(songPageParser, transport);
+    }
+
+    /**
+     * あにまっぷ (AniMap.jp) 的站点提供者，由 {@link java.util.ServiceLoader} 加载。
+     */
+    public static final class Provider implements SiteProvider {
+        @Override
+        public String site() {
+            return SITE;
+        }
+
+        @Override
+        public String host() {
+            return "animap.jp";
+        }
+
+        @Override
+        public String pathPattern() {
+            return "/kasi/showkasi\\.php\\?surl=([-\\w]+)";
+        }
+
+        @Override
+        public String codePattern() {
+            return Parser.WORD_SONG_CODE;
+        }
 
-        songPageParser = new AniMapSongPageParser(page, userAgent);
-        lyricsParser = new AniMapLyricsParser(songPageParser, userAgent);
+        @Override
+        public Fetcher newFetcher(SongRef ref, Transport transport) throws IOException {
+            return new AniMapFetcher(ref, transport);
+        }
     }
 }
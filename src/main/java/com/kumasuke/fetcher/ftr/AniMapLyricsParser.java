@@ -1,35 +1,42 @@
 package com.kumasuke.fetcher.ftr;
 
 import com.kumasuke.fetcher.Lyrics;
-import com.kumasuke.fetcher.util.URLReader;
+import com.kumasuke.fetcher.util.Transport;
 
 import java.io.IOException;
-
-import static java.util.Objects.isNull;
+import java.io.Reader;
+import java.util.Collections;
+import java.util.List;
 
 /**
  * あにまっぷ (AniMap.jp) 的歌词分析器。
  */
 class AniMapLyricsParser extends LyricsParser {
-    private String doc;
+    // 歌词文本之前的标记
+    private static final String LYRICS_MARK = "test2=";
 
-    private ListLyrics lyrics;
+    private Lyrics lyrics;
 
     /**
-     * 构造一个 {@code AniMapLyricsParser} 对象，且指定 {@code UserAgent}。
+     * 构造一个 {@code AniMapLyricsParser} 对象，且指定连接设置。
      *
      * @param songPage  {@code AniMapSongPageParser} 对象<br>
-     * @param userAgent {@code UserAgent} 字符串
+     * @param transport 连接设置
      * @throws IOException 页面连接、处理失败
      */
-    AniMapLyricsParser(AniMapSongPageParser songPage, String userAgent) throws IOException {
-        this.doc = URLReader.connect(songPage.lrcUrl())
+    AniMapLyricsParser(AniMapSongPageParser songPage, Transport transport) throws IOException {
+        Reader reader = transport.connect(songPage.lrcUrl())
                 .charset("Shift-JIS")
-                .timeout(5000)
                 .referer(songPage.flashUrl())
-                .userAgent(userAgent)
                 .xRequestedWith(FLASH_VERSION)
-                .getText();
+                .getReader();
+
+        try (MarkerScanner scanner = new MarkerScanner(reader)) {
+            List<String> lyricsText = scanner.skipTo(LYRICS_MARK) ?
+                    scanner.lines(null, "\n") : Collections.emptyList();
+
+            this.lyrics = toLyrics(lyricsText);
+        }
     }
 
     /**
@@ -39,13 +46,6 @@ class AniMapLyricsParser extends LyricsParser {
      */
     @Override
     Lyrics lyrics() {
-        if (isNull(lyrics)) {
-            int begin = doc.indexOf("test2=") + 6;
-            String[] lyricsText = doc.substring(begin).split("\\n");
-
-            lyrics = toLyrics(lyricsText);
-        }
-
         return lyrics;
     }
 }
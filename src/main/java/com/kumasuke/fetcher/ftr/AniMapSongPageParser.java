@@ -1,15 +1,13 @@
 package com.kumasuke.fetcher.ftr;
 
 import com.kumasuke.fetcher.Header;
-import org.jsoup.Jsoup;
+import com.kumasuke.fetcher.util.SongRef;
+import com.kumasuke.fetcher.util.Transport;
 import org.jsoup.nodes.Document;
 import org.jsoup.select.Elements;
 
 import java.io.IOException;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
 
-import static com.kumasuke.fetcher.util.Tools.toSet;
 import static java.util.Objects.isNull;
 
 /**
@@ -19,14 +17,13 @@ import static java.util.Objects.isNull;
 class AniMapSongPageParser extends SongPageParser {
     // 网站的主机名
     private static final String HOSTNAME = "http://www.animap.jp";
-    // 匹配歌词页地址的正则表达式
-    private static final Pattern fullUrlPattern;
-    // 匹配歌曲代码的正则表达式
-    private static final Pattern songCodePattern;
+    // 歌曲信息表格及其中各个单元格的选择器
+    private static final SelectorPlan tableSelector;
+    private static final SelectorPlan cellSelector;
 
     static {
-        fullUrlPattern = Pattern.compile(".*?jp/kasi/showkasi\\.php\\?surl=([-\\w]+)");
-        songCodePattern = WORD_SONG_CODE_PATTERN;
+        tableSelector = SelectorPlan.of("table[width=442]");
+        cellSelector = SelectorPlan.of("td[bgcolor=#ffffff]");
     }
 
     private Document doc;
@@ -35,38 +32,20 @@ class AniMapSongPageParser extends SongPageParser {
     private EnumHeader header;
 
     /**
-     * 构造一个 {@code AniMapSongPageParser} 对象，且指定 {@code UserAgent}。
+     * 构造一个 {@code AniMapSongPageParser} 对象，且指定连接设置。
      *
-     * @param page      歌词页地址或歌曲代码
-     * @param userAgent {@code UserAgent} 字符串
+     * @param ref       歌曲引用
+     * @param transport 连接设置
      * @throws IOException 页面连接、处理失败
      */
-    AniMapSongPageParser(String page, String userAgent) throws IOException {
-        if (!validate(page))
-            throw new IllegalArgumentException("Unable to resolve the parameter page: " + page);
+    AniMapSongPageParser(SongRef ref, Transport transport) throws IOException {
+        this.songCode = ref.getCode();
 
-        initialize(userAgent);
+        initialize(transport);
     }
 
-    private boolean validate(String page) {
-        Matcher fullUrl = fullUrlPattern.matcher(page);
-        Matcher songCode = songCodePattern.matcher(page);
-
-        if (fullUrl.matches())
-            this.songCode = fullUrl.group(1);
-        else if (songCode.matches())
-            this.songCode = page;
-        else
-            return false;
-
-        return true;
-    }
-
-    private void initialize(String userAgent) throws IOException {
-        this.doc = Jsoup.connect(songPageUrl())
-                .timeout(5000)
-                .userAgent(userAgent)
-                .get();
+    private void initialize(Transport transport) throws IOException {
+        this.doc = transport.document(songPageUrl());
     }
 
     /**
@@ -79,20 +58,14 @@ class AniMapSongPageParser extends SongPageParser {
         if (isNull(header)) {
             header = new EnumHeader();
 
-            Elements titleAndArtists = doc
-                    .select("table[width=442]")
-                    .first()
-                    .select("td[bgcolor=#ffffff]");
+            Elements titleAndArtists = cellSelector.select(tableSelector.first(doc));
 
-            String[] artists = titleAndArtists.get(0).text().split("/");
-            String[] lyricists = titleAndArtists.get(1).text().split("/");
             String title = htmlTrim(titleAndArtists.get(2).text());
-            String[] composers = titleAndArtists.get(3).text().split("/");
 
-            header.setArtist(toSet(Parser::htmlTrim, artists))
-                    .setLyricist(toSet(Parser::htmlTrim, lyricists))
+            header.setArtist(splitToSet(titleAndArtists.get(0).text(), "/"))
+                    .setLyricist(splitToSet(titleAndArtists.get(1).text(), "/"))
                     .setTitle(title)
-                    .setComposer(toSet(Parser::htmlTrim, composers));
+                    .setComposer(splitToSet(titleAndArtists.get(3).text(), "/"));
         }
 
         return header;
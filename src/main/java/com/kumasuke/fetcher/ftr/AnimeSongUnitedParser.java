@@ -2,14 +2,14 @@ package com.kumasuke.fetcher.ftr;
 
 import com.kumasuke.fetcher.Header;
 import com.kumasuke.fetcher.Lyrics;
-import org.jsoup.Jsoup;
+import com.kumasuke.fetcher.util.SongRef;
+import com.kumasuke.fetcher.util.Transport;
 import org.jsoup.nodes.Document;
 
 import java.io.IOException;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
 
 import static java.util.Objects.isNull;
+import static java.util.Objects.nonNull;
 
 /**
  * アニメソングの歌詞ならここにおまかせ？ (Jtw.Zaq.Ne.jp/AnimeSong) 的统合分析器。<br>
@@ -18,60 +18,106 @@ import static java.util.Objects.isNull;
 class AnimeSongUnitedParser extends UnitedParser {
     // 网站的主机名
     private static final String HOSTNAME = "http://www.jtw.zaq.ne.jp/animesong";
-    // 提取歌曲基本信息和歌词的正则表达式
-    private static final Pattern allInfoPattern;
-    // 匹配歌词页地址的正则表达式
-    private static final Pattern fullUrlPattern;
+    // 歌曲信息和歌词所在元素的选择器
+    private static final SelectorPlan textSelector;
+    // 各项信息前的标记
+    private static final String LYRICIST_MARK = "\u4f5c\u8a5e\uff1a";
+    private static final String COMPOSER_MARK = "\u4f5c\u66f2\uff1a";
+    private static final String ARRANGER_MARK = "\u7de8\u66f2\uff1a";
+    private static final String ARTIST_MARK = "\u6b4c\uff1a";
+    // 各项信息之间的分隔符
+    private static final char SEPARATOR = '\uff0f';
 
     static {
-        allInfoPattern = Pattern.compile("(?<title>.*?)\\n\\s+             # title     \n" +
-                        "\\u4f5c\\u8a5e\\uff1a(?<lyricist>.*?)\\uff0f\\s*  # lyricist  \n" +
-                        "\\u4f5c\\u66f2\\uff1a(?<composer>.*?)\\uff0f\\s*  # composer  \n" +
-                        "\\u7de8\\u66f2\\uff1a(?<arranger>.*?)\\uff0f\\s*  # arranger  \n" +
-                        "\\u6b4c\\uff1a(?<artist>.*?)\\n\\s+               # artist    \n" +
-                        "(?<lyrics>.*)                                     # lyrics    \n",
-                Pattern.COMMENTS | Pattern.DOTALL);
-        fullUrlPattern = Pattern.compile(".*?/animesong/(\\w{1,2})/(\\w+)/(\\w+)\\.html");
+        textSelector = SelectorPlan.of("td.b pre");
     }
 
-    private Matcher matcher;
+    // 依次为标题、作词、作曲、编曲、歌手和歌词，格式不符时为 null
+    private String[] info;
     private String url;
 
     private EnumHeader header;
-    private ListLyrics lyrics;
+    private Lyrics lyrics;
 
     /**
-     * 构造一个 {@code AnimeSongUnitedParser} 对象，且指定 {@code UserAgent}。
+     * 构造一个 {@code AnimeSongUnitedParser} 对象，且指定连接设置。
      *
-     * @param page      歌词页地址
-     * @param userAgent {@code UserAgent} 字符串
+     * @param ref       歌曲引用
+     * @param transport 连接设置
      * @throws IOException 页面连接、处理失败
      */
-    AnimeSongUnitedParser(String page, String userAgent) throws IOException {
-        if (!validate(page))
-            throw new IllegalArgumentException("Unable to resolve the parameter page: " + page);
+    AnimeSongUnitedParser(SongRef ref, Transport transport) throws IOException {
+        this.url = HOSTNAME + "/" + ref.getCode() + ".html";
 
-        initialize(userAgent);
+        initialize(transport);
     }
 
-    private boolean validate(String page) {
-        Matcher fullUrl = fullUrlPattern.matcher(page);
+    private void initialize(Transport transport) throws IOException {
+        Document doc = transport.document(songPageUrl());
+        String docText = textSelector.first(doc).text();
+        info = scan(docText);
+    }
+
+    /**
+     * 按顺序查找各项信息的标记，切分出标题、作词、作曲、编曲、歌手和歌词。<br>
+     * 格式为 “标题\n 作詞：…／作曲：…／編曲：…／歌：…\n 歌词”，每个标记取第一个能使后续格式成立的位置，
+     * 结果与原先的正则表达式
+     * {@code (.*?)\n\s+作詞：(.*?)／\s*作曲：(.*?)／\s*編曲：(.*?)／\s*歌：(.*?)\n\s+(.*)} 相同，
+     * 但每个字符只被检查常数次。
+     *
+     * @param text 页面中 {@code <pre>} 元素的文本
+     * @return 各项信息，格式不符时返回 {@code null}
+     */
+    static String[] scan(String text) {
+        String[] result = new String[6];
+
+        // 标题：以换行符和至少一个空白字符与“作詞：”分隔
+        int mark = -1;
+        for (int k = text.indexOf(LYRICIST_MARK); k >= 0 && mark < 0; k = text.indexOf(LYRICIST_MARK, k + 1)) {
+            int spaces = k;
+            while (spaces > 0 && TextScanner.isSpace(text.charAt(spaces - 1)))
+                spaces--;
+            int newLine = TextScanner.indexOf(text, "\n", spaces, k - 1);
+            if (newLine >= 0) {
+                result[0] = text.substring(0, newLine);
+                mark = k;
+            }
+        }
+        if (mark < 0)
+            return null;
+
+        int pos = mark + LYRICIST_MARK.length();
+        String[] marks = {COMPOSER_MARK, ARRANGER_MARK, ARTIST_MARK};
+        for (int i = 0; i < marks.length; i++) {
+            int end = separatorBefore(text, pos, marks[i]);
+            if (end < 0)
+                return null;
+
+            result[i + 1] = text.substring(pos, end);
+            pos = TextScanner.skipSpaces(text, end + 1) + marks[i].length();
+        }
+
+        // 歌手：以换行符和至少一个空白字符与歌词分隔
+        int newLine = text.indexOf('\n', pos);
+        while (newLine >= 0 && (newLine + 1 == text.length() || !TextScanner.isSpace(text.charAt(newLine + 1))))
+            newLine = text.indexOf('\n', newLine + 1);
+        if (newLine < 0)
+            return null;
 
-        if (fullUrl.matches())
-            this.url = HOSTNAME + "/" + fullUrl.group(1) + "/" + fullUrl.group(2) + "/" + fullUrl.group(3) + ".html";
-        else
-            return false;
+        result[4] = text.substring(pos, newLine);
+        result[5] = text.substring(TextScanner.skipSpaces(text, newLine + 1));
 
-        return true;
+        return result;
     }
 
-    private void initialize(String userAgent) throws IOException {
-        Document doc = Jsoup.connect(songPageUrl())
-                .timeout(5000)
-                .userAgent(userAgent)
-                .get();
-        String docText = doc.select("td.b pre").first().text();
-        matcher = allInfoPattern.matcher(docText);
+    // 查找其后紧跟（可隔有空白）给定标记的第一个分隔符
+    private static int separatorBefore(String text, int from, String next) {
+        for (int i = text.indexOf(SEPARATOR, from); i >= 0; i = text.indexOf(SEPARATOR, i + 1)) {
+            if (text.startsWith(next, TextScanner.skipSpaces(text, i + 1)))
+                return i;
+        }
+
+        return -1;
     }
 
     /**
@@ -84,18 +130,14 @@ class AnimeSongUnitedParser extends UnitedParser {
         if (isNull(header)) {
             header = new EnumHeader();
 
-            if (matcher.matches()) {
-                String title = matcher.group("title").trim();
-                String[] lyricists = matcher.group("lyricist").split("\\u3001");
-                String[] composers = matcher.group("composer").split("\\u3001");
-                String[] arrangers = matcher.group("arranger").split("\\u3001");
-                String[] artists = matcher.group("artist").split("\\u3001");
+            if (nonNull(info)) {
+                String title = info[0].trim();
 
                 header.setTitle(title)
-                        .setLyricist(toStringSet(lyricists))
-                        .setComposer(toStringSet(composers))
-                        .setArranger(toStringSet(arrangers))
-                        .setArtist(toStringSet(artists));
+                        .setLyricist(splitToSet(info[1], "\u3001"))
+                        .setComposer(splitToSet(info[2], "\u3001"))
+                        .setArranger(splitToSet(info[3], "\u3001"))
+                        .setArtist(splitToSet(info[4], "\u3001"));
             }
         }
 
@@ -110,12 +152,10 @@ class AnimeSongUnitedParser extends UnitedParser {
     @Override
     Lyrics lyrics() {
         if (isNull(lyrics)) {
-            if (matcher.matches()) {
-                String[] lyricsText = matcher.group("lyrics").split("\\n");
-
-                lyrics = toLyrics(lyricsText);
+            if (nonNull(info)) {
+                lyrics = toLyrics(LineSplitter.LINE_BREAKS.split(info[5]));
             } else
-                throw new AssertionError("The regex matching lyrics ran across some problem.");
+                throw new AssertionError("The scanner matching lyrics ran across some problem.");
         }
 
         return lyrics;
@@ -0,0 +1,31 @@
+package com.kumasuke.fetcher.ftr;
+
+import com.kumasuke.fetcher.util.SongRef;
+import com.kumasuke.fetcher.util.Transport;
+
+import java.io.IOException;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * 根据声明式站点定义获取歌词的歌词获取器。
+ *
+ * @see SiteDefinition
+ */
+public class DeclarativeFetcher extends AbstractUnitedFetcher<DeclarativeUnitedParser> {
+    /**
+     * 构造一个 {@code DeclarativeFetcher} 对象，根据歌曲引用获取对应网站歌词相关信息，且指定连接设置。<br>
+     * 通常由 {@link SiteDefinition#newFetcher(SongRef, Transport)} 进行构造。
+     *
+     * @param definition 站点定义
+     * @param ref        歌曲引用
+     * @param transport  连接设置
+     * @throws IOException 页面连接、处理失败
+     */
+    public DeclarativeFetcher(SiteDefinition definition, SongRef ref, Transport transport) throws IOException {
+        super(requireNonNull(definition, "The parameter 'definition' should be non-null value.").site(),
+                ref, transport);
+
+        parser = new DeclarativeUnitedParser(definition, ref, transport);
+    }
+}
@@ -0,0 +1,81 @@
+package com.kumasuke.fetcher.ftr;
+
+import com.kumasuke.fetcher.Header;
+import com.kumasuke.fetcher.Lyrics;
+import com.kumasuke.fetcher.util.SongRef;
+import com.kumasuke.fetcher.util.Transport;
+import org.jsoup.nodes.Document;
+
+import java.io.IOException;
+
+import static java.util.Objects.isNull;
+
+/**
+ * 根据声明式站点定义进行分析的统合分析器。<br>
+ * 使用 {@code Jsoup} 包获取页面信息。
+ */
+class DeclarativeUnitedParser extends UnitedParser {
+    private final SiteDefinition definition;
+
+    private final String url;
+
+    private Document doc;
+
+    private EnumHeader header;
+    private Lyrics lyrics;
+
+    /**
+     * 构造一个 {@code DeclarativeUnitedParser} 对象，且指定连接设置。
+     *
+     * @param definition 站点定义
+     * @param ref        歌曲引用
+     * @param transport  连接设置
+     * @throws IOException 页面连接、处理失败
+     */
+    DeclarativeUnitedParser(SiteDefinition definition, SongRef ref, Transport transport) throws IOException {
+        this.definition = definition;
+        this.url = definition.songPageUrl(ref);
+
+        initialize(transport);
+    }
+
+    private void initialize(Transport transport) throws IOException {
+        this.doc = transport.document(songPageUrl());
+    }
+
+    /**
+     * 获取歌曲基本信息。
+     *
+     * @return 装有歌曲信息的 {@code Header} 容器
+     */
+    @Override
+    Header header() {
+        if (isNull(header))
+            header = definition.header(doc);
+
+        return header;
+    }
+
+    /**
+     * 获取歌词文本。
+     *
+     * @return 装有歌词文本的 {@code Lyrics} 容器
+     */
+    @Override
+    Lyrics lyrics() {
+        if (isNull(lyrics))
+            lyrics = definition.lyrics(doc);
+
+        return lyrics;
+    }
+
+    /**
+     * 获取歌词页地址。
+     *
+     * @return 歌词页地址
+     */
+    @Override
+    String songPageUrl() {
+        return url;
+    }
+}
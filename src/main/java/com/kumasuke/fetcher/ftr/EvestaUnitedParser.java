@@ -2,15 +2,16 @@ package com.kumasuke.fetcher.ftr;
 
 import com.kumasuke.fetcher.Header;
 import com.kumasuke.fetcher.Lyrics;
-import org.jsoup.Jsoup;
-import org.jsoup.nodes.Document;
+import com.kumasuke.fetcher.util.SongRef;
+import com.kumasuke.fetcher.util.Transport;
 import org.jsoup.nodes.Element;
 
 import java.io.IOException;
+import java.io.Reader;
+import java.util.List;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
-import static com.kumasuke.fetcher.util.Tools.toSet;
 import static java.util.Objects.isNull;
 
 
@@ -25,8 +26,8 @@ class EvestaUnitedParser extends UnitedParser {
     private static final Pattern titlePattern;
     // 提取歌曲基本信息的正则表达式
     private static final Pattern infoPattern;
-    // 匹配歌词页地址的正则表达式
-    private static final Pattern fullUrlPattern;
+    // 歌词页中需要提取的元素
+    private static final StreamingExtractor extractor;
 
     static {
         titlePattern = Pattern.compile("(.*?)\\u6b4c\\u8a5e\\s\\u002f.*");
@@ -34,45 +35,53 @@ class EvestaUnitedParser extends UnitedParser {
                         "\\u4f5c\\u8a5e\\uff1a(.*?)           # lyricist  \n" +
                         "\\u4f5c\\u66f2\\uff1a(.*)            # composer  \n",
                 Pattern.COMMENTS);
-        fullUrlPattern = Pattern.compile(".*?/lyric/artists/(a\\d+)/lyrics/(l\\d+)\\.html");
+        extractor = StreamingExtractor.newBuilder()
+                .select("#titleBand h1")
+                .select("#descriptionBand div.artists")
+                .select("#lyricview div.body p")
+                .build();
     }
 
-    private Document doc;
+    private StreamingExtractor.Result page;
     private String url;
 
     private EnumHeader header;
-    private ListLyrics lyrics;
+    private Lyrics lyrics;
 
     /**
-     * 构造一个 {@code EvestaUnitedParser} 对象，且指定 {@code UserAgent}。
+     * 构造一个 {@code EvestaUnitedParser} 对象，且指定连接设置。
      *
-     * @param page      歌词页地址
-     * @param userAgent {@code UserAgent} 字符串
+     * @param ref       歌曲引用
+     * @param transport 连接设置
      * @throws IOException 页面连接、处理失败
      */
-    EvestaUnitedParser(String page, String userAgent) throws IOException {
-        if (!validate(page))
-            throw new IllegalArgumentException("Unable to resolve the parameter page: " + page);
+    EvestaUnitedParser(SongRef ref, Transport transport) throws IOException {
+        this.url = urlOf(ref);
 
-        initialize(userAgent);
+        initialize(transport);
     }
 
-    private boolean validate(String page) {
-        Matcher fullUrl = fullUrlPattern.matcher(page);
+    /**
+     * 构造一个 {@code EvestaUnitedParser} 对象，从给定的歌词页文本中提取信息，不进行任何访问。
+     *
+     * @param ref  歌曲引用
+     * @param page 歌词页的 Html 文本，提取完成后不会被关闭
+     * @throws IOException 页面读取失败
+     */
+    EvestaUnitedParser(SongRef ref, Reader page) throws IOException {
+        this.url = urlOf(ref);
 
-        if (fullUrl.matches())
-            this.url = HOSTNAME + "/lyric/artists/" + fullUrl.group(1) + "/lyrics/" + fullUrl.group(2) + ".html";
-        else
-            return false;
+        this.page = extractor.extract(page, songPageUrl());
+    }
+
+    private static String urlOf(SongRef ref) {
+        String[] code = ref.getCode().split("/");
 
-        return true;
+        return HOSTNAME + "/lyric/artists/" + code[0] + "/lyrics/" + code[1] + ".html";
     }
 
-    private void initialize(String userAgent) throws IOException {
-        this.doc = Jsoup.connect(songPageUrl())
-                .timeout(5000)
-                .userAgent(userAgent)
-                .get();
+    private void initialize(Transport transport) throws IOException {
+        this.page = extractor.extract(transport, songPageUrl());
     }
 
     /**
@@ -85,7 +94,7 @@ class EvestaUnitedParser extends UnitedParser {
         if (isNull(header)) {
             header = new EnumHeader();
 
-            Element titleElement = doc.select("#titleBand h1").first();
+            Element titleElement = page.first("#titleBand h1");
             Matcher titleMatcher = titlePattern.matcher(titleElement.text());
 
             if (titleMatcher.matches()) {
@@ -93,17 +102,13 @@ class EvestaUnitedParser extends UnitedParser {
                 header.setTitle(title);
             }
 
-            Element artistsElement = doc.select("#descriptionBand div.artists").first();
+            Element artistsElement = page.first("#descriptionBand div.artists");
             Matcher matcher = infoPattern.matcher(artistsElement.text());
 
             if (matcher.matches()) {
-                String[] artists = matcher.group(1).split("/");
-                String[] lyricists = matcher.group(2).split("/");
-                String[] composers = matcher.group(3).split("/");
-
-                header.setArtist(toSet(Parser::superTrim, artists))
-                        .setLyricist(toSet(Parser::superTrim, lyricists))
-                        .setComposer(toSet(Parser::superTrim, composers));
+                header.setArtist(splitToSet(matcher.group(1), "/"))
+                        .setLyricist(splitToSet(matcher.group(2), "/"))
+                        .setComposer(splitToSet(matcher.group(3), "/"));
             }
         }
 
@@ -118,8 +123,8 @@ class EvestaUnitedParser extends UnitedParser {
     @Override
     Lyrics lyrics() {
         if (isNull(lyrics)) {
-            Element lrcBody = doc.select("#lyricview div.body p").first();
-            String[] lyricsText = lrcBody.html().split("<br(?: /)?>");
+            Element lrcBody = page.first("#lyricview div.body p");
+            List<String> lyricsText = LineSplitter.HTML_BREAKS.split(lrcBody.html());
 
             lyrics = toLyrics(Parser::parseHtml, lyricsText);
         }
@@ -0,0 +1,365 @@
+package com.kumasuke.fetcher.ftr;
+
+import org.jsoup.Jsoup;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Html 片段到普通文本的转换工具。<br>
+ * 结果与 {@code Jsoup.parse(html).text()} 完全一致，但对于歌词行中常见的片段
+ * （行内标签、{@code <br>}、{@code <p>}、{@code <div>}、常用实体和数字实体）
+ * 只扫描一次字符串，不构造文档树。<br>
+ * 遇到无法保证结果一致的片段（表格、注释、脚本、未知实体等）时退回 {@code Jsoup} 解析。
+ */
+final class HtmlText {
+    // 可以在扫描中直接处理的标签，值为 Jsoup 中该标签是否为块级元素
+    private static final Map<String, Boolean> FAST_TAGS;
+    // 可以在扫描中直接解码的命名实体
+    private static final Map<String, Character> FAST_ENTITIES;
+
+    static {
+        FAST_TAGS = new HashMap<>();
+        for (String name : new String[]{"a", "b", "big", "code", "em", "font", "i", "small", "span",
+                "strike", "strong", "sub", "sup", "tt", "u", "ruby", "rb", "rp", "rt", "br", "img"})
+            FAST_TAGS.put(name, false);
+        for (String name : new String[]{"p", "div", "h1", "h2", "h3", "h4", "h5", "h6"})
+            FAST_TAGS.put(name, true);
+
+        FAST_ENTITIES = new HashMap<>();
+        FAST_ENTITIES.put("amp", '&');
+        FAST_ENTITIES.put("lt", '<');
+        FAST_ENTITIES.put("gt", '>');
+        FAST_ENTITIES.put("quot", '"');
+        FAST_ENTITIES.put("nbsp", Parser.JSOUP_NBSP.charAt(0));
+    }
+
+    private HtmlText() {
+        throw new AssertionError();
+    }
+
+    /**
+     * 将 Html 片段转换为普通文本。
+     *
+     * @param html Html 片段
+     * @return 普通文本，与 {@code Jsoup.parse(html).text()} 的结果相同
+     */
+    static String toText(String html) {
+        Appender appender = new Appender(html.length());
+
+        return appender.append(html) ? appender.text() : Jsoup.parse(html).text();
+    }
+
+    private static boolean isWhitespace(char c) {
+        return c == ' ' || c == '\t' || c == '\n' || c == '\f' || c == '\r';
+    }
+
+    private static boolean isAsciiLetter(char c) {
+        return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z');
+    }
+
+    private static boolean isAsciiLetterOrDigit(char c) {
+        return isAsciiLetter(c) || (c >= '0' && c <= '9');
+    }
+
+    /**
+     * 逐段转换 Html 片段，按 Jsoup 的规则合并空白并在块级元素和 {@code <br>} 前插入空格。<br>
+     * 依次追加的各个片段相当于一个完整的片段，片段之间不能截断标签或实体。
+     */
+    static final class Appender {
+        private final StringBuilder out;
+        private String html;
+        private int length;
+        private int pos;
+
+        // 当前打开的 p、div、h1 ~ h6 元素，Jsoup 中只有它们会影响 p 元素的闭合
+        private final StringBuilder open = new StringBuilder();
+
+        /**
+         * 构造一个 {@code Appender} 对象。
+         *
+         * @param capacity 预计的文本长度
+         */
+        Appender(int capacity) {
+            this.out = new StringBuilder(capacity);
+        }
+
+        /**
+         * 追加一个 Html 片段。
+         *
+         * @param html Html 片段
+         * @return 是否成功，无法保证结果与 Jsoup 一致时返回 {@code false}，此后不应继续使用该对象
+         */
+        boolean append(String html) {
+            this.html = html;
+            this.length = html.length();
+            this.pos = 0;
+
+            while (pos < length) {
+                char c = html.charAt(pos);
+
+                if (c == '<') {
+                    if (!tag())
+                        return false;
+                } else if (c == '&') {
+                    if (!entity())
+                        return false;
+                } else if (c == '\0') {
+                    return false;
+                } else {
+                    text(c);
+                    pos++;
+                }
+            }
+
+            return true;
+        }
+
+        /**
+         * 获取当前已转换的文本长度（未去除两端空格）。
+         *
+         * @return 文本长度
+         */
+        int length() {
+            return out.length();
+        }
+
+        /**
+         * 获取去除两端空格时将从开头去除的字符数。
+         *
+         * @return 开头的空白字符数
+         */
+        int leading() {
+            int i = 0;
+            while (i < out.length() && out.charAt(i) <= ' ')
+                i++;
+
+            return i;
+        }
+
+        /**
+         * 获取转换结果。
+         *
+         * @return 去除两端空格后的普通文本，与 {@code Jsoup.parse(html).text()} 相同
+         */
+        String text() {
+            return out.toString().trim();
+        }
+
+        private void text(char c) {
+            if (isWhitespace(c)) {
+                if (!lastIsSpace())
+                    out.append(' ');
+            } else {
+                out.append(c);
+            }
+        }
+
+        private boolean lastIsSpace() {
+            int n = out.length();
+
+            return n > 0 && out.charAt(n - 1) == ' ';
+        }
+
+        // 块级元素开始时，若已有文本且末尾不是空格则追加一个空格
+        private void blockSpace() {
+            if (out.length() > 0 && !lastIsSpace())
+                out.append(' ');
+        }
+
+        private boolean entity() {
+            int start = pos + 1;
+            if (start >= length || !(isAsciiLetterOrDigit(html.charAt(start)) || html.charAt(start) == '#')) {
+                // 不构成实体引用，按字面值输出
+                out.append('&');
+                pos++;
+                return true;
+            }
+
+            int end = html.indexOf(';', start);
+            if (end < 0)
+                return false;
+
+            int codePoint;
+            if (html.charAt(start) == '#') {
+                codePoint = numericEntity(start + 1, end);
+            } else {
+                Character ch = FAST_ENTITIES.get(html.substring(start, end));
+                codePoint = ch == null ? -1 : ch;
+            }
+            if (codePoint < 0)
+                return false;
+
+            if (Character.isBmpCodePoint(codePoint)) {
+                text((char) codePoint);
+            } else {
+                out.appendCodePoint(codePoint);
+            }
+            pos = end + 1;
+
+            return true;
+        }
+
+        // 解析数字实体，只接受无需 Jsoup 特殊处理的码点
+        private int numericEntity(int start, int end) {
+            int radix = 10;
+            if (start < end && (html.charAt(start) == 'x' || html.charAt(start) == 'X')) {
+                radix = 16;
+                start++;
+            }
+            if (start == end || end - start > 6)
+                return -1;
+
+            int value = 0;
+            for (int i = start; i < end; i++) {
+                int digit = Character.digit(html.charAt(i), radix);
+                if (digit < 0)
+                    return -1;
+                value = value * radix + digit;
+            }
+
+            boolean plain = (value >= 0x20 && value < 0x7f) || isWhitespace((char) value)
+                    || (value >= 0xa0 && value < 0xd800)
+                    || (value >= 0xe000 && value <= 0xfffd)
+                    || (value >= 0x10000 && value <= 0x10ffff);
+
+            return plain ? value : -1;
+        }
+
+        private boolean tag() {
+            int i = pos + 1;
+            if (i >= length)
+                return false;
+
+            boolean end = html.charAt(i) == '/';
+            if (end)
+                i++;
+            if (i >= length || !isAsciiLetter(html.charAt(i))) {
+                // 注释、声明等交由 Jsoup 处理
+                if (end || i >= length || html.charAt(i) == '!' || html.charAt(i) == '?')
+                    return false;
+                // '<' 后不是标签名时按字面值输出
+                out.append('<');
+                pos++;
+                return true;
+            }
+
+            int nameStart = i;
+            while (i < length && !isWhitespace(html.charAt(i)) && html.charAt(i) != '/' && html.charAt(i) != '>')
+                i++;
+            String name = html.substring(nameStart, i).toLowerCase();
+            Boolean block = FAST_TAGS.get(name);
+            if (block == null)
+                return false;
+
+            int close = skipAttributes(i);
+            if (close < 0)
+                return false;
+            boolean selfClosing = close > i && html.charAt(close - 1) == '/';
+            if (selfClosing && close - 1 > i) {
+                // 未加引号的属性值中的 '/' 属于属性值
+                char prev = html.charAt(close - 2);
+                if (!isWhitespace(prev) && prev != '"' && prev != '\'')
+                    return false;
+            }
+            pos = close + 1;
+
+            if (end)
+                return endTag(name);
+
+            if (!startTag(name, block))
+                return false;
+
+            return !selfClosing || name.equals("br") || name.equals("img") || endTag(name);
+        }
+
+        // 跳过属性，返回标签结束的 '>' 的位置，标签未结束时返回 -1
+        private int skipAttributes(int i) {
+            boolean afterEquals = false;
+
+            while (i < length) {
+                char c = html.charAt(i);
+
+                if (c == '>') {
+                    return i;
+                } else if (c == '=') {
+                    afterEquals = true;
+                    i++;
+                } else if (isWhitespace(c)) {
+                    i++;
+                } else if (afterEquals && (c == '"' || c == '\'')) {
+                    int quote = html.indexOf(c, i + 1);
+                    if (quote < 0)
+                        return -1;
+                    i = quote + 1;
+                    afterEquals = false;
+                } else if (c == '"' || c == '\'' || c == '<' || c == '`') {
+                    return -1;
+                } else {
+                    afterEquals = false;
+                    i++;
+                }
+            }
+
+            return -1;
+        }
+
+        private boolean startTag(String name, boolean block) {
+            boolean heading = isHeading(name);
+
+            if (block) {
+                if (heading && headingOpen())
+                    return false;
+                // p、div、h1 ~ h6 开始时关闭打开的 p 元素
+                closeP();
+                open.append(heading ? 'h' : name.charAt(0));
+                blockSpace();
+            } else if (name.equals("br")) {
+                blockSpace();
+            }
+
+            return true;
+        }
+
+        private boolean endTag(String name) {
+            if (name.equals("br")) {
+                // Jsoup 将 </br> 视为 <br>
+                blockSpace();
+            } else if (name.equals("p")) {
+                if (open.indexOf("p") < 0) {
+                    // Jsoup 为多余的 </p> 插入一个空的 p 元素
+                    blockSpace();
+                } else {
+                    closeP();
+                }
+            } else if (name.equals("div")) {
+                popUntil('d');
+            } else if (isHeading(name)) {
+                popUntil('h');
+            }
+
+            return true;
+        }
+
+        private void closeP() {
+            int n = open.length();
+            if (n > 0 && open.charAt(n - 1) == 'p')
+                open.setLength(n - 1);
+        }
+
+        private boolean headingOpen() {
+            return open.indexOf("h") >= 0;
+        }
+
+        // 关闭最近打开的给定元素及其后打开的元素，不存在时忽略
+        private void popUntil(char element) {
+            int index = open.lastIndexOf(String.valueOf(element));
+            if (index >= 0)
+                open.setLength(index);
+        }
+
+        private static boolean isHeading(String name) {
+            return name.length() == 2 && name.charAt(0) == 'h' && name.charAt(1) >= '1' && name.charAt(1) <= '6';
+        }
+    }
+}
@@ -1,6 +1,11 @@
 package com.kumasuke.fetcher.ftr;
 
+import com.kumasuke.fetcher.Fetcher;
 import com.kumasuke.fetcher.util.FetcherBuilder;
+import com.kumasuke.fetcher.util.FetcherFactory;
+import com.kumasuke.fetcher.util.SiteProvider;
+import com.kumasuke.fetcher.util.SongRef;
+import com.kumasuke.fetcher.util.Transport;
 
 import java.io.IOException;
 
@@ -8,6 +13,9 @@ import java.io.IOException;
  * 歌詞検索 (J-Lyric.net) 的歌词获取器。
  */
 public class JLyricFetcher extends AbstractUnitedFetcher<JLyricUnitedParser> {
+    // 网站的域名
+    private static final String SITE = "j-lyric.net";
+
     /**
      * 构造一个 {@code JLyricFetcher} 对象，用于获取对应网站歌词相关信息。<br>
      * 也可使用 {@link FetcherBuilder FetcherBuilder} 来进行构造。
@@ -17,8 +25,62 @@ public class JLyricFetcher extends AbstractUnitedFetcher<JLyricUnitedParser> {
      * @throws IOException 页面连接、处理失败
      */
     public JLyricFetcher(String page, String userAgent) throws IOException {
-        super(page, userAgent);
+        this(page, Transport.of(userAgent));
+    }
+
+    /**
+     * 构造一个 {@code JLyricFetcher} 对象，用于获取对应网站歌词相关信息，且指定连接设置。<br>
+     * 也可使用 {@link FetcherFactory FetcherFactory} 来进行构造。
+     *
+     * @param page      歌词页地址
+     * @param transport 连接设置
+     * @throws IOException 页面连接、处理失败
+     */
+    public JLyricFetcher(String page, Transport transport) throws IOException {
+        this(SongRef.of(SITE, page), transport);
+    }
+
+    /**
+     * 构造一个 {@code JLyricFetcher} 对象，根据歌曲引用获取对应网站歌词相关信息，且指定连接设置。<br>
+     * 也可使用 {@link FetcherFactory FetcherFactory} 来进行构造。
+     *
+     * @param ref       歌曲引用
+     * @param transport 连接设置
+     * @throws IOException 页面连接、处理失败
+     */
+    public JLyricFetcher(SongRef ref, Transport transport) throws IOException {
+        super(SITE, ref, transport);
+
+        parser = new JLyricUnitedParser(ref, transport);
+    }
+
+    /**
+     * 歌詞検索 (J-Lyric.net) 的站点提供者，由 {@link java.util.ServiceLoader} 加载。
+     */
+    public static final class Provider implements SiteProvider {
+        @Override
+        public String site() {
+            return SITE;
+        }
+
+        @Override
+        public String host() {
+            return "j-lyric.net";
+        }
+
+        @Override
+        public String pathPattern() {
+            return "/artist/(a\\w+)/(l\\w+)\\.html";
+        }
+
+        @Override
+        public String codePattern() {
+            return "a\\w+/l\\w+";
+        }
 
-        parser = new JLyricUnitedParser(page, userAgent);
+        @Override
+        public Fetcher newFetcher(SongRef ref, Transport transport) throws IOException {
+            return new JLyricFetcher(ref, transport);
+        }
     }
 }
@@ -2,11 +2,12 @@ package com.kumasuke.fetcher.ftr;
 
 import com.kumasuke.fetcher.Header;
 import com.kumasuke.fetcher.Lyrics;
-import org.jsoup.Jsoup;
-import org.jsoup.nodes.Document;
+import com.kumasuke.fetcher.util.SongRef;
+import com.kumasuke.fetcher.util.Transport;
 import org.jsoup.nodes.Element;
 
 import java.io.IOException;
+import java.util.List;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -21,53 +22,42 @@ class JLyricUnitedParser extends UnitedParser {
     private static final String HOSTNAME = "http://j-lyric.net";
     // 提取歌曲基本信息的正则表达式
     private static final Pattern infoPattern;
-    // 匹配歌词页地址的正则表达式
-    private static final Pattern fullUrlPattern;
+    // 歌词页中需要提取的元素
+    private static final StreamingExtractor extractor;
 
     static {
         infoPattern = Pattern.compile("\\u6b4c\\uff1a(.*?)    # artist    \n" +
                         "\\u4f5c\\u8a5e\\uff1a(.*?)           # lyricist  \n" +
                         "\\u4f5c\\u66f2\\uff1a(.*)            # composer  \n",
                 Pattern.COMMENTS);
-        fullUrlPattern = Pattern.compile(".*?/artist/(a\\w+)/(l\\w+)\\.html");
+        extractor = StreamingExtractor.newBuilder()
+                .select("div.caption")
+                .select("div.body table")
+                .select("#lyricBody")
+                .build();
     }
 
-    private Document doc;
+    private StreamingExtractor.Result page;
     private String url;
 
     private EnumHeader header;
-    private ListLyrics lyrics;
+    private Lyrics lyrics;
 
     /**
-     * 构造一个 {@code JLyricSongPageParser} 对象，且指定 {@code UserAgent}。
+     * 构造一个 {@code JLyricSongPageParser} 对象，且指定连接设置。
      *
-     * @param page      歌词页地址
-     * @param userAgent {@code UserAgent} 字符串
+     * @param ref       歌曲引用
+     * @param transport 连接设置
      * @throws IOException 页面连接、处理失败
      */
-    JLyricUnitedParser(String page, String userAgent) throws IOException {
-        if (!validate(page))
-            throw new IllegalArgumentException("Unable to resolve the parameter page: " + page);
+    JLyricUnitedParser(SongRef ref, Transport transport) throws IOException {
+        this.url = HOSTNAME + "/artist/" + ref.getCode() + ".html";
 
-        initialize(userAgent);
+        initialize(transport);
     }
 
-    private boolean validate(String page) {
-        Matcher fullUrl = fullUrlPattern.matcher(page);
-
-        if (fullUrl.matches())
-            this.url = HOSTNAME + "/artist/" + fullUrl.group(1) + "/" + fullUrl.group(2) + ".html";
-        else
-            return false;
-
-        return true;
-    }
-
-    private void initialize(String userAgent) throws IOException {
-        this.doc = Jsoup.connect(songPageUrl())
-                .timeout(5000)
-                .userAgent(userAgent)
-                .get();
+    private void initialize(Transport transport) throws IOException {
+        this.page = extractor.extract(transport, songPageUrl());
     }
 
     /**
@@ -80,22 +70,18 @@ class JLyricUnitedParser extends UnitedParser {
         if (isNull(header)) {
             header = new EnumHeader();
 
-            Element titleElement = doc.select("div.caption").first();
+            Element titleElement = page.first("div.caption");
             String title = titleElement.text().trim();
             header.setTitle(title);
 
-            Element artistsElement = doc.select("div.body table").first();
+            Element artistsElement = page.first("div.body table");
             String allArtists = artistsElement.text();
             Matcher matcher = infoPattern.matcher(allArtists);
 
             if (matcher.matches()) {
-                String[] artists = matcher.group(1).split("/");
-                String[] lyricists = matcher.group(2).split("/");
-                String[] composers = matcher.group(3).split("/");
-
-                header.setArtist(toStringSet(artists))
-                        .setLyricist(toStringSet(lyricists))
-                        .setComposer(toStringSet(composers));
+                header.setArtist(splitToSet(matcher.group(1), "/"))
+                        .setLyricist(splitToSet(matcher.group(2), "/"))
+                        .setComposer(splitToSet(matcher.group(3), "/"));
             }
         }
 
@@ -110,8 +96,8 @@ class JLyricUnitedParser extends UnitedParser {
     @Override
     Lyrics lyrics() {
         if (isNull(lyrics)) {
-            Element lrcBody = doc.select("#lyricBody").first();
-            String[] lyricsText = lrcBody.html().split("<br(?: /)?>");
+            Element lrcBody = page.first("#lyricBody");
+            List<String> lyricsText = LineSplitter.HTML_BREAKS.split(lrcBody.html());
 
             lyrics = toLyrics(Parser::parseHtml, lyricsText);
         }
@@ -2,89 +2,113 @@ package com.kumasuke.fetcher.ftr;
 
 import com.kumasuke.fetcher.Header;
 import com.kumasuke.fetcher.Lyrics;
-import com.kumasuke.fetcher.util.URLReader;
-import org.json.simple.JSONArray;
-import org.json.simple.JSONObject;
-import org.json.simple.parser.JSONParser;
-import org.json.simple.parser.ParseException;
+import com.kumasuke.fetcher.util.SongRef;
+import com.kumasuke.fetcher.util.Transport;
 
 import java.io.IOException;
 import java.io.Reader;
+import java.util.List;
 import java.util.Map;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
 
 import static com.kumasuke.fetcher.util.Tools.p;
 import static com.kumasuke.fetcher.util.Tools.toMap;
 import static java.util.Objects.isNull;
+import static java.util.Objects.nonNull;
 
 /**
  * JoySound (JoySound.com) 的统合分析器。<br>
- * 使用 {@code JSON.simple} 包获取页面信息。
+ * 使用 {@link JsonScanner} 从 JSON 中流式读取所需字段。
  */
 class JoySoundUnitedParser extends UnitedParser {
     // 网站的主机名
     private static final String HOSTNAME = "https://www.joysound.com";
     // 获取歌曲基本信息和歌词的 Json 地址
     private static final String ALL_INFO_JSON_URL = "https://mspxy.joysound.com/Common/Lyric";
-    // 匹配歌词页地址的正则表达式
-    private static final Pattern fullUrlPattern;
-    // 匹配歌曲代码的正则表达式
-    private static final Pattern songCodePattern;
-
-    static {
-        fullUrlPattern = Pattern.compile(".*?/web/search/song/(\\d+)/?");
-        songCodePattern = NUMBER_SONG_CODE_PATTERN;
-    }
 
-    private JSONObject json;
     private String songCode;
 
+    // 从 JSON 中读取的字段
+    private String songName;
+    private String artistName;
+    private String lyricist;
+    private String composer;
+    private List<String> lyricLines;
+
     private EnumHeader header;
-    private ListLyrics lyrics;
+    private Lyrics lyrics;
 
     /**
-     * 构造一个 {@code JoySoundUnitedParser} 对象，且指定 {@code UserAgent}。
+     * 构造一个 {@code JoySoundUnitedParser} 对象，且指定连接设置。
      *
-     * @param page      歌词页地址或歌曲代码
-     * @param userAgent {@code UserAgent} 字符串
-     * @throws IOException    页面连接、处理失败
-     * @throws ParseException JSON 解析失败
+     * @param ref       歌曲引用
+     * @param transport 连接设置
+     * @throws IOException 页面连接、处理或 JSON 解析失败
      */
-    JoySoundUnitedParser(String page, String userAgent) throws IOException, ParseException {
-        if (!validate(page))
-            throw new IllegalArgumentException("Unable to resolve the parameter page: " + page);
+    JoySoundUnitedParser(SongRef ref, Transport transport) throws IOException {
+        this.songCode = ref.getCode();
 
-        initialize(userAgent);
+        initialize(transport);
     }
 
-    private boolean validate(String page) {
-        Matcher fullUrl = fullUrlPattern.matcher(page);
-        Matcher songCode = songCodePattern.matcher(page);
-
-        if (fullUrl.matches())
-            this.songCode = fullUrl.group(1);
-        else if (songCode.matches())
-            this.songCode = page;
-        else
-            return false;
-
-        return true;
-    }
-
-    private void initialize(String userAgent) throws IOException, ParseException {
-        try (Reader reader = URLReader.connect(ALL_INFO_JSON_URL)
-                .timeout(5000)
+    private void initialize(Transport transport) throws IOException {
+        Reader reader = transport.connect(ALL_INFO_JSON_URL)
                 .referer(songPageUrl())
-                .userAgent(userAgent)
                 .requestHeader("X-JSP-APP-NAME", "0000800")
                 .usePost()
                 .requestFormData(lrcJsonParameters())
-                .getReader()) {
-            this.json = (JSONObject) new JSONParser().parse(reader);
+                .getReader();
+
+        try (JsonScanner in = new JsonScanner(reader)) {
+            in.beginObject();
+            // 所需字段全部读取后不再读取剩余内容
+            while (in.hasNext() && !isComplete()) {
+                switch (in.nextName()) {
+                    case "songName":
+                        songName = in.nextString();
+                        break;
+                    case "artistName":
+                        artistName = in.nextString();
+                        break;
+                    case "lyricist":
+                        lyricist = in.nextString();
+                        break;
+                    case "composer":
+                        composer = in.nextString();
+                        break;
+                    case "lyricList":
+                        readLyricList(in);
+                        break;
+                    default:
+                        in.skipValue();
+                        break;
+                }
+            }
         }
     }
 
+    // 读取 lyricList[0].lyric
+    private void readLyricList(JsonScanner in) throws IOException {
+        in.beginArray();
+        if (in.hasNext()) {
+            in.beginObject();
+            while (in.hasNext()) {
+                if (in.nextName().equals("lyric"))
+                    lyricLines = in.nextLines();
+                else
+                    in.skipValue();
+            }
+            in.endObject();
+        }
+        while (in.hasNext())
+            in.skipValue();
+        in.endArray();
+    }
+
+    private boolean isComplete() {
+        return nonNull(songName) && nonNull(artistName) && nonNull(lyricist)
+                && nonNull(composer) && nonNull(lyricLines);
+    }
+
     private Map<String, String> lrcJsonParameters() {
         return toMap(p("kind", "naviGroupId"), p("selSongNo", songCode), p("interactionFlg", "0"), p("apiVer", "1.0"));
     }
@@ -99,15 +123,10 @@ class JoySoundUnitedParser extends UnitedParser {
         if (isNull(header)) {
             header = new EnumHeader();
 
-            String title = ((String) json.get("songName")).trim();
-            String[] artists = ((String) json.get("artistName")).split("\\uff0c");
-            String[] lyricists = ((String) json.get("lyricist")).split("\\uff0c");
-            String[] composers = ((String) json.get("composer")).split("\\uff0c");
-
-            header.setTitle(title)
-                    .setArtist(toStringSet(artists))
-                    .setLyricist(toStringSet(lyricists))
-                    .setComposer(toStringSet(composers));
+            header.setTitle(songName.trim())
+                    .setArtist(splitToSet(artistName, "\uff0c"))
+                    .setLyricist(splitToSet(lyricist, "\uff0c"))
+                    .setComposer(splitToSet(composer, "\uff0c"));
         }
 
         return header;
@@ -121,12 +140,7 @@ class JoySoundUnitedParser extends UnitedParser {
     @Override
     Lyrics lyrics() {
         if (isNull(lyrics)) {
-            JSONArray lrcArray = (JSONArray) json.get("lyricList");
-            JSONObject lrcObj = (JSONObject) lrcArray.get(0);
-            String lrcAll = (String) lrcObj.get("lyric");
-            String[] lyricsText = lrcAll.split("\\n");
-
-            lyrics = toLyrics(lyricsText);
+            lyrics = toLyrics(lyricLines);
         }
 
         return lyrics;
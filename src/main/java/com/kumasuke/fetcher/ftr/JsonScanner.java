@@ -0,0 +1,367 @@
+package com.kumasuke.fetcher.ftr;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.List;
+
+import static java.util.Objects.isNull;
+import static java.util.Objects.nonNull;
+
+/**
+ * 流式的 JSON 读取器，按顺序读取所需的字段并跳过其余内容，不构造对象树。<br>
+ * 跳过的值只做词法检查，不产生字符串。
+ */
+final class JsonScanner implements Closeable {
+    private static final int BUFFER_SIZE = 8192;
+
+    private final Reader in;
+    private final char[] buffer = new char[BUFFER_SIZE];
+    private int pos;
+    private int limit;
+
+    // 当前容器中是否已读取过元素，用于处理逗号
+    private boolean[] started = new boolean[16];
+    private int depth;
+    // 刚读取过字段名，下一个值为该字段的值，其前没有逗号
+    private boolean afterName;
+
+    /**
+     * 构造一个 {@code JsonScanner} 对象。
+     *
+     * @param in JSON 文本
+     */
+    JsonScanner(Reader in) {
+        this.in = in;
+    }
+
+    /**
+     * 读取对象的开始。
+     *
+     * @throws IOException 读取失败或不是对象
+     */
+    void beginObject() throws IOException {
+        beginValue();
+        expect('{');
+        push();
+    }
+
+    /**
+     * 读取对象的结束。
+     *
+     * @throws IOException 读取失败或对象尚未结束
+     */
+    void endObject() throws IOException {
+        expect('}');
+        depth--;
+    }
+
+    /**
+     * 读取数组的开始。
+     *
+     * @throws IOException 读取失败或不是数组
+     */
+    void beginArray() throws IOException {
+        beginValue();
+        expect('[');
+        push();
+    }
+
+    /**
+     * 读取数组的结束。
+     *
+     * @throws IOException 读取失败或数组尚未结束
+     */
+    void endArray() throws IOException {
+        expect(']');
+        depth--;
+    }
+
+    /**
+     * 返回当前对象或数组中是否还有元素。
+     *
+     * @return 是否还有元素
+     * @throws IOException 读取失败
+     */
+    boolean hasNext() throws IOException {
+        char c = peek();
+
+        return c != '}' && c != ']';
+    }
+
+    /**
+     * 读取对象中下一个字段的名称。
+     *
+     * @return 字段名称
+     * @throws IOException 读取失败或格式错误
+     */
+    String nextName() throws IOException {
+        beginValue();
+        expect('"');
+        StringBuilder sb = new StringBuilder();
+        readString(sb, null);
+        expect(':');
+        afterName = true;
+
+        return sb.toString();
+    }
+
+    /**
+     * 读取一个字符串值。
+     *
+     * @return 字符串，值为 {@code null} 时返回 {@code null}
+     * @throws IOException 读取失败或不是字符串
+     */
+    String nextString() throws IOException {
+        beginValue();
+        if (peek() == 'n') {
+            literal("null");
+            return null;
+        }
+
+        expect('"');
+        StringBuilder sb = new StringBuilder();
+        readString(sb, null);
+
+        return sb.toString();
+    }
+
+    /**
+     * 读取一个字符串值，并在解码的同时按换行符拆分为多行。<br>
+     * 结果与 {@code nextString().split("\\n")} 相同，末尾的空行将被去除。
+     *
+     * @return 各行文本，值为 {@code null} 时返回 {@code null}
+     * @throws IOException 读取失败或不是字符串
+     */
+    List<String> nextLines() throws IOException {
+        beginValue();
+        if (peek() == 'n') {
+            literal("null");
+            return null;
+        }
+
+        expect('"');
+        List<String> lines = new ArrayList<>();
+        StringBuilder sb = new StringBuilder();
+        readString(sb, lines);
+
+        if (lines.isEmpty()) {
+            // 没有换行符时保留唯一的一行
+            lines.add(sb.toString());
+            return lines;
+        }
+
+        lines.add(sb.toString());
+        int size = lines.size();
+        while (size > 0 && lines.get(size - 1).isEmpty())
+            lines.remove(--size);
+
+        return lines;
+    }
+
+    /**
+     * 跳过一个任意类型的值。
+     *
+     * @throws IOException 读取失败或格式错误
+     */
+    void skipValue() throws IOException {
+        beginValue();
+        char c = peek();
+
+        switch (c) {
+            case '{':
+                pos++;
+                push();
+                while (hasNext()) {
+                    nextName();
+                    skipValue();
+                }
+                endObject();
+                break;
+            case '[':
+                pos++;
+                push();
+                while (hasNext())
+                    skipValue();
+                endArray();
+                break;
+            case '"':
+                pos++;
+                readString(null, null);
+                break;
+            case 't':
+                literal("true");
+                break;
+            case 'f':
+                literal("false");
+                break;
+            case 'n':
+                literal("null");
+                break;
+            default:
+                if (c != '-' && (c < '0' || c > '9'))
+                    throw syntaxError("Unexpected character '" + c + "'");
+                while (fill() && isNumberChar(buffer[pos]))
+                    pos++;
+                break;
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        in.close();
+    }
+
+    // 读取值或字段名前的逗号，除第一个元素外必须有逗号，字段值前的冒号已由 nextName 读取
+    private void beginValue() throws IOException {
+        if (afterName) {
+            afterName = false;
+            return;
+        }
+        if (depth == 0)
+            return;
+
+        if (started[depth - 1]) {
+            char c = peek();
+            if (c != ',')
+                throw syntaxError("Expected ',' but was '" + c + "'");
+            pos++;
+        }
+        started[depth - 1] = true;
+    }
+
+    private void push() {
+        if (depth == started.length) {
+            boolean[] grown = new boolean[depth * 2];
+            System.arraycopy(started, 0, grown, 0, depth);
+            started = grown;
+        }
+        started[depth++] = false;
+    }
+
+    // 读取字符串内容至结束引号，sb 为 null 时只跳过；lines 不为 null 时遇到换行符即拆分
+    private void readString(StringBuilder sb, List<String> lines) throws IOException {
+        while (true) {
+            if (!fill())
+                throw syntaxError("Unterminated string");
+
+            // 连续的普通字符整段复制
+            int start = pos;
+            char c = 0;
+            while (pos < limit) {
+                c = buffer[pos];
+                if (c == '"' || c == '\\' || (c == '\n' && nonNull(lines)))
+                    break;
+                pos++;
+            }
+            if (nonNull(sb))
+                sb.append(buffer, start, pos - start);
+            if (pos == limit)
+                continue;
+
+            pos++;
+            if (c == '"')
+                return;
+
+            if (c == '\\')
+                c = escape();
+            if (isNull(sb))
+                continue;
+
+            if (c == '\n' && nonNull(lines)) {
+                lines.add(sb.toString());
+                sb.setLength(0);
+            } else {
+                sb.append(c);
+            }
+        }
+    }
+
+    private char escape() throws IOException {
+        if (!fill())
+            throw syntaxError("Unterminated escape");
+
+        char c = buffer[pos++];
+        switch (c) {
+            case 'n':
+                return '\n';
+            case 't':
+                return '\t';
+            case 'r':
+                return '\r';
+            case 'b':
+                return '\b';
+            case 'f':
+                return '\f';
+            case 'u':
+                int value = 0;
+                for (int i = 0; i < 4; i++) {
+                    if (!fill())
+                        throw syntaxError("Unterminated escape");
+                    int digit = Character.digit(buffer[pos++], 16);
+                    if (digit < 0)
+                        throw syntaxError("Malformed \\u escape");
+                    value = (value << 4) | digit;
+                }
+                return (char) value;
+            case '"':
+            case '\\':
+            case '/':
+                return c;
+            default:
+                throw syntaxError("Invalid escape '\\" + c + "'");
+        }
+    }
+
+    private void literal(String word) throws IOException {
+        for (int i = 0; i < word.length(); i++) {
+            if (!fill() || buffer[pos] != word.charAt(i))
+                throw syntaxError("Expected '" + word + "'");
+            pos++;
+        }
+    }
+
+    private static boolean isNumberChar(char c) {
+        return (c >= '0' && c <= '9') || c == '-' || c == '+' || c == '.' || c == 'e' || c == 'E';
+    }
+
+    private void expect(char expected) throws IOException {
+        char c = peek();
+        if (c != expected)
+            throw syntaxError("Expected '" + expected + "' but was '" + c + "'");
+        pos++;
+    }
+
+    // 跳过空白并返回下一个字符，不消耗该字符
+    private char peek() throws IOException {
+        while (fill()) {
+            char c = buffer[pos];
+            if (c != ' ' && c != '\t' && c != '\n' && c != '\r')
+                return c;
+            pos++;
+        }
+
+        throw syntaxError("Unexpected end of input");
+    }
+
+    // 保证缓冲区中至少有一个未读字符，已到达末尾时返回 false
+    private boolean fill() throws IOException {
+        if (pos < limit)
+            return true;
+
+        int n;
+        do {
+            n = in.read(buffer, 0, buffer.length);
+        } while (n == 0);
+
+        pos = 0;
+        limit = Math.max(n, 0);
+
+        return n > 0;
+    }
+
+    private IOException syntaxError(String message) {
+        return new IOException("Malformed JSON: " + message);
+    }
+}
@@ -2,14 +2,14 @@ package com.kumasuke.fetcher.ftr;
 
 import com.kumasuke.fetcher.Header;
 import com.kumasuke.fetcher.Lyrics;
-import org.jsoup.Jsoup;
-import org.jsoup.nodes.Document;
+import com.kumasuke.fetcher.util.SongRef;
+import com.kumasuke.fetcher.util.Transport;
 import org.jsoup.nodes.Element;
 import org.jsoup.select.Elements;
 
 import java.io.IOException;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
+import java.io.Reader;
+import java.util.List;
 
 import static java.util.Objects.isNull;
 
@@ -20,55 +20,54 @@ import static java.util.Objects.isNull;
 class KGetUnitedParser extends UnitedParser {
     // 网站的主机名
     private static final String HOSTNAME = "http://www.kget.jp";
-    // 匹配歌词页地址的正则表达式
-    private static final Pattern fullUrlPattern;
-    // 匹配歌曲代码的正则表达式
-    private static final Pattern songCodePattern;
+    // 歌词页中需要提取的元素
+    private static final StreamingExtractor extractor;
+    // 歌曲信息表格中单元格的选择器
+    private static final SelectorPlan cellSelector;
 
     static {
-        fullUrlPattern = Pattern.compile(".*?/lyric/(\\d+)/?.*");
-        songCodePattern = NUMBER_SONG_CODE_PATTERN;
+        extractor = StreamingExtractor.newBuilder()
+                .select("h1[itemprop=name]")
+                .select("table.lyric-data")
+                .select("#lyric-trunk")
+                .build();
+        cellSelector = SelectorPlan.of("td");
     }
 
-    private Document doc;
+    private StreamingExtractor.Result page;
     private String songCode;
 
     private EnumHeader header;
-    private ListLyrics lyrics;
+    private Lyrics lyrics;
 
     /**
-     * 构造一个 {@code KGetSongPageParser} 对象，且指定 {@code UserAgent}。
+     * 构造一个 {@code KGetSongPageParser} 对象，且指定连接设置。
      *
-     * @param page      歌词页地址
-     * @param userAgent {@code UserAgent} 字符串
+     * @param ref       歌曲引用
+     * @param transport 连接设置
      * @throws IOException 页面连接、处理失败
      */
-    KGetUnitedParser(String page, String userAgent) throws IOException {
-        if (!validate(page))
-            throw new IllegalArgumentException("Unable to resolve the parameter page: " + page);
+    KGetUnitedParser(SongRef ref, Transport transport) throws IOException {
+        this.songCode = ref.getCode();
 
-        initialize(userAgent);
+        initialize(transport);
     }
 
-    private boolean validate(String page) {
-        Matcher fullUrl = fullUrlPattern.matcher(page);
-        Matcher songCode = songCodePattern.matcher(page);
-
-        if (fullUrl.matches())
-            this.songCode = fullUrl.group(1);
-        else if (songCode.matches())
-            this.songCode = page;
-        else
-            return false;
+    /**
+     * 构造一个 {@code KGetUnitedParser} 对象，从给定的歌词页文本中提取信息，不进行任何访问。
+     *
+     * @param ref  歌曲引用
+     * @param page 歌词页的 Html 文本，提取完成后不会被关闭
+     * @throws IOException 页面读取失败
+     */
+    KGetUnitedParser(SongRef ref, Reader page) throws IOException {
+        this.songCode = ref.getCode();
 
-        return true;
+        this.page = extractor.extract(page, songPageUrl());
     }
 
-    private void initialize(String userAgent) throws IOException {
-        this.doc = Jsoup.connect(songPageUrl())
-                .timeout(5000)
-                .userAgent(userAgent)
-                .get();
+    private void initialize(Transport transport) throws IOException {
+        this.page = extractor.extract(transport, songPageUrl());
     }
 
     /**
@@ -81,21 +80,18 @@ class KGetUnitedParser extends UnitedParser {
         if (isNull(header)) {
             header = new EnumHeader();
 
-            Element titleElement = doc.select("h1[itemprop=name]").first();
-            Elements artistsElement = doc.select("table.lyric-data td");
+            Element titleElement = page.first("h1[itemprop=name]");
+            Elements artistsElement = cellSelector.select(page.first("table.lyric-data"));
             Element artistElement = artistsElement.get(0);
             Element lyricistElement = artistsElement.get(1);
             Element composerElement = artistsElement.get(2);
 
             String title = titleElement.text().trim();
-            String[] artists = artistElement.text().split(", ");
-            String[] lyricists = lyricistElement.text().split(", ");
-            String[] composers = composerElement.text().split(", ");
 
             header.setTitle(title)
-                    .setArtist(toStringSet(artists))
-                    .setLyricist(toStringSet(lyricists))
-                    .setComposer(toStringSet(composers));
+                    .setArtist(splitToSet(artistElement.text(), ","))
+                    .setLyricist(splitToSet(lyricistElement.text(), ","))
+                    .setComposer(splitToSet(composerElement.text(), ","));
         }
 
         return header;
@@ -109,8 +105,8 @@ class KGetUnitedParser extends UnitedParser {
     @Override
     Lyrics lyrics() {
         if (isNull(lyrics)) {
-            Element lrcBody = doc.select("#lyric-trunk").first();
-            String[] lyricsText = lrcBody.html().split("<br(?: /)?>");
+            Element lrcBody = page.first("#lyric-trunk");
+            List<String> lyricsText = LineSplitter.HTML_BREAKS.split(lrcBody.html());
 
             lyrics = toLyrics(Parser::parseHtml, lyricsText);
         }
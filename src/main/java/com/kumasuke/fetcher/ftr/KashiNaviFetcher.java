@@ -1,6 +1,11 @@
 package com.kumasuke.fetcher.ftr;
 
+import com.kumasuke.fetcher.Fetcher;
 import com.kumasuke.fetcher.util.FetcherBuilder;
+import com.kumasuke.fetcher.util.FetcherFactory;
+import com.kumasuke.fetcher.util.SiteProvider;
+import com.kumasuke.fetcher.util.SongRef;
+import com.kumasuke.fetcher.util.Transport;
 
 import java.io.IOException;
 
@@ -8,6 +13,9 @@ import java.io.IOException;
  * 歌詞ナビ (KashiNavi.com) 的歌词获取器。
  */
 public class KashiNaviFetcher extends AbstractSplitFetcher<KashiNaviSongPageParser, KashiNaviLyricsParser> {
+    // 网站的域名
+    private static final String SITE = "kashinavi.com";
+
     /**
      * 构造一个 {@code KashiNaviFetcher} 对象，用于获取对应网站歌词相关信息。<br>
      * 也可使用 {@link FetcherBuilder FetcherBuilder} 来进行构造。
@@ -17,9 +25,63 @@ public class KashiNaviFetcher extends AbstractSplitFetcher<KashiNaviSongPagePars
      * @throws IOException 页面连接、处理失败
      */
     public KashiNaviFetcher(String page, String userAgent) throws IOException {
-        super(page, userAgent);
+        this(page, Transport.of(userAgent));
+    }
+
+    /**
+     * 构造一个 {@code KashiNaviFetcher} 对象，用于获取对应网站歌词相关信息，且指定连接设置。<br>
+     * 也可使用 {@link FetcherFactory FetcherFactory} 来进行构造。
+     *
+     * @param page      歌词页地址或歌曲代码
+     * @param transport 连接设置
+     * @throws IOException 页面连接、处理失败
+     */
+    public KashiNaviFetcher(String page, Transport transport) throws IOException {
+        this(SongRef.of(SITE, page), transport);
+    }
+
+    /**
+     * 构造一个 {@code KashiNaviFetcher} 对象，根据歌曲引用获取对应网站歌词相关信息，且指定连接设置。<br>
+     * 也可使用 {@link FetcherFactory FetcherFactory} 来进行构造。
+     *
+     * @param ref       歌曲引用
+     * @param transport 连接设置
+     * @throws IOException 页面连接、处理失败
+     */
+    public KashiNaviFetcher(SongRef ref, Transport transport) throws IOException {
+        super(SITE, ref, transport);
+
+        songPageParser = new KashiNaviSongPageParser(ref, transport);
+        lyricsParser = new KashiNaviLyricsParser(songPageParser, transport);
+    }
+
+    /**
+     * 歌詞ナビ (KashiNavi.com) 的站点提供者，由 {@link java.util.ServiceLoader} 加载。
+     */
+    public static final class Provider implements SiteProvider {
+        @Override
+        public String site() {
+            return SITE;
+        }
+
+        @Override
+        public String host() {
+            return "kashinavi.com";
+        }
+
+        @Override
+        public String pathPattern() {
+            return "/song_view\\.html\\?(\\d+)";
+        }
+
+        @Override
+        public String codePattern() {
+            return Parser.NUMBER_SONG_CODE;
+        }
 
-        songPageParser = new KashiNaviSongPageParser(page, userAgent);
-        lyricsParser = new KashiNaviLyricsParser(songPageParser, userAgent);
+        @Override
+        public Fetcher newFetcher(SongRef ref, Transport transport) throws IOException {
+            return new KashiNaviFetcher(ref, transport);
+        }
     }
 }
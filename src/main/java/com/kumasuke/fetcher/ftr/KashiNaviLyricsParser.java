@@ -1,36 +1,41 @@
 package com.kumasuke.fetcher.ftr;
 
 import com.kumasuke.fetcher.Lyrics;
-import com.kumasuke.fetcher.util.URLReader;
+import com.kumasuke.fetcher.util.Transport;
 
 import java.io.IOException;
-
-import static java.util.Objects.isNull;
+import java.io.Reader;
+import java.util.Collections;
+import java.util.List;
 
 /**
  * 歌詞ナビ (KashiNavi.com) 的歌词分析器。
  */
 class KashiNaviLyricsParser extends LyricsParser {
-    private String doc;
-
-    private ListLyrics lyrics;
+    private Lyrics lyrics;
 
     /**
-     * 构造一个 {@code KashiNaviLyricsParser} 对象，且指定 {@code UserAgent}。
+     * 构造一个 {@code KashiNaviLyricsParser} 对象，且指定连接设置。
      *
      * @param songPage  {@code KashiNaviSongPageParser} 对象<br>
-     * @param userAgent {@code UserAgent} 字符串
+     * @param transport 连接设置
      * @throws IOException 页面连接、处理失败
      */
-    KashiNaviLyricsParser(KashiNaviSongPageParser songPage, String userAgent) throws IOException {
-        this.doc = URLReader.connect(KashiNaviSongPageParser.lrcCgiUrl())
-                .timeout(5000)
+    KashiNaviLyricsParser(KashiNaviSongPageParser songPage, Transport transport) throws IOException {
+        Reader reader = transport.connect(KashiNaviSongPageParser.lrcCgiUrl())
                 .referer(songPage.lrcUrl())
-                .userAgent(userAgent)
                 .xRequestedWith(FLASH_VERSION)
                 .usePost()
                 .requestFormData(songPage.lrcCgiParameters())
-                .getText();
+                .getReader();
+
+        // 第一行不是歌词
+        try (MarkerScanner scanner = new MarkerScanner(reader)) {
+            List<String> lyricsText = scanner.skipTo("\n") ?
+                    scanner.lines(null, "\n") : Collections.emptyList();
+
+            this.lyrics = toLyrics(lyricsText);
+        }
     }
 
     /**
@@ -40,13 +45,6 @@ class KashiNaviLyricsParser extends LyricsParser {
      */
     @Override
     Lyrics lyrics() {
-        if (isNull(lyrics)) {
-            int begin = doc.indexOf("\n") + 1;
-            String[] lyricsText = doc.substring(begin).split("\\n");
-
-            lyrics = toLyrics(lyricsText);
-        }
-
         return lyrics;
     }
 }
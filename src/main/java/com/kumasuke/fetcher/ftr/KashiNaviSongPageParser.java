@@ -1,7 +1,8 @@
 package com.kumasuke.fetcher.ftr;
 
 import com.kumasuke.fetcher.Header;
-import org.jsoup.Jsoup;
+import com.kumasuke.fetcher.util.SongRef;
+import com.kumasuke.fetcher.util.Transport;
 import org.jsoup.nodes.Document;
 import org.jsoup.select.Elements;
 
@@ -23,17 +24,18 @@ class KashiNaviSongPageParser extends SongPageParser {
     private static final String HOSTNAME = "http://kashinavi.com";
     // 提取歌曲基本信息中作词和作曲的正则表达式
     private static final Pattern lcInfoPattern;
-    // 匹配歌词页地址的正则表达式
-    private static final Pattern fullUrlPattern;
-    // 匹配歌曲代码的正则表达式
-    private static final Pattern songCodePattern;
+    // 标题和艺术家、作词和作曲所在表格及其单元格的选择器
+    private static final SelectorPlan titleAndArtistSelector;
+    private static final SelectorPlan lyricistAndComposerSelector;
+    private static final SelectorPlan cellSelector;
 
     static {
+        titleAndArtistSelector = SelectorPlan.of("table[cellpadding=2] table[cellspacing=5]");
+        lyricistAndComposerSelector = SelectorPlan.of("table[cellpadding=2] table[cellspacing=0]");
+        cellSelector = SelectorPlan.of("td");
         lcInfoPattern = Pattern.compile("\\u4f5c\\u8a5e\\u3000\\uff1a\\u3000(.*?)   # lyricist  \n" +
                         "\\u4f5c\\u66f2\\u3000\\uff1a\\u3000(.*?)                   # composer  \n",
                 Pattern.COMMENTS);
-        fullUrlPattern = Pattern.compile(".*?/song_view\\.html\\?(\\d+)");
-        songCodePattern = NUMBER_SONG_CODE_PATTERN;
     }
 
     private Document doc;
@@ -42,17 +44,16 @@ class KashiNaviSongPageParser extends SongPageParser {
     private EnumHeader header;
 
     /**
-     * 构造一个 {@code KashiNaviSongPageParser} 对象，且指定 {@code UserAgent}。
+     * 构造一个 {@code KashiNaviSongPageParser} 对象，且指定连接设置。
      *
-     * @param page      歌词页地址或歌曲代码
-     * @param userAgent {@code UserAgent} 字符串
+     * @param ref       歌曲引用
+     * @param transport 连接设置
      * @throws IOException 页面连接、处理失败
      */
-    KashiNaviSongPageParser(String page, String userAgent) throws IOException {
-        if (!validate(page))
-            throw new IllegalArgumentException("Unable to resolve the parameter page: " + page);
+    KashiNaviSongPageParser(SongRef ref, Transport transport) throws IOException {
+        this.songCode = ref.getCode();
 
-        initialize(userAgent);
+        initialize(transport);
     }
 
     /**
@@ -64,25 +65,8 @@ class KashiNaviSongPageParser extends SongPageParser {
         return HOSTNAME + "/cgi-bin/kashi.cgi";
     }
 
-    private boolean validate(String page) {
-        Matcher fullUrl = fullUrlPattern.matcher(page);
-        Matcher songCode = songCodePattern.matcher(page);
-
-        if (fullUrl.matches())
-            this.songCode = fullUrl.group(1);
-        else if (songCode.matches())
-            this.songCode = page;
-        else
-            return false;
-
-        return true;
-    }
-
-    private void initialize(String userAgent) throws IOException {
-        this.doc = Jsoup.connect(songPageUrl())
-                .timeout(5000)
-                .userAgent(userAgent)
-                .get();
+    private void initialize(Transport transport) throws IOException {
+        this.doc = transport.document(songPageUrl());
     }
 
     /**
@@ -95,24 +79,18 @@ class KashiNaviSongPageParser extends SongPageParser {
         if (isNull(header)) {
             header = new EnumHeader();
 
-            Elements titleAndArtist = doc.select("table[cellpadding=2] table[cellspacing=5]")
-                    .first().select("td");
+            Elements titleAndArtist = cellSelector.select(titleAndArtistSelector.first(doc));
             String title = titleAndArtist.get(0).text().trim();
-            String[] artists = titleAndArtist.get(2).text().split("\\u30fb");
             header.setTitle(title)
-                    .setArtist(toStringSet(artists));
+                    .setArtist(splitToSet(titleAndArtist.get(2).text(), "\u30fb"));
 
-            String lyricistAndComposer = doc.select("table[cellpadding=2] table[cellspacing=0]")
-                    .first().select("td")
-                    .first().text();
+            String lyricistAndComposer = cellSelector.first(lyricistAndComposerSelector.first(doc))
+                    .text();
             Matcher matcher = lcInfoPattern.matcher(lyricistAndComposer);
 
             if (matcher.matches()) {
-                String[] lyricists = matcher.group(1).split("\\u30fb");
-                String[] composers = matcher.group(2).split("\\u30fb");
-
-                header.setLyricist(toStringSet(lyricists))
-                        .setComposer(toStringSet(composers));
+                header.setLyricist(splitToSet(matcher.group(1), "\u30fb"))
+                        .setComposer(splitToSet(matcher.group(2), "\u30fb"));
             }
         }
 
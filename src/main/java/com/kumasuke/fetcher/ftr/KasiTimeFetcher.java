@@ -1,6 +1,11 @@
 package com.kumasuke.fetcher.ftr;
 
+import com.kumasuke.fetcher.Fetcher;
 import com.kumasuke.fetcher.util.FetcherBuilder;
+import com.kumasuke.fetcher.util.FetcherFactory;
+import com.kumasuke.fetcher.util.SiteProvider;
+import com.kumasuke.fetcher.util.SongRef;
+import com.kumasuke.fetcher.util.Transport;
 
 import java.io.IOException;
 
@@ -10,6 +15,9 @@ import java.io.IOException;
  * 该获取器获取的歌曲基本信息中包含编曲。</p>。
  */
 public class KasiTimeFetcher extends AbstractSplitFetcher<KasiTimeSongPageParser, KasiTimeLyricsParser> {
+    // 网站的域名
+    private static final String SITE = "kasi-time.com";
+
     /**
      * 构造一个 {@code KasiTimeFetcher} 对象，用于获取对应网站歌词相关信息。<br>
      * 也可使用 {@link FetcherBuilder FetcherBuilder} 来进行构造。
@@ -19,9 +27,63 @@ public class KasiTimeFetcher extends AbstractSplitFetcher<KasiTimeSongPageParser
      * @throws IOException 页面连接、处理失败
      */
     public KasiTimeFetcher(String page, String userAgent) throws IOException {
-        super(page, userAgent);
+        this(page, Transport.of(userAgent));
+    }
+
+    /**
+     * 构造一个 {@code KasiTimeFetcher} 对象，用于获取对应网站歌词相关信息，且指定连接设置。<br>
+     * 也可使用 {@link FetcherFactory FetcherFactory} 来进行构造。
+     *
+     * @param page      歌词页地址或歌曲代码
+     * @param transport 连接设置
+     * @throws IOException 页面连接、处理失败
+     */
+    public KasiTimeFetcher(String page, Transport transport) throws IOException {
+        this(SongRef.of(SITE, page), transport);
+    }
+
+    /**
+     * 构造一个 {@code KasiTimeFetcher} 对象，根据歌曲引用获取对应网站歌词相关信息，且指定连接设置。<br>
+     * 也可使用 {@link FetcherFactory FetcherFactory} 来进行构造。
+     *
+     * @param ref       歌曲引用
+     * @param transport 连接设置
+     * @throws IOException 页面连接、处理失败
+     */
+    public KasiTimeFetcher(SongRef ref, Transport transport) throws IOException {
+        super(SITE, ref, transport);
+
+        songPageParser = new KasiTimeSongPageParser(ref, transport);
+        lyricsParser = new KasiTimeLyricsParser(songPageParser, transport);
+    }
+
+    /**
+     * 歌詞タイム (Kasi-Time.com) 的站点提供者，由 {@link java.util.ServiceLoader} 加载。
+     */
+    public static final class Provider implements SiteProvider {
+        @Override
+        public String site() {
+            return SITE;
+        }
+
+        @Override
+        public String host() {
+            return "kasi-time.com";
+        }
+
+        @Override
+        public String pathPattern() {
+            return "/item-(\\d+)\\.html";
+        }
+
+        @Override
+        public String codePattern() {
+            return Parser.NUMBER_SONG_CODE;
+        }
 
-        songPageParser = new KasiTimeSongPageParser(page, userAgent);
-        lyricsParser = new KasiTimeLyricsParser(songPageParser, userAgent);
+        @Override
+        public Fetcher newFetcher(SongRef ref, Transport transport) throws IOException {
+            return new KasiTimeFetcher(ref, transport);
+        }
     }
 }
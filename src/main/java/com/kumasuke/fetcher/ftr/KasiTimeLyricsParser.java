@@ -1,33 +1,42 @@
 package com.kumasuke.fetcher.ftr;
 
 import com.kumasuke.fetcher.Lyrics;
-import com.kumasuke.fetcher.util.URLReader;
+import com.kumasuke.fetcher.util.Transport;
 
 import java.io.IOException;
-
-import static java.util.Objects.isNull;
+import java.io.Reader;
+import java.util.Collections;
+import java.util.List;
 
 /**
  * 歌詞タイム (Kasi-Time.com) 的歌词分析器。
  */
 class KasiTimeLyricsParser extends LyricsParser {
-    private String js;
+    // Js 代码中歌词字符串的开始和结束标记
+    private static final String WRITE_OPEN = "write('";
+    private static final String WRITE_CLOSE = "');";
 
-    private ListLyrics lyrics;
+    private Lyrics lyrics;
 
     /**
-     * 构造一个 {@code KasiTimeLyricsParser} 对象，且指定 {@code UserAgent}。
+     * 构造一个 {@code KasiTimeLyricsParser} 对象，且指定连接设置。
      *
      * @param songPage  {@code KasiTimeSongPageParser} 对象<br>
-     * @param userAgent {@code UserAgent} 字符串
+     * @param transport 连接设置
      * @throws IOException 页面连接、处理失败
      */
-    KasiTimeLyricsParser(KasiTimeSongPageParser songPage, String userAgent) throws IOException {
-        this.js = URLReader.connect(songPage.lrcUrl())
+    KasiTimeLyricsParser(KasiTimeSongPageParser songPage, Transport transport) throws IOException {
+        Reader reader = transport.connect(songPage.lrcUrl())
                 .charset("UTF-8")
-                .timeout(5000)
-                .userAgent(userAgent)
-                .getText();
+                .getReader();
+
+        // 歌词是单引号字符串，其中转义的引号不会结束该字符串
+        try (MarkerScanner scanner = new MarkerScanner(reader).escapedBy('\\')) {
+            List<String> lyricsText = scanner.skipTo(WRITE_OPEN) ?
+                    scanner.lines(WRITE_CLOSE, "<br>", "<br />") : Collections.emptyList();
+
+            this.lyrics = toLyrics(lyricsText);
+        }
     }
 
     /**
@@ -37,14 +46,6 @@ class KasiTimeLyricsParser extends LyricsParser {
      */
     @Override
     Lyrics lyrics() {
-        if (isNull(lyrics)) {
-            int begin = js.indexOf("write('") + 7;
-            int end = js.lastIndexOf("');");
-            String[] lyricsText = js.substring(begin, end).split("<br(?: /)?>");
-
-            lyrics = toLyrics(lyricsText);
-        }
-
         return lyrics;
     }
 }
@@ -1,7 +1,8 @@
 package com.kumasuke.fetcher.ftr;
 
 import com.kumasuke.fetcher.Header;
-import org.jsoup.Jsoup;
+import com.kumasuke.fetcher.util.SongRef;
+import com.kumasuke.fetcher.util.Transport;
 import org.jsoup.nodes.Document;
 import org.jsoup.nodes.Element;
 import org.jsoup.select.Elements;
@@ -9,8 +10,6 @@ import org.jsoup.select.Elements;
 import java.io.IOException;
 import java.util.List;
 import java.util.Set;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
 import java.util.stream.Collectors;
 
 import static java.util.Objects.isNull;
@@ -22,14 +21,15 @@ import static java.util.Objects.isNull;
 class KasiTimeSongPageParser extends SongPageParser {
     // 网站的主机名
     private static final String HOSTNAME = "http://www.kasi-time.com";
-    // 匹配歌词页地址的正则表达式
-    private static final Pattern fullUrlPattern;
-    // 匹配歌曲代码的正则表达式
-    private static final Pattern songCodePattern;
+    // 歌曲标题、艺术家信息及其中链接的选择器
+    private static final SelectorPlan titleSelector;
+    private static final SelectorPlan artistsSelector;
+    private static final SelectorPlan linkSelector;
 
     static {
-        fullUrlPattern = Pattern.compile(".*?/item-(\\d+)\\.html");
-        songCodePattern = NUMBER_SONG_CODE_PATTERN;
+        titleSelector = SelectorPlan.of("div.person_list_and_other_contents > h1");
+        artistsSelector = SelectorPlan.of("div.person_list th + td");
+        linkSelector = SelectorPlan.of("a");
     }
 
     private Document doc;
@@ -38,38 +38,20 @@ class KasiTimeSongPageParser extends SongPageParser {
     private EnumHeader header;
 
     /**
-     * 构造一个 {@code KasiTimeSongPageParser} 对象，且指定 {@code UserAgent}。
+     * 构造一个 {@code KasiTimeSongPageParser} 对象，且指定连接设置。
      *
-     * @param page      歌词页地址或歌曲代码
-     * @param userAgent {@code UserAgent} 字符串
+     * @param ref       歌曲引用
+     * @param transport 连接设置
      * @throws IOException 页面连接、处理失败
      */
-    KasiTimeSongPageParser(String page, String userAgent) throws IOException {
-        if (!validate(page))
-            throw new IllegalArgumentException("Unable to resolve the parameter page: " + page);
+    KasiTimeSongPageParser(SongRef ref, Transport transport) throws IOException {
+        this.songCode = ref.getCode();
 
-        initialize(userAgent);
+        initialize(transport);
     }
 
-    private boolean validate(String page) {
-        Matcher fullUrl = fullUrlPattern.matcher(page);
-        Matcher songCode = songCodePattern.matcher(page);
-
-        if (fullUrl.matches())
-            this.songCode = fullUrl.group(1);
-        else if (songCode.matches())
-            this.songCode = page;
-        else
-            return false;
-
-        return true;
-    }
-
-    private void initialize(String userAgent) throws IOException {
-        this.doc = Jsoup.connect(songPageUrl())
-                .timeout(5000)
-                .userAgent(userAgent)
-                .get();
+    private void initialize(Transport transport) throws IOException {
+        this.doc = transport.document(songPageUrl());
     }
 
     /**
@@ -82,14 +64,13 @@ class KasiTimeSongPageParser extends SongPageParser {
         if (isNull(header)) {
             header = new EnumHeader();
 
-            Element title = doc.select
-                    ("div.person_list_and_other_contents > h1").first();
+            Element title = titleSelector.first(doc);
             header.setTitle(title.text().trim());
 
-            Elements artistsElement = doc.select("div.person_list th + td");
+            Elements artistsElement = artistsSelector.select(doc);
             // 处理多位艺术家的情况
             List<Set<String>> allArtists = artistsElement.stream()
-                    .map(e -> e.select("a")
+                    .map(e -> linkSelector.select(e)
                             .stream()
                             .map(Element::text)
                             .map(String::trim)
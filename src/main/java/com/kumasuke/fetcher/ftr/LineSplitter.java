@@ -0,0 +1,109 @@
+package com.kumasuke.fetcher.ftr;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * 单次扫描的歌词行拆分器，代替 {@code String.split} 加逐行 {@code trim()} 的两次遍历。<br>
+ * 扫描时同时识别换行标记并记录当前行首尾的非空白位置，每行只截取一次已去除两端空白的子串，
+ * 不编译正则表达式，也不产生拆分用的中间数组。
+ * <p>
+ * 拆分结果的行数与 {@code String.split} 相同：末尾原本为空的行将被去除，没有换行标记时保留唯一的一行。</p>
+ */
+final class LineSplitter {
+    /**
+     * 按 {@code <br>}、{@code <br/>}、{@code <br />} 拆分 Html，与正则表达式 <code>&lt;br\s*&#47;?&gt;</code> 相同。<br>
+     * Html 中的换行符只是空白：{@code Jsoup} 格式化输出时会在每个 {@code <br>} 之前插入换行符，
+     * 因此该拆分器不把换行符视为换行标记。
+     */
+    static final LineSplitter HTML_BREAKS = new LineSplitter(true, false);
+    /**
+     * 按 {@code \n} 和 {@code \r\n} 拆分纯文本
+     */
+    static final LineSplitter LINE_BREAKS = new LineSplitter(false, true);
+
+    private final boolean htmlBreaks;
+    private final boolean newlines;
+
+    private LineSplitter(boolean htmlBreaks, boolean newlines) {
+        this.htmlBreaks = htmlBreaks;
+        this.newlines = newlines;
+    }
+
+    /**
+     * 拆分给定文本，并去除每行两端的空白字符（与 {@code String.trim()} 相同）。
+     *
+     * @param text 给定文本
+     * @return 各行文本
+     */
+    List<String> split(String text) {
+        requireNonNull(text, "The parameter 'text' should be non-null value.");
+
+        List<String> lines = new ArrayList<>();
+        int length = text.length();
+        int lineStart = 0;
+        // 当前行第一个非空白字符的位置和最后一个非空白字符之后的位置
+        int first = -1;
+        int last = -1;
+        // 尚未加入的原本为空的行数，之后出现非空行时才加入
+        int emptyLines = 0;
+        boolean split = false;
+
+        for (int i = 0; i < length; ) {
+            int breakEnd = breakEnd(text, i);
+            if (breakEnd < 0) {
+                if (text.charAt(i) > ' ') {
+                    if (first < 0)
+                        first = i;
+                    last = i + 1;
+                }
+                i++;
+                continue;
+            }
+
+            if (i == lineStart) {
+                emptyLines++;
+            } else {
+                for (; emptyLines > 0; emptyLines--)
+                    lines.add("");
+                lines.add(first < 0 ? "" : text.substring(first, last));
+            }
+
+            split = true;
+            i = lineStart = breakEnd;
+            first = last = -1;
+        }
+
+        if (!split || lineStart < length) {
+            for (; emptyLines > 0; emptyLines--)
+                lines.add("");
+            lines.add(first < 0 ? "" : text.substring(first, last));
+        }
+
+        return lines;
+    }
+
+    // 给定位置开始的换行标记的结束位置，不是换行标记时返回 -1
+    private int breakEnd(String text, int i) {
+        char c = text.charAt(i);
+
+        if (newlines) {
+            if (c == '\n')
+                return i + 1;
+            if (c == '\r' && i + 1 < text.length() && text.charAt(i + 1) == '\n')
+                return i + 2;
+        }
+
+        if (htmlBreaks && c == '<' && text.startsWith("br", i + 1)) {
+            int j = TextScanner.skipSpaces(text, i + 3);
+            if (j < text.length() && text.charAt(j) == '/')
+                j++;
+            if (j < text.length() && text.charAt(j) == '>')
+                return j + 1;
+        }
+
+        return -1;
+    }
+}
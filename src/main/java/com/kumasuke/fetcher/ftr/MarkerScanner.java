@@ -0,0 +1,296 @@
+package com.kumasuke.fetcher.ftr;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.List;
+
+import static java.util.Objects.nonNull;
+
+/**
+ * 基于标记的流式文本扫描器，用于纯文本或 Js 形式的歌词接口。<br>
+ * 边读取边跳过开始标记之前的内容、按分隔符切分歌词行，读取到结束标记即停止，
+ * 不保存完整的响应文本，也不产生拆分用的中间数组。
+ */
+final class MarkerScanner implements Closeable {
+    private static final int BUFFER_SIZE = 8192;
+    // 与 TextScanner.isLineTerminator 一致的行终止符
+    private static final String LINE_TERMINATORS = "\n\r\u0085\u2028\u2029";
+
+    private final Reader in;
+    private final char[] buffer = new char[BUFFER_SIZE];
+    private int pos;
+    private int limit;
+
+    // 转义字符，结束标记前有奇数个该字符时不视为结束
+    private char escape;
+
+    /**
+     * 构造一个 {@code MarkerScanner} 对象。
+     *
+     * @param in 响应文本
+     */
+    MarkerScanner(Reader in) {
+        this.in = in;
+    }
+
+    /**
+     * 设置转义字符，紧跟在奇数个转义字符之后的结束标记将被视为普通文本。
+     *
+     * @param escape 转义字符
+     * @return 该 {@code MarkerScanner} 对象，便于链式编程
+     */
+    MarkerScanner escapedBy(char escape) {
+        this.escape = escape;
+
+        return this;
+    }
+
+    /**
+     * 跳过给定标记及其之前的所有内容。
+     *
+     * @param marker 开始标记
+     * @return 是否找到该标记，未找到时已读取到末尾
+     * @throws IOException 读取失败
+     */
+    boolean skipTo(String marker) throws IOException {
+        int[] next = failureTable(marker);
+        char first = marker.charAt(0);
+        int matched = 0;
+
+        while (fill()) {
+            if (matched == 0) {
+                // 没有部分匹配时直接跳到下一个首字符
+                while (pos < limit && buffer[pos] != first)
+                    pos++;
+                if (pos == limit)
+                    continue;
+            }
+
+            char c = buffer[pos++];
+            while (matched > 0 && marker.charAt(matched) != c)
+                matched = next[matched - 1];
+            if (marker.charAt(matched) == c && ++matched == marker.length())
+                return true;
+        }
+
+        return false;
+    }
+
+    /**
+     * 读取同一行中结束标记之前的文本，并跳过结束标记。<br>
+     * 先遇到行终止符时停止读取，行终止符之前的内容将被丢弃。
+     *
+     * @param end 结束标记
+     * @return 结束标记之前的文本，该行中不存在结束标记时返回 {@code null}
+     * @throws IOException 读取失败
+     */
+    String untilInLine(String end) throws IOException {
+        StringBuilder text = new StringBuilder();
+        Stops stops = new Stops().allOf(LINE_TERMINATORS).lastOf(end);
+
+        while (fill()) {
+            if (skipToStop(stops, text))
+                continue;
+
+            char c = buffer[pos++];
+            if (TextScanner.isLineTerminator(c))
+                return null;
+
+            text.append(c);
+            if (isEnd(text, end)) {
+                text.setLength(text.length() - end.length());
+                return text.toString();
+            }
+        }
+
+        return null;
+    }
+
+    /**
+     * 读取至结束标记或末尾，并按给定的分隔符切分为多行。<br>
+     * 结果与先截取再使用 {@code String.split} 拆分相同，末尾的空行将被去除。
+     *
+     * @param end        结束标记，为 {@code null} 时读取至末尾
+     * @param separators 行分隔符，互相之间不能重叠
+     * @return 各行文本
+     * @throws IOException 读取失败
+     */
+    List<String> lines(String end, String... separators) throws IOException {
+        List<String> lines = new ArrayList<>();
+        StringBuilder line = new StringBuilder();
+        Stops stops = new Stops().lastOf(end).lastOf(separators);
+        boolean split = false;
+
+        reading:
+        while (fill()) {
+            if (skipToStop(stops, line))
+                continue;
+
+            line.append(buffer[pos++]);
+
+            if (nonNull(end) && isEnd(line, end)) {
+                line.setLength(line.length() - end.length());
+                break;
+            }
+            for (String separator : separators) {
+                if (endsWith(line, separator)) {
+                    line.setLength(line.length() - separator.length());
+                    lines.add(line.toString());
+                    line.setLength(0);
+                    split = true;
+                    continue reading;
+                }
+            }
+        }
+
+        lines.add(line.toString());
+        // 没有分隔符时保留唯一的一行，即使该行为空
+        if (split) {
+            int size = lines.size();
+            while (size > 0 && lines.get(size - 1).isEmpty())
+                lines.remove(--size);
+        }
+
+        return lines;
+    }
+
+    @Override
+    public void close() throws IOException {
+        in.close();
+    }
+
+    // 将下一个停止字符之前的内容整段加入 text，缓冲区中没有停止字符时返回 true
+    private boolean skipToStop(Stops stops, StringBuilder text) {
+        int stop = stops.next(buffer, pos, limit);
+        text.append(buffer, pos, stop - pos);
+        pos = stop;
+
+        return pos == limit;
+    }
+
+    private boolean isEnd(CharSequence text, String end) {
+        if (!endsWith(text, end))
+            return false;
+        if (escape == 0)
+            return true;
+
+        int count = 0;
+        for (int i = text.length() - end.length() - 1; i >= 0 && text.charAt(i) == escape; i--)
+            count++;
+
+        return count % 2 == 0;
+    }
+
+    // 从最后一个字符开始比较，不匹配时通常只比较一次
+    private static boolean endsWith(CharSequence text, String suffix) {
+        int offset = text.length() - suffix.length();
+        if (offset < 0)
+            return false;
+
+        for (int i = suffix.length() - 1; i >= 0; i--) {
+            if (text.charAt(offset + i) != suffix.charAt(i))
+                return false;
+        }
+
+        return true;
+    }
+
+    // KMP 算法的部分匹配表，保证跳过内容时每个字符只比较常数次
+    private static int[] failureTable(String marker) {
+        int[] next = new int[marker.length()];
+
+        for (int i = 1, k = 0; i < marker.length(); i++) {
+            while (k > 0 && marker.charAt(i) != marker.charAt(k))
+                k = next[k - 1];
+            if (marker.charAt(i) == marker.charAt(k))
+                k++;
+            next[i] = k;
+        }
+
+        return next;
+    }
+
+    /**
+     * 标记的最后一个字符组成的停止字符集合。<br>
+     * 只有追加了停止字符之后，已读取的内容才可能以某个标记结尾，因此其它字符可以整段跳过而不必逐个比较。
+     */
+    private static final class Stops {
+        // ASCII 停止字符的位图，low 对应 0 ~ 63，high 对应 64 ~ 127
+        private long low;
+        private long high;
+        // 非 ASCII 停止字符
+        private final StringBuilder others = new StringBuilder();
+
+        // 给定的每个字符都是停止字符
+        Stops allOf(String chars) {
+            for (int i = 0; i < chars.length(); i++)
+                add(chars.charAt(i));
+
+            return this;
+        }
+
+        // 各标记的最后一个字符是停止字符，忽略 null
+        Stops lastOf(String... markers) {
+            for (String marker : markers) {
+                if (nonNull(marker) && !marker.isEmpty())
+                    add(marker.charAt(marker.length() - 1));
+            }
+
+            return this;
+        }
+
+        private void add(char c) {
+            if (c < 64)
+                low |= 1L << c;
+            else if (c < 128)
+                high |= 1L << c;
+            else
+                others.append(c);
+        }
+
+        // 返回 [from, to) 中第一个停止字符的位置，不存在时返回 to
+        int next(char[] buffer, int from, int to) {
+            boolean hasOthers = others.length() > 0;
+
+            for (int i = from; i < to; i++) {
+                char c = buffer[i];
+                if (c < 128) {
+                    // 移位数只取低 6 位，c 为 64 ~ 127 时即为 c - 64
+                    if (((c < 64 ? low : high) >>> c & 1L) != 0)
+                        return i;
+                } else if (hasOthers && contains(c)) {
+                    return i;
+                }
+            }
+
+            return to;
+        }
+
+        private boolean contains(char c) {
+            for (int i = 0; i < others.length(); i++) {
+                if (others.charAt(i) == c)
+                    return true;
+            }
+
+            return false;
+        }
+    }
+
+    // 保证缓冲区中至少有一个未读字符，已到达末尾时返回 false
+    private boolean fill() throws IOException {
+        if (pos < limit)
+            return true;
+
+        int n;
+        do {
+            n = in.read(buffer, 0, buffer.length);
+        } while (n == 0);
+
+        pos = 0;
+        limit = Math.max(n, 0);
+
+        return n > 0;
+    }
+}
@@ -1,18 +1,16 @@
 package com.kumasuke.fetcher.ftr;
 
-import org.jsoup.Jsoup;
+import com.kumasuke.fetcher.util.CompactLyrics;
 
-import java.util.ArrayList;
 import java.util.Collection;
-import java.util.List;
+import java.util.Collections;
+import java.util.HashSet;
 import java.util.Set;
 import java.util.function.Function;
 import java.util.regex.Matcher;
-import java.util.regex.Pattern;
-import java.util.stream.Collectors;
 
-import static com.kumasuke.fetcher.util.Tools.toList;
-import static com.kumasuke.fetcher.util.Tools.toSet;
+import static java.util.Objects.isNull;
+import static java.util.Objects.nonNull;
 
 /**
  * 通用分析器，提供公用常量与方法。
@@ -22,101 +20,133 @@ abstract class Parser {
     static final String FLASH_VERSION = "ShockwaveFlash/18.0.0.232";
     // '&nbsp;' 被 Jsoup 解析成的值，其 Unicode 值为 '\u00a0'
     static final String JSOUP_NBSP = "\u00a0";
-
-    // 用于去除两端半角 / 全角空格的正则表达式
-    static final Pattern superTrimPattern;
-    // 用于去除两端 Html 和普通空格的正则表达式
-    static final Pattern htmlTrimPattern;
-
     // 匹配纯数字歌曲代码的正则表达式
-    static final Pattern NUMBER_SONG_CODE_PATTERN;
+    static final String NUMBER_SONG_CODE = "\\d+";
     // 匹配字母数字混合歌曲代码的正则表达式
-    static final Pattern WORD_SONG_CODE_PATTERN;
-
-    static {
-        superTrimPattern = Pattern.compile("[\\u3000\\s]*(.*?)[\\u3000\\s]*");
-        htmlTrimPattern = Pattern.compile("[\\u00a0\\s]*(.*?)[\\u00a0\\s]*");
-        NUMBER_SONG_CODE_PATTERN = Pattern.compile("\\d+");
-        WORD_SONG_CODE_PATTERN = Pattern.compile("[-\\w]+");
-    }
+    static final String WORD_SONG_CODE = "[-\\w]+";
 
     /**
      * 将一个或多个 {@code String} 对象转换为一个 {@code Set} 对象，同时去除字符串两端空格。<br>
-     * 效果等同于调用 {@code Tools.toSet(String::trim, args)}，使用次数最多，作为简化。
+     * 效果等同于调用 {@code Tools.toSet(String::trim, args)}，使用次数最多，作为简化。<br>
+     * 返回的 {@code Set} 对象不可修改。
      *
      * @param args 需要转换的 {@code String} 对象
      * @return 装有传入的 {@code String} 对象的 {@code Set} 对象
      */
     static Set<String> toStringSet(String... args) {
-        return toSet(String::trim, args);
+        SmallSet set = new SmallSet();
+        for (String s : args)
+            set.add(s.trim());
+
+        return set.toSet();
+    }
+
+    /**
+     * 将多名创作者组成的字符串拆分为一个 {@code Set} 对象。<br>
+     * 只扫描一次字符串：遇到给定的任一分隔符即拆分，并去除每一项两端的半角、全角（{@code \u3000}）
+     * 和 Html（{@code \u00a0}）空格，忽略空白项。<br>
+     * 返回的 {@code Set} 对象不可修改。
+     *
+     * @param text       需要拆分的字符串
+     * @param delimiters 分隔符，其中的每个字符均为一个分隔符
+     * @return 装有拆分结果的 {@code Set} 对象
+     */
+    static Set<String> splitToSet(String text, String delimiters) {
+        SmallSet set = new SmallSet();
+        int length = text.length();
+        int start = 0;
+
+        for (int i = 0; i <= length; i++) {
+            if (i < length && delimiters.indexOf(text.charAt(i)) < 0)
+                continue;
+
+            int begin = start;
+            int end = i;
+            while (begin < end && isBlank(text.charAt(begin)))
+                begin++;
+            while (end > begin && isBlank(text.charAt(end - 1)))
+                end--;
+            if (begin < end)
+                set.add(text.substring(begin, end));
+
+            start = i + 1;
+        }
+
+        return set.toSet();
+    }
+
+    // 是否为半角、全角或 Html 空格
+    private static boolean isBlank(char c) {
+        return c <= ' ' || c == '\u3000' || c == '\u00a0';
     }
 
     /**
-     * 将正则表达式 {@code Matcher} 对象中匹配的所有文本装入一个 {@code ListLyrics} 容器中。
+     * 将正则表达式 {@code Matcher} 对象中匹配的所有文本装入一个 {@code CompactLyrics} 容器中。
      *
      * @param matcher 正则表达式 {@code Matcher} 对象
-     * @return 存放歌词文本的{@code ListLyrics} 容器
+     * @return 存放歌词文本的{@code CompactLyrics} 容器
      */
-    static ListLyrics toLyrics(Matcher matcher) {
-        List<String> result = new ArrayList<>();
+    static CompactLyrics toLyrics(Matcher matcher) {
+        CompactLyrics.Builder builder = CompactLyrics.newBuilder();
 
         while (matcher.find())
-            result.add(matcher.group(1).trim());
+            builder.addLine(matcher.group(1).trim());
 
-        return new ListLyrics(result);
+        return builder.build();
     }
 
     /**
-     * 将给定的一条或多条歌词文本装入 {@code ListLyrics} 歌词文本容器并返回。
+     * 将给定的一条或多条歌词文本装入 {@code CompactLyrics} 歌词文本容器并返回。
      *
      * @param args 一条或多条歌词文本
-     * @return {@code ListLyrics} 歌词文本容器
+     * @return {@code CompactLyrics} 歌词文本容器
      */
-    static ListLyrics toLyrics(String... args) {
-        return new ListLyrics(toList(String::trim, args));
+    static CompactLyrics toLyrics(String... args) {
+        return toLyrics(Function.identity(), args);
     }
 
     /**
-     * 使用给定映射将一条或多条给定参数映射为 {@code String}，装入 {@code ListLyrics} 歌词文本容器并返回。
+     * 使用给定映射将一条或多条给定参数映射为 {@code String}，装入 {@code CompactLyrics} 歌词文本容器并返回。
      *
      * @param mapper 指定映射
      * @param args   指定参数
      * @param <T>    指定参数类型
-     * @return {@code ListLyrics} 歌词文本容器
+     * @return {@code CompactLyrics} 歌词文本容器
      */
     @SafeVarargs
-    static <T> ListLyrics toLyrics(Function<T, String> mapper, T... args) {
-        return new ListLyrics(toList(e -> mapper.apply(e).trim(), args));
+    static <T> CompactLyrics toLyrics(Function<T, String> mapper, T... args) {
+        CompactLyrics.Builder builder = CompactLyrics.newBuilder();
+        for (T e : args)
+            builder.addLine(mapper.apply(e).trim());
+
+        return builder.build();
     }
 
     /**
-     * 将装有给定集合类容器的内容装入 {@code ListLyrics} 歌词文本容器并返回。
+     * 将装有给定集合类容器的内容装入 {@code CompactLyrics} 歌词文本容器并返回。
      *
      * @param collection 指定集合类
-     * @return {@code ListLyrics} 歌词文本容器
+     * @return {@code CompactLyrics} 歌词文本容器
      */
-    static ListLyrics toLyrics(Collection<String> collection) {
-        List<String> data = collection.stream()
-                .map(String::trim)
-                .collect(Collectors.toList());
-
-        return new ListLyrics(data);
+    static CompactLyrics toLyrics(Collection<String> collection) {
+        return toLyrics(Function.identity(), collection);
     }
 
     /**
-     * 使用给定映射将给定集合类的内容映射为 {@code String}，装入 {@code ListLyrics} 歌词文本容器并返回。
+     * 使用给定映射将给定集合类的内容映射为 {@code String}，装入 {@code CompactLyrics} 歌词文本容器并返回。<br>
+     * 每行映射并去除两端空格后直接写入容器，不产生中间列表。
      *
      * @param mapper     指定映射
      * @param collection 指定集合类
      * @param <T>        指定集合类内容物的类型
-     * @return {@code ListLyrics} 歌词文本容器
+     * @return {@code CompactLyrics} 歌词文本容器
      */
-    static <T> ListLyrics toLyrics(Function<T, String> mapper, Collection<T> collection) {
-        List<String> data = collection.stream()
-                .map(e -> mapper.apply(e).trim())
-                .collect(Collectors.toList());
+    static <T> CompactLyrics toLyrics(Function<T, String> mapper, Collection<T> collection) {
+        CompactLyrics.Builder builder = CompactLyrics.newBuilder();
+        for (T e : collection)
+            builder.addLine(mapper.apply(e).trim());
 
-        return new ListLyrics(data);
+        return builder.build();
     }
 
     /**
@@ -126,12 +156,7 @@ abstract class Parser {
      * @return 截取完成的字符串
      */
     static String superTrim(String str) {
-        Matcher matcher = superTrimPattern.matcher(str);
-
-        if (matcher.matches())
-            return matcher.group(1);
-        else
-            throw new AssertionError("The regex always matches.");
+        return trim(str, '\u3000');
     }
 
     /**
@@ -141,21 +166,60 @@ abstract class Parser {
      * @return 截取完成的字符串
      */
     static String htmlTrim(String str) {
-        Matcher matcher = htmlTrimPattern.matcher(str);
+        return trim(str, '\u00a0');
+    }
+
+    // 去除两端的正则表达式空白字符（\s）和给定的额外空白字符
+    private static String trim(String str, char extra) {
+        int begin = 0;
+        int end = str.length();
+
+        while (begin < end && isSpace(str.charAt(begin), extra))
+            begin++;
+        while (end > begin && isSpace(str.charAt(end - 1), extra))
+            end--;
 
-        if (matcher.matches())
-            return matcher.group(1);
-        else
-            throw new AssertionError("The regex always matches.");
+        return str.substring(begin, end);
+    }
+
+    private static boolean isSpace(char c, char extra) {
+        return c == ' ' || (c >= '\t' && c <= '\r') || c == extra;
     }
 
     /**
-     * 将 Html 标签转换为普通文本。
+     * 将 Html 标签转换为普通文本，结果与 {@code Jsoup.parse(html).text()} 相同。
      *
      * @param html 需要转换 Html 文本
      * @return 转换完成的普通文本
      */
     static String parseHtml(String html) {
-        return Jsoup.parse(html).text();
+        return HtmlText.toText(html);
+    }
+
+    /**
+     * 不可修改的小型 {@code Set} 构造器，0 或 1 个元素时不创建 {@code HashSet}
+     */
+    private static final class SmallSet {
+        private String first;
+        private Set<String> set;
+
+        void add(String s) {
+            if (nonNull(set)) {
+                set.add(s);
+            } else if (isNull(first)) {
+                first = s;
+            } else if (!first.equals(s)) {
+                set = new HashSet<>(4);
+                set.add(first);
+                set.add(s);
+            }
+        }
+
+        Set<String> toSet() {
+            if (nonNull(set))
+                return Collections.unmodifiableSet(set);
+
+            return isNull(first) ? Collections.emptySet() : Collections.singleton(first);
+        }
     }
 }
@@ -2,18 +2,19 @@ package com.kumasuke.fetcher.ftr;
 
 import com.kumasuke.fetcher.Header;
 import com.kumasuke.fetcher.Lyrics;
-import com.kumasuke.fetcher.util.URLReader;
+import com.kumasuke.fetcher.util.SongRef;
+import com.kumasuke.fetcher.util.Transport;
 
 import java.io.IOException;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
 import static com.kumasuke.fetcher.util.Tools.*;
 import static java.util.Objects.isNull;
+import static java.util.Objects.nonNull;
 
 /**
  * プチリリ (PetitLyrics.com) 的统合分析器。
@@ -21,64 +22,37 @@ import static java.util.Objects.isNull;
 class PetitLyricsUnitedParser extends UnitedParser {
     // 网站的主机名
     private static final String HOSTNAME = "http://petitlyrics.com";
-    // 匹配歌词页地址的正则表达式
-    private static final Pattern fullUrlPattern;
-    // 匹配歌曲代码的正则表达式
-    private static final Pattern songCodePattern;
-    // 提取歌曲标题的正则表达式
-    private static final Pattern titlePattern;
-    // 提取歌曲基本信息的正则表达式
-    private static final Pattern allArtistsPattern;
-    // 提取歌词文本的正则表达式
-    private static final Pattern lyricsPattern;
-
-    static {
-        fullUrlPattern = Pattern.compile(".*?/lyrics/(\\d+)/?");
-        songCodePattern = NUMBER_SONG_CODE_PATTERN;
-        titlePattern = Pattern.compile("<div class=\"title-bar\">(.+?)</div");
-        allArtistsPattern = Pattern.compile("<div class=\"pure-u-1\">.*?<div align=\"left\".*?<p>(.*?)</p>",
-                Pattern.DOTALL);
-        lyricsPattern = Pattern.compile("<canvas id=\"lyrics\".*?>([^<]+)\\n</canvas>");
-    }
+    // 歌曲标题所在元素的开始和结束标记
+    private static final String TITLE_OPEN = "<div class=\"title-bar\">";
+    private static final String TITLE_CLOSE = "</div";
+    // 依次出现的、艺术家信息之前的标记及其结束标记
+    private static final String[] ARTISTS_MARKS = {"<div class=\"pure-u-1\">", "<div align=\"left\"", "<p>"};
+    private static final String ARTISTS_CLOSE = "</p>";
+    // 歌词所在元素的开始和结束标记
+    private static final String LYRICS_OPEN = "<canvas id=\"lyrics\"";
+    private static final String LYRICS_CLOSE = "</canvas>";
 
     private String doc;
     private String songCode;
 
     private EnumHeader header;
-    private ListLyrics lyrics;
+    private Lyrics lyrics;
 
     /**
-     * 构造一个 {@code PetitLyricsUnitedParser} 对象，且指定 {@code UserAgent}。
+     * 构造一个 {@code PetitLyricsUnitedParser} 对象，且指定连接设置。
      *
-     * @param page      歌词页地址或歌曲代码
-     * @param userAgent {@code UserAgent} 字符串
+     * @param ref       歌曲引用
+     * @param transport 连接设置
      * @throws IOException 页面连接、处理失败
      */
-    PetitLyricsUnitedParser(String page, String userAgent) throws IOException {
-        if (!validate(page))
-            throw new IllegalArgumentException("Unable to resolve the parameter page: " + page);
-
-        initialize(userAgent);
-    }
-
-    private boolean validate(String page) {
-        Matcher fullUrl = fullUrlPattern.matcher(page);
-        Matcher songCode = songCodePattern.matcher(page);
+    PetitLyricsUnitedParser(SongRef ref, Transport transport) throws IOException {
+        this.songCode = ref.getCode();
 
-        if (fullUrl.matches())
-            this.songCode = fullUrl.group(1);
-        else if (songCode.matches())
-            this.songCode = page;
-        else
-            return false;
-
-        return true;
+        initialize(transport);
     }
 
-    private void initialize(String userAgent) throws IOException {
-        this.doc = URLReader.connect(songPageUrl())
-                .timeout(5000)
-                .userAgent(userAgent)
+    private void initialize(Transport transport) throws IOException {
+        this.doc = transport.connect(songPageUrl())
                 .getText();
     }
 
@@ -87,15 +61,15 @@ class PetitLyricsUnitedParser extends UnitedParser {
         if (isNull(header)) {
             header = new EnumHeader();
 
-            Matcher titleMatcher = titlePattern.matcher(doc);
-            if (titleMatcher.find()) {
-                String title = parseHtml(titleMatcher.group(1)).trim();
+            String titleHtml = title(doc);
+            if (nonNull(titleHtml)) {
+                String title = parseHtml(titleHtml).trim();
                 header.setTitle(title);
             }
 
-            Matcher allArtistsMatcher = allArtistsPattern.matcher(doc);
-            if (allArtistsMatcher.find()) {
-                String allArtistsText = parseHtml(allArtistsMatcher.group(1));
+            String allArtistsHtml = allArtists(doc);
+            if (nonNull(allArtistsHtml)) {
+                String allArtistsText = parseHtml(allArtistsHtml);
                 String[] allArtistsArray = allArtistsText.split(JSOUP_NBSP);
 
                 // 处理艺术家信息
@@ -107,12 +81,12 @@ class PetitLyricsUnitedParser extends UnitedParser {
 
                                 if (tmp.length > 1) {
                                     s = tmp[0];
-                                    header.setArranger(toStringSet(tmp[1].split("[&\\uff06]")));
+                                    header.setArranger(splitToSet(tmp[1], "&\uff06"));
                                 }
                             }
                             String[] p = s.split("\\uff1a");
 
-                            return p(p[0], toStringSet(p[1].split("[&/,]")));
+                            return p(p[0], splitToSet(p[1], "&/,"));
                         }).collect(Collectors.toMap(P::getKey, P::getValue));
 
                 Set<String> artists = allArtists.get("\u30a2\u30fc\u30c6\u30a3\u30b9\u30c8");
@@ -134,19 +108,100 @@ class PetitLyricsUnitedParser extends UnitedParser {
     @Override
     Lyrics lyrics() {
         if (isNull(lyrics)) {
-            Matcher lyricsTextMatcher = lyricsPattern.matcher(doc);
+            String lyricsHtml = lyricsText(doc);
 
-            if (lyricsTextMatcher.find()) {
-                String[] lyricsText = lyricsTextMatcher.group(1).split("\\n");
+            if (nonNull(lyricsHtml)) {
+                List<String> lyricsText = LineSplitter.LINE_BREAKS.split(lyricsHtml);
 
                 lyrics = toLyrics(Parser::parseHtml, lyricsText);
             } else
-                throw new AssertionError("The regex matching lyrics ran across a problem.");
+                throw new AssertionError("The scanner matching lyrics ran across a problem.");
         }
 
         return lyrics;
     }
 
+    /**
+     * 提取标题元素中的 Html，不跨行，与 {@code <div class="title-bar">(.+?)</div} 的首个匹配相同。
+     *
+     * @param doc 页面源码
+     * @return 标题 Html，不存在时返回 {@code null}
+     */
+    static String title(String doc) {
+        int from = 0;
+        int open;
+
+        while ((open = doc.indexOf(TITLE_OPEN, from)) >= 0) {
+            int start = open + TITLE_OPEN.length();
+            int lineEnd = TextScanner.lineEnd(doc, start);
+            int end = TextScanner.indexOf(doc, TITLE_CLOSE, start + 1, lineEnd);
+            if (end >= 0)
+                return doc.substring(start, end);
+
+            // 本行中其后的开始标记同样无法匹配
+            from = lineEnd;
+        }
+
+        return null;
+    }
+
+    /**
+     * 提取艺术家信息的 Html，依次查找各个标记，与
+     * {@code <div class="pure-u-1">.*?<div align="left".*?<p>(.*?)</p>}（{@code DOTALL}）的首个匹配相同。
+     *
+     * @param doc 页面源码
+     * @return 艺术家信息 Html，不存在时返回 {@code null}
+     */
+    static String allArtists(String doc) {
+        int pos = 0;
+
+        for (String mark : ARTISTS_MARKS) {
+            int index = doc.indexOf(mark, pos);
+            if (index < 0)
+                return null;
+            pos = index + mark.length();
+        }
+
+        int end = doc.indexOf(ARTISTS_CLOSE, pos);
+
+        return end < 0 ? null : doc.substring(pos, end);
+    }
+
+    /**
+     * 提取歌词元素中的文本，与 {@code <canvas id="lyrics".*?>([^<]+)\n</canvas>} 的首个匹配相同。<br>
+     * 开始标签不跨行，歌词文本中不含 {@code <}，且以换行符紧接结束标签。
+     *
+     * @param doc 页面源码
+     * @return 歌词文本，不存在时返回 {@code null}
+     */
+    static String lyricsText(String doc) {
+        int from = 0;
+        int open;
+
+        while ((open = doc.indexOf(LYRICS_OPEN, from)) >= 0) {
+            int lineEnd = TextScanner.lineEnd(doc, open + LYRICS_OPEN.length());
+            // 开始标签之后的第一个 '<'，其后的开始标记保证了查找的范围不会重叠
+            int lt = -1;
+
+            for (int gt = open + LYRICS_OPEN.length(); gt < lineEnd; gt++) {
+                if (doc.charAt(gt) != '>')
+                    continue;
+
+                if (lt <= gt) {
+                    lt = doc.indexOf('<', gt + 1);
+                    if (lt < 0)
+                        return null;
+                }
+                if (lt > gt + 2 && doc.charAt(lt - 1) == '\n' && doc.startsWith(LYRICS_CLOSE, lt))
+                    return doc.substring(gt + 1, lt - 1);
+            }
+
+            from = lineEnd;
+        }
+
+        return null;
+    }
+
     @Override
     String songPageUrl() {
         return HOSTNAME + "/lyrics/" + songCode;
@@ -0,0 +1,317 @@
+package com.kumasuke.fetcher.ftr;
+
+import com.kumasuke.fetcher.Ruby;
+import com.kumasuke.fetcher.util.CompactLyrics;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * UtaTen 歌词 Html 的注音分词器。<br>
+ * 只扫描一次歌词 Html，同时得到不含注音的歌词、以括号形式含注音的歌词和结构化的注音。
+ * <p>
+ * 注音的格式为
+ * <code>&lt;span class="ruby"&gt;&lt;span class="rb"&gt;被注音的文字&lt;/span&gt;&lt;span class="rt"&gt;注音&lt;/span&gt;&lt;/span&gt;</code>，
+ * 歌词行以 <code>&lt;br&gt;</code> 或 <code>&lt;br /&gt;</code> 分隔，Html 中的换行符将被忽略。<br>
+ * 每行的转换结果与先替换注音、再分行并使用 {@link Parser#parseHtml(String)} 转换该行相同，
+ * 因此注音中的换行只分隔含注音的歌词行。</p>
+ */
+final class RubyTokenizer {
+    private static final String RUBY_OPEN = "<span class=\"ruby\"><span class=\"rb\">";
+    private static final String RUBY_MIDDLE = "</span><span class=\"rt\">";
+    private static final String RUBY_CLOSE = "</span></span>";
+    private static final String BR = "<br>";
+    private static final String BR_XHTML = "<br />";
+
+    private final List<String> plain = new ArrayList<>();
+    private final List<String> withRuby = new ArrayList<>();
+    private final List<Ruby> rubies = new ArrayList<>();
+
+    // 当前行的片段，长度为 1 时为文本片段，长度为 2 时依次为被注音的文字和注音
+    private final List<String[]> pieces = new ArrayList<>();
+    // 与 String.split 相同，末尾的空行（替换注音后 Html 为空）将被去除，以下为两种歌词中最后一个非空行的行号
+    private int lastPlain = -1;
+    private int lastWithRuby = -1;
+    // 当前行的注音中的换行数，即含注音的歌词比不含注音的歌词多出的行数
+    private int readingBreaks = 0;
+
+    private RubyTokenizer() {
+
+    }
+
+    /**
+     * 对给定的歌词 Html 进行分词。
+     *
+     * @param html 歌词 Html
+     * @return 分词结果
+     */
+    static RubyTokenizer tokenize(String html) {
+        RubyTokenizer tokenizer = new RubyTokenizer();
+        tokenizer.run(html);
+
+        return tokenizer;
+    }
+
+    /**
+     * 获取不含注音的歌词。
+     *
+     * @return 不含注音的歌词
+     */
+    CompactLyrics plain() {
+        return Parser.toLyrics(plain);
+    }
+
+    /**
+     * 获取注音以括号形式紧跟在被注音的文字之后的歌词。
+     *
+     * @return 含注音的歌词
+     */
+    CompactLyrics withRuby() {
+        return Parser.toLyrics(withRuby);
+    }
+
+    /**
+     * 获取按出现顺序排列的注音，位置对应 {@link #plain()} 中的歌词。
+     *
+     * @return 不可修改的注音列表
+     */
+    List<Ruby> rubies() {
+        return Collections.unmodifiableList(rubies);
+    }
+
+    private void run(String html) {
+        // 与原先相同，先去除 Html 中的换行符，被换行符隔开的标签也能识别
+        if (html.indexOf('\n') >= 0)
+            html = html.replace("\n", "");
+
+        int length = html.length();
+        StringBuilder text = new StringBuilder();
+        int i = 0;
+
+        while (i <= length) {
+            int consumed;
+
+            if (i == length) {
+                consumed = -1;
+            } else if ((consumed = lineBreak(html, i)) > 0) {
+                // 换行，在下方统一处理
+            } else if ((consumed = ruby(html, i, text)) > 0) {
+                i += consumed;
+                continue;
+            } else {
+                text.append(html.charAt(i));
+                markContent();
+                i++;
+                continue;
+            }
+
+            flushText(text);
+            emitLine();
+
+            if (consumed < 0)
+                break;
+            i += consumed;
+        }
+
+        // 没有换行时保留唯一的一行，即使该行为空
+        truncate(plain, plain.size() == 1 ? 1 : lastPlain + 1);
+        truncate(withRuby, withRuby.size() == 1 ? 1 : lastWithRuby + 1);
+        while (!rubies.isEmpty() && rubies.get(rubies.size() - 1).getLine() >= plain.size())
+            rubies.remove(rubies.size() - 1);
+    }
+
+    // 当前行已有内容，两种歌词都不能作为末尾的空行去除
+    private void markContent() {
+        lastPlain = plain.size();
+        lastWithRuby = withRuby.size() + readingBreaks;
+    }
+
+    private static void truncate(List<String> lines, int size) {
+        while (lines.size() > size)
+            lines.remove(lines.size() - 1);
+    }
+
+    private static int lineBreak(String html, int i) {
+        if (html.startsWith(BR, i))
+            return BR.length();
+        if (html.startsWith(BR_XHTML, i))
+            return BR_XHTML.length();
+
+        return 0;
+    }
+
+    // 查找 [from, to) 中的第一个换行，不存在时返回 -1
+    private static int nextLineBreak(String html, int from, int to) {
+        int i = from;
+        while ((i = html.indexOf("<br", i)) >= 0 && i < to) {
+            int length = lineBreak(html, i);
+            if (length > 0 && i + length <= to)
+                return i;
+            i++;
+        }
+
+        return -1;
+    }
+
+    // 尝试在给定位置匹配注音，成功时返回消耗的字符数
+    private int ruby(String html, int i, StringBuilder text) {
+        if (!html.startsWith(RUBY_OPEN, i))
+            return 0;
+
+        int baseStart = i + RUBY_OPEN.length();
+        int middle = html.indexOf(RUBY_MIDDLE, baseStart);
+        if (middle < 0)
+            return 0;
+        int readingStart = middle + RUBY_MIDDLE.length();
+        int close = html.indexOf(RUBY_CLOSE, readingStart);
+        if (close < 0)
+            return 0;
+
+        flushText(text);
+
+        // 原先在替换注音后才分行，被注音的文字中的换行同样分隔歌词行，
+        // 换行前的部分作为普通文本，注音只属于最后一行中的部分
+        int from = baseStart;
+        int lineBreak;
+        while ((lineBreak = nextLineBreak(html, from, middle)) >= 0) {
+            if (lineBreak > from) {
+                pieces.add(new String[]{html.substring(from, lineBreak)});
+                markContent();
+            }
+            emitLine();
+            from = lineBreak + lineBreak(html, lineBreak);
+        }
+
+        String base = html.substring(from, middle);
+        String reading = html.substring(readingStart, close);
+        pieces.add(new String[]{base, reading});
+
+        // 注音中的换行只分隔含注音的歌词行
+        for (int b = nextLineBreak(reading, 0, reading.length()); b >= 0;
+             b = nextLineBreak(reading, b + 1, reading.length()))
+            readingBreaks++;
+        if (!base.isEmpty())
+            lastPlain = plain.size();
+        lastWithRuby = withRuby.size() + readingBreaks;
+
+        return close + RUBY_CLOSE.length() - i;
+    }
+
+    private void flushText(StringBuilder text) {
+        if (text.length() > 0) {
+            pieces.add(new String[]{text.toString()});
+            text.setLength(0);
+        }
+    }
+
+    // 将当前行的片段转换为文本
+    private void emitLine() {
+        int line = plain.size();
+
+        HtmlText.Appender plainText = new HtmlText.Appender(64);
+        HtmlText.Appender rubyText = new HtmlText.Appender(96);
+        // 因注音中的换行而提前结束的含注音的歌词行
+        List<String> rubyLines = new ArrayList<>();
+        boolean fast = true;
+        List<int[]> spans = new ArrayList<>();
+
+        for (String[] piece : pieces) {
+            if (piece.length == 1) {
+                fast = plainText.append(piece[0]) && rubyText.append(piece[0]);
+            } else {
+                int start = plainText.length();
+                fast = plainText.append(piece[0]) && rubyText.append(piece[0]) && rubyText.append("(");
+
+                int from = 0;
+                int lineBreak;
+                while (fast && (lineBreak = nextLineBreak(piece[1], from, piece[1].length())) >= 0) {
+                    fast = rubyText.append(piece[1].substring(from, lineBreak));
+                    rubyLines.add(rubyText.text());
+                    rubyText = new HtmlText.Appender(96);
+                    from = lineBreak + lineBreak(piece[1], lineBreak);
+                }
+                fast = fast && rubyText.append(piece[1].substring(from)) && rubyText.append(")");
+                spans.add(new int[]{start, plainText.length()});
+            }
+            if (!fast)
+                break;
+        }
+
+        String plainLine;
+        if (fast) {
+            plainLine = plainText.text();
+            withRuby.addAll(rubyLines);
+            withRuby.add(rubyText.text());
+
+            int lead = plainText.leading();
+            int index = 0;
+            for (String[] piece : pieces) {
+                if (piece.length == 1)
+                    continue;
+
+                int[] span = spans.get(index++);
+                int start = clamp(span[0] - lead, plainLine.length());
+                int end = clamp(span[1] - lead, plainLine.length());
+                // 被注音的文字两端的空白可能与前后文合并
+                while (start < end && plainLine.charAt(start) == ' ')
+                    start++;
+                while (end > start && plainLine.charAt(end - 1) == ' ')
+                    end--;
+                rubies.add(new Ruby(line, start, plainLine.substring(start, end), Parser.parseHtml(piece[1])));
+            }
+        } else {
+            plainLine = fallback(line);
+        }
+
+        plain.add(plainLine);
+        pieces.clear();
+        readingBreaks = 0;
+    }
+
+    // 无法逐段转换时，整行交由 Jsoup 转换，并按顺序在结果中查找被注音的文字
+    private String fallback(int line) {
+        StringBuilder plainHtml = new StringBuilder();
+        StringBuilder rubyHtml = new StringBuilder();
+
+        for (String[] piece : pieces) {
+            if (piece.length == 1) {
+                plainHtml.append(piece[0]);
+                rubyHtml.append(piece[0]);
+            } else {
+                plainHtml.append(piece[0]);
+                rubyHtml.append(piece[0]).append('(').append(piece[1]).append(')');
+            }
+        }
+
+        String plainLine = Parser.parseHtml(plainHtml.toString()).trim();
+        String rubyLine = rubyHtml.toString();
+        int from = 0;
+        int lineBreak;
+        while ((lineBreak = nextLineBreak(rubyLine, from, rubyLine.length())) >= 0) {
+            withRuby.add(Parser.parseHtml(rubyLine.substring(from, lineBreak)).trim());
+            from = lineBreak + lineBreak(rubyLine, lineBreak);
+        }
+        withRuby.add(Parser.parseHtml(rubyLine.substring(from)).trim());
+
+        from = 0;
+        for (String[] piece : pieces) {
+            if (piece.length == 1)
+                continue;
+
+            String base = Parser.parseHtml(piece[0]);
+            int start = base.isEmpty() ? -1 : plainLine.indexOf(base, from);
+            if (start < 0)
+                continue;
+
+            rubies.add(new Ruby(line, start, base, Parser.parseHtml(piece[1])));
+            from = start + base.length();
+        }
+
+        return plainLine;
+    }
+
+    private static int clamp(int value, int max) {
+        return value < 0 ? 0 : value > max ? max : value;
+    }
+}
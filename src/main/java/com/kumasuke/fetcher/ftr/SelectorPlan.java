@@ -0,0 +1,346 @@
+package com.kumasuke.fetcher.ftr;
+
+import org.jsoup.nodes.Element;
+import org.jsoup.select.Collector;
+import org.jsoup.select.Elements;
+import org.jsoup.select.Evaluator;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import static java.util.Objects.isNull;
+import static java.util.Objects.nonNull;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * 预先编译为 {@code Jsoup} 的 {@code Evaluator} 的 Css 选择器。<br>
+ * 分析器在静态字段中保存编译结果，查询时直接交给 {@code Collector} 收集元素，
+ * 不再像 {@code Element.select(String)} 一样每次都重新解析选择器字符串。
+ * <p>
+ * 支持标签名、{@code *}、{@code #id}、{@code .class}、{@code [attr]}、{@code [attr=value]}
+ * 及后代、{@code >}、{@code +}、{@code ~} 组合符，匹配结果与 {@code Element.select(String)} 相同。<br>
+ * 其它选择器无法编译，查询时退回 {@code Element.select(String)}。</p>
+ */
+final class SelectorPlan {
+    // 已编译的选择器，相同的选择器字符串共用同一个对象
+    private static final ConcurrentMap<String, SelectorPlan> registry = new ConcurrentHashMap<>();
+
+    private final String query;
+    // 无法编译时为 null
+    private final Evaluator evaluator;
+
+    private SelectorPlan(String query) {
+        this.query = query;
+        this.evaluator = compile(query);
+    }
+
+    /**
+     * 获取给定选择器的编译结果，同一选择器只编译一次。
+     *
+     * @param query Css 选择器
+     * @return {@code SelectorPlan} 对象
+     */
+    static SelectorPlan of(String query) {
+        requireNonNull(query, "The parameter 'query' should be non-null value.");
+
+        return registry.computeIfAbsent(query, SelectorPlan::new);
+    }
+
+    /**
+     * 返回该选择器是否已编译为 {@code Evaluator}。
+     *
+     * @return 是否已编译
+     */
+    boolean isCompiled() {
+        return nonNull(evaluator);
+    }
+
+    /**
+     * 在给定元素（含其自身）中查找所有匹配的元素。
+     *
+     * @param root 查找的根元素
+     * @return 按文档顺序排列的匹配元素
+     */
+    Elements select(Element root) {
+        return isNull(evaluator) ? root.select(query) : Collector.collect(evaluator, root);
+    }
+
+    /**
+     * 在给定元素（含其自身）中查找第一个匹配的元素。
+     *
+     * @param root 查找的根元素
+     * @return 第一个匹配的元素，不存在时返回 {@code null}
+     */
+    Element first(Element root) {
+        return select(root).first();
+    }
+
+    @Override
+    public String toString() {
+        return query;
+    }
+
+    // 与 Jsoup 的 QueryParser 相同，组合符左结合，无法编译时返回 null
+    private static Evaluator compile(String query) {
+        int n = query.length();
+        Evaluator current = null;
+        char combinator = 0;
+        int i = 0;
+
+        while (true) {
+            int start = i;
+            while (i < n && Character.isWhitespace(query.charAt(i)))
+                i++;
+            if (i == n)
+                break;
+
+            char c = query.charAt(i);
+            if (c == '>' || c == '+' || c == '~' || c == ',') {
+                if (isNull(current) || combinator != 0 || c == ',')
+                    return null;
+                combinator = c;
+                i++;
+                continue;
+            }
+            if (nonNull(current) && combinator == 0) {
+                if (i == start)
+                    return null;
+                combinator = ' ';
+            }
+
+            List<Evaluator> parts = new ArrayList<>();
+            i = compound(query, i, parts);
+            if (i < 0)
+                return null;
+
+            Evaluator next = parts.size() == 1 ? parts.get(0) : new And(parts);
+            current = isNull(current) ? next : combine(current, combinator, next);
+            combinator = 0;
+        }
+
+        return combinator == 0 ? current : null;
+    }
+
+    private static Evaluator combine(Evaluator left, char combinator, Evaluator right) {
+        switch (combinator) {
+            case ' ':
+                return new And(right, new Ancestor(left));
+            case '>':
+                return new And(right, new Parent(left));
+            case '+':
+                return new And(right, new PreviousSibling(left));
+            default:
+                return new And(right, new AnyPreviousSibling(left));
+        }
+    }
+
+    // 编译一个复合选择器，返回结束位置，无法编译时返回 -1
+    private static int compound(String query, int i, List<Evaluator> parts) {
+        int n = query.length();
+
+        int start = i;
+        while (i < n && isNameChar(query.charAt(i)))
+            i++;
+        if (i > start) {
+            parts.add(new Evaluator.Tag(query.substring(start, i).trim().toLowerCase()));
+        } else if (query.charAt(i) == '*') {
+            parts.add(new AllElements());
+            i++;
+        }
+
+        while (i < n) {
+            char c = query.charAt(i);
+            if (Character.isWhitespace(c) || c == '>' || c == '+' || c == '~')
+                break;
+
+            i++;
+            if (c == '#' || c == '.') {
+                start = i;
+                while (i < n && isNameChar(query.charAt(i)))
+                    i++;
+                if (i == start)
+                    return -1;
+
+                String name = query.substring(start, i);
+                parts.add(c == '#' ? new Evaluator.Id(name) : new Evaluator.Class(name.trim().toLowerCase()));
+            } else if (c == '[') {
+                int end = query.indexOf(']', i);
+                if (end < 0)
+                    return -1;
+
+                Evaluator attribute = attribute(query.substring(i, end));
+                if (isNull(attribute))
+                    return -1;
+                parts.add(attribute);
+                i = end + 1;
+            } else {
+                return -1;
+            }
+        }
+
+        return parts.isEmpty() ? -1 : i;
+    }
+
+    // 只编译 [attr] 和 [attr=value]，值中不能含有方括号和引号以外的特殊写法
+    private static Evaluator attribute(String body) {
+        if (body.indexOf('[') >= 0)
+            return null;
+
+        int eq = body.indexOf('=');
+        String key = eq < 0 ? body : body.substring(0, eq);
+        if (key.trim().isEmpty() || !isPlainKey(key))
+            return null;
+        if (eq < 0)
+            return new Evaluator.Attribute(key.trim());
+
+        String value = body.substring(eq + 1);
+        String trimmed = value.trim();
+        if (trimmed.isEmpty())
+            return null;
+        char quote = trimmed.charAt(0);
+        if ((quote == '"' || quote == '\'') && (trimmed.length() < 2 || trimmed.charAt(trimmed.length() - 1) != quote))
+            return null;
+
+        return new Evaluator.AttributeWithValue(key, value);
+    }
+
+    private static boolean isPlainKey(String key) {
+        for (int i = 0; i < key.length(); i++) {
+            char c = key.charAt(i);
+            if (c == '!' || c == '^' || c == '$' || c == '*' || c == '~')
+                return false;
+        }
+
+        return true;
+    }
+
+    private static boolean isNameChar(char c) {
+        return Character.isLetterOrDigit(c) || c == '-' || c == '_';
+    }
+
+    /**
+     * 匹配所有元素
+     */
+    private static final class AllElements extends Evaluator {
+        @Override
+        public boolean matches(Element root, Element element) {
+            return true;
+        }
+    }
+
+    /**
+     * 同时满足所有条件，先检查代价较低的条件
+     */
+    private static final class And extends Evaluator {
+        private final Evaluator[] evaluators;
+
+        And(Evaluator... evaluators) {
+            this.evaluators = evaluators;
+        }
+
+        And(List<Evaluator> evaluators) {
+            this(evaluators.toArray(new Evaluator[evaluators.size()]));
+        }
+
+        @Override
+        public boolean matches(Element root, Element element) {
+            for (Evaluator evaluator : evaluators) {
+                if (!evaluator.matches(root, element))
+                    return false;
+            }
+
+            return true;
+        }
+    }
+
+    /**
+     * 根元素以下的某个祖先元素满足条件（后代组合符）
+     */
+    private static final class Ancestor extends Evaluator {
+        private final Evaluator evaluator;
+
+        Ancestor(Evaluator evaluator) {
+            this.evaluator = evaluator;
+        }
+
+        @Override
+        public boolean matches(Element root, Element element) {
+            if (root == element)
+                return false;
+
+            for (Element parent = element.parent(); parent != root; parent = parent.parent()) {
+                if (evaluator.matches(root, parent))
+                    return true;
+            }
+
+            return false;
+        }
+    }
+
+    /**
+     * 父元素满足条件（{@code >} 组合符）
+     */
+    private static final class Parent extends Evaluator {
+        private final Evaluator evaluator;
+
+        Parent(Evaluator evaluator) {
+            this.evaluator = evaluator;
+        }
+
+        @Override
+        public boolean matches(Element root, Element element) {
+            if (root == element)
+                return false;
+
+            Element parent = element.parent();
+            return nonNull(parent) && evaluator.matches(root, parent);
+        }
+    }
+
+    /**
+     * 前一个兄弟元素满足条件（{@code +} 组合符）
+     */
+    private static final class PreviousSibling extends Evaluator {
+        private final Evaluator evaluator;
+
+        PreviousSibling(Evaluator evaluator) {
+            this.evaluator = evaluator;
+        }
+
+        @Override
+        public boolean matches(Element root, Element element) {
+            if (root == element)
+                return false;
+
+            Element previous = element.previousElementSibling();
+            return nonNull(previous) && evaluator.matches(root, previous);
+        }
+    }
+
+    /**
+     * 之前的某个兄弟元素满足条件（{@code ~} 组合符）
+     */
+    private static final class AnyPreviousSibling extends Evaluator {
+        private final Evaluator evaluator;
+
+        AnyPreviousSibling(Evaluator evaluator) {
+            this.evaluator = evaluator;
+        }
+
+        @Override
+        public boolean matches(Element root, Element element) {
+            if (root == element)
+                return false;
+
+            for (Element previous = element.previousElementSibling(); nonNull(previous);
+                 previous = previous.previousElementSibling()) {
+                if (evaluator.matches(root, previous))
+                    return true;
+            }
+
+            return false;
+        }
+    }
+}
@@ -0,0 +1,438 @@
+package com.kumasuke.fetcher.ftr;
+
+import com.kumasuke.fetcher.Fetcher;
+import com.kumasuke.fetcher.util.CompactLyrics;
+import com.kumasuke.fetcher.util.SiteProvider;
+import com.kumasuke.fetcher.util.SongRef;
+import com.kumasuke.fetcher.util.Transport;
+import org.jsoup.nodes.Document;
+import org.jsoup.nodes.Element;
+import org.jsoup.select.Elements;
+
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Properties;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static com.kumasuke.fetcher.util.Tools.isNullOrEmpty;
+import static java.util.Objects.isNull;
+import static java.util.Objects.nonNull;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * 声明式的站点定义，在加载时编译为提取器，无需为新站点编写分析器。<br>
+ * 一旦编译完成，无法修改，可以在多个线程间安全地共享。
+ * <p>
+ * 站点定义使用 {@code .properties} 格式（UTF-8 编码），正则表达式中的反斜杠需写为两个：<br>
+ * <code>site</code> 站点的域名，<code>host</code> 主机名，<code>path</code> 匹配歌词页路径的正则表达式，
+ * <code>code</code> 匹配歌曲代码的正则表达式（可选）；<br>
+ * <code>url</code> 歌词页地址模板，<code>{code}</code> 为完整的歌曲代码，<code>{1}</code>、<code>{2}</code> …
+ * 为 <code>path</code> 中对应分组的值；<br>
+ * <code>title</code>、<code>artist</code>、<code>lyricist</code>、<code>composer</code>、<code>arranger</code>
+ * 为选取对应条目的 CSS 选择器，省略选择器时使用整个页面的文本；
+ * 可用 <code>&lt;条目&gt;.index</code> 只取第几个选取的元素（以 0 为始），
+ * 用 <code>&lt;条目&gt;.regex</code> 从选取的文本中提取第一个分组，
+ * 用 <code>&lt;条目&gt;.split</code> 将文本拆分为多个值，各值两端的半角、全角和 Html 空格将被去除；<br>
+ * <code>lyrics</code> 为选取歌词元素的 CSS 选择器，<code>lyrics.split</code> 为拆分歌词 Html 的分隔符，
+ * 默认为 <code>&lt;br&gt;</code> 标签。</p>
+ * <p>
+ * 分隔符不含正则表达式元字符时按字面值查找，否则按正则表达式拆分。</p>
+ * <p>
+ * 内置的部分站点附带了等价的站点定义，位于 <code>com/kumasuke/fetcher/definitions/&lt;站点&gt;.properties</code>，
+ * 可通过 {@link #load(URL)} 读取，或复制到 {@link com.kumasuke.fetcher.util.SiteDefinitions} 的目录中作为修改的起点。</p>
+ *
+ * @see com.kumasuke.fetcher.util.SiteDefinitions
+ */
+public final class SiteDefinition implements SiteProvider {
+    // 默认的歌词行分隔符，由 LineSplitter.HTML_BREAKS 直接识别
+    private static final String DEFAULT_LYRICS_SPLIT = "<br\\s*/?>";
+    // 正则表达式元字符
+    private static final String REGEX_META_CHARS = "\\[](){}.*+?^$|";
+    // 匹配地址模板中占位符的正则表达式
+    private static final Pattern placeholderPattern;
+
+    static {
+        placeholderPattern = Pattern.compile("\\{(code|\\d+)}");
+    }
+
+    private final String site;
+    private final String host;
+    private final String path;
+    private final String code;
+
+    // 地址模板中的字面值，比占位符多一个
+    private final String[] urlLiterals;
+    // 地址模板中的占位符，0 表示完整的歌曲代码
+    private final int[] urlGroups;
+
+    private final TextRule title;
+    private final TextRule artist;
+    private final TextRule lyricist;
+    private final TextRule composer;
+    private final TextRule arranger;
+
+    private final SelectorPlan lyricsQuery;
+    // 使用默认分隔符时为 null
+    private final Splitter lyricsSplitter;
+
+    private SiteDefinition(Properties props) {
+        this.site = required(props, "site").toLowerCase();
+        this.host = required(props, "host").toLowerCase();
+        this.path = required(props, "path");
+        this.code = optional(props, "code");
+
+        int groups = Pattern.compile(path).matcher("").groupCount();
+        if (groups == 0)
+            throw new IllegalArgumentException("The property 'path' should contain at least one group: " + path);
+        if (nonNull(code))
+            Pattern.compile(code);
+
+        List<String> literals = new ArrayList<>();
+        List<Integer> placeholders = new ArrayList<>();
+        String url = required(props, "url");
+        Matcher m = placeholderPattern.matcher(url);
+        int last = 0;
+        while (m.find()) {
+            int group = m.group(1).equals("code") ? 0 : Integer.parseInt(m.group(1));
+            if (group > groups)
+                throw new IllegalArgumentException("The property 'url' refers to a missing group: " + m.group());
+
+            literals.add(url.substring(last, m.start()));
+            placeholders.add(group);
+            last = m.end();
+        }
+        literals.add(url.substring(last));
+        this.urlLiterals = literals.toArray(new String[literals.size()]);
+        this.urlGroups = placeholders.stream().mapToInt(Integer::intValue).toArray();
+
+        this.title = TextRule.compile(props, "title");
+        this.artist = TextRule.compile(props, "artist");
+        this.lyricist = TextRule.compile(props, "lyricist");
+        this.composer = TextRule.compile(props, "composer");
+        this.arranger = TextRule.compile(props, "arranger");
+
+        this.lyricsQuery = SelectorPlan.of(required(props, "lyrics"));
+        String split = optional(props, "lyrics.split");
+        this.lyricsSplitter = isNull(split) || split.equals(DEFAULT_LYRICS_SPLIT) ? null : Splitter.compile(split);
+    }
+
+    /**
+     * 编译给定的站点定义。
+     *
+     * @param props 站点定义
+     * @return {@code SiteDefinition} 对象
+     * @throws IllegalArgumentException 站点定义缺少必需的条目或含有错误的正则表达式
+     */
+    public static SiteDefinition compile(Properties props) {
+        return new SiteDefinition(requireNonNull(props, "The parameter 'props' should be non-null value."));
+    }
+
+    /**
+     * 读取并编译给定文件中的站点定义。
+     *
+     * @param file 站点定义文件，使用 UTF-8 编码
+     * @return {@code SiteDefinition} 对象
+     * @throws IOException              文件读取失败
+     * @throws IllegalArgumentException 站点定义缺少必需的条目或含有错误的正则表达式
+     */
+    public static SiteDefinition load(Path file) throws IOException {
+        requireNonNull(file, "The parameter 'file' should be non-null value.");
+
+        Properties props = new Properties();
+        try (Reader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            props.load(reader);
+        }
+
+        return compile(props);
+    }
+
+    /**
+     * 读取并编译给定地址（通常为类路径中的资源）中的站点定义。
+     *
+     * @param resource 站点定义的地址，使用 UTF-8 编码
+     * @return {@code SiteDefinition} 对象
+     * @throws IOException              读取失败
+     * @throws IllegalArgumentException 站点定义缺少必需的条目或含有错误的正则表达式
+     */
+    public static SiteDefinition load(URL resource) throws IOException {
+        requireNonNull(resource, "The parameter 'resource' should be non-null value.");
+
+        Properties props = new Properties();
+        try (Reader reader = new InputStreamReader(resource.openStream(), StandardCharsets.UTF_8)) {
+            props.load(reader);
+        }
+
+        return compile(props);
+    }
+
+    private static String required(Properties props, String key) {
+        String value = optional(props, key);
+        if (isNull(value))
+            throw new IllegalArgumentException("The property '" + key + "' haven't been set yet.");
+
+        return value;
+    }
+
+    private static String optional(Properties props, String key) {
+        String value = props.getProperty(key);
+
+        return isNullOrEmpty(value) ? null : value;
+    }
+
+    @Override
+    public String site() {
+        return site;
+    }
+
+    @Override
+    public String host() {
+        return host;
+    }
+
+    @Override
+    public String pathPattern() {
+        return path;
+    }
+
+    @Override
+    public String codePattern() {
+        return code;
+    }
+
+    @Override
+    public Fetcher newFetcher(SongRef ref, Transport transport) throws IOException {
+        return new DeclarativeFetcher(this, ref, transport);
+    }
+
+    /**
+     * 根据歌曲引用展开歌词页地址模板。
+     *
+     * @param ref 歌曲引用
+     * @return 歌词页地址
+     */
+    String songPageUrl(SongRef ref) {
+        String songCode = ref.getCode();
+        String[] parts = null;
+        StringBuilder sb = new StringBuilder(urlLiterals[0]);
+
+        for (int i = 0; i < urlGroups.length; i++) {
+            if (urlGroups[i] == 0) {
+                sb.append(songCode);
+            } else {
+                if (isNull(parts))
+                    parts = songCode.split("/");
+                if (urlGroups[i] > parts.length)
+                    throw new IllegalArgumentException("Unable to resolve the parameter 'ref': " + ref);
+
+                sb.append(parts[urlGroups[i] - 1]);
+            }
+            sb.append(urlLiterals[i + 1]);
+        }
+
+        return sb.toString();
+    }
+
+    /**
+     * 根据站点定义提取歌曲基本信息。
+     *
+     * @param doc 歌词页
+     * @return 歌曲基本信息
+     */
+    EnumHeader header(Document doc) {
+        EnumHeader header = new EnumHeader();
+
+        if (nonNull(title)) {
+            List<String> values = title.extract(doc);
+            if (!values.isEmpty())
+                header.setTitle(values.get(0).trim());
+        }
+        if (nonNull(artist))
+            header.setArtist(toStringSet(artist.extract(doc)));
+        if (nonNull(lyricist))
+            header.setLyricist(toStringSet(lyricist.extract(doc)));
+        if (nonNull(composer))
+            header.setComposer(toStringSet(composer.extract(doc)));
+        if (nonNull(arranger))
+            header.setArranger(toStringSet(arranger.extract(doc)));
+
+        return header;
+    }
+
+    /**
+     * 根据站点定义提取歌词文本。
+     *
+     * @param doc 歌词页
+     * @return 歌词文本
+     */
+    CompactLyrics lyrics(Document doc) {
+        Element lrcBody = lyricsQuery.first(doc);
+        if (isNull(lrcBody))
+            return CompactLyrics.newBuilder().build();
+
+        String html = lrcBody.html();
+        List<String> lines = isNull(lyricsSplitter) ?
+                LineSplitter.HTML_BREAKS.split(html) : lyricsSplitter.split(html);
+
+        return Parser.toLyrics(Parser::parseHtml, lines);
+    }
+
+    // 与分析器拆分创作者时相同，去除两端的半角、全角和 Html 空格，忽略空白项
+    private static Set<String> toStringSet(List<String> values) {
+        Set<String> set = new LinkedHashSet<>();
+        for (String value : values)
+            set.addAll(Parser.splitToSet(value, ""));
+
+        return Collections.unmodifiableSet(set);
+    }
+
+    @Override
+    public String toString() {
+        return site + " " + host + path;
+    }
+
+    /**
+     * 编译后的条目提取规则
+     */
+    private static final class TextRule {
+        // CSS 选择器，为 null 时使用整个页面的文本
+        private final SelectorPlan query;
+        // 只取第几个选取的元素，为 -1 时取所有元素
+        private final int index;
+        private final Pattern regex;
+        private final Splitter splitter;
+
+        private TextRule(SelectorPlan query, int index, Pattern regex, Splitter splitter) {
+            this.query = query;
+            this.index = index;
+            this.regex = regex;
+            this.splitter = splitter;
+        }
+
+        static TextRule compile(Properties props, String field) {
+            String query = optional(props, field);
+            String index = optional(props, field + ".index");
+            String regex = optional(props, field + ".regex");
+            String split = optional(props, field + ".split");
+
+            if (isNull(query) && isNull(regex))
+                return null;
+
+            return new TextRule(isNull(query) ? null : SelectorPlan.of(query),
+                    isNull(index) ? -1 : index(field, query, index),
+                    isNull(regex) ? null : Pattern.compile(regex),
+                    isNull(split) ? null : Splitter.compile(split));
+        }
+
+        private static int index(String field, String query, String index) {
+            if (isNull(query))
+                throw new IllegalArgumentException("The property '" + field + ".index' requires a selector.");
+
+            try {
+                int value = Integer.parseInt(index.trim());
+                if (value >= 0)
+                    return value;
+            } catch (NumberFormatException e) {
+                // 与负数一同报告
+            }
+
+            throw new IllegalArgumentException("The property '" + field + ".index' should be a non-negative integer: "
+                    + index);
+        }
+
+        List<String> extract(Document doc) {
+            List<String> texts = new ArrayList<>();
+            if (isNull(query)) {
+                texts.add(doc.text());
+            } else {
+                Elements elements = query.select(doc);
+                if (index < 0) {
+                    for (Element e : elements)
+                        texts.add(e.text());
+                } else if (index < elements.size()) {
+                    texts.add(elements.get(index).text());
+                }
+            }
+
+            List<String> result = new ArrayList<>();
+            for (String text : texts) {
+                if (nonNull(regex)) {
+                    Matcher m = regex.matcher(text);
+                    if (!m.find())
+                        continue;
+                    text = m.groupCount() == 0 ? m.group() : m.group(1);
+                }
+
+                if (isNull(splitter))
+                    result.add(text);
+                else
+                    result.addAll(splitter.split(text));
+            }
+
+            return result;
+        }
+    }
+
+    /**
+     * 编译后的分隔符，不含正则表达式元字符时按字面值查找
+     */
+    private static final class Splitter {
+        private final String literal;
+        private final Pattern pattern;
+
+        private Splitter(String literal, Pattern pattern) {
+            this.literal = literal;
+            this.pattern = pattern;
+        }
+
+        static Splitter compile(String delimiter) {
+            for (int i = 0; i < delimiter.length(); i++)
+                if (REGEX_META_CHARS.indexOf(delimiter.charAt(i)) >= 0)
+                    return new Splitter(null, Pattern.compile(delimiter));
+
+            return new Splitter(delimiter, null);
+        }
+
+        // 与 String.split(String) 相同，去除末尾的空字符串
+        List<String> split(String text) {
+            List<String> result = new ArrayList<>();
+
+            if (nonNull(pattern)) {
+                for (String s : pattern.split(text))
+                    result.add(s);
+
+                return result;
+            }
+
+            int start = 0;
+            int index = text.indexOf(literal);
+            if (index < 0) {
+                result.add(text);
+
+                return result;
+            }
+
+            for (; index >= 0; index = text.indexOf(literal, start)) {
+                result.add(text.substring(start, index));
+                start = index + literal.length();
+            }
+            result.add(text.substring(start));
+
+            int size = result.size();
+            while (size > 0 && result.get(size - 1).isEmpty())
+                result.remove(--size);
+
+            return result;
+        }
+    }
+}
@@ -0,0 +1,722 @@
+package com.kumasuke.fetcher.ftr;
+
+import com.kumasuke.fetcher.util.Transport;
+import org.jsoup.nodes.Element;
+import org.jsoup.nodes.Node;
+import org.jsoup.parser.Tag;
+import org.jsoup.select.Elements;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.*;
+
+import static java.util.Objects.isNull;
+import static java.util.Objects.nonNull;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * 流式 Html 提取器，在读取页面的同时匹配预先编译的选择器，只保留匹配的子树。<br>
+ * 所有选择器均已取得所需数目的匹配后将立即停止读取，不再构建整个页面的 {@code Document}。<br>
+ * 一旦构造完成便无法修改，可以在多个线程间共享，通常保存在分析器的静态字段中。
+ * <p>
+ * 选择器仅支持由空格（后代）或 &gt;（子元素）连接的简单选择器，简单选择器可包含标签名、
+ * <code>#id</code>、<code>.class</code>、<code>[attr]</code> 和 <code>[attr=value]</code>。<br>
+ * 匹配的子树将以其父元素为上下文交由 {@code Jsoup} 解析，因此提取结果可继续使用 {@code Jsoup} 的方法。</p>
+ */
+final class StreamingExtractor {
+    // 无需结束标签的元素
+    private static final Set<String> VOID_TAGS = new HashSet<>(Arrays.asList(
+            "area", "base", "br", "col", "embed", "hr", "img", "input", "keygen",
+            "link", "meta", "param", "source", "track", "wbr"));
+    // 内容不含标签的元素，包括原始文本元素和 <title>、<textarea> 等 RCDATA 元素，直至对应的结束标签
+    private static final Set<String> RAW_TEXT_TAGS = new HashSet<>(Arrays.asList(
+            "script", "style", "xmp", "iframe", "noembed", "noframes", "title", "textarea"));
+    // 会隐式结束 <p> 的元素
+    private static final Set<String> CLOSES_P = new HashSet<>(Arrays.asList(
+            "address", "article", "aside", "blockquote", "div", "dl", "fieldset", "footer", "form",
+            "h1", "h2", "h3", "h4", "h5", "h6", "header", "hr", "menu", "nav", "ol", "p", "pre",
+            "section", "table", "ul"));
+
+    private final Selector[] selectors;
+
+    private StreamingExtractor(Builder builder) {
+        this.selectors = builder.selectors.toArray(new Selector[builder.selectors.size()]);
+    }
+
+    /**
+     * 获取一个新的 {@code StreamingExtractor.Builder} 对象。
+     *
+     * @return {@code StreamingExtractor.Builder} 对象
+     */
+    static Builder newBuilder() {
+        return new Builder();
+    }
+
+    /**
+     * 使用给定的连接设置获取指定页面，并提取匹配的元素。
+     *
+     * @param transport 连接设置
+     * @param url       页面地址
+     * @return 提取结果
+     * @throws IOException 页面连接、读取失败
+     */
+    Result extract(Transport transport, String url) throws IOException {
+        try (Reader in = transport.reader(url)) {
+            return extract(in, url);
+        }
+    }
+
+    /**
+     * 从给定的 {@code Reader} 中提取匹配的元素，提取完成后不会关闭该 {@code Reader}。
+     *
+     * @param in      Html 文本
+     * @param baseUri 用于解析相对地址的页面地址
+     * @return 提取结果
+     * @throws IOException 读取失败
+     */
+    Result extract(Reader in, String baseUri) throws IOException {
+        Scan scan = new Scan(in);
+        scan.run();
+
+        Map<String, Elements> found = new HashMap<>();
+        for (int i = 0; i < selectors.length; i++) {
+            Elements elements = new Elements();
+            for (Capture capture : scan.captured.get(i)) {
+                Element element = capture.toElement(baseUri);
+                if (nonNull(element))
+                    elements.add(element);
+            }
+            found.put(selectors[i].query, elements);
+        }
+
+        return new Result(found);
+    }
+
+    /**
+     * 提取结果，以选择器为键获取匹配的元素
+     */
+    static final class Result {
+        private final Map<String, Elements> found;
+
+        private Result(Map<String, Elements> found) {
+            this.found = found;
+        }
+
+        /**
+         * 获取给定选择器的第一个匹配元素。
+         *
+         * @param query 构造时注册的选择器
+         * @return 匹配的元素，没有匹配时返回 {@code null}
+         */
+        Element first(String query) {
+            return all(query).first();
+        }
+
+        /**
+         * 获取给定选择器的所有匹配元素。
+         *
+         * @param query 构造时注册的选择器
+         * @return 匹配的元素
+         */
+        Elements all(String query) {
+            Elements elements = found.get(query);
+            if (isNull(elements))
+                throw new IllegalArgumentException("The selector haven't been registered: " + query);
+
+            return elements;
+        }
+    }
+
+    /**
+     * {@code StreamingExtractor} 构造器，用于注册选择器
+     */
+    static class Builder {
+        private final List<Selector> selectors = new ArrayList<>();
+
+        private Builder() {
+
+        }
+
+        /**
+         * 注册一个只需第一个匹配元素的选择器。
+         *
+         * @param query 选择器
+         * @return {@code StreamingExtractor.Builder} 对象，便于链式编程
+         */
+        Builder select(String query) {
+            return select(query, 1);
+        }
+
+        /**
+         * 注册一个选择器，取得指定数目的匹配元素后该选择器不再匹配。
+         *
+         * @param query 选择器
+         * @param limit 所需的匹配元素数目
+         * @return {@code StreamingExtractor.Builder} 对象，便于链式编程
+         */
+        Builder select(String query, int limit) {
+            requireNonNull(query, "The parameter 'query' should be non-null value.");
+
+            if (limit <= 0)
+                throw new IllegalArgumentException("The parameter 'limit' should be positive value.");
+
+            selectors.add(Selector.compile(query, limit));
+
+            return this;
+        }
+
+        /**
+         * 根据注册的选择器构造 {@code StreamingExtractor} 对象。
+         *
+         * @return {@code StreamingExtractor} 对象
+         */
+        StreamingExtractor build() {
+            if (selectors.isEmpty())
+                throw new IllegalStateException("No selector has been registered.");
+
+            return new StreamingExtractor(this);
+        }
+    }
+
+    /**
+     * 开始标签中的元素信息，仅用于匹配选择器
+     */
+    private static final class OpenTag {
+        final String tag;
+        final Map<String, String> attrs;
+
+        OpenTag(String tag, Map<String, String> attrs) {
+            this.tag = tag;
+            this.attrs = attrs;
+        }
+
+        boolean hasClass(String name) {
+            String classes = attrs.get("class");
+            if (isNull(classes))
+                return false;
+
+            for (String c : classes.split("\\s+"))
+                if (c.equals(name))
+                    return true;
+
+            return false;
+        }
+    }
+
+    /**
+     * 编译后的简单选择器
+     */
+    private static final class Step {
+        // 是否要求与前一个简单选择器为父子关系
+        boolean child;
+        String tag;
+        String id;
+        final List<String> classes = new ArrayList<>();
+        final List<String[]> attrs = new ArrayList<>();
+
+        boolean matches(OpenTag node) {
+            if (nonNull(tag) && !tag.equals(node.tag))
+                return false;
+            if (nonNull(id) && !id.equals(node.attrs.get("id")))
+                return false;
+            for (String c : classes)
+                if (!node.hasClass(c))
+                    return false;
+            for (String[] a : attrs) {
+                String value = node.attrs.get(a[0]);
+                if (isNull(value) || (nonNull(a[1]) && !a[1].equals(value)))
+                    return false;
+            }
+
+            return true;
+        }
+    }
+
+    /**
+     * 编译后的选择器
+     */
+    private static final class Selector {
+        final String query;
+        final int limit;
+        final Step[] steps;
+
+        private Selector(String query, int limit, Step[] steps) {
+            this.query = query;
+            this.limit = limit;
+            this.steps = steps;
+        }
+
+        static Selector compile(String query, int limit) {
+            List<Step> steps = new ArrayList<>();
+            boolean child = false;
+            int i = 0;
+            int n = query.length();
+
+            while (i < n) {
+                char c = query.charAt(i);
+                if (Character.isWhitespace(c)) {
+                    i++;
+                    continue;
+                }
+                if (c == '>') {
+                    child = true;
+                    i++;
+                    continue;
+                }
+
+                Step step = new Step();
+                step.child = child && !steps.isEmpty();
+                child = false;
+
+                int start = i;
+                while (i < n && isNameChar(query.charAt(i)))
+                    i++;
+                if (i > start)
+                    step.tag = query.substring(start, i).toLowerCase();
+                else if (i < n && query.charAt(i) == '*')
+                    i++;
+
+                while (i < n && !Character.isWhitespace(query.charAt(i)) && query.charAt(i) != '>') {
+                    char k = query.charAt(i++);
+                    if (k == '#' || k == '.') {
+                        start = i;
+                        while (i < n && isNameChar(query.charAt(i)))
+                            i++;
+                        if (i == start)
+                            throw unsupported(query);
+
+                        if (k == '#')
+                            step.id = query.substring(start, i);
+                        else
+                            step.classes.add(query.substring(start, i));
+                    } else if (k == '[') {
+                        int end = query.indexOf(']', i);
+                        if (end < 0)
+                            throw unsupported(query);
+
+                        String attr = query.substring(i, end);
+                        int eq = attr.indexOf('=');
+                        String name = (eq < 0 ? attr : attr.substring(0, eq)).trim().toLowerCase();
+                        // 不支持 [attr^=value] 等其他属性选择器
+                        if (name.isEmpty() || !name.chars().allMatch(ch -> isNameChar((char) ch)))
+                            throw unsupported(query);
+
+                        if (eq < 0) {
+                            step.attrs.add(new String[]{name, null});
+                        } else {
+                            String value = attr.substring(eq + 1).trim();
+                            if (value.length() >= 2 && (value.charAt(0) == '"' || value.charAt(0) == '\''))
+                                value = value.substring(1, value.length() - 1);
+                            step.attrs.add(new String[]{name, value});
+                        }
+                        i = end + 1;
+                    } else {
+                        throw unsupported(query);
+                    }
+                }
+
+                steps.add(step);
+            }
+
+            if (steps.isEmpty())
+                throw unsupported(query);
+
+            return new Selector(query, limit, steps.toArray(new Step[steps.size()]));
+        }
+
+        private static IllegalArgumentException unsupported(String query) {
+            return new IllegalArgumentException("Unsupported selector for streaming extraction: " + query);
+        }
+
+        private static boolean isNameChar(char c) {
+            return Character.isLetterOrDigit(c) || c == '-' || c == '_';
+        }
+
+        // 从右向左匹配，stack 为当前元素的所有祖先
+        boolean matches(OpenTag node, List<OpenTag> stack) {
+            int last = steps.length - 1;
+
+            return steps[last].matches(node) && matchesAncestors(last - 1, stack.size() - 1, stack);
+        }
+
+        // 以 stack[0..pos] 匹配 steps[0..i]，后代组合符依次尝试每个符合的祖先，
+        // 以免 "div > p span" 等混合组合符因取最近的祖先而漏掉匹配
+        private boolean matchesAncestors(int i, int pos, List<OpenTag> stack) {
+            if (i < 0)
+                return true;
+
+            if (steps[i + 1].child)
+                return pos >= 0 && steps[i].matches(stack.get(pos)) && matchesAncestors(i - 1, pos - 1, stack);
+
+            for (; pos >= i; pos--) {
+                if (steps[i].matches(stack.get(pos)) && matchesAncestors(i - 1, pos - 1, stack))
+                    return true;
+            }
+
+            return false;
+        }
+    }
+
+    /**
+     * 一个匹配元素的原始 Html 文本
+     */
+    private static final class Capture {
+        final int selector;
+        // 匹配元素在栈中的位置
+        final int depth;
+        final String tag;
+        final String parentTag;
+        final StringBuilder html = new StringBuilder();
+
+        Capture(int selector, int depth, String tag, String parentTag) {
+            this.selector = selector;
+            this.depth = depth;
+            this.tag = tag;
+            this.parentTag = parentTag;
+        }
+
+        Element toElement(String baseUri) {
+            // 以父元素为上下文，使 <td> 等元素能够被正确解析
+            Element context = new Element(Tag.valueOf(parentTag), baseUri);
+            List<Node> nodes = org.jsoup.parser.Parser.parseFragment(html.toString(), context, baseUri);
+
+            for (Node node : nodes)
+                if (node instanceof Element && ((Element) node).tagName().equals(tag))
+                    return (Element) node;
+
+            return null;
+        }
+    }
+
+    /**
+     * 单次扫描的状态
+     */
+    private final class Scan {
+        private final Reader in;
+        private final char[] buffer = new char[8192];
+        private int pos;
+        private int limit;
+        // 回退的字符，-2 表示没有
+        private int pushback = -2;
+
+        private final List<OpenTag> stack = new ArrayList<>();
+        private final List<Capture> active = new ArrayList<>();
+        private final List<List<Capture>> captured = new ArrayList<>();
+        private final int[] counts = new int[selectors.length];
+        private int unfinished = selectors.length;
+
+        private final StringBuilder tag = new StringBuilder();
+
+        Scan(Reader in) {
+            this.in = in;
+
+            for (int i = 0; i < selectors.length; i++)
+                captured.add(new ArrayList<>());
+        }
+
+        private int next() throws IOException {
+            if (pushback != -2) {
+                int c = pushback;
+                pushback = -2;
+                return c;
+            }
+            if (pos == limit) {
+                limit = in.read(buffer, 0, buffer.length);
+                pos = 0;
+                if (limit <= 0) {
+                    limit = 0;
+                    return -1;
+                }
+            }
+
+            return buffer[pos++];
+        }
+
+        private void emit(char c) {
+            for (int i = 0; i < active.size(); i++)
+                active.get(i).html.append(c);
+        }
+
+        private void emit(CharSequence s) {
+            for (int i = 0; i < active.size(); i++)
+                active.get(i).html.append(s);
+        }
+
+        void run() throws IOException {
+            int c;
+            while (unfinished > 0 && (c = next()) >= 0) {
+                if (c != '<') {
+                    if (!active.isEmpty())
+                        emit((char) c);
+                    continue;
+                }
+
+                tag.setLength(0);
+                tag.append('<');
+                int d = next();
+                if (d == '!') {
+                    tag.append('!');
+                    readDeclaration();
+                    emit(tag);
+                } else if (d == '/') {
+                    tag.append('/');
+                    readTag();
+                    endTag(tagName(2));
+                } else if (d >= 0 && Character.isLetter(d)) {
+                    tag.append((char) d);
+                    readTag();
+                    startTag();
+                } else {
+                    // 不是标签的 <
+                    if (!active.isEmpty())
+                        emit('<');
+                    pushback = d;
+                }
+            }
+
+            // 读取完毕时仍未关闭的元素视为在此处结束
+            finish(0);
+        }
+
+        // 读取注释或 <!DOCTYPE ...>
+        private void readDeclaration() throws IOException {
+            int c = next();
+            if (c < 0)
+                return;
+            tag.append((char) c);
+
+            if (c == '-') {
+                // 注释以 --> 结束，且不能与开头的 <!-- 重叠
+                while ((c = next()) >= 0) {
+                    tag.append((char) c);
+                    if (c == '>' && tag.length() >= 7 && tag.charAt(tag.length() - 2) == '-'
+                            && tag.charAt(tag.length() - 3) == '-')
+                        return;
+                }
+            } else {
+                while (c != '>' && (c = next()) >= 0)
+                    tag.append((char) c);
+            }
+        }
+
+        // 读取至标签结束的 >，忽略引号中的 >
+        private void readTag() throws IOException {
+            int quote = 0;
+            int c;
+
+            while ((c = next()) >= 0) {
+                tag.append((char) c);
+                if (quote != 0) {
+                    if (c == quote)
+                        quote = 0;
+                } else if (c == '"' || c == '\'') {
+                    quote = c;
+                } else if (c == '>') {
+                    return;
+                }
+            }
+        }
+
+        private String tagName(int from) {
+            int end = from;
+            while (end < tag.length() && !isTagNameEnd(tag.charAt(end)))
+                end++;
+
+            return tag.substring(from, end).toLowerCase();
+        }
+
+        private boolean isTagNameEnd(char c) {
+            return Character.isWhitespace(c) || c == '>' || c == '/';
+        }
+
+        private void startTag() throws IOException {
+            String name = tagName(1);
+            closeImplied(name);
+
+            OpenTag node = new OpenTag(name, parseAttributes(name.length() + 1));
+            boolean selfClosing = VOID_TAGS.contains(name) ||
+                    (tag.length() >= 2 && tag.charAt(tag.length() - 2) == '/');
+
+            emit(tag);
+            String parentTag = stack.isEmpty() ? "body" : stack.get(stack.size() - 1).tag;
+            for (int i = 0; i < selectors.length; i++) {
+                if (counts[i] < selectors[i].limit && !isCapturing(i) && selectors[i].matches(node, stack)) {
+                    Capture capture = new Capture(i, stack.size(), name, parentTag);
+                    capture.html.append(tag);
+                    active.add(capture);
+                }
+            }
+
+            if (selfClosing) {
+                finish(stack.size());
+                return;
+            }
+
+            stack.add(node);
+            if (RAW_TEXT_TAGS.contains(name))
+                readRawText(name);
+        }
+
+        private boolean isCapturing(int selector) {
+            for (Capture capture : active)
+                if (capture.selector == selector)
+                    return true;
+
+            return false;
+        }
+
+        private void endTag(String name) {
+            emit(tag);
+
+            for (int i = stack.size() - 1; i >= 0; i--) {
+                if (stack.get(i).tag.equals(name)) {
+                    popTo(i);
+                    return;
+                }
+            }
+            // 没有对应开始标签的结束标签将被忽略
+        }
+
+        // 读取 <script>、<title> 等元素的文本，直至对应的结束标签，其中的 < 不会被视为标签
+        private void readRawText(String name) throws IOException {
+            String end = "</" + name;
+            int matched = 0;
+            int c;
+
+            while ((c = next()) >= 0) {
+                if (!active.isEmpty())
+                    emit((char) c);
+
+                if (Character.toLowerCase((char) c) == end.charAt(matched)) {
+                    if (++matched < end.length())
+                        continue;
+
+                    // 标签名之后须为空白、/ 或 >，否则只是以该标签名开头的文本，如 </titles
+                    int d = next();
+                    if (d < 0 || isTagNameEnd((char) d)) {
+                        tag.setLength(0);
+                        tag.append(end);
+                        if (d >= 0) {
+                            tag.append((char) d);
+                            if (d != '>')
+                                readTag();
+                        }
+                        if (!active.isEmpty())
+                            emit(tag.substring(end.length()));
+                        popTo(stack.size() - 1);
+                        return;
+                    }
+                    pushback = d;
+                    matched = 0;
+                } else {
+                    matched = c == '<' ? 1 : 0;
+                }
+            }
+        }
+
+        // 按照 Html 的规则隐式结束仍未关闭的元素
+        private void closeImplied(String name) {
+            switch (name) {
+                case "li":
+                    closeWithin(Arrays.asList("li"), Arrays.asList("ul", "ol"));
+                    break;
+                case "dd":
+                case "dt":
+                    closeWithin(Arrays.asList("dd", "dt"), Arrays.asList("dl"));
+                    break;
+                case "td":
+                case "th":
+                    closeWithin(Arrays.asList("td", "th"), Arrays.asList("tr", "table"));
+                    break;
+                case "tr":
+                    closeWithin(Arrays.asList("tr"), Arrays.asList("table", "tbody", "thead", "tfoot"));
+                    break;
+                case "option":
+                    closeWithin(Arrays.asList("option"), Arrays.asList("select"));
+                    break;
+                default:
+                    if (CLOSES_P.contains(name))
+                        closeWithin(Arrays.asList("p"), Arrays.asList("td", "th", "table", "button"));
+            }
+        }
+
+        private void closeWithin(List<String> targets, List<String> boundaries) {
+            for (int i = stack.size() - 1; i >= 0; i--) {
+                String t = stack.get(i).tag;
+                if (targets.contains(t)) {
+                    popTo(i);
+                    return;
+                }
+                if (boundaries.contains(t))
+                    return;
+            }
+        }
+
+        // 弹出栈中位置不小于 depth 的元素
+        private void popTo(int depth) {
+            while (stack.size() > depth)
+                stack.remove(stack.size() - 1);
+
+            finish(depth);
+        }
+
+        // 结束位置不小于 depth 的匹配
+        private void finish(int depth) {
+            for (Iterator<Capture> it = active.iterator(); it.hasNext(); ) {
+                Capture capture = it.next();
+                if (capture.depth >= depth) {
+                    it.remove();
+                    captured.get(capture.selector).add(capture);
+                    if (++counts[capture.selector] == selectors[capture.selector].limit)
+                        unfinished--;
+                }
+            }
+        }
+
+        private Map<String, String> parseAttributes(int from) {
+            Map<String, String> attrs = new HashMap<>();
+            int i = from;
+            int n = tag.length();
+
+            while (i < n) {
+                char c = tag.charAt(i);
+                if (Character.isWhitespace(c) || c == '/' || c == '>') {
+                    i++;
+                    continue;
+                }
+
+                int start = i;
+                while (i < n && !Character.isWhitespace(tag.charAt(i)) && "=/>".indexOf(tag.charAt(i)) < 0)
+                    i++;
+                String name = tag.substring(start, i).toLowerCase();
+
+                while (i < n && Character.isWhitespace(tag.charAt(i)))
+                    i++;
+                String value = "";
+                if (i < n && tag.charAt(i) == '=') {
+                    i++;
+                    while (i < n && Character.isWhitespace(tag.charAt(i)))
+                        i++;
+                    if (i < n && (tag.charAt(i) == '"' || tag.charAt(i) == '\'')) {
+                        char quote = tag.charAt(i++);
+                        start = i;
+                        while (i < n && tag.charAt(i) != quote)
+                            i++;
+                        value = tag.substring(start, Math.min(i, n));
+                        i++;
+                    } else {
+                        start = i;
+                        while (i < n && !Character.isWhitespace(tag.charAt(i)) && tag.charAt(i) != '>')
+                            i++;
+                        value = tag.substring(start, i);
+                    }
+                }
+
+                if (!name.isEmpty())
+                    attrs.putIfAbsent(name, value);
+            }
+
+            return attrs;
+        }
+    }
+}
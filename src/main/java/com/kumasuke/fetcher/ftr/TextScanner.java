@@ -0,0 +1,86 @@
+package com.kumasuke.fetcher.ftr;
+
+/**
+ * 代替惰性正则表达式（{@code .*?}）的线性扫描工具。<br>
+ * 所有查找都限定在给定的区间内，调用方在一次尝试失败后跳过已扫描的区间，
+ * 因此即使页面格式异常，提取的耗时也只与页面长度成正比，不会出现回溯。
+ */
+final class TextScanner {
+    private TextScanner() {
+        throw new AssertionError();
+    }
+
+    /**
+     * 在 {@code [from, to)} 区间内查找给定字符串第一次完整出现的位置。
+     *
+     * @param text   被查找的文本
+     * @param target 需要查找的字符串
+     * @param from   区间起始位置（含）
+     * @param to     区间结束位置（不含）
+     * @return 出现的位置，不存在时返回 -1
+     */
+    static int indexOf(String text, String target, int from, int to) {
+        char first = target.charAt(0);
+        int last = Math.min(to, text.length()) - target.length();
+
+        for (int i = from; i <= last; i++) {
+            if (text.charAt(i) == first && text.startsWith(target, i))
+                return i;
+        }
+
+        return -1;
+    }
+
+    /**
+     * 返回从给定位置开始的第一个行终止符的位置，与正则表达式中 {@code .} 不能匹配的字符一致。
+     *
+     * @param text 被查找的文本
+     * @param from 起始位置（含）
+     * @return 行终止符的位置，不存在时返回文本长度
+     */
+    static int lineEnd(String text, int from) {
+        int length = text.length();
+
+        for (int i = from; i < length; i++) {
+            if (isLineTerminator(text.charAt(i)))
+                return i;
+        }
+
+        return length;
+    }
+
+    /**
+     * 判断给定字符是否为行终止符，即正则表达式中 {@code .} 不能匹配的字符。
+     *
+     * @param c 给定字符
+     * @return 是否为行终止符
+     */
+    static boolean isLineTerminator(char c) {
+        return c == '\n' || c == '\r' || c == '\u0085' || c == '\u2028' || c == '\u2029';
+    }
+
+    /**
+     * 判断给定字符是否为正则表达式中 {@code \s} 所匹配的空白字符。
+     *
+     * @param c 给定字符
+     * @return 是否为空白字符
+     */
+    static boolean isSpace(char c) {
+        return c == ' ' || c == '\t' || c == '\n' || c == '\u000b' || c == '\f' || c == '\r';
+    }
+
+    /**
+     * 跳过从给定位置开始的空白字符。
+     *
+     * @param text 给定文本
+     * @param from 起始位置
+     * @return 第一个非空白字符的位置，不存在时返回文本长度
+     */
+    static int skipSpaces(String text, int from) {
+        int i = from;
+        while (i < text.length() && isSpace(text.charAt(i)))
+            i++;
+
+        return i;
+    }
+}
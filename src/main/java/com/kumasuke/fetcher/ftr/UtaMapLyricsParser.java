@@ -1,43 +1,39 @@
 package com.kumasuke.fetcher.ftr;
 
 import com.kumasuke.fetcher.Lyrics;
-import com.kumasuke.fetcher.util.URLReader;
+import com.kumasuke.fetcher.util.Transport;
 
 import java.io.IOException;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.List;
 
-import static java.util.Objects.isNull;
+import static java.util.Objects.nonNull;
 
 /**
  * うたまっぷ (UtaMap.com) 的歌词分析器。
  */
 class UtaMapLyricsParser extends LyricsParser {
-    // 从 Js 代码中匹配歌词的正则表达式
-    private static final Pattern JS_LYRICS_PATTERN;
+    // Js 代码中每行歌词的开始和结束标记
+    private static final String FILL_TEXT_OPEN = ".fillText('";
+    private static final String FILL_TEXT_CLOSE = "',";
 
-    static {
-        JS_LYRICS_PATTERN = Pattern.compile("\\.fillText\\('(.*?)',");
-    }
-
-    private String js;
-
-    private ListLyrics lyrics;
+    private Lyrics lyrics;
 
     /**
-     * 构造一个 {@code UtaMapLyricsParser} 对象，且指定 {@code UserAgent}。
+     * 构造一个 {@code UtaMapLyricsParser} 对象，且指定连接设置。
      *
      * @param songPage  {@code UtaMapSongPageParser} 对象<br>
-     * @param userAgent {@code UserAgent} 字符串
+     * @param transport 连接设置
      * @throws IOException 页面连接、处理失败
      */
-    UtaMapLyricsParser(UtaMapSongPageParser songPage, String userAgent) throws IOException {
-        this.js = URLReader.connect(songPage.lrcUrl())
+    UtaMapLyricsParser(UtaMapSongPageParser songPage, Transport transport) throws IOException {
+        try (Reader reader = transport.connect(songPage.lrcUrl())
                 .charset("Shift-JIS")
-                .timeout(5000)
                 .referer(songPage.songPageUrl())
-                .userAgent(userAgent)
-                .getText();
+                .getReader()) {
+            this.lyrics = toLyrics(extract(reader));
+        }
     }
 
     /**
@@ -47,13 +43,28 @@ class UtaMapLyricsParser extends LyricsParser {
      */
     @Override
     Lyrics lyrics() {
-        if (isNull(lyrics)) {
-            Matcher lyricsTextMatcher = JS_LYRICS_PATTERN.matcher(js);
+        return lyrics;
+    }
 
-            lyrics = toLyrics(lyricsTextMatcher);
+    /**
+     * 依次提取 Js 代码中各个 {@code fillText} 调用的第一个参数，不跨行，
+     * 与 {@code \.fillText\('(.*?)',} 的各个匹配相同。
+     *
+     * @param js Js 代码
+     * @return 按顺序排列的歌词文本
+     * @throws IOException 读取失败
+     */
+    static List<String> extract(Reader js) throws IOException {
+        MarkerScanner scanner = new MarkerScanner(js);
+        List<String> result = new ArrayList<>();
+
+        while (scanner.skipTo(FILL_TEXT_OPEN)) {
+            // 本行中不存在结束标记时，已读取的内容中的开始标记同样无法匹配
+            String text = scanner.untilInLine(FILL_TEXT_CLOSE);
+            if (nonNull(text))
+                result.add(text);
         }
 
-        return lyrics;
+        return result;
     }
 }
-
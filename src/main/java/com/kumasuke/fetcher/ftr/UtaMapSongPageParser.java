@@ -1,16 +1,14 @@
 package com.kumasuke.fetcher.ftr;
 
 import com.kumasuke.fetcher.Header;
-import org.jsoup.Jsoup;
+import com.kumasuke.fetcher.util.SongRef;
+import com.kumasuke.fetcher.util.Transport;
 import org.jsoup.nodes.Document;
 import org.jsoup.nodes.Element;
 import org.jsoup.select.Elements;
 
 import java.io.IOException;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
 
-import static com.kumasuke.fetcher.util.Tools.toSet;
 import static java.util.Objects.isNull;
 
 /**
@@ -20,14 +18,13 @@ import static java.util.Objects.isNull;
 class UtaMapSongPageParser extends SongPageParser {
     // 网站的主机名
     private static final String HOSTNAME = "http://www.utamap.com";
-    // 匹配歌词页地址的正则表达式
-    private static final Pattern fullUrlPattern;
-    // 匹配歌曲代码的正则表达式
-    private static final Pattern songCodePattern;
+    // 歌曲标题和艺术家信息所在元素的选择器
+    private static final SelectorPlan titleSelector;
+    private static final SelectorPlan artistsSelector;
 
     static {
-        fullUrlPattern = Pattern.compile(".*?com/show(?:kasi|top)\\.php\\?surl=([-\\w]+)");
-        songCodePattern = WORD_SONG_CODE_PATTERN;
+        titleSelector = SelectorPlan.of("td.kasi1");
+        artistsSelector = SelectorPlan.of("td.pad5x10x0x10");
     }
 
     private Document doc;
@@ -36,38 +33,20 @@ class UtaMapSongPageParser extends SongPageParser {
     private EnumHeader header;
 
     /**
-     * 构造一个 {@code UtaMapSongPageParser} 对象，且指定 {@code UserAgent}。
+     * 构造一个 {@code UtaMapSongPageParser} 对象，且指定连接设置。
      *
-     * @param page      歌词页地址或歌曲代码
-     * @param userAgent {@code UserAgent} 字符串
+     * @param ref       歌曲引用
+     * @param transport 连接设置
      * @throws IOException 页面连接、处理失败
      */
-    public UtaMapSongPageParser(String page, String userAgent) throws IOException {
-        if (!validate(page))
-            throw new IllegalArgumentException("Unable to resolve the parameter page: " + page);
+    public UtaMapSongPageParser(SongRef ref, Transport transport) throws IOException {
+        this.songCode = ref.getCode();
 
-        initialize(userAgent);
+        initialize(transport);
     }
 
-    private boolean validate(String page) {
-        Matcher fullUrl = fullUrlPattern.matcher(page);
-        Matcher songCode = songCodePattern.matcher(page);
-
-        if (fullUrl.matches())
-            this.songCode = fullUrl.group(1);
-        else if (songCode.matches())
-            this.songCode = page;
-        else
-            return false;
-
-        return true;
-    }
-
-    private void initialize(String userAgent) throws IOException {
-        this.doc = Jsoup.connect(songPageUrl())
-                .timeout(5000)
-                .userAgent(userAgent)
-                .get();
+    private void initialize(Transport transport) throws IOException {
+        this.doc = transport.document(songPageUrl());
     }
 
     /**
@@ -80,18 +59,15 @@ class UtaMapSongPageParser extends SongPageParser {
         if (isNull(header)) {
             header = new EnumHeader();
 
-            Element titleElement = doc.select("td.kasi1").first();
-            Elements artistsElement = doc.select("td.pad5x10x0x10");
+            Element titleElement = titleSelector.first(doc);
+            Elements artistsElement = artistsSelector.select(doc);
 
             String title = titleElement.text().trim();
-            String[] lyricists = artistsElement.get(1).text().split("/");
-            String[] composers = artistsElement.get(3).text().split("/");
-            String[] artists = artistsElement.get(5).text().split("/");
 
             header.setTitle(title)
-                    .setLyricist(toSet(Parser::htmlTrim, lyricists))
-                    .setComposer(toSet(Parser::htmlTrim, composers))
-                    .setArtist(toSet(Parser::htmlTrim, artists));
+                    .setLyricist(splitToSet(artistsElement.get(1).text(), "/"))
+                    .setComposer(splitToSet(artistsElement.get(3).text(), "/"))
+                    .setArtist(splitToSet(artistsElement.get(5).text(), "/"));
         }
 
         return header;
@@ -1,7 +1,11 @@
 package com.kumasuke.fetcher.ftr;
 
+import com.kumasuke.fetcher.Fetcher;
 import com.kumasuke.fetcher.util.FetcherBuilder;
-import org.dom4j.DocumentException;
+import com.kumasuke.fetcher.util.FetcherFactory;
+import com.kumasuke.fetcher.util.SiteProvider;
+import com.kumasuke.fetcher.util.SongRef;
+import com.kumasuke.fetcher.util.Transport;
 
 import java.io.IOException;
 
@@ -9,6 +13,9 @@ import java.io.IOException;
  * 歌ネット (Uta-Net.com) 的歌词获取器。
  */
 public class UtaNetFetcher extends AbstractSplitFetcher<UtaNetSongPageParser, UtaNetLyricsParser> {
+    // 网站的域名
+    private static final String SITE = "uta-net.com";
+
     /**
      * 构造一个 {@code UtaNetFetcher} 对象，用于获取对应网站歌词相关信息。<br>
      * 也可使用 {@link FetcherBuilder FetcherBuilder} 来进行构造。
@@ -18,14 +25,63 @@ public class UtaNetFetcher extends AbstractSplitFetcher<UtaNetSongPageParser, Ut
      * @throws IOException 页面连接、解析、处理失败
      */
     public UtaNetFetcher(String page, String userAgent) throws IOException {
-        super(page, userAgent);
-
-        songPageParser = new UtaNetSongPageParser(page, userAgent);
-        try {
-            lyricsParser = new UtaNetLyricsParser(songPageParser);
-        } catch (DocumentException e) {
-            // 包装 DocumentException 为 IOException
-            throw new IOException(e);
+        this(page, Transport.of(userAgent));
+    }
+
+    /**
+     * 构造一个 {@code UtaNetFetcher} 对象，用于获取对应网站歌词相关信息，且指定连接设置。<br>
+     * 也可使用 {@link FetcherFactory FetcherFactory} 来进行构造。
+     *
+     * @param page      歌词页地址或歌曲代码
+     * @param transport 连接设置
+     * @throws IOException 页面连接、解析、处理失败
+     */
+    public UtaNetFetcher(String page, Transport transport) throws IOException {
+        this(SongRef.of(SITE, page), transport);
+    }
+
+    /**
+     * 构造一个 {@code UtaNetFetcher} 对象，根据歌曲引用获取对应网站歌词相关信息，且指定连接设置。<br>
+     * 也可使用 {@link FetcherFactory FetcherFactory} 来进行构造。
+     *
+     * @param ref       歌曲引用
+     * @param transport 连接设置
+     * @throws IOException 页面连接、解析、处理失败
+     */
+    public UtaNetFetcher(SongRef ref, Transport transport) throws IOException {
+        super(SITE, ref, transport);
+
+        songPageParser = new UtaNetSongPageParser(ref, transport);
+        lyricsParser = new UtaNetLyricsParser(songPageParser, transport);
+    }
+
+    /**
+     * 歌ネット (Uta-Net.com) 的站点提供者，由 {@link java.util.ServiceLoader} 加载。
+     */
+    public static final class Provider implements SiteProvider {
+        @Override
+        public String site() {
+            return SITE;
+        }
+
+        @Override
+        public String host() {
+            return "uta-net.com";
+        }
+
+        @Override
+        public String pathPattern() {
+            return "/song/(\\d+)/?";
+        }
+
+        @Override
+        public String codePattern() {
+            return Parser.NUMBER_SONG_CODE;
+        }
+
+        @Override
+        public Fetcher newFetcher(SongRef ref, Transport transport) throws IOException {
+            return new UtaNetFetcher(ref, transport);
         }
     }
 }
@@ -1,48 +1,107 @@
 package com.kumasuke.fetcher.ftr;
 
 import com.kumasuke.fetcher.Lyrics;
-import com.sun.org.apache.xerces.internal.impl.Constants;
-import org.dom4j.Document;
-import org.dom4j.DocumentException;
-import org.dom4j.Element;
-import org.dom4j.io.SAXReader;
-import org.xml.sax.SAXException;
+import com.kumasuke.fetcher.util.Transport;
 
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
 import java.util.List;
 
-import static java.util.Objects.isNull;
+import static java.util.Objects.nonNull;
+import static javax.xml.stream.XMLStreamConstants.*;
 
 /**
  * 歌ネット (Uta-Net.com) 的歌词分析器。<br>
- * 使用 {@code dom4j} 包获取页面信息。
+ * 使用 {@code StAX} 边读取边提取歌词 SVG 中的文本，不构造文档树。
  */
 class UtaNetLyricsParser extends LyricsParser {
-    private Element root;
+    // 不加载外部 dtd 的 StAX 工厂，避免因无法访问的 dtd 地址引起异常
+    private static final XMLInputFactory factory;
 
-    private ListLyrics lyrics;
+    static {
+        factory = XMLInputFactory.newInstance();
+        factory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+        factory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+        factory.setProperty(XMLInputFactory.IS_COALESCING, true);
+    }
+
+    private Lyrics lyrics;
+
+    /**
+     * 构造一个 {@code UtaNetLyricsParser} 对象，且指定连接设置。
+     *
+     * @param songPage  {@code UtaNetSongPageParser} 对象<br>
+     * @param transport 连接设置
+     * @throws IOException 歌词 SVG 连接、解析失败
+     */
+    UtaNetLyricsParser(UtaNetSongPageParser songPage, Transport transport) throws IOException {
+        try (InputStream in = transport.stream(songPage.lrcUrl())) {
+            this.lyrics = toLyrics(extract(in));
+        } catch (XMLStreamException e) {
+            throw new IOException(e);
+        }
+    }
 
     /**
-     * 构造一个 {@code UtaNetLyricsParser} 对象。
+     * 提取根元素下第一个 {@code <g>} 元素中各个 {@code <text>} 元素的文本，
+     * 读取到该 {@code <g>} 元素结束时即停止。
      *
-     * @param songPage {@code UtaNetSongPageParser} 对象<br>
-     * @throws DocumentException XML 文档连接、解析失败
+     * @param in 歌词 SVG
+     * @return 按顺序排列的文本
+     * @throws XMLStreamException SVG 解析失败
      */
-    @SuppressWarnings("unchecked")
-    UtaNetLyricsParser(UtaNetSongPageParser songPage) throws DocumentException {
-        SAXReader reader = new SAXReader();
+    static List<String> extract(InputStream in) throws XMLStreamException {
+        XMLStreamReader reader = factory.createXMLStreamReader(in);
+        List<String> result = new ArrayList<>();
 
-        // 关闭解析外部 dtd，避免因无法访问的 dtd 地址引起异常
         try {
-            reader.setFeature(Constants.XERCES_FEATURE_PREFIX
-                    + Constants.LOAD_EXTERNAL_DTD_FEATURE, false);
-        } catch (SAXException e) {
-            e.printStackTrace();
-        }
+            // 根元素的深度为 1
+            int depth = 0;
+            boolean inGroup = false;
+            StringBuilder text = null;
+
+            while (reader.hasNext()) {
+                switch (reader.next()) {
+                    case START_ELEMENT:
+                        depth++;
+                        String name = reader.getLocalName();
+                        if (depth == 2 && name.equals("g"))
+                            inGroup = true;
+                        else if (inGroup && depth == 3 && name.equals("text"))
+                            text = new StringBuilder();
+                        break;
+
+                    case CHARACTERS:
+                    case CDATA:
+                    case SPACE:
+                        // 与 dom4j 的 getText() 相同，只取 <text> 自身的文本
+                        if (nonNull(text) && depth == 3)
+                            text.append(reader.getText());
+                        break;
+
+                    case END_ELEMENT:
+                        if (nonNull(text) && depth == 3) {
+                            result.add(text.toString());
+                            text = null;
+                        } else if (inGroup && depth == 2) {
+                            return result;
+                        }
+                        depth--;
+                        break;
 
-        String url = songPage.lrcUrl();
-        Document doc = reader.read(url);
+                    default:
+                        break;
+                }
+            }
 
-        root = doc.getRootElement().element("g");
+            return result;
+        } finally {
+            reader.close();
+        }
     }
 
     /**
@@ -52,14 +111,6 @@ class UtaNetLyricsParser extends LyricsParser {
      */
     @Override
     Lyrics lyrics() {
-        if (isNull(lyrics)) {
-            // 根据 dom4j API 文档可以安全转换
-            @SuppressWarnings("unchecked")
-            List<Element> lyricsList = (List<Element>) root.elements("text");
-
-            lyrics = toLyrics(Element::getText, lyricsList);
-        }
-
         return lyrics;
     }
-}
\ No newline at end of file
+}
@@ -1,7 +1,8 @@
 package com.kumasuke.fetcher.ftr;
 
 import com.kumasuke.fetcher.Header;
-import org.jsoup.Jsoup;
+import com.kumasuke.fetcher.util.SongRef;
+import com.kumasuke.fetcher.util.Transport;
 import org.jsoup.nodes.Document;
 import org.jsoup.nodes.Element;
 
@@ -20,18 +21,17 @@ class UtaNetSongPageParser extends SongPageParser {
     private static final String HOSTNAME = "http://www.uta-net.com";
     // 提取歌曲基本信息的正则表达式
     private static final Pattern infoPattern;
-    // 匹配歌词页地址的正则表达式
-    private static final Pattern fullUrlPattern;
-    // 匹配歌曲代码的正则表达式
-    private static final Pattern songCodePattern;
+    // 歌曲标题和艺术家信息所在元素的选择器
+    private static final SelectorPlan titleSelector;
+    private static final SelectorPlan artistsSelector;
 
     static {
+        titleSelector = SelectorPlan.of("#sound_uri + h2");
+        artistsSelector = SelectorPlan.of("div.kashi_artist");
         infoPattern = Pattern.compile("\\u6b4c\\u624b\\uff1a\\s(.*?)  # artist    \n" +
                         "\\u4f5c\\u8a5e\\uff1a\\s(.*?)                # lyrics    \n" +
                         "\\u4f5c\\u66f2\\uff1a\\s(.*)                 # composer  \n",
                 Pattern.COMMENTS);
-        fullUrlPattern = Pattern.compile(".*?/song/(\\d+)/?");
-        songCodePattern = NUMBER_SONG_CODE_PATTERN;
     }
 
     private Document doc;
@@ -40,38 +40,20 @@ class UtaNetSongPageParser extends SongPageParser {
     private EnumHeader header;
 
     /**
-     * 构造一个 {@code UtaNetSongPageParser} 对象，且指定 {@code UserAgent}。
+     * 构造一个 {@code UtaNetSongPageParser} 对象，且指定连接设置。
      *
-     * @param page      歌词页地址或歌曲代码
-     * @param userAgent {@code UserAgent} 字符串
+     * @param ref       歌曲引用
+     * @param transport 连接设置
      * @throws IOException 页面连接、处理失败
      */
-    UtaNetSongPageParser(String page, String userAgent) throws IOException {
-        if (!validate(page))
-            throw new IllegalArgumentException("Unable to resolve the parameter page: " + page);
+    UtaNetSongPageParser(SongRef ref, Transport transport) throws IOException {
+        this.songCode = ref.getCode();
 
-        initialize(userAgent);
+        initialize(transport);
     }
 
-    private boolean validate(String page) {
-        Matcher fullUrl = fullUrlPattern.matcher(page);
-        Matcher songCode = songCodePattern.matcher(page);
-
-        if (fullUrl.matches())
-            this.songCode = fullUrl.group(1);
-        else if (songCode.matches())
-            this.songCode = page;
-        else
-            return false;
-
-        return true;
-    }
-
-    private void initialize(String userAgent) throws IOException {
-        this.doc = Jsoup.connect(songPageUrl())
-                .timeout(5000)
-                .userAgent(userAgent)
-                .get();
+    private void initialize(Transport transport) throws IOException {
+        this.doc = transport.document(songPageUrl());
     }
 
     /**
@@ -84,21 +66,17 @@ class UtaNetSongPageParser extends SongPageParser {
         if (isNull(header)) {
             header = new EnumHeader();
 
-            Element titleElement = doc.select("#sound_uri + h2").first();
+            Element titleElement = titleSelector.first(doc);
             String title = titleElement.text().trim();
             header.setTitle(title);
 
-            Element artistsElement = doc.select("div.kashi_artist").first();
+            Element artistsElement = artistsSelector.first(doc);
             String allArtists = artistsElement.text();
             Matcher matcher = infoPattern.matcher(allArtists);
             if (matcher.matches()) {
-                String[] artists = matcher.group(1).split("\\u30fb");
-                String[] lyricists = matcher.group(2).split("\\u30fb");
-                String[] composers = matcher.group(3).split("\\u30fb");
-
-                header.setArtist(toStringSet(artists))
-                        .setLyricist(toStringSet(lyricists))
-                        .setComposer(toStringSet(composers));
+                header.setArtist(splitToSet(matcher.group(1), "\u30fb"))
+                        .setLyricist(splitToSet(matcher.group(2), "\u30fb"))
+                        .setComposer(splitToSet(matcher.group(3), "\u30fb"));
             }
         }
 
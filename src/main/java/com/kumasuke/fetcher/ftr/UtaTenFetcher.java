@@ -1,15 +1,30 @@
 package com.kumasuke.fetcher.ftr;
 
+import com.kumasuke.fetcher.Fetcher;
+import com.kumasuke.fetcher.Lyrics;
+import com.kumasuke.fetcher.Ruby;
+import com.kumasuke.fetcher.RubyLyricsSupport;
+import com.kumasuke.fetcher.util.Capability;
 import com.kumasuke.fetcher.util.FetcherBuilder;
+import com.kumasuke.fetcher.util.FetcherFactory;
+import com.kumasuke.fetcher.util.SiteProvider;
+import com.kumasuke.fetcher.util.SongRef;
+import com.kumasuke.fetcher.util.Transport;
 
 import java.io.IOException;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
 
 /**
  * UtaTen (UtaTen.com) 的歌词获取器。<br>
  * <p>
  * 该获取器获取的歌词文本含有假名注音(読み仮名)。</p>
  */
-public class UtaTenFetcher extends AbstractUnitedFetcher<UtaTenUnitedParser> {
+public class UtaTenFetcher extends AbstractUnitedFetcher<UtaTenUnitedParser> implements RubyLyricsSupport {
+    // 网站的域名
+    private static final String SITE = "utaten.com";
+
     /**
      * 构造一个 {@code UtaTenFetcher} 对象，用于获取对应网站歌词相关信息。<br>
      * 也可使用 {@link FetcherBuilder FetcherBuilder} 来进行构造。
@@ -18,10 +33,90 @@ public class UtaTenFetcher extends AbstractUnitedFetcher<UtaTenUnitedParser> {
      * @param userAgent {@code UserAgent} 字符串
      * @throws IOException 页面连接、处理失败
      */
-    public UtaTenFetcher(String page, String userAgent)
-            throws IOException {
-        super(page, userAgent);
+    public UtaTenFetcher(String page, String userAgent) throws IOException {
+        this(page, Transport.of(userAgent));
+    }
+
+    /**
+     * 构造一个 {@code UtaTenFetcher} 对象，用于获取对应网站歌词相关信息，且指定连接设置。<br>
+     * 也可使用 {@link FetcherFactory FetcherFactory} 来进行构造。
+     *
+     * @param page      歌词页地址
+     * @param transport 连接设置
+     * @throws IOException 页面连接、处理失败
+     */
+    public UtaTenFetcher(String page, Transport transport) throws IOException {
+        this(SongRef.of(SITE, page), transport);
+    }
+
+    /**
+     * 构造一个 {@code UtaTenFetcher} 对象，根据歌曲引用获取对应网站歌词相关信息，且指定连接设置。<br>
+     * 也可使用 {@link FetcherFactory FetcherFactory} 来进行构造。
+     *
+     * @param ref       歌曲引用
+     * @param transport 连接设置
+     * @throws IOException 页面连接、处理失败
+     */
+    public UtaTenFetcher(SongRef ref, Transport transport) throws IOException {
+        super(SITE, ref, transport);
+
+        parser = new UtaTenUnitedParser(ref, transport);
+    }
+
+    /**
+     * 获取含有注音的歌词文本。
+     *
+     * @return 装有歌词文本的 {@code Lyrics} 容器
+     */
+    // 同时覆盖了 Fetcher 中已过时的同名方法，实现 RubyLyricsSupport 接口的方法本身并未过时
+    @SuppressWarnings("deprecation")
+    @Override
+    public Lyrics getLyricsWithRuby() {
+        return parser.lyricsWithRuby();
+    }
+
+    /**
+     * 获取歌词中的所有注音，与不含注音的歌词文本由同一次分词得到。
+     *
+     * @return 装有注音的 {@code List} 对象
+     */
+    @Override
+    public List<Ruby> getRubies() {
+        return parser.rubies();
+    }
+
+    /**
+     * UtaTen (UtaTen.com) 的站点提供者，由 {@link java.util.ServiceLoader} 加载。
+     */
+    public static final class Provider implements SiteProvider {
+        @Override
+        public String site() {
+            return SITE;
+        }
+
+        @Override
+        public String host() {
+            return "utaten.com";
+        }
+
+        @Override
+        public String pathPattern() {
+            return "/lyric/([^/]+)/([^/]+)/?";
+        }
+
+        @Override
+        public String codePattern() {
+            return "[^/]+/[^/]+";
+        }
+
+        @Override
+        public Set<Capability> capabilities() {
+            return EnumSet.of(Capability.RUBY_LYRICS);
+        }
 
-        parser = new UtaTenUnitedParser(page, userAgent);
+        @Override
+        public Fetcher newFetcher(SongRef ref, Transport transport) throws IOException {
+            return new UtaTenFetcher(ref, transport);
+        }
     }
 }
@@ -2,12 +2,14 @@ package com.kumasuke.fetcher.ftr;
 
 import com.kumasuke.fetcher.Header;
 import com.kumasuke.fetcher.Lyrics;
-import org.jsoup.Jsoup;
-import org.jsoup.nodes.Document;
+import com.kumasuke.fetcher.Ruby;
+import com.kumasuke.fetcher.util.SongRef;
+import com.kumasuke.fetcher.util.Transport;
 import org.jsoup.nodes.Element;
 import org.jsoup.select.Elements;
 
 import java.io.IOException;
+import java.util.List;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -22,55 +24,42 @@ class UtaTenUnitedParser extends UnitedParser {
     private static final String HOSTNAME = "http://utaten.com";
     // 提取歌曲标题的正则表达式
     private static final Pattern titlePattern;
-    // 匹配歌词页地址的正则表达式
-    private static final Pattern fullUrlPattern;
-    // 提取假名注音的正则表达式
-    private static final Pattern rubyPattern;
+    // 歌词页中需要提取的元素
+    private static final StreamingExtractor extractor;
 
     static {
         titlePattern = Pattern.compile(".*?\\u300c(.*?)\\u300d.*", Pattern.DOTALL);
-        fullUrlPattern = Pattern.compile(".*?/lyric/([^/]+)/([^/]+)/?");
-        rubyPattern = Pattern.compile("<span class=\"ruby\"><span class=\"rb\">(.*?)</span>" +
-                "<span class=\"rt\">(.*?)</span></span>");
+        extractor = StreamingExtractor.newBuilder()
+                .select("div.contentBox__title--lyricTitle h1")
+                .select("span.contentBox__titleSub")
+                .select("dd.lyricWork__body", 2)
+                .select("div.lyricBody div.medium")
+                .build();
     }
 
-    private Document doc;
+    private StreamingExtractor.Result page;
     private String url;
 
     private EnumHeader header;
-    private ListLyrics lyrics;
-    private ListLyrics lyricsWithRuby;
+    private Lyrics lyrics;
+    private Lyrics lyricsWithRuby;
+    private List<Ruby> rubies;
 
     /**
-     * 构造一个 {@code JLyricSongPageParser} 对象，且指定 {@code UserAgent}。
+     * 构造一个 {@code JLyricSongPageParser} 对象，且指定连接设置。
      *
-     * @param page      歌词页地址
-     * @param userAgent {@code UserAgent} 字符串
+     * @param ref       歌曲引用
+     * @param transport 连接设置
      * @throws IOException 页面连接、处理失败
      */
-    UtaTenUnitedParser(String page, String userAgent) throws IOException {
-        if (!validate(page))
-            throw new IllegalArgumentException("Unable to resolve the parameter page: " + page);
+    UtaTenUnitedParser(SongRef ref, Transport transport) throws IOException {
+        this.url = HOSTNAME + "/lyric/" + ref.getCode() + "/";
 
-        initialize(userAgent);
+        initialize(transport);
     }
 
-    private boolean validate(String page) {
-        Matcher fullUrl = fullUrlPattern.matcher(page);
-
-        if (fullUrl.matches())
-            this.url = HOSTNAME + "/lyric/" + fullUrl.group(1) + "/" + fullUrl.group(2) + "/";
-        else
-            return false;
-
-        return true;
-    }
-
-    private void initialize(String userAgent) throws IOException {
-        this.doc = Jsoup.connect(songPageUrl())
-                .timeout(5000)
-                .userAgent(userAgent)
-                .get();
+    private void initialize(Transport transport) throws IOException {
+        this.page = extractor.extract(transport, songPageUrl());
     }
 
     /**
@@ -83,7 +72,7 @@ class UtaTenUnitedParser extends UnitedParser {
         if (isNull(header)) {
             header = new EnumHeader();
 
-            Element titleElement = doc.select("div.contentBox__title--lyricTitle h1").first();
+            Element titleElement = page.first("div.contentBox__title--lyricTitle h1");
             Matcher titleMatcher = titlePattern.matcher(titleElement.html());
 
             if (titleMatcher.matches()) {
@@ -91,16 +80,12 @@ class UtaTenUnitedParser extends UnitedParser {
                 header.setTitle(title);
             }
 
-            Element artistElement = doc.select("span.contentBox__titleSub").first();
-            Elements lyricistAndComposer = doc.select("dd.lyricWork__body");
-
-            String[] artists = artistElement.text().trim().split(",");
-            String[] lyricists = lyricistAndComposer.get(0).text().split(",");
-            String[] composers = lyricistAndComposer.get(1).text().split(",");
+            Element artistElement = page.first("span.contentBox__titleSub");
+            Elements lyricistAndComposer = page.all("dd.lyricWork__body");
 
-            header.setArtist(toStringSet(artists))
-                    .setLyricist(toStringSet(lyricists))
-                    .setComposer(toStringSet(composers));
+            header.setArtist(splitToSet(artistElement.text(), ","))
+                    .setLyricist(splitToSet(lyricistAndComposer.get(0).text(), ","))
+                    .setComposer(splitToSet(lyricistAndComposer.get(1).text(), ","));
         }
 
         return header;
@@ -114,13 +99,7 @@ class UtaTenUnitedParser extends UnitedParser {
      */
     @Override
     Lyrics lyrics() {
-        if (isNull(lyrics)) {
-            Element lrcBody = doc.select("div.lyricBody div.medium").first();
-            String srcLrc = lrcBody.html().replaceAll("\\n", "");
-            String[] lrcWithoutRubyText = rubyPattern.matcher(srcLrc).replaceAll("$1").split("<br(?: /)?>");
-
-            lyrics = toLyrics(Parser::parseHtml, lrcWithoutRubyText);
-        }
+        tokenize();
 
         return lyrics;
     }
@@ -132,17 +111,34 @@ class UtaTenUnitedParser extends UnitedParser {
      * @return 装有歌词文本的 {@code Lyrics} 容器
      */
     Lyrics lyricsWithRuby() {
-        if (isNull(lyricsWithRuby)) {
-            Element lrcBody = doc.select("div.lyricBody div.medium").first();
-            String srcLrc = lrcBody.html().replaceAll("\\n", "");
-            String[] lrcWithRubyText = rubyPattern.matcher(srcLrc).replaceAll("$1($2)").split("<br(?: /)?>");
-
-            lyricsWithRuby = toLyrics(Parser::parseHtml, lrcWithRubyText);
-        }
+        tokenize();
 
         return lyricsWithRuby;
     }
 
+    /**
+     * 获取歌词中的所有注音。
+     *
+     * @return 按出现顺序排列的注音
+     */
+    List<Ruby> rubies() {
+        tokenize();
+
+        return rubies;
+    }
+
+    // 一次分词同时得到不含注音、含注音的歌词和结构化的注音
+    private void tokenize() {
+        if (isNull(rubies)) {
+            Element lrcBody = page.first("div.lyricBody div.medium");
+            RubyTokenizer tokens = RubyTokenizer.tokenize(lrcBody.html());
+
+            lyrics = tokens.plain();
+            lyricsWithRuby = tokens.withRuby();
+            rubies = tokens.rubies();
+        }
+    }
+
     /**
      * 获取歌词页地址。
      *
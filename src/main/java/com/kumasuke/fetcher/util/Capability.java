@@ -0,0 +1,13 @@
+package com.kumasuke.fetcher.util;
+
+import com.kumasuke.fetcher.RubyLyricsSupport;
+
+/**
+ * 只有部分歌词网站支持的功能
+ */
+public enum Capability {
+    /**
+     * 获取含有注音的歌词文本，对应的 {@code Fetcher} 实现了 {@link RubyLyricsSupport} 接口
+     */
+    RUBY_LYRICS
+}
@@ -0,0 +1,323 @@
+package com.kumasuke.fetcher.util;
+
+import com.kumasuke.fetcher.Lyrics;
+
+import java.nio.CharBuffer;
+import java.util.*;
+import java.util.function.Consumer;
+
+import static java.util.Objects.isNull;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * 紧凑的歌词文本容器，无法进行修改。<br>
+ * <p>
+ * 所有不同的歌词行依次存放在同一个 {@code char[]} 中，另用一个 {@code int[]} 记录各行的起始位置；
+ * 副歌等重复出现的行只保存一次，歌曲本身表示为指向这些行的序号数组；
+ * 没有重复行或重复行过短、去除后反而占用更多内存时，按行依次保存而不创建该数组。
+ * 无论歌词有多少行，容器本身最多只由 4 个对象组成。<br>
+ * 各行的 {@code String} 在调用 {@link #getLine(int)} 或迭代时才创建，不会被保存；
+ * 只需读取内容时可使用 {@link #lineView(int)} 避免复制。</p>
+ * <p>
+ * 该对象可以在多个线程间共享，{@link #spliterator()} 按行号对半拆分，适合并行处理。</p>
+ */
+public final class CompactLyrics implements Lyrics {
+    // 所有不同的歌词行依次连接而成的文本
+    private final char[] text;
+    // 第 i 个不同的行位于 [offsets[i], offsets[i + 1])，长度为不同行数 + 1
+    private final int[] offsets;
+    // 每行对应的不同行序号，没有重复行时为 null，即第 i 行就是第 i 个不同的行
+    private final int[] lines;
+
+    private CompactLyrics(char[] text, int[] offsets, int[] lines) {
+        this.text = text;
+        this.offsets = offsets;
+        this.lines = lines;
+    }
+
+    /**
+     * 获取一个新的 {@code CompactLyrics.Builder} 对象。
+     *
+     * @return {@code CompactLyrics.Builder} 对象
+     */
+    public static Builder newBuilder() {
+        return new Builder();
+    }
+
+    /**
+     * 将给定的歌词文本复制为 {@code CompactLyrics} 对象。<br>
+     * 给定对象已经是 {@code CompactLyrics} 时直接返回该对象。
+     *
+     * @param lyrics 歌词文本
+     * @return {@code CompactLyrics} 对象
+     */
+    public static CompactLyrics copyOf(Lyrics lyrics) {
+        requireNonNull(lyrics, "The parameter 'lyrics' should be non-null value.");
+
+        if (lyrics instanceof CompactLyrics)
+            return (CompactLyrics) lyrics;
+
+        Builder builder = newBuilder();
+        for (int i = 0; i < lyrics.lineCount(); i++)
+            builder.addLine(lyrics.getLine(i));
+
+        return builder.build();
+    }
+
+    /**
+     * 获取指定行数的歌词文本，每次调用都将创建新的 {@code String} 对象。
+     *
+     * @param index 行号，以 0 为始
+     * @return 该行的歌词文本，若为空，则表示空行
+     * @throws IndexOutOfBoundsException 行号超出范围
+     */
+    @Override
+    public String getLine(int index) {
+        int slot = slotOf(index);
+
+        return new String(text, offsets[slot], offsets[slot + 1] - offsets[slot]);
+    }
+
+    /**
+     * 获取指定行数的歌词文本的只读视图，不复制该行的内容。
+     *
+     * @param index 行号，以 0 为始
+     * @return 该行的歌词文本
+     * @throws IndexOutOfBoundsException 行号超出范围
+     */
+    public CharSequence lineView(int index) {
+        int slot = slotOf(index);
+
+        return CharBuffer.wrap(text, offsets[slot], offsets[slot + 1] - offsets[slot]).asReadOnlyBuffer();
+    }
+
+    @Override
+    public int lineCount() {
+        return isNull(lines) ? offsets.length - 1 : lines.length;
+    }
+
+    /**
+     * 获取实际保存的歌词行数。<br>
+     * 去除了重复行时为不同的歌词行数，否则与 {@link #lineCount()} 相同。
+     *
+     * @return 实际保存的歌词行数
+     */
+    public int uniqueLineCount() {
+        return offsets.length - 1;
+    }
+
+    /**
+     * 获取 {@code Iterator} 对象以便进行迭代。<br>
+     * 如果对返回的 {@code Iterator} 对象进行修改操作将会抛出
+     * {@code UnsupportedOperationException} 异常。
+     *
+     * @return {@code Iterator} 对象
+     */
+    @Override
+    public Iterator<String> iterator() {
+        return new Iterator<String>() {
+            private int next = 0;
+
+            @Override
+            public boolean hasNext() {
+                return next < lineCount();
+            }
+
+            @Override
+            public String next() {
+                if (!hasNext())
+                    throw new NoSuchElementException();
+
+                return getLine(next++);
+            }
+        };
+    }
+
+    /**
+     * 获取按行号拆分的 {@code Spliterator} 对象。
+     *
+     * @return {@code Spliterator} 对象
+     */
+    @Override
+    public Spliterator<String> spliterator() {
+        return new LineSpliterator(0, lineCount());
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder(text.length + 2 * lineCount()).append('[');
+        for (int i = 0; i < lineCount(); i++) {
+            if (i > 0)
+                sb.append(", ");
+
+            int slot = slotOf(i);
+            sb.append(text, offsets[slot], offsets[slot + 1] - offsets[slot]);
+        }
+
+        return sb.append(']').toString();
+    }
+
+    // 第 index 行对应的不同行序号
+    private int slotOf(int index) {
+        if (index < 0 || index >= lineCount())
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + lineCount());
+
+        return isNull(lines) ? index : lines[index];
+    }
+
+    /**
+     * 覆盖 {@code [index, fence)} 行的 {@code Spliterator}
+     */
+    private final class LineSpliterator implements Spliterator<String> {
+        private int index;
+        private final int fence;
+
+        LineSpliterator(int index, int fence) {
+            this.index = index;
+            this.fence = fence;
+        }
+
+        @Override
+        public boolean tryAdvance(Consumer<? super String> action) {
+            requireNonNull(action);
+
+            if (index >= fence)
+                return false;
+
+            action.accept(getLine(index++));
+            return true;
+        }
+
+        @Override
+        public void forEachRemaining(Consumer<? super String> action) {
+            requireNonNull(action);
+
+            while (index < fence)
+                action.accept(getLine(index++));
+        }
+
+        @Override
+        public Spliterator<String> trySplit() {
+            int middle = (index + fence) >>> 1;
+            if (middle <= index)
+                return null;
+
+            Spliterator<String> prefix = new LineSpliterator(index, middle);
+            index = middle;
+
+            return prefix;
+        }
+
+        @Override
+        public long estimateSize() {
+            return fence - index;
+        }
+
+        @Override
+        public int characteristics() {
+            return ORDERED | SIZED | SUBSIZED | IMMUTABLE | NONNULL;
+        }
+    }
+
+    /**
+     * {@code CompactLyrics} 构造器，按顺序逐行添加歌词文本。<br>
+     * 添加时即查找相同的行，重复的行只记录其序号。
+     */
+    public static class Builder {
+        private char[] text = new char[256];
+        private int length = 0;
+        private int[] offsets = new int[33];
+        private int uniqueCount = 0;
+        private int[] lines = new int[32];
+        private int lineCount = 0;
+        // 不去除重复行时的总字符数
+        private int expandedLength = 0;
+        // 已保存的行及其序号
+        private final Map<String, Integer> slots = new HashMap<>();
+
+        private Builder() {
+
+        }
+
+        /**
+         * 在末尾添加一行歌词文本。
+         *
+         * @param line 歌词文本，为空时表示空行
+         * @return {@code CompactLyrics.Builder} 对象，便于链式编程
+         */
+        public Builder addLine(CharSequence line) {
+            requireNonNull(line, "The parameter 'line' should be non-null value.");
+
+            String key = line.toString();
+            Integer slot = slots.get(key);
+            if (isNull(slot)) {
+                slot = store(key);
+                slots.put(key, slot);
+            }
+
+            if (lineCount == lines.length)
+                lines = Arrays.copyOf(lines, lines.length * 2);
+            lines[lineCount++] = slot;
+            expandedLength += key.length();
+
+            return this;
+        }
+
+        private int store(String line) {
+            int size = line.length();
+            if (length + size > text.length)
+                text = Arrays.copyOf(text, Math.max(text.length * 2, length + size));
+            if (uniqueCount + 2 > offsets.length)
+                offsets = Arrays.copyOf(offsets, offsets.length * 2);
+
+            line.getChars(0, size, text, length);
+            length += size;
+            offsets[++uniqueCount] = length;
+
+            return uniqueCount - 1;
+        }
+
+        /**
+         * 根据已添加的歌词文本构造 {@code CompactLyrics} 对象，数组按实际大小复制。
+         *
+         * @return {@code CompactLyrics} 对象
+         */
+        public CompactLyrics build() {
+            // 没有重复行时各行序号依次递增，无需保存
+            if (uniqueCount == lineCount)
+                return new CompactLyrics(Arrays.copyOf(text, length), Arrays.copyOf(offsets, uniqueCount + 1), null);
+            // 重复行很短时，节省的字符不足以抵消序号数组，按行依次展开保存
+            if (!isWorthIndexing(expandedLength - length, uniqueCount))
+                return expand();
+
+            return new CompactLyrics(Arrays.copyOf(text, length), Arrays.copyOf(offsets, uniqueCount + 1),
+                    Arrays.copyOf(lines, lineCount));
+        }
+
+        private CompactLyrics expand() {
+            char[] expanded = new char[expandedLength];
+            int[] expandedOffsets = new int[lineCount + 1];
+            for (int i = 0; i < lineCount; i++) {
+                int slot = lines[i];
+                int size = offsets[slot + 1] - offsets[slot];
+                System.arraycopy(text, offsets[slot], expanded, expandedOffsets[i], size);
+                expandedOffsets[i + 1] = expandedOffsets[i] + size;
+            }
+
+            return new CompactLyrics(expanded, expandedOffsets, null);
+        }
+    }
+
+    /**
+     * 判断去除重复行是否节省内存。<br>
+     * 去除重复行节省了重复行的字符和行起始位置，但需要额外的序号数组（数组头 16 字节，每行 4 字节），
+     * 化简后即重复行的字符占用多于每个不同行 4 字节加 16 字节。
+     *
+     * @param repeatedChars 重复行的总字符数
+     * @param uniqueCount   不同的行数
+     * @return 是否应保存序号数组
+     */
+    static boolean isWorthIndexing(long repeatedChars, long uniqueCount) {
+        return 2 * repeatedChars > 4 * uniqueCount + 16;
+    }
+}
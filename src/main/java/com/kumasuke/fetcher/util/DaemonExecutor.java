@@ -0,0 +1,32 @@
+package com.kumasuke.fetcher.util;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * 内部共享的守护线程池，用于未指定线程池时执行并行请求。
+ */
+final class DaemonExecutor {
+    // 工具类，防止被创建
+    private DaemonExecutor() {
+        throw new AssertionError();
+    }
+
+    /**
+     * 获取共享的守护线程池，首次调用时创建。
+     *
+     * @return 共享的守护线程池
+     */
+    static ExecutorService shared() {
+        return Holder.EXECUTOR;
+    }
+
+    // 延迟创建线程池
+    private static class Holder {
+        private static final ExecutorService EXECUTOR = Executors.newCachedThreadPool(r -> {
+            Thread t = new Thread(r, "lyrics-fetcher-worker");
+            t.setDaemon(true);
+            return t;
+        });
+    }
+}
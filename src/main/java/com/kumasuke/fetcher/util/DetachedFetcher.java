@@ -0,0 +1,165 @@
+package com.kumasuke.fetcher.util;
+
+import com.kumasuke.fetcher.Fetcher;
+import com.kumasuke.fetcher.Header;
+import com.kumasuke.fetcher.Lyrics;
+import com.kumasuke.fetcher.Ruby;
+import com.kumasuke.fetcher.RubyLyricsSupport;
+
+import java.util.*;
+
+import static java.util.Objects.isNull;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * 已提取完毕的歌词获取器，只保存歌曲基本信息、歌词文本、注音和歌词来源地址。<br>
+ * <p>
+ * 普通的 {@code Fetcher} 在其生命周期内会一直持有页面文档或原始文本以便按需解析，
+ * 缓存或排队等待写出时每个对象可能占用数百 KB；
+ * 由 {@link #of(Fetcher)} 得到的对象则只保留提取结果的副本，与来源页面不再有任何引用关系。</p>
+ * <p>
+ * 原获取器支持 {@link RubyLyricsSupport} 时，得到的对象同样支持。该对象无法修改，可以在多个线程间共享。</p>
+ *
+ * @see FetcherFactory.Builder#eager(boolean)
+ */
+public class DetachedFetcher implements Fetcher {
+    private final Header header;
+    private final Lyrics lyrics;
+    private final String source;
+
+    private DetachedFetcher(Fetcher fetcher) {
+        this.header = new CopiedHeader(fetcher.getHeader());
+        this.lyrics = CompactLyrics.copyOf(fetcher.getLyrics());
+        this.source = fetcher.getSource();
+    }
+
+    /**
+     * 立即提取给定获取器的所有信息，并返回不再引用原获取器的副本。<br>
+     * 给定对象已经是 {@code DetachedFetcher} 时直接返回该对象。
+     *
+     * @param fetcher 歌词获取器
+     * @return {@code DetachedFetcher} 对象
+     */
+    public static DetachedFetcher of(Fetcher fetcher) {
+        requireNonNull(fetcher, "The parameter 'fetcher' should be non-null value.");
+
+        if (fetcher instanceof DetachedFetcher)
+            return (DetachedFetcher) fetcher;
+        if (fetcher instanceof RubyLyricsSupport)
+            return new WithRuby(fetcher);
+
+        return new DetachedFetcher(fetcher);
+    }
+
+    @Override
+    public Header getHeader() {
+        return header;
+    }
+
+    @Override
+    public Lyrics getLyrics() {
+        return lyrics;
+    }
+
+    @Override
+    public String getSource() {
+        return source;
+    }
+
+    /**
+     * 支持获取含有注音的歌词文本的 {@code DetachedFetcher}
+     */
+    private static final class WithRuby extends DetachedFetcher implements RubyLyricsSupport {
+        private final Lyrics lyricsWithRuby;
+        private final List<Ruby> rubies;
+
+        private WithRuby(Fetcher fetcher) {
+            super(fetcher);
+
+            RubyLyricsSupport support = (RubyLyricsSupport) fetcher;
+            this.lyricsWithRuby = CompactLyrics.copyOf(support.getLyricsWithRuby());
+            // Ruby 对象本身无法修改，只需复制列表
+            this.rubies = Collections.unmodifiableList(new ArrayList<>(support.getRubies()));
+        }
+
+        // 同时覆盖了 Fetcher 中已过时的同名方法
+        @SuppressWarnings("deprecation")
+        @Override
+        public Lyrics getLyricsWithRuby() {
+            return lyricsWithRuby;
+        }
+
+        @Override
+        public List<Ruby> getRubies() {
+            return rubies;
+        }
+    }
+
+    /**
+     * 歌曲基本信息的副本
+     */
+    private static final class CopiedHeader implements Header {
+        private final Map<HeaderField, Object> values = new EnumMap<>(HeaderField.class);
+
+        private CopiedHeader(Header header) {
+            for (HeaderField f : HeaderField.values()) {
+                Object value = f.valueOf(header);
+                if (isNull(value))
+                    continue;
+
+                if (value instanceof Set)
+                    value = Collections.unmodifiableSet(new LinkedHashSet<>((Set<?>) value));
+                values.put(f, value);
+            }
+        }
+
+        @Override
+        public String getTitle() {
+            return (String) values.get(HeaderField.TITLE);
+        }
+
+        @Override
+        public Set<String> getArtist() {
+            return getSet(HeaderField.ARTIST);
+        }
+
+        @Override
+        public Set<String> getLyricist() {
+            return getSet(HeaderField.LYRICIST);
+        }
+
+        @Override
+        public Set<String> getComposer() {
+            return getSet(HeaderField.COMPOSER);
+        }
+
+        @Override
+        public Set<String> getArranger() {
+            return getSet(HeaderField.ARRANGER);
+        }
+
+        private Set<String> getSet(HeaderField field) {
+            // 值均复制自 Header 中对应的 Set<String> 条目，可安全转换
+            @SuppressWarnings("unchecked")
+            Set<String> result = (Set<String>) values.get(field);
+
+            return result;
+        }
+
+        @Override
+        public Iterator<Item> iterator() {
+            List<Item> items = new ArrayList<>(values.size());
+            values.forEach((f, v) -> items.add(new EnrichedHeader.FieldItem(f, v)));
+
+            return Collections.unmodifiableList(items).iterator();
+        }
+
+        @Override
+        public String toString() {
+            StringJoiner joiner = new StringJoiner(", ", "[", "]");
+            values.forEach((f, v) -> joiner.add(f + " = " + v));
+
+            return joiner.toString();
+        }
+    }
+}
@@ -0,0 +1,172 @@
+package com.kumasuke.fetcher.util;
+
+import com.kumasuke.fetcher.Header;
+
+import java.util.*;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * 由多个来源合并而成的歌曲基本信息容器，无法进行修改。<br>
+ * 每个条目都记录了其值的来源页面。
+ *
+ * @see HeaderEnricher
+ */
+public final class EnrichedHeader implements Header {
+    private final Map<HeaderField, Object> values = new EnumMap<>(HeaderField.class);
+    private final Map<HeaderField, PageRef> sources = new EnumMap<>(HeaderField.class);
+
+    EnrichedHeader() {
+
+    }
+
+    /**
+     * 将给定来源中当前缺少的条目合并进来。
+     *
+     * @param source 来源页面
+     * @param header 来源的歌曲基本信息
+     */
+    void merge(PageRef source, Header header) {
+        for (HeaderField f : HeaderField.values()) {
+            if (!values.containsKey(f) && f.isPresentIn(header)) {
+                Object value = f.valueOf(header);
+
+                // 复制集合，使合并结果与来源对象无关
+                if (value instanceof Set)
+                    value = Collections.unmodifiableSet(new LinkedHashSet<>((Set<?>) value));
+
+                values.put(f, value);
+                sources.put(f, source);
+            }
+        }
+    }
+
+    /**
+     * 返回指定条目是否已有值。
+     *
+     * @param field 条目类别
+     * @return 该条目是否已有值
+     */
+    public boolean has(HeaderField field) {
+        return values.containsKey(requireNonNull(field));
+    }
+
+    /**
+     * 获取指定条目的来源页面。
+     *
+     * @param field 条目类别
+     * @return 来源页面，没有该条目时返回 {@code null}
+     */
+    public PageRef getSource(HeaderField field) {
+        return sources.get(requireNonNull(field));
+    }
+
+    /**
+     * 获取各条目的来源页面。
+     *
+     * @return 装有条目类别和来源页面的 {@code Map} 容器，该容器不可修改
+     */
+    public Map<HeaderField, PageRef> getSources() {
+        return Collections.unmodifiableMap(sources);
+    }
+
+    @Override
+    public String getTitle() {
+        return (String) values.get(HeaderField.TITLE);
+    }
+
+    @Override
+    public Set<String> getArtist() {
+        return getSet(HeaderField.ARTIST);
+    }
+
+    @Override
+    public Set<String> getLyricist() {
+        return getSet(HeaderField.LYRICIST);
+    }
+
+    @Override
+    public Set<String> getComposer() {
+        return getSet(HeaderField.COMPOSER);
+    }
+
+    @Override
+    public Set<String> getArranger() {
+        return getSet(HeaderField.ARRANGER);
+    }
+
+    private Set<String> getSet(HeaderField field) {
+        // 值均来自 Header 中对应的 Set<String> 条目，可安全转换
+        @SuppressWarnings("unchecked")
+        Set<String> result = (Set<String>) values.get(field);
+
+        return result;
+    }
+
+    /**
+     * 获取 {@code Iterator} 对象以便进行迭代。<br>
+     * 将会按照标题、歌手、作词、作曲和编曲的顺序进行排列，如果不存在该项信息，则会跳过该信息。
+     *
+     * @return {@code Iterator} 对象
+     */
+    @Override
+    public Iterator<Item> iterator() {
+        List<Item> items = new ArrayList<>(values.size());
+        values.forEach((f, v) -> items.add(new FieldItem(f, v)));
+
+        return Collections.unmodifiableList(items).iterator();
+    }
+
+    @Override
+    public String toString() {
+        StringJoiner joiner = new StringJoiner(", ", "[", "]");
+        values.forEach((f, v) -> joiner.add(f + " = " + v + " <" + sources.get(f) + ">"));
+
+        return joiner.toString();
+    }
+
+    /**
+     * 包含名称和值的歌曲基本信息条目
+     */
+    static class FieldItem implements Item {
+        private final HeaderField field;
+        private final Object value;
+
+        FieldItem(HeaderField field, Object value) {
+            this.field = field;
+            this.value = value;
+        }
+
+        @Override
+        public String getName() {
+            return field.toString();
+        }
+
+        @Override
+        public Object getValue() {
+            return value;
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(getName(), value);
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (this == obj)
+                return true;
+            if (!(obj instanceof Item))
+                return false;
+
+            Item i = (Item) obj;
+            return Objects.equals(getName(), i.getName()) &&
+                    Objects.equals(value, i.getValue());
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%s = %s", getName(), value);
+        }
+    }
+}
@@ -0,0 +1,472 @@
+package com.kumasuke.fetcher.util;
+
+import com.kumasuke.fetcher.Fetcher;
+
+import java.util.*;
+import java.util.concurrent.*;
+
+import static java.util.Objects.isNull;
+import static java.util.Objects.nonNull;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * 共享的获取任务调度器，按优先级类别和站点限制调度访问歌词网站的任务。<br>
+ * <p>
+ * 任务分为两种优先级类别：<br>
+ * {@link Priority#INTERACTIVE} 交互任务按截止时间从早到晚调度（EDF），开始前已超过截止时间的任务将直接以
+ * {@code TimeoutException} 失败；<br>
+ * {@link Priority#BATCH} 批量任务按提交顺序调度，只使用交互任务剩余的容量，且不能占用为交互任务保留的线程。<br>
+ * 调度在队列层面进行抢占：只要有可执行的交互任务，排队中的批量任务就不会被启动，但已开始的任务不会被打断。<br>
+ * 无论何种类别，同一站点同时执行的任务数都不会超过该站点的并发上限。</p>
+ * <p>
+ * 每个站点拥有独立的执行通道（隔舱）：各自的并发上限和有界队列。
+ * 某个站点变慢时，只有该站点的通道会被占满，其它站点仍可使用剩余的线程；
+ * 该站点的队列已满时，新提交的任务将被拒绝并抛出 {@code RejectedExecutionException} 异常。</p>
+ * <p>
+ * 一旦构造完成，所有方法都可以被多个线程同时调用。</p>
+ */
+public final class FetchScheduler {
+    // 可表示的最远截止时间，约 73 年
+    private static final long MAX_DEADLINE_NANOS = Long.MAX_VALUE / 4;
+
+    // 交互任务按截止时间排列，截止时间相同时按提交顺序
+    private static final Comparator<Task<?>> EARLIEST_DEADLINE = (a, b) -> {
+        int c = Long.compare(a.deadlineAt - b.deadlineAt, 0);
+        return c != 0 ? c : Long.compare(a.seq, b.seq);
+    };
+
+    private final int threads;
+    private final int interactiveReserve;
+    private final int defaultSiteLimit;
+    private final Map<String, Integer> siteLimits;
+    private final int defaultQueueCapacity;
+    private final Map<String, Integer> queueCapacities;
+    private final Executor executor;
+
+    // 以下状态均由 this 锁保护
+    private final Map<String, Lane> lanes = new HashMap<>();
+    private int running;
+    private long sequence;
+
+    private FetchScheduler(Builder builder) {
+        this.threads = builder.threads;
+        this.interactiveReserve = builder.interactiveReserve;
+        this.defaultSiteLimit = builder.defaultSiteLimit;
+        this.siteLimits = new HashMap<>(builder.siteLimits);
+        this.defaultQueueCapacity = builder.defaultQueueCapacity;
+        this.queueCapacities = new HashMap<>(builder.queueCapacities);
+        this.executor = nonNull(builder.executor) ? builder.executor : DaemonExecutor.shared();
+    }
+
+    /**
+     * 获取一个新的 {@code FetchScheduler.Builder} 对象。
+     *
+     * @return {@code FetchScheduler.Builder} 对象
+     */
+    public static Builder newBuilder() {
+        return new Builder();
+    }
+
+    /**
+     * 提交一个不限截止时间的任务。
+     *
+     * @param site     任务所访问的歌词网站域名，不区分大小写
+     * @param priority 优先级类别
+     * @param task     任务
+     * @param <T>      任务结果类型
+     * @return 表示任务结果的 {@code Future} 对象
+     * @throws RejectedExecutionException 该站点的队列已满
+     */
+    public <T> Future<T> submit(String site, Priority priority, Callable<T> task) {
+        return submit(site, priority, Long.MAX_VALUE, TimeUnit.NANOSECONDS, task);
+    }
+
+    /**
+     * 提交一个任务。<br>
+     * 对于交互任务，截止时间决定调度顺序，开始前已超过截止时间的任务将以 {@code TimeoutException} 失败；
+     * 对于批量任务，截止时间被忽略。
+     *
+     * @param site     任务所访问的歌词网站域名，不区分大小写
+     * @param priority 优先级类别
+     * @param deadline 从现在起的截止时间
+     * @param unit     时间单位
+     * @param task     任务
+     * @param <T>      任务结果类型
+     * @return 表示任务结果的 {@code Future} 对象
+     * @throws RejectedExecutionException 该站点的队列已满
+     */
+    public <T> Future<T> submit(String site, Priority priority, long deadline, TimeUnit unit, Callable<T> task) {
+        requireNonNull(site, "The parameter 'site' should be non-null value.");
+        requireNonNull(priority, "The parameter 'priority' should be non-null value.");
+        requireNonNull(unit, "The parameter 'unit' should be non-null value.");
+        requireNonNull(task, "The parameter 'task' should be non-null value.");
+
+        // 截止时间以 System.nanoTime() 为基准，过远的截止时间将被截断以防止比较时溢出
+        long deadlineAt = System.nanoTime() + Math.min(unit.toNanos(deadline), MAX_DEADLINE_NANOS);
+
+        synchronized (this) {
+            Lane lane = laneOf(site.toLowerCase());
+            if (lane.isFull())
+                throw new RejectedExecutionException("The queue of site '" + lane + "' is full.");
+
+            Task<T> t = new Task<>(task, lane, priority, deadlineAt, sequence++);
+            lane.enqueue(t);
+            dispatch();
+
+            return t;
+        }
+    }
+
+    /**
+     * 通过给定的工厂调度获取指定页面的 {@code Fetcher} 对象。
+     *
+     * @param factory  {@code FetcherFactory} 对象
+     * @param ref      页面引用
+     * @param priority 优先级类别
+     * @param deadline 从现在起的截止时间
+     * @param unit     时间单位
+     * @return 表示 {@code Fetcher} 对象的 {@code Future} 对象
+     * @throws RejectedExecutionException 该站点的队列已满
+     */
+    public Future<Fetcher> fetch(FetcherFactory factory, PageRef ref, Priority priority,
+                                 long deadline, TimeUnit unit) {
+        requireNonNull(factory, "The parameter 'factory' should be non-null value.");
+        requireNonNull(ref, "The parameter 'ref' should be non-null value.");
+
+        return submit(ref.getSite(), priority, deadline, unit, () -> factory.fetch(ref.getSite(), ref.getPage()));
+    }
+
+    /**
+     * 获取正在执行的任务数目。
+     *
+     * @return 正在执行的任务数目
+     */
+    public synchronized int runningCount() {
+        return running;
+    }
+
+    /**
+     * 获取指定站点正在排队的任务数目。
+     *
+     * @param site 歌词网站域名，不区分大小写
+     * @return 正在排队的任务数目
+     */
+    public synchronized int queuedCount(String site) {
+        Lane lane = lanes.get(requireNonNull(site).toLowerCase());
+
+        return isNull(lane) ? 0 : lane.interactive.size() + lane.batch.size();
+    }
+
+    private Lane laneOf(String site) {
+        return lanes.computeIfAbsent(site, s -> new Lane(s, siteLimits.getOrDefault(s, defaultSiteLimit),
+                queueCapacities.getOrDefault(s, defaultQueueCapacity)));
+    }
+
+    // 在持有锁时调用，尽可能多地启动可执行的任务
+    private void dispatch() {
+        long now = System.nanoTime();
+
+        while (running < threads) {
+            Task<?> next = pollInteractive(now);
+
+            // 批量任务只能使用剩余容量，且不能占用保留给交互任务的线程
+            if (isNull(next) && running < threads - interactiveReserve)
+                next = pollBatch();
+            if (isNull(next))
+                return;
+
+            start(next);
+        }
+    }
+
+    private Task<?> pollInteractive(long now) {
+        while (true) {
+            Lane best = null;
+
+            for (Lane lane : lanes.values()) {
+                Task<?> head = lane.interactive.peek();
+                if (nonNull(head) && lane.hasCapacity()
+                        && (isNull(best) || EARLIEST_DEADLINE.compare(head, best.interactive.peek()) < 0))
+                    best = lane;
+            }
+
+            if (isNull(best))
+                return null;
+
+            Task<?> t = best.interactive.poll();
+            // 已取消或开始前已超时的任务不占用容量
+            if (t.isDone())
+                continue;
+            if (t.deadlineAt - now < 0) {
+                t.expire();
+                continue;
+            }
+
+            return t;
+        }
+    }
+
+    private Task<?> pollBatch() {
+        while (true) {
+            Lane best = null;
+
+            for (Lane lane : lanes.values()) {
+                Task<?> head = lane.batch.peek();
+                if (nonNull(head) && lane.hasCapacity()
+                        && (isNull(best) || head.seq < best.batch.peek().seq))
+                    best = lane;
+            }
+
+            if (isNull(best))
+                return null;
+
+            Task<?> t = best.batch.poll();
+            if (!t.isDone())
+                return t;
+        }
+    }
+
+    private void start(Task<?> task) {
+        running++;
+        task.lane.running++;
+
+        try {
+            executor.execute(() -> {
+                try {
+                    task.run();
+                } finally {
+                    finish(task.lane);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            task.lane.running--;
+            running--;
+            task.fail(e);
+        }
+    }
+
+    private synchronized void finish(Lane lane) {
+        lane.running--;
+        running--;
+        dispatch();
+    }
+
+    /**
+     * 任务优先级类别
+     */
+    public enum Priority {
+        /**
+         * 交互任务，按截止时间调度，优先于所有批量任务
+         */
+        INTERACTIVE,
+        /**
+         * 批量任务，按提交顺序调度，只使用剩余容量
+         */
+        BATCH
+    }
+
+    // 单个站点的执行通道，包括有界任务队列和执行状态
+    private static class Lane {
+        private final String site;
+        private final int limit;
+        private final int capacity;
+        private final PriorityQueue<Task<?>> interactive = new PriorityQueue<>(EARLIEST_DEADLINE);
+        private final Deque<Task<?>> batch = new ArrayDeque<>();
+        private int running;
+
+        Lane(String site, int limit, int capacity) {
+            this.site = site;
+            this.limit = limit;
+            this.capacity = capacity;
+        }
+
+        boolean hasCapacity() {
+            return running < limit;
+        }
+
+        boolean isFull() {
+            if (interactive.size() + batch.size() < capacity)
+                return false;
+
+            // 队列已满时，先清除已取消或已超时的任务再判断
+            interactive.removeIf(Task::isDone);
+            batch.removeIf(Task::isDone);
+
+            return interactive.size() + batch.size() >= capacity;
+        }
+
+        void enqueue(Task<?> task) {
+            if (task.priority == Priority.INTERACTIVE)
+                interactive.add(task);
+            else
+                batch.add(task);
+        }
+
+        @Override
+        public String toString() {
+            return site;
+        }
+    }
+
+    // 带有调度信息的任务
+    private static class Task<T> extends FutureTask<T> {
+        private final Lane lane;
+        private final Priority priority;
+        private final long deadlineAt;
+        private final long seq;
+
+        Task(Callable<T> callable, Lane lane, Priority priority, long deadlineAt, long seq) {
+            super(callable);
+            this.lane = lane;
+            this.priority = priority;
+            this.deadlineAt = deadlineAt;
+            this.seq = seq;
+        }
+
+        void expire() {
+            setException(new TimeoutException("The deadline passed before the task started: " + lane));
+        }
+
+        void fail(Throwable t) {
+            setException(t);
+        }
+    }
+
+    /**
+     * {@code FetchScheduler} 构造器，用于设置调度参数
+     */
+    public static class Builder {
+        private int threads = 8;
+        private int interactiveReserve = 1;
+        private int defaultSiteLimit = 4;
+        private final Map<String, Integer> siteLimits = new HashMap<>();
+        private int defaultQueueCapacity = Integer.MAX_VALUE;
+        private final Map<String, Integer> queueCapacities = new HashMap<>();
+        private Executor executor;
+
+        private Builder() {
+
+        }
+
+        /**
+         * 设置同时执行的任务总数上限，如未设置则为 8。
+         *
+         * @param threads 任务总数上限
+         * @return {@code FetchScheduler.Builder} 对象，便于链式编程
+         */
+        public Builder threads(int threads) {
+            if (threads <= 0)
+                throw new IllegalArgumentException("The parameter 'threads' should be positive value.");
+
+            this.threads = threads;
+
+            return this;
+        }
+
+        /**
+         * 设置只能由交互任务使用的执行数目，如未设置则为 1。
+         *
+         * @param interactiveReserve 保留给交互任务的执行数目
+         * @return {@code FetchScheduler.Builder} 对象，便于链式编程
+         */
+        public Builder interactiveReserve(int interactiveReserve) {
+            if (interactiveReserve < 0)
+                throw new IllegalArgumentException("The parameter 'interactiveReserve' shouldn't be negative value.");
+
+            this.interactiveReserve = interactiveReserve;
+
+            return this;
+        }
+
+        /**
+         * 设置每个站点默认的并发上限，如未设置则为 4。
+         *
+         * @param limit 并发上限
+         * @return {@code FetchScheduler.Builder} 对象，便于链式编程
+         */
+        public Builder siteLimit(int limit) {
+            if (limit <= 0)
+                throw new IllegalArgumentException("The parameter 'limit' should be positive value.");
+
+            this.defaultSiteLimit = limit;
+
+            return this;
+        }
+
+        /**
+         * 设置指定站点的并发上限。
+         *
+         * @param site  歌词网站域名，不区分大小写
+         * @param limit 并发上限
+         * @return {@code FetchScheduler.Builder} 对象，便于链式编程
+         */
+        public Builder siteLimit(String site, int limit) {
+            requireNonNull(site, "The parameter 'site' should be non-null value.");
+
+            if (limit <= 0)
+                throw new IllegalArgumentException("The parameter 'limit' should be positive value.");
+
+            siteLimits.put(site.toLowerCase(), limit);
+
+            return this;
+        }
+
+        /**
+         * 设置每个站点默认的队列容量，如未设置则不限制。
+         *
+         * @param capacity 队列容量
+         * @return {@code FetchScheduler.Builder} 对象，便于链式编程
+         */
+        public Builder queueCapacity(int capacity) {
+            if (capacity <= 0)
+                throw new IllegalArgumentException("The parameter 'capacity' should be positive value.");
+
+            this.defaultQueueCapacity = capacity;
+
+            return this;
+        }
+
+        /**
+         * 设置指定站点的队列容量。
+         *
+         * @param site     歌词网站域名，不区分大小写
+         * @param capacity 队列容量
+         * @return {@code FetchScheduler.Builder} 对象，便于链式编程
+         */
+        public Builder queueCapacity(String site, int capacity) {
+            requireNonNull(site, "The parameter 'site' should be non-null value.");
+
+            if (capacity <= 0)
+                throw new IllegalArgumentException("The parameter 'capacity' should be positive value.");
+
+            queueCapacities.put(site.toLowerCase(), capacity);
+
+            return this;
+        }
+
+        /**
+         * 设置实际执行任务的线程池，如未设置则使用内部共享的守护线程池。<br>
+         * 该线程池应能同时执行不少于任务总数上限的任务。
+         *
+         * @param executor 线程池
+         * @return {@code FetchScheduler.Builder} 对象，便于链式编程
+         */
+        public Builder executor(Executor executor) {
+            this.executor = requireNonNull(executor);
+
+            return this;
+        }
+
+        /**
+         * 根据设置的参数构造 {@code FetchScheduler} 对象。
+         *
+         * @return {@code FetchScheduler} 对象
+         */
+        public FetchScheduler build() {
+            if (interactiveReserve >= threads)
+                throw new IllegalStateException("The parameter 'interactiveReserve' should be less than 'threads'.");
+
+            return new FetchScheduler(this);
+        }
+    }
+}
@@ -1,44 +1,22 @@
 package com.kumasuke.fetcher.util;
 
 import com.kumasuke.fetcher.Fetcher;
-import com.kumasuke.fetcher.ftr.*;
 
 import java.io.IOException;
-import java.util.HashMap;
-import java.util.Map;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
 
 import static com.kumasuke.fetcher.util.Tools.isNullOrEmpty;
+import static java.util.Objects.isNull;
 import static java.util.Objects.requireNonNull;
 
 /**
  * {@code Fetcher} 构造器，用于统一地构造 {@code Fetcher} 对象
  */
 public class FetcherBuilder {
-    // 验证网址的正则表达式
-    private static final Map<String, Pattern> URL_TO_SITE_PATTERNS = new HashMap<>();
-
-    static {
-        URL_TO_SITE_PATTERNS.put("uta-net.com", Pattern.compile(".*?uta-net\\.com/song/\\d+/?"));
-        URL_TO_SITE_PATTERNS.put("j-lyric.net", Pattern.compile(".*?j-lyric\\.net/artist/a\\w+/l\\w+\\.html"));
-        URL_TO_SITE_PATTERNS.put("utamap.com",
-                Pattern.compile(".*?utamap\\.com/show(?:kasi|top)\\.php\\?surl=[-\\w]+"));
-        URL_TO_SITE_PATTERNS.put("kasi-time.com", Pattern.compile(".*?kasi-time\\.com/item-\\d+\\.html"));
-        URL_TO_SITE_PATTERNS.put("kashinavi.com", Pattern.compile(".*?kashinavi\\.com/song_view\\.html\\?\\d+"));
-        URL_TO_SITE_PATTERNS.put("kget.jp", Pattern.compile(".*?kget\\.jp/lyric/\\d+/?.*"));
-        URL_TO_SITE_PATTERNS.put("utaten.com", Pattern.compile(".*?utaten\\.com/lyric/[^/]+/[^/]+/?"));
-        URL_TO_SITE_PATTERNS.put("animap.jp", Pattern.compile(".*?animap\\.jp/kasi/showkasi\\.php\\?surl=[-\\w]+"));
-        URL_TO_SITE_PATTERNS.put("evesta.jp",
-                Pattern.compile(".*?evesta\\.jp/lyric/artists/a\\d+/lyrics/l\\d+\\.html"));
-        URL_TO_SITE_PATTERNS.put("joysound.com", Pattern.compile(".*?joysound\\.com/web/search/song/\\d+/?"));
-        URL_TO_SITE_PATTERNS.put("jtw.zaq.ne.jp/animesong",
-                Pattern.compile(".*?jtw\\.zaq\\.ne\\.jp/animesong/\\w{1,2}/\\w+/\\w+\\.html"));
-        URL_TO_SITE_PATTERNS.put("petitlyrics.com", Pattern.compile(".*?petitlyrics\\.com/lyrics/\\d+"));
-    }
-
     private String site;
     private String page;
+    private SongRef songRef;
     private String userAgent;
 
     /**
@@ -57,16 +35,52 @@ public class FetcherBuilder {
         return new FetcherBuilder();
     }
 
-    private static String matchSiteFromPage(String page) {
-        for (Map.Entry<String, Pattern> e : URL_TO_SITE_PATTERNS.entrySet()) {
-            String s = e.getKey();
-            Pattern p = e.getValue();
-            Matcher m = p.matcher(page);
+    /**
+     * 查询指定歌词网站支持的可选功能，无需获取任何页面。
+     *
+     * @param site 歌词网站的域名，不区分大小写，不能为 *
+     * @return 该站点支持的可选功能，该集合不可修改
+     * @throws IllegalArgumentException 不支持的歌词网站
+     * @see FetcherBuilder#site(String)
+     */
+    public static Set<Capability> capabilitiesOf(String site) {
+        Set<Capability> capabilities = SongRef.capabilitiesOf(requireNonNull(site));
+        if (isNull(capabilities))
+            throw new IllegalArgumentException("Unable to resolve the parameter 'site': " + site);
+
+        return capabilities;
+    }
+
+    /**
+     * 根据给定的歌曲引用和连接设置构造相应的 {@code Fetcher} 对象。<br>
+     * 访问耗时和成败将被记录到 {@link SiteStatistics#getDefault()} 中。
+     *
+     * @param ref       歌曲引用
+     * @param transport 连接设置
+     * @return {@code Fetcher} 对象
+     * @throws IOException 构造失败
+     */
+    static Fetcher newFetcher(SongRef ref, Transport transport) throws IOException {
+        long start = System.nanoTime();
 
-            if (m.matches()) return s;
+        try {
+            Fetcher fetcher = createFetcher(ref, transport);
+            SiteStatistics.getDefault().record(ref.getSite(), System.nanoTime() - start, TimeUnit.NANOSECONDS, true);
+
+            return fetcher;
+        } catch (IOException e) {
+            // 仅记录连接、解析失败，参数错误与站点状况无关
+            SiteStatistics.getDefault().record(ref.getSite(), System.nanoTime() - start, TimeUnit.NANOSECONDS, false);
+            throw e;
         }
+    }
+
+    private static Fetcher createFetcher(SongRef ref, Transport transport) throws IOException {
+        SiteProvider provider = SongRef.providerOf(ref.getSite());
+        if (isNull(provider))
+            throw new IllegalArgumentException("Unable to resolve the parameter 'site': " + ref.getSite());
 
-        throw new IllegalArgumentException("Cannot match site according to given parameter 'page'!");
+        return provider.newFetcher(ref, transport);
     }
 
     /**
@@ -89,6 +103,7 @@ public class FetcherBuilder {
      *             joysound.com<br>
      *             jtw.zaq.ne.jp/animesong<br>
      *             petitlyrics.com</p>
+     *             <p>此外还支持通过 {@link SiteProvider} 加载的其它站点。</p>
      * @return {@code FetcherBuilder} 对象，便于链式编程
      */
     public FetcherBuilder site(String site) {
@@ -109,6 +124,31 @@ public class FetcherBuilder {
         return this;
     }
 
+    /**
+     * 设置所要解析的页面引用，等同于依次调用 {@code site(String)} 和 {@code page(String)}。
+     *
+     * @param ref 页面引用
+     * @return {@code FetcherBuilder} 对象，便于链式编程
+     * @see LyricsSearcher
+     */
+    public FetcherBuilder pageRef(PageRef ref) {
+        requireNonNull(ref, "The parameter 'ref' should be non-null value.");
+
+        return site(ref.getSite()).page(ref.getPage());
+    }
+
+    /**
+     * 设置所要解析的歌曲引用，设置后将忽略站点参数（site）和页面参数（page）。
+     *
+     * @param ref 歌曲引用
+     * @return {@code FetcherBuilder} 对象，便于链式编程
+     */
+    public FetcherBuilder songRef(SongRef ref) {
+        this.songRef = requireNonNull(ref, "The parameter 'ref' should be non-null value.");
+
+        return this;
+    }
+
     /**
      * 设置 {@code UserAgent} 字符串，如果未进行设置将使用默认值。
      *
@@ -130,64 +170,23 @@ public class FetcherBuilder {
      * @throws IOException 构造失败
      */
     public Fetcher build() throws IOException {
-        try {
-            requireNonNull(site, "The parameter 'site' haven't been set yet.");
-            requireNonNull(page, "The parameter 'page' haven't been set yet.");
-        } catch (NullPointerException e) {
-            throw new IllegalStateException(e);
+        SongRef ref = songRef;
+
+        if (isNull(ref)) {
+            try {
+                requireNonNull(site, "The parameter 'site' haven't been set yet.");
+                requireNonNull(page, "The parameter 'page' haven't been set yet.");
+            } catch (NullPointerException e) {
+                throw new IllegalStateException(e);
+            }
+
+            ref = site.equals("*") ? SongRef.parse(page) : SongRef.of(site, page);
         }
 
         if (isNullOrEmpty(userAgent))
             userAgent = UserAgent.getUserAgent();
 
-        if (site.equals("*"))
-            site = matchSiteFromPage(page);
-
-        Fetcher fetcher;
-
-        switch (site) {
-            case "uta-net.com":
-                fetcher = new UtaNetFetcher(page, userAgent);
-                break;
-            case "j-lyric.net":
-                fetcher = new JLyricFetcher(page, userAgent);
-                break;
-            case "utamap.com":
-                fetcher = new UtaMapFetcher(page, userAgent);
-                break;
-            case "kasi-time.com":
-                fetcher = new KasiTimeFetcher(page, userAgent);
-                break;
-            case "kashinavi.com":
-                fetcher = new KashiNaviFetcher(page, userAgent);
-                break;
-            case "kget.jp":
-                fetcher = new KGetFetcher(page, userAgent);
-                break;
-            case "utaten.com":
-                fetcher = new UtaTenFetcher(page, userAgent);
-                break;
-            case "animap.jp":
-                fetcher = new AniMapFetcher(page, userAgent);
-                break;
-            case "evesta.jp":
-                fetcher = new EvestaFetcher(page, userAgent);
-                break;
-            case "jtw.zaq.ne.jp/animesong":
-                fetcher = new AnimeSongFetcher(page, userAgent);
-                break;
-            case "joysound.com":
-                fetcher = new JoySoundFetcher(page, userAgent);
-                break;
-            case "petitlyrics.com":
-                fetcher = new PetitLyricsFetcher(page, userAgent);
-                break;
-            default:
-                throw new IllegalArgumentException
-                        ("Unable to resolve the parameter 'site': " + site);
-        }
-
-        return fetcher;
+        return newFetcher(ref, Transport.of(userAgent));
     }
 
     /**
@@ -197,6 +196,7 @@ public class FetcherBuilder {
      */
     public FetcherBuilder reset() {
         site = page = userAgent = null;
+        songRef = null;
 
         return this;
     }
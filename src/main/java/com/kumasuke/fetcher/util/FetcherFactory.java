@@ -0,0 +1,339 @@
+package com.kumasuke.fetcher.util;
+
+import com.kumasuke.fetcher.Fetcher;
+import com.kumasuke.fetcher.Header;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Supplier;
+
+import static java.util.Objects.isNull;
+import static java.util.Objects.nonNull;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * {@code Fetcher} 工厂，用于统一地构造 {@code Fetcher} 对象。<br>
+ * <p>
+ * 与 {@link FetcherBuilder} 不同，{@code FetcherFactory} 一旦构造完成便无法修改，
+ * 可以在任意多个线程间共享同一个对象，而无需在每次构造 {@code Fetcher} 时创建或重置构造器。</p>
+ */
+public final class FetcherFactory {
+    private final String site;
+    private final Supplier<String> userAgentPolicy;
+    private final int timeout;
+    // 已获取的 Fetcher 缓存，未启用时为 null
+    private final Map<SongRef, Fetcher> cache;
+    // 合并同一首歌曲的同时请求，未启用时为 null
+    private final SingleFlight<SongRef, Fetcher> inFlight;
+    // 合并同一首歌曲的同时只获取歌曲基本信息的请求，未启用时为 null
+    private final SingleFlight<SongRef, Header> headersInFlight;
+    // 是否在构造后立即提取结果并释放页面
+    private final boolean eager;
+
+    private FetcherFactory(Builder builder) {
+        this.site = builder.site;
+        this.userAgentPolicy = builder.userAgentPolicy;
+        this.timeout = builder.timeout;
+        this.cache = builder.cacheSize > 0 ? newCache(builder.cacheSize) : null;
+        this.inFlight = builder.coalescing ? new SingleFlight<>() : null;
+        this.headersInFlight = builder.coalescing ? new SingleFlight<>() : null;
+        this.eager = builder.eager;
+    }
+
+    /**
+     * 获取一个新的 {@code FetcherFactory.Builder} 对象。
+     *
+     * @return {@code FetcherFactory.Builder} 对象
+     */
+    public static Builder newBuilder() {
+        return new Builder();
+    }
+
+    private static Map<SongRef, Fetcher> newCache(int cacheSize) {
+        // 按访问顺序排列，超出容量时移除最久未使用的条目
+        return Collections.synchronizedMap(new LinkedHashMap<SongRef, Fetcher>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<SongRef, Fetcher> eldest) {
+                return size() > cacheSize;
+            }
+        });
+    }
+
+    /**
+     * 使用构造时设置的站点参数获取指定页面的 {@code Fetcher} 对象。<br>
+     * 该方法可以被多个线程同时调用。
+     *
+     * @param page 歌词页地址或歌曲代码
+     * @return {@code Fetcher} 对象
+     * @throws IOException 构造失败
+     */
+    public Fetcher fetch(String page) throws IOException {
+        return fetch(site, page);
+    }
+
+    /**
+     * 获取指定站点和页面的 {@code Fetcher} 对象。<br>
+     * 该方法可以被多个线程同时调用。<br>
+     * 启用请求合并时，同时请求同一首歌曲的多个线程将共享同一个已完成解析的 {@code Fetcher} 对象。
+     *
+     * @param site 歌词网站的域名，不区分大小写，为 * 时将根据页面参数自动匹配站点
+     * @param page 歌词页地址或歌曲代码
+     * @return {@code Fetcher} 对象
+     * @throws IOException 构造失败
+     * @see FetcherBuilder#site(String)
+     */
+    public Fetcher fetch(String site, String page) throws IOException {
+        requireNonNull(site, "The parameter 'site' should be non-null value.");
+        requireNonNull(page, "The parameter 'page' should be non-null value.");
+
+        return fetch(site.equals("*") ? SongRef.parse(page) : SongRef.of(site, page));
+    }
+
+    /**
+     * 获取指定歌曲引用的 {@code Fetcher} 对象。<br>
+     * 该方法可以被多个线程同时调用。<br>
+     * 启用请求合并时，同时请求同一首歌曲的多个线程将共享同一个已完成解析的 {@code Fetcher} 对象。
+     *
+     * @param ref 歌曲引用，同时用作缓存和请求合并的键
+     * @return {@code Fetcher} 对象
+     * @throws IOException 构造失败
+     */
+    public Fetcher fetch(SongRef ref) throws IOException {
+        requireNonNull(ref, "The parameter 'ref' should be non-null value.");
+
+        if (isNull(cache) && isNull(inFlight))
+            return newFetcher(ref);
+
+        if (nonNull(cache)) {
+            Fetcher cached = cache.get(ref);
+            if (nonNull(cached))
+                return cached;
+        }
+
+        if (isNull(inFlight))
+            return load(ref);
+        else
+            return inFlight.execute(ref, () -> load(ref));
+    }
+
+    /**
+     * 只获取指定站点和页面的歌曲基本信息。<br>
+     * 该方法可以被多个线程同时调用。<br>
+     * 与 {@link #fetch(String, String)} 不同，为此构造的 {@code Fetcher} 对象只被当前请求使用，
+     * 既不缓存也不与完整的请求合并，因此无需预先解析歌词文本，也不会提取为 {@link DetachedFetcher}；
+     * 该歌曲已被缓存时直接使用缓存的结果。
+     *
+     * @param site 歌词网站的域名，不区分大小写，为 * 时将根据页面参数自动匹配站点
+     * @param page 歌词页地址或歌曲代码
+     * @return 歌曲基本信息
+     * @throws IOException 构造失败
+     * @see HeaderEnricher
+     */
+    Header fetchHeader(String site, String page) throws IOException {
+        requireNonNull(site, "The parameter 'site' should be non-null value.");
+        requireNonNull(page, "The parameter 'page' should be non-null value.");
+
+        SongRef ref = site.equals("*") ? SongRef.parse(page) : SongRef.of(site, page);
+        if (nonNull(cache)) {
+            Fetcher cached = cache.get(ref);
+            if (nonNull(cached))
+                return cached.getHeader();
+        }
+
+        if (isNull(headersInFlight))
+            return loadHeader(ref);
+        else
+            return headersInFlight.execute(ref, () -> loadHeader(ref));
+    }
+
+    private Header loadHeader(SongRef ref) throws IOException {
+        return FetcherBuilder.newFetcher(ref, Transport.of(userAgentPolicy.get(), timeout)).getHeader();
+    }
+
+    /**
+     * 使用构造时设置的站点参数获取指定页面的页面引用，不进行任何访问。
+     *
+     * @param page 歌词页地址或歌曲代码
+     * @return 页面引用
+     * @throws IllegalArgumentException 无法匹配站点
+     */
+    public PageRef pageRef(String page) {
+        requireNonNull(page, "The parameter 'page' should be non-null value.");
+
+        return PageRef.of(site.equals("*") ? SongRef.parse(page).getSite() : site, page);
+    }
+
+    private Fetcher load(SongRef ref) throws IOException {
+        Fetcher fetcher = newFetcher(ref);
+        // 共享或缓存前预先完成解析，使该对象在各线程间只被读取
+        if (!eager) {
+            fetcher.getHeader();
+            fetcher.getLyrics();
+        }
+
+        if (nonNull(cache))
+            cache.put(ref, fetcher);
+
+        return fetcher;
+    }
+
+    private Fetcher newFetcher(SongRef ref) throws IOException {
+        String userAgent = userAgentPolicy.get();
+
+        Fetcher fetcher = FetcherBuilder.newFetcher(ref, Transport.of(userAgent, timeout));
+
+        return eager ? DetachedFetcher.of(fetcher) : fetcher;
+    }
+
+    /**
+     * 清空已缓存的 {@code Fetcher} 对象。<br>
+     * 未启用缓存时，该方法不做任何事。
+     */
+    public void clearCache() {
+        if (nonNull(cache))
+            cache.clear();
+    }
+
+    /**
+     * {@code FetcherFactory} 构造器，用于设置工厂参数
+     */
+    public static class Builder {
+        private String site = "*";
+        private Supplier<String> userAgentPolicy = UserAgent::getUserAgent;
+        private int timeout = Transport.DEFAULT_TIMEOUT;
+        private int cacheSize = 0;
+        private boolean coalescing = true;
+        private boolean eager = false;
+
+        private Builder() {
+
+        }
+
+        /**
+         * 设置默认的歌词网站，如未设置则根据页面参数自动匹配站点。
+         *
+         * @param site 歌词网站的域名，不区分大小写
+         * @return {@code FetcherFactory.Builder} 对象，便于链式编程
+         * @see FetcherBuilder#site(String)
+         */
+        public Builder site(String site) {
+            this.site = requireNonNull(site).toLowerCase();
+
+            return this;
+        }
+
+        /**
+         * 设置根据页面参数自动匹配站点，即默认设置。
+         *
+         * @return {@code FetcherFactory.Builder} 对象，便于链式编程
+         */
+        public Builder autoMatch() {
+            site = "*";
+
+            return this;
+        }
+
+        /**
+         * 设置固定使用的 {@code UserAgent} 字符串。
+         *
+         * @param userAgent {@code UserAgent} 字符串
+         * @return {@code FetcherFactory.Builder} 对象，便于链式编程
+         */
+        public Builder userAgent(String userAgent) {
+            requireNonNull(userAgent, "The parameter 'userAgent' should be non-null value.");
+
+            if (userAgent.isEmpty())
+                throw new IllegalArgumentException("The parameter 'userAgent' shouldn't be empty value.");
+
+            this.userAgentPolicy = () -> userAgent;
+
+            return this;
+        }
+
+        /**
+         * 设置 {@code UserAgent} 字符串的选取策略，每次构造 {@code Fetcher} 时调用一次。<br>
+         * 如未设置，则使用 {@link UserAgent#getUserAgent()} 随机选取。<br>
+         * 给定的策略可能被多个线程同时调用。
+         *
+         * @param userAgentPolicy {@code UserAgent} 字符串选取策略
+         * @return {@code FetcherFactory.Builder} 对象，便于链式编程
+         */
+        public Builder userAgentPolicy(Supplier<String> userAgentPolicy) {
+            this.userAgentPolicy = requireNonNull(userAgentPolicy);
+
+            return this;
+        }
+
+        /**
+         * 设置访问歌词网站的等待延迟，如未设置则为 {@link Transport#DEFAULT_TIMEOUT}。
+         *
+         * @param timeout 延迟值（单位：{@code ms}），设置 0 代表不限制
+         * @return {@code FetcherFactory.Builder} 对象，便于链式编程
+         */
+        public Builder timeout(int timeout) {
+            if (timeout < 0)
+                throw new IllegalArgumentException("The parameter 'timeout' shouldn't be negative value.");
+
+            this.timeout = timeout;
+
+            return this;
+        }
+
+        /**
+         * 设置缓存的 {@code Fetcher} 对象数目上限，超出上限时移除最久未使用的对象。<br>
+         * 如未设置或设置为 0，则不启用缓存。
+         *
+         * @param cacheSize 缓存数目上限
+         * @return {@code FetcherFactory.Builder} 对象，便于链式编程
+         */
+        public Builder cacheSize(int cacheSize) {
+            if (cacheSize < 0)
+                throw new IllegalArgumentException("The parameter 'cacheSize' shouldn't be negative value.");
+
+            this.cacheSize = cacheSize;
+
+            return this;
+        }
+
+        /**
+         * 设置是否合并同时进行的相同请求，默认启用。<br>
+         * 启用后，多个线程同时请求同一首歌曲（站点和歌曲代码均相同）时只会下载一次页面，
+         * 所有线程共享其结果或异常。
+         *
+         * @param coalescing 是否合并请求
+         * @return {@code FetcherFactory.Builder} 对象，便于链式编程
+         * @see SingleFlight
+         */
+        public Builder coalescing(boolean coalescing) {
+            this.coalescing = coalescing;
+
+            return this;
+        }
+
+        /**
+         * 设置是否在构造后立即提取歌曲信息、歌词和注音并释放页面，默认不启用。<br>
+         * 启用后返回的均为 {@link DetachedFetcher} 对象，不再持有页面文档或原始文本，
+         * 适合缓存大量结果或在写出前长时间保留结果的场合；但即使只需要部分信息也会完成全部解析。
+         *
+         * @param eager 是否立即提取
+         * @return {@code FetcherFactory.Builder} 对象，便于链式编程
+         * @see DetachedFetcher#of(com.kumasuke.fetcher.Fetcher)
+         */
+        public Builder eager(boolean eager) {
+            this.eager = eager;
+
+            return this;
+        }
+
+        /**
+         * 根据设置的参数构造 {@code FetcherFactory} 对象。
+         *
+         * @return {@code FetcherFactory} 对象
+         */
+        public FetcherFactory build() {
+            return new FetcherFactory(this);
+        }
+    }
+}
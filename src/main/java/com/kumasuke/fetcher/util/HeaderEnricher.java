@@ -0,0 +1,201 @@
+package com.kumasuke.fetcher.util;
+
+import com.kumasuke.fetcher.Header;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.*;
+import java.util.concurrent.*;
+
+import static java.util.Objects.isNull;
+import static java.util.Objects.nonNull;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * 歌曲基本信息补全器，从多个歌词网站的同一首歌曲中并行获取并合并歌曲基本信息。<br>
+ * <p>
+ * 各来源在同一个截止时间内并行获取，按返回的先后顺序合并，先返回的来源优先；
+ * 一旦所需的条目全部具有值，将立即返回，不再等待其余来源。<br>
+ * 一旦构造完成便无法修改，可以在任意多个线程间共享同一个对象。</p>
+ *
+ * @see EnrichedHeader
+ */
+public final class HeaderEnricher {
+    private final FetcherFactory factory;
+    private final long deadlineNanos;
+    private final Executor executor;
+
+    private HeaderEnricher(Builder builder) {
+        this.factory = builder.factory;
+        this.deadlineNanos = builder.deadlineNanos;
+        this.executor = nonNull(builder.executor) ? builder.executor : DaemonExecutor.shared();
+    }
+
+    /**
+     * 获取一个新的 {@code HeaderEnricher.Builder} 对象。
+     *
+     * @return {@code HeaderEnricher.Builder} 对象
+     */
+    public static Builder newBuilder() {
+        return new Builder();
+    }
+
+    /**
+     * 从给定来源中获取并合并全部条目。
+     *
+     * @param sources 指向同一首歌曲的页面引用
+     * @return 合并后的歌曲基本信息
+     * @throws InterruptedIOException 等待时被中断
+     * @throws IOException             所有来源均获取失败或超时
+     */
+    public EnrichedHeader enrich(Collection<PageRef> sources) throws IOException {
+        return enrich(sources, EnumSet.allOf(HeaderField.class));
+    }
+
+    /**
+     * 从给定来源中获取并合并歌曲基本信息，所需条目全部具有值后立即返回。<br>
+     * 截止时间到达时，返回已合并的结果，其中可能缺少部分所需条目。
+     *
+     * @param sources 指向同一首歌曲的页面引用
+     * @param wanted  所需的条目
+     * @return 合并后的歌曲基本信息
+     * @throws InterruptedIOException 等待时被中断
+     * @throws IOException             所有来源均获取失败或超时
+     */
+    public EnrichedHeader enrich(Collection<PageRef> sources, Set<HeaderField> wanted) throws IOException {
+        requireNonNull(sources, "The parameter 'sources' should be non-null value.");
+        requireNonNull(wanted, "The parameter 'wanted' should be non-null value.");
+
+        if (sources.isEmpty())
+            throw new IllegalArgumentException("The parameter 'sources' shouldn't be empty value.");
+
+        long deadline = System.nanoTime() + deadlineNanos;
+        CompletionService<Header> completion = new ExecutorCompletionService<>(executor);
+        Map<Future<Header>, PageRef> pending = new HashMap<>();
+        // 只获取歌曲基本信息，不解析歌词文本
+        for (PageRef ref : sources)
+            pending.put(completion.submit(() -> factory.fetchHeader(ref.getSite(), ref.getPage())), ref);
+
+        EnrichedHeader result = new EnrichedHeader();
+        IOException failure = new IOException("No header source succeeded before the deadline: " + sources);
+        boolean succeeded = false;
+        try {
+            int remaining = pending.size();
+            while (remaining-- > 0 && !(succeeded && isFilled(result, wanted))) {
+                long left = deadline - System.nanoTime();
+                Future<Header> done = left > 0 ? completion.poll(left, TimeUnit.NANOSECONDS) : null;
+                if (isNull(done))
+                    break;
+
+                PageRef ref = pending.get(done);
+                try {
+                    result.merge(ref, done.get());
+                    succeeded = true;
+                } catch (ExecutionException e) {
+                    failure.addSuppressed(causeOf(e));
+                }
+            }
+        } catch (InterruptedException e) {
+            // 恢复中断状态
+            Thread.currentThread().interrupt();
+            InterruptedIOException ie = new InterruptedIOException("Interrupted while enriching the header.");
+            ie.initCause(e);
+            throw ie;
+        } finally {
+            // 取消不再需要的来源
+            pending.keySet().forEach(f -> f.cancel(true));
+        }
+
+        if (!succeeded)
+            throw failure;
+
+        return result;
+    }
+
+    private static boolean isFilled(EnrichedHeader header, Set<HeaderField> wanted) {
+        for (HeaderField f : wanted)
+            if (!header.has(f))
+                return false;
+
+        return true;
+    }
+
+    private static Throwable causeOf(ExecutionException e) {
+        Throwable cause = e.getCause();
+
+        // 单个来源的连接、解析失败不影响其它来源
+        if (cause instanceof IOException || cause instanceof RuntimeException)
+            return cause;
+        if (cause instanceof Error)
+            throw (Error) cause;
+
+        throw new AssertionError("Won't happen if coded right.", cause);
+    }
+
+    /**
+     * {@code HeaderEnricher} 构造器，用于设置补全参数
+     */
+    public static class Builder {
+        private FetcherFactory factory;
+        private long deadlineNanos = TimeUnit.MILLISECONDS.toNanos(Transport.DEFAULT_TIMEOUT);
+        private Executor executor;
+
+        private Builder() {
+
+        }
+
+        /**
+         * 设置用于获取 {@code Fetcher} 对象的工厂，如未设置则使用默认设置的工厂。
+         *
+         * @param factory {@code FetcherFactory} 对象
+         * @return {@code HeaderEnricher.Builder} 对象，便于链式编程
+         */
+        public Builder factory(FetcherFactory factory) {
+            this.factory = requireNonNull(factory);
+
+            return this;
+        }
+
+        /**
+         * 设置所有来源共用的截止时间，如未设置则为 {@link Transport#DEFAULT_TIMEOUT} 毫秒。
+         *
+         * @param deadline 截止时间
+         * @param unit     时间单位
+         * @return {@code HeaderEnricher.Builder} 对象，便于链式编程
+         */
+        public Builder deadline(long deadline, TimeUnit unit) {
+            requireNonNull(unit, "The parameter 'unit' should be non-null value.");
+
+            if (deadline <= 0)
+                throw new IllegalArgumentException("The parameter 'deadline' should be positive value.");
+
+            this.deadlineNanos = unit.toNanos(deadline);
+
+            return this;
+        }
+
+        /**
+         * 设置执行访问的线程池，如未设置则使用内部共享的守护线程池。
+         *
+         * @param executor 线程池
+         * @return {@code HeaderEnricher.Builder} 对象，便于链式编程
+         */
+        public Builder executor(Executor executor) {
+            this.executor = requireNonNull(executor);
+
+            return this;
+        }
+
+        /**
+         * 根据设置的参数构造 {@code HeaderEnricher} 对象。
+         *
+         * @return {@code HeaderEnricher} 对象
+         */
+        public HeaderEnricher build() {
+            if (isNull(factory))
+                factory = FetcherFactory.newBuilder().build();
+
+            return new HeaderEnricher(this);
+        }
+    }
+}
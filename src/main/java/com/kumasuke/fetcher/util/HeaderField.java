@@ -0,0 +1,77 @@
+package com.kumasuke.fetcher.util;
+
+import com.kumasuke.fetcher.Header;
+
+import java.util.Collection;
+import java.util.function.Function;
+
+import static java.util.Objects.isNull;
+
+/**
+ * 歌曲基本信息条目类别，用于按条目操作 {@code Header} 对象。
+ *
+ * @see HeaderEnricher
+ */
+public enum HeaderField {
+    /**
+     * 标题，歌曲名
+     */
+    TITLE("Title", Header::getTitle),
+    /**
+     * 歌手，歌曲的演唱者或团体
+     */
+    ARTIST("Artist", Header::getArtist),
+    /**
+     * 作词，歌曲的作词者
+     */
+    LYRICIST("Lyricist", Header::getLyricist),
+    /**
+     * 作曲，歌曲的作曲者
+     */
+    COMPOSER("Composer", Header::getComposer),
+    /**
+     * 编曲，歌曲的编曲者
+     */
+    ARRANGER("Arranger", Header::getArranger);
+
+    // 显示、获取用名
+    private final String name;
+    private final Function<Header, Object> getter;
+
+    HeaderField(String name, Function<Header, Object> getter) {
+        this.name = name;
+        this.getter = getter;
+    }
+
+    /**
+     * 从给定的 {@code Header} 对象中获取该条目的值。
+     *
+     * @param header {@code Header} 对象
+     * @return 条目值，标题为 {@code String} 类型，其它为 {@code Set<String>} 类型；没有该条目时返回 {@code null}
+     */
+    public Object valueOf(Header header) {
+        return getter.apply(header);
+    }
+
+    /**
+     * 返回给定的 {@code Header} 对象中该条目是否存在且非空。
+     *
+     * @param header {@code Header} 对象
+     * @return 该条目是否存在且非空
+     */
+    public boolean isPresentIn(Header header) {
+        Object value = valueOf(header);
+
+        if (isNull(value))
+            return false;
+        if (value instanceof CharSequence)
+            return ((CharSequence) value).length() > 0;
+
+        return !((Collection<?>) value).isEmpty();
+    }
+
+    @Override
+    public String toString() {
+        return name;
+    }
+}
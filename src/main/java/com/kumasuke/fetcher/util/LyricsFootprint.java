@@ -0,0 +1,143 @@
+package com.kumasuke.fetcher.util;
+
+import com.kumasuke.fetcher.Lyrics;
+
+import java.util.HashSet;
+import java.util.Set;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * 歌词语料的内存占用统计，用于估算 {@link CompactLyrics} 在整个语料上节省的内存。<br>
+ * <p>
+ * 对每首歌曲分别估算三种存放方式的占用：每行一个 {@code String} 并装入 {@code ArrayList}；
+ * 所有行存放在同一个 {@code char[]} 中；以及在此基础上重复的行只保存一次。<br>
+ * 估算按 64 位 HotSpot 开启压缩指针时 Java 8 的对象布局计算（对象头 12 字节、数组头 16 字节、按 8 字节对齐），
+ * 只用于比较，不代表实际测得的占用。</p>
+ * <p>
+ * 该对象可以被多个线程同时添加歌词。</p>
+ */
+public final class LyricsFootprint {
+    private long songCount;
+    private long lineCount;
+    private long uniqueLineCount;
+    private long listBytes;
+    private long bufferBytes;
+    private long dictionaryBytes;
+
+    /**
+     * 将给定歌曲的歌词计入统计。
+     *
+     * @param lyrics 歌词文本
+     */
+    public void add(Lyrics lyrics) {
+        requireNonNull(lyrics, "The parameter 'lyrics' should be non-null value.");
+
+        int lines = lyrics.lineCount();
+        long chars = 0;
+        long uniqueChars = 0;
+        // 每行的 String 对象（char[] 引用和 hash 字段）及其 char[]
+        long strings = 0;
+        Set<String> unique = new HashSet<>();
+        for (String line : lyrics) {
+            chars += line.length();
+            strings += object(2) + array(2, line.length());
+            if (unique.add(line))
+                uniqueChars += line.length();
+        }
+
+        // 容器对象、ArrayList 对象（数组引用、size 和 modCount）及其数组
+        long list = object(1) + object(3) + array(4, lines) + strings;
+        // 容器对象、char[] 和 int[] 行起始位置
+        long buffer = object(3) + array(2, chars) + array(4, lines + 1);
+        // 另有 int[] 行序号，与 CompactLyrics 相同，去除重复行不节省内存时按行依次保存
+        long dictionary = CompactLyrics.isWorthIndexing(chars - uniqueChars, unique.size()) ?
+                object(3) + array(2, uniqueChars) + array(4, unique.size() + 1) + array(4, lines) : buffer;
+
+        synchronized (this) {
+            songCount++;
+            lineCount += lines;
+            uniqueLineCount += unique.size();
+            listBytes += list;
+            bufferBytes += buffer;
+            dictionaryBytes += dictionary;
+        }
+    }
+
+    // 含有给定数目引用或 int 字段的对象大小
+    private static long object(int fields) {
+        return align(12 + 4L * fields);
+    }
+
+    private static long array(int elementSize, long length) {
+        return align(16 + elementSize * length);
+    }
+
+    private static long align(long bytes) {
+        return (bytes + 7) & ~7L;
+    }
+
+    /**
+     * 获取已统计的歌曲数目。
+     *
+     * @return 歌曲数目
+     */
+    public synchronized long songCount() {
+        return songCount;
+    }
+
+    /**
+     * 获取已统计的歌词总行数。
+     *
+     * @return 歌词总行数
+     */
+    public synchronized long lineCount() {
+        return lineCount;
+    }
+
+    /**
+     * 获取各首歌曲中不同的歌词行数之和。
+     *
+     * @return 不同的歌词行数之和
+     */
+    public synchronized long uniqueLineCount() {
+        return uniqueLineCount;
+    }
+
+    /**
+     * 获取每行一个 {@code String} 并装入 {@code ArrayList} 时的估算占用。
+     *
+     * @return 估算占用（单位：字节）
+     */
+    public synchronized long listBytes() {
+        return listBytes;
+    }
+
+    /**
+     * 获取所有行存放在同一个 {@code char[]} 中时的估算占用。
+     *
+     * @return 估算占用（单位：字节）
+     */
+    public synchronized long bufferBytes() {
+        return bufferBytes;
+    }
+
+    /**
+     * 获取重复的行只保存一次时的估算占用，即 {@link CompactLyrics} 的占用。
+     *
+     * @return 估算占用（单位：字节）
+     */
+    public synchronized long dictionaryBytes() {
+        return dictionaryBytes;
+    }
+
+    @Override
+    public synchronized String toString() {
+        double saved = listBytes == 0 ? 0 : 100.0 * (listBytes - dictionaryBytes) / listBytes;
+
+        return String.format("[songs = %d, lines = %d, unique lines = %d, list = %.1f KB, " +
+                        "buffer = %.1f KB, dictionary = %.1f KB, saved = %.1f%%]",
+                songCount, lineCount, uniqueLineCount, listBytes / 1024.0,
+                bufferBytes / 1024.0, dictionaryBytes / 1024.0, saved);
+    }
+}
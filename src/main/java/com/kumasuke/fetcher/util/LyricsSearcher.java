@@ -0,0 +1,306 @@
+package com.kumasuke.fetcher.util;
+
+import java.io.IOException;
+import java.text.Normalizer;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+import static java.util.Objects.isNull;
+import static java.util.Objects.nonNull;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * 歌曲搜索器，根据歌曲名和歌手名同时在多个歌词网站中搜索歌词页。<br>
+ * <p>
+ * 搜索请求将被并行地发送至所有搜索入口，各站点的结果一旦返回即按匹配得分排序并交给调用者；
+ * 到达截止时间时，尚未返回的站点将被取消，并返回目前为止得分最高的若干个结果。<br>
+ * 一旦构造完成便无法修改，可以在任意多个线程间共享同一个对象。</p>
+ *
+ * @see SearchEndpoint
+ * @see PageRef
+ */
+public final class LyricsSearcher {
+    // 标题和歌手名在总分中所占的权重
+    private static final double TITLE_WEIGHT = 0.7;
+    private static final double ARTIST_WEIGHT = 0.3;
+
+    // 按得分从高到低排列，得分相同时保持到达顺序
+    private static final Comparator<SearchResult> BY_SCORE =
+            Comparator.comparingDouble(SearchResult::getScore).reversed();
+
+    private final List<SearchEndpoint> endpoints;
+    private final Supplier<String> userAgentPolicy;
+    private final int timeout;
+    private final Executor executor;
+
+    private LyricsSearcher(Builder builder) {
+        this.endpoints = Collections.unmodifiableList(new ArrayList<>(builder.endpoints));
+        this.userAgentPolicy = builder.userAgentPolicy;
+        this.timeout = builder.timeout;
+        this.executor = nonNull(builder.executor) ? builder.executor : DaemonExecutor.shared();
+    }
+
+    /**
+     * 获取一个新的 {@code LyricsSearcher.Builder} 对象。
+     *
+     * @return {@code LyricsSearcher.Builder} 对象
+     */
+    public static Builder newBuilder() {
+        return new Builder();
+    }
+
+    /**
+     * 计算搜索结果与搜索条件的匹配得分。
+     *
+     * @param title     搜索的歌曲名
+     * @param artist    搜索的歌手名，可以为空字符串
+     * @param hitTitle  结果中的歌曲名
+     * @param hitArtist 结果中的歌手名，可以为空字符串
+     * @return 匹配得分，取值范围为 [0, 1]
+     */
+    static double score(String title, String artist, String hitTitle, String hitArtist) {
+        String a = normalize(artist);
+        String ha = normalize(hitArtist);
+        double titleScore = similarity(normalize(title), normalize(hitTitle));
+
+        // 任意一方缺少歌手名时只比较歌曲名
+        if (a.isEmpty() || ha.isEmpty())
+            return titleScore;
+
+        return TITLE_WEIGHT * titleScore + ARTIST_WEIGHT * similarity(a, ha);
+    }
+
+    private static String normalize(String s) {
+        String normalized = Normalizer.normalize(s, Normalizer.Form.NFKC).toLowerCase();
+        StringBuilder sb = new StringBuilder(normalized.length());
+
+        for (int i = 0; i < normalized.length(); i++) {
+            char c = normalized.charAt(i);
+            if (!Character.isWhitespace(c))
+                sb.append(c);
+        }
+
+        return sb.toString();
+    }
+
+    private static double similarity(String query, String hit) {
+        if (query.isEmpty() || hit.isEmpty())
+            return 0;
+        if (query.equals(hit))
+            return 1;
+
+        int shorter = Math.min(query.length(), hit.length());
+        int longer = Math.max(query.length(), hit.length());
+
+        // 包含关系按长度比例给分，否则按公共前缀长度给较低的分
+        if (hit.contains(query) || query.contains(hit))
+            return 0.5 + 0.5 * shorter / longer;
+
+        int prefix = 0;
+        while (prefix < shorter && query.charAt(prefix) == hit.charAt(prefix))
+            prefix++;
+
+        return 0.5 * prefix / longer;
+    }
+
+    /**
+     * 获取该搜索器使用的搜索入口。
+     *
+     * @return 搜索入口列表，该列表不可修改
+     */
+    public List<SearchEndpoint> getEndpoints() {
+        return endpoints;
+    }
+
+    /**
+     * 在所有搜索入口中搜索歌曲，并在截止时间前返回得分最高的若干个结果。
+     *
+     * @param title    歌曲名
+     * @param artist   歌手名，可以为 {@code null} 或空字符串
+     * @param limit    最多返回的结果数目
+     * @param deadline 最长等待时间
+     * @param unit     等待时间单位
+     * @return 按匹配得分从高到低排列的搜索结果
+     * @throws InterruptedException 等待时被中断
+     */
+    public List<SearchResult> search(String title, String artist, int limit, long deadline, TimeUnit unit)
+            throws InterruptedException {
+        return search(title, artist, limit, deadline, unit, r -> {
+        });
+    }
+
+    /**
+     * 在所有搜索入口中搜索歌曲，并在截止时间前返回得分最高的若干个结果。<br>
+     * <p>
+     * 每个站点返回结果后，其全部结果将按得分从高到低的顺序立即交给 {@code listener}，
+     * {@code listener} 只会在调用该方法的线程中被调用。<br>
+     * 某个站点搜索失败时，仅忽略该站点的结果。</p>
+     *
+     * @param title    歌曲名
+     * @param artist   歌手名，可以为 {@code null} 或空字符串
+     * @param limit    最多返回的结果数目
+     * @param deadline 最长等待时间
+     * @param unit     等待时间单位
+     * @param listener 搜索结果到达时的回调
+     * @return 按匹配得分从高到低排列的搜索结果
+     * @throws InterruptedException 等待时被中断
+     */
+    public List<SearchResult> search(String title, String artist, int limit, long deadline, TimeUnit unit,
+                                     Consumer<? super SearchResult> listener) throws InterruptedException {
+        requireNonNull(title, "The parameter 'title' should be non-null value.");
+        requireNonNull(unit, "The parameter 'unit' should be non-null value.");
+        requireNonNull(listener, "The parameter 'listener' should be non-null value.");
+
+        if (title.trim().isEmpty())
+            throw new IllegalArgumentException("The parameter 'title' shouldn't be empty value.");
+        if (limit <= 0)
+            throw new IllegalArgumentException("The parameter 'limit' should be positive value.");
+
+        String query = title.trim();
+        String artistQuery = isNull(artist) ? "" : artist.trim();
+        long deadlineNanos = System.nanoTime() + unit.toNanos(deadline);
+
+        CompletionService<List<SearchResult>> completion = new ExecutorCompletionService<>(executor);
+        List<Future<List<SearchResult>>> pending = new ArrayList<>(endpoints.size());
+        for (SearchEndpoint endpoint : endpoints) {
+            Transport transport = Transport.of(userAgentPolicy.get(), timeout);
+            pending.add(completion.submit(() -> endpoint.search(transport, query, artistQuery)));
+        }
+
+        List<SearchResult> gathered = new ArrayList<>();
+        try {
+            for (int remaining = pending.size(); remaining > 0; remaining--) {
+                long left = deadlineNanos - System.nanoTime();
+                Future<List<SearchResult>> done = left > 0 ? completion.poll(left, TimeUnit.NANOSECONDS) : null;
+                if (isNull(done))
+                    break;
+
+                List<SearchResult> results = resultsOf(done);
+                results.sort(BY_SCORE);
+                results.forEach(listener);
+                gathered.addAll(results);
+            }
+        } finally {
+            // 取消超过截止时间仍未返回的站点
+            pending.forEach(f -> f.cancel(true));
+        }
+
+        gathered.sort(BY_SCORE);
+
+        return gathered.size() > limit ? new ArrayList<>(gathered.subList(0, limit)) : gathered;
+    }
+
+    private static List<SearchResult> resultsOf(Future<List<SearchResult>> done) throws InterruptedException {
+        try {
+            return done.get();
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+
+            // 单个站点的连接、解析失败不影响其它站点
+            if (cause instanceof IOException || cause instanceof RuntimeException)
+                return new ArrayList<>();
+            if (cause instanceof Error)
+                throw (Error) cause;
+
+            throw new AssertionError("Won't happen if coded right.", cause);
+        }
+    }
+
+    /**
+     * {@code LyricsSearcher} 构造器，用于设置搜索参数
+     */
+    public static class Builder {
+        private final List<SearchEndpoint> endpoints = new ArrayList<>();
+        private Supplier<String> userAgentPolicy = UserAgent::getUserAgent;
+        private int timeout = Transport.DEFAULT_TIMEOUT;
+        private Executor executor;
+
+        private Builder() {
+
+        }
+
+        /**
+         * 添加搜索入口，如未添加任何搜索入口则使用全部内置搜索入口。
+         *
+         * @param endpoints 搜索入口
+         * @return {@code LyricsSearcher.Builder} 对象，便于链式编程
+         */
+        public Builder endpoint(SearchEndpoint... endpoints) {
+            for (SearchEndpoint e : endpoints)
+                this.endpoints.add(requireNonNull(e));
+
+            return this;
+        }
+
+        /**
+         * 设置固定使用的 {@code UserAgent} 字符串。
+         *
+         * @param userAgent {@code UserAgent} 字符串
+         * @return {@code LyricsSearcher.Builder} 对象，便于链式编程
+         */
+        public Builder userAgent(String userAgent) {
+            requireNonNull(userAgent, "The parameter 'userAgent' should be non-null value.");
+
+            if (userAgent.isEmpty())
+                throw new IllegalArgumentException("The parameter 'userAgent' shouldn't be empty value.");
+
+            this.userAgentPolicy = () -> userAgent;
+
+            return this;
+        }
+
+        /**
+         * 设置 {@code UserAgent} 字符串的选取策略，每个站点的每次搜索调用一次。<br>
+         * 如未设置，则使用 {@link UserAgent#getUserAgent()} 随机选取。
+         *
+         * @param userAgentPolicy {@code UserAgent} 字符串选取策略
+         * @return {@code LyricsSearcher.Builder} 对象，便于链式编程
+         */
+        public Builder userAgentPolicy(Supplier<String> userAgentPolicy) {
+            this.userAgentPolicy = requireNonNull(userAgentPolicy);
+
+            return this;
+        }
+
+        /**
+         * 设置访问各搜索入口的等待延迟，如未设置则为 {@link Transport#DEFAULT_TIMEOUT}。
+         *
+         * @param timeout 延迟值（单位：{@code ms}），设置 0 代表不限制
+         * @return {@code LyricsSearcher.Builder} 对象，便于链式编程
+         */
+        public Builder timeout(int timeout) {
+            if (timeout < 0)
+                throw new IllegalArgumentException("The parameter 'timeout' shouldn't be negative value.");
+
+            this.timeout = timeout;
+
+            return this;
+        }
+
+        /**
+         * 设置执行搜索请求的线程池，如未设置则使用内部共享的守护线程池。
+         *
+         * @param executor 线程池
+         * @return {@code LyricsSearcher.Builder} 对象，便于链式编程
+         */
+        public Builder executor(Executor executor) {
+            this.executor = requireNonNull(executor);
+
+            return this;
+        }
+
+        /**
+         * 根据设置的参数构造 {@code LyricsSearcher} 对象。
+         *
+         * @return {@code LyricsSearcher} 对象
+         */
+        public LyricsSearcher build() {
+            if (endpoints.isEmpty())
+                endpoint(SearchEndpoint.UTA_NET, SearchEndpoint.J_LYRIC);
+
+            return new LyricsSearcher(this);
+        }
+    }
+}
@@ -0,0 +1,82 @@
+package com.kumasuke.fetcher.util;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * 页面引用，由歌词网站域名和歌词页地址组成，可直接用于构造 {@code Fetcher} 对象。<br>
+ * 一旦创建完成，无法修改。
+ *
+ * @see FetcherBuilder#pageRef(PageRef)
+ */
+public final class PageRef {
+    private final String site;
+    private final String page;
+
+    private PageRef(String site, String page) {
+        this.site = site;
+        this.page = page;
+    }
+
+    /**
+     * 获取一个 {@code PageRef} 对象。
+     *
+     * @param site 歌词网站的域名，不区分大小写，不能为 *
+     * @param page 歌词页地址或歌曲代码
+     * @return {@code PageRef} 对象
+     */
+    public static PageRef of(String site, String page) {
+        requireNonNull(site, "The parameter 'site' should be non-null value.");
+        requireNonNull(page, "The parameter 'page' should be non-null value.");
+
+        if (site.equals("*"))
+            throw new IllegalArgumentException("The parameter 'site' should be a concrete site.");
+
+        return new PageRef(site.toLowerCase(), page);
+    }
+
+    /**
+     * 获取歌词网站域名。
+     *
+     * @return 歌词网站域名（小写）
+     */
+    public String getSite() {
+        return site;
+    }
+
+    /**
+     * 获取歌词页地址或歌曲代码。
+     *
+     * @return 歌词页地址或歌曲代码
+     */
+    public String getPage() {
+        return page;
+    }
+
+    /**
+     * 获取一个已设置好站点和页面参数的 {@code FetcherBuilder} 对象。
+     *
+     * @return {@code FetcherBuilder} 对象
+     */
+    public FetcherBuilder toBuilder() {
+        return FetcherBuilder.newBuilder().pageRef(this);
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj) return true;
+        if (!(obj instanceof PageRef)) return false;
+
+        PageRef other = (PageRef) obj;
+        return site.equals(other.site) && page.equals(other.page);
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * site.hashCode() + page.hashCode();
+    }
+
+    @Override
+    public String toString() {
+        return site + " " + page;
+    }
+}
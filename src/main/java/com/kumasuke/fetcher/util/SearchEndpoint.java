@@ -0,0 +1,239 @@
+package com.kumasuke.fetcher.util;
+
+import org.jsoup.nodes.Document;
+import org.jsoup.nodes.Element;
+
+import java.io.IOException;
+import java.io.UnsupportedEncodingException;
+import java.net.URLEncoder;
+import java.util.ArrayList;
+import java.util.List;
+
+import static com.kumasuke.fetcher.util.Tools.isNullOrEmpty;
+import static java.util.Objects.isNull;
+import static java.util.Objects.nonNull;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * 歌词网站的搜索入口，描述如何构造搜索地址以及如何从搜索结果页中提取歌词页链接。<br>
+ * 一旦创建完成，无法修改，可以在多个线程间安全地共享。
+ * <p>
+ * 搜索地址模板中的 <code>{title}</code> 和 <code>{artist}</code> 将被替换为按指定编码转义后的歌曲名和歌手名。<br>
+ * 结果页中只有能被 {@link SongRef#parse(String)} 自动匹配站点的链接才会被视为搜索结果。</p>
+ *
+ * @see LyricsSearcher
+ */
+public final class SearchEndpoint {
+    /**
+     * 歌网（uta-net.com）的歌曲名搜索
+     */
+    public static final SearchEndpoint UTA_NET = newBuilder("uta-net.com",
+            "http://www.uta-net.com/search/?Aselect=2&Keyword={title}&Bselect=3")
+            .rows("tbody tr")
+            .link("td.side a[href*=/song/]")
+            .artist("td.td2")
+            .build();
+
+    /**
+     * J-Lyric.net（j-lyric.net）的歌曲名、歌手名搜索
+     */
+    public static final SearchEndpoint J_LYRIC = newBuilder("j-lyric.net",
+            "http://search.j-lyric.net/index.php?kt={title}&ct=2&ka={artist}&ca=2&kl=&cl=0")
+            .rows("div.bdy")
+            .link("p.mid a")
+            .artist("p.sml a")
+            .build();
+
+    private final String site;
+    private final String urlTemplate;
+    private final String charset;
+    private final String rowQuery;
+    private final String linkQuery;
+    private final String titleQuery;
+    private final String artistQuery;
+
+    private SearchEndpoint(Builder builder) {
+        this.site = builder.site;
+        this.urlTemplate = builder.urlTemplate;
+        this.charset = builder.charset;
+        this.rowQuery = builder.rowQuery;
+        this.linkQuery = builder.linkQuery;
+        this.titleQuery = builder.titleQuery;
+        this.artistQuery = builder.artistQuery;
+    }
+
+    /**
+     * 获取一个新的 {@code SearchEndpoint.Builder} 对象。
+     *
+     * @param site        歌词网站的域名，仅用于标识该搜索入口
+     * @param urlTemplate 搜索地址模板
+     * @return {@code SearchEndpoint.Builder} 对象
+     */
+    public static Builder newBuilder(String site, String urlTemplate) {
+        return new Builder(site, urlTemplate);
+    }
+
+    /**
+     * 获取该搜索入口所属歌词网站的域名。
+     *
+     * @return 歌词网站的域名
+     */
+    public String getSite() {
+        return site;
+    }
+
+    /**
+     * 根据歌曲名和歌手名构造搜索地址。
+     *
+     * @param title  歌曲名
+     * @param artist 歌手名，可以为空字符串
+     * @return 搜索地址
+     */
+    String searchUrl(String title, String artist) {
+        return urlTemplate
+                .replace("{title}", encode(title))
+                .replace("{artist}", encode(artist));
+    }
+
+    private String encode(String value) {
+        try {
+            return URLEncoder.encode(value, charset);
+        } catch (UnsupportedEncodingException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * 使用给定的连接设置进行搜索，并为每个结果计算匹配得分。
+     *
+     * @param transport 连接设置
+     * @param title     歌曲名
+     * @param artist    歌手名，可以为空字符串
+     * @return 按页面中出现顺序排列的搜索结果
+     * @throws IOException 页面连接、解析失败
+     */
+    List<SearchResult> search(Transport transport, String title, String artist) throws IOException {
+        Document document = transport.document(searchUrl(title, artist));
+        List<SearchResult> results = new ArrayList<>();
+
+        for (Element row : document.select(rowQuery)) {
+            Element link = row.select(linkQuery).first();
+            if (isNull(link))
+                continue;
+
+            String page = link.absUrl("href");
+            SongRef ref = SongRef.tryParse(page);
+            if (isNull(ref))
+                continue;
+
+            String hitTitle = nonNull(titleQuery) ? row.select(titleQuery).text() : link.text();
+            String hitArtist = nonNull(artistQuery) ? row.select(artistQuery).text() : "";
+            double score = LyricsSearcher.score(title, artist, hitTitle, hitArtist);
+
+            results.add(new SearchResult(PageRef.of(ref.getSite(), page), hitTitle, hitArtist, score));
+        }
+
+        return results;
+    }
+
+    @Override
+    public String toString() {
+        return site;
+    }
+
+    /**
+     * {@code SearchEndpoint} 构造器，用于设置搜索入口参数
+     */
+    public static class Builder {
+        private final String site;
+        private final String urlTemplate;
+        private String charset = "UTF-8";
+        private String rowQuery;
+        private String linkQuery = "a[href]";
+        private String titleQuery;
+        private String artistQuery;
+
+        private Builder(String site, String urlTemplate) {
+            requireNonNull(site, "The parameter 'site' should be non-null value.");
+            requireNonNull(urlTemplate, "The parameter 'urlTemplate' should be non-null value.");
+
+            if (!urlTemplate.contains("{title}"))
+                throw new IllegalArgumentException("The parameter 'urlTemplate' should contain {title}.");
+
+            this.site = site.toLowerCase();
+            this.urlTemplate = urlTemplate;
+        }
+
+        /**
+         * 设置转义搜索条件时使用的编码，如未设置则为 {@code UTF-8}。
+         *
+         * @param charset 编码名称
+         * @return {@code SearchEndpoint.Builder} 对象，便于链式编程
+         */
+        public Builder charset(String charset) {
+            this.charset = requireNonNull(charset);
+
+            return this;
+        }
+
+        /**
+         * 设置选取结果页中每一条结果的 CSS 选择器，必须设置。
+         *
+         * @param rowQuery CSS 选择器
+         * @return {@code SearchEndpoint.Builder} 对象，便于链式编程
+         */
+        public Builder rows(String rowQuery) {
+            this.rowQuery = requireNonNull(rowQuery);
+
+            return this;
+        }
+
+        /**
+         * 设置在每一条结果中选取歌词页链接的 CSS 选择器，如未设置则为 {@code a[href]}。
+         *
+         * @param linkQuery CSS 选择器
+         * @return {@code SearchEndpoint.Builder} 对象，便于链式编程
+         */
+        public Builder link(String linkQuery) {
+            this.linkQuery = requireNonNull(linkQuery);
+
+            return this;
+        }
+
+        /**
+         * 设置在每一条结果中选取歌曲名的 CSS 选择器，如未设置则使用链接文本。
+         *
+         * @param titleQuery CSS 选择器
+         * @return {@code SearchEndpoint.Builder} 对象，便于链式编程
+         */
+        public Builder title(String titleQuery) {
+            this.titleQuery = requireNonNull(titleQuery);
+
+            return this;
+        }
+
+        /**
+         * 设置在每一条结果中选取歌手名的 CSS 选择器，如未设置则不比较歌手名。
+         *
+         * @param artistQuery CSS 选择器
+         * @return {@code SearchEndpoint.Builder} 对象，便于链式编程
+         */
+        public Builder artist(String artistQuery) {
+            this.artistQuery = requireNonNull(artistQuery);
+
+            return this;
+        }
+
+        /**
+         * 根据设置的参数构造 {@code SearchEndpoint} 对象。
+         *
+         * @return {@code SearchEndpoint} 对象
+         */
+        public SearchEndpoint build() {
+            if (isNullOrEmpty(rowQuery))
+                throw new IllegalStateException("The parameter 'rows' haven't been set yet.");
+
+            return new SearchEndpoint(this);
+        }
+    }
+}
@@ -0,0 +1,62 @@
+package com.kumasuke.fetcher.util;
+
+/**
+ * 歌曲搜索结果，包含指向歌词页的页面引用和匹配得分。<br>
+ * 一旦创建完成，无法修改。
+ *
+ * @see LyricsSearcher
+ */
+public final class SearchResult {
+    private final PageRef pageRef;
+    private final String title;
+    private final String artist;
+    private final double score;
+
+    SearchResult(PageRef pageRef, String title, String artist, double score) {
+        this.pageRef = pageRef;
+        this.title = title;
+        this.artist = artist;
+        this.score = score;
+    }
+
+    /**
+     * 获取指向歌词页的页面引用。
+     *
+     * @return 页面引用
+     */
+    public PageRef getPageRef() {
+        return pageRef;
+    }
+
+    /**
+     * 获取搜索结果中的歌曲名。
+     *
+     * @return 歌曲名
+     */
+    public String getTitle() {
+        return title;
+    }
+
+    /**
+     * 获取搜索结果中的歌手名，站点未提供时为空字符串。
+     *
+     * @return 歌手名
+     */
+    public String getArtist() {
+        return artist;
+    }
+
+    /**
+     * 获取与搜索条件的匹配得分，取值范围为 [0, 1]，越大越匹配。
+     *
+     * @return 匹配得分
+     */
+    public double getScore() {
+        return score;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%.3f %s / %s <%s>", score, title, artist, pageRef);
+    }
+}
@@ -0,0 +1,125 @@
+package com.kumasuke.fetcher.util;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+
+import static java.util.Objects.isNull;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * 请求合并器，用于合并同时进行的相同请求。<br>
+ * <p>
+ * 多个线程以相同的键同时调用 {@link SingleFlight#execute(Object, Call) execute(K, Call)} 时，
+ * 只有最先调用的线程会真正执行请求，其余线程等待并共享该请求的结果或异常。<br>
+ * 请求完成后即不再保留其结果，之后的调用将重新执行请求。</p>
+ *
+ * @param <K> 请求键类型
+ * @param <V> 请求结果类型
+ */
+public final class SingleFlight<K, V> {
+    // 正在进行中的请求
+    private final ConcurrentMap<K, CompletableFuture<V>> inFlight = new ConcurrentHashMap<>();
+
+    /**
+     * 执行指定请求，如果已有相同键的请求正在进行，则等待并返回该请求的结果。<br>
+     * <p>
+     * 等待期间若当前线程被中断，将会恢复中断状态并抛出 {@code InterruptedIOException} 异常，
+     * 正在进行的请求不受影响。<br>
+     * 若执行请求的线程因自身被中断而失败，等待中的线程不会共享该异常，而是重新发起请求。</p>
+     *
+     * @param key  请求键
+     * @param call 请求
+     * @return 请求结果
+     * @throws IOException             请求失败
+     * @throws InterruptedIOException 等待时被中断
+     */
+    public V execute(K key, Call<V> call) throws IOException {
+        requireNonNull(key, "The parameter 'key' should be non-null value.");
+        requireNonNull(call, "The parameter 'call' should be non-null value.");
+
+        while (true) {
+            CompletableFuture<V> future = new CompletableFuture<>();
+            CompletableFuture<V> existing = inFlight.putIfAbsent(key, future);
+
+            if (isNull(existing))
+                return lead(key, future, call);
+
+            try {
+                return await(existing);
+            } catch (CancellationException e) {
+                // 执行请求的线程被中断，重新发起请求
+            }
+        }
+    }
+
+    /**
+     * 获取正在进行中的请求数目。
+     *
+     * @return 正在进行中的请求数目
+     */
+    public int inFlightCount() {
+        return inFlight.size();
+    }
+
+    private V lead(K key, CompletableFuture<V> future, Call<V> call) throws IOException {
+        try {
+            V result = call.call();
+            future.complete(result);
+
+            return result;
+        } catch (IOException | RuntimeException | Error e) {
+            // 因当前线程被中断而失败时，取消请求而不让等待中的线程共享该异常
+            if (Thread.currentThread().isInterrupted())
+                future.cancel(false);
+            else
+                future.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(key, future);
+        }
+    }
+
+    private V await(CompletableFuture<V> future) throws IOException {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            // 恢复中断状态
+            Thread.currentThread().interrupt();
+            InterruptedIOException ie = new InterruptedIOException("Interrupted while waiting for the request.");
+            ie.initCause(e);
+            throw ie;
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+
+            if (cause instanceof IOException)
+                throw (IOException) cause;
+            if (cause instanceof RuntimeException)
+                throw (RuntimeException) cause;
+            if (cause instanceof Error)
+                throw (Error) cause;
+
+            throw new AssertionError("Won't happen if coded right.", cause);
+        }
+    }
+
+    /**
+     * 可合并的请求
+     *
+     * @param <V> 请求结果类型
+     */
+    @FunctionalInterface
+    public interface Call<V> {
+        /**
+         * 执行请求。
+         *
+         * @return 请求结果
+         * @throws IOException 请求失败
+         */
+        V call() throws IOException;
+    }
+}
@@ -0,0 +1,171 @@
+package com.kumasuke.fetcher.util;
+
+import com.kumasuke.fetcher.ftr.SiteDefinition;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.*;
+import java.util.*;
+
+import static java.nio.file.StandardWatchEventKinds.*;
+import static java.util.Objects.isNull;
+import static java.util.Objects.nonNull;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * 声明式站点定义目录，加载目录中所有的 {@code .properties} 站点定义并注册为可用站点。<br>
+ * <p>
+ * 调用 {@link #reload()} 或启用 {@link #watch()} 后，修改、新增或删除定义文件无需重启即可生效：
+ * 新的定义在编译成功后原子地替换旧的定义，之后构造的 {@code Fetcher} 对象将使用新的定义，
+ * 已构造的 {@code Fetcher} 对象不受影响。<br>
+ * 某个文件编译失败时，该文件之前生效的定义将被保留，其余文件照常生效。<br>
+ * 定义与通过 {@link SiteProvider} 加载的站点同名时将覆盖该站点，定义被删除后恢复原站点。</p>
+ *
+ * @see SiteDefinition
+ */
+public final class SiteDefinitions implements Closeable {
+    private final Path directory;
+    // 各定义文件当前生效的站点定义，按文件名排序
+    private Map<Path, SiteDefinition> active = new TreeMap<>();
+    private volatile IOException lastFailure;
+
+    private WatchService watchService;
+
+    private SiteDefinitions(Path directory) {
+        this.directory = directory;
+    }
+
+    /**
+     * 加载指定目录中的站点定义。
+     *
+     * @param directory 站点定义目录
+     * @return {@code SiteDefinitions} 对象
+     * @throws IOException 目录读取失败，或部分定义文件读取、编译失败（其余定义仍会生效）
+     */
+    public static SiteDefinitions open(Path directory) throws IOException {
+        requireNonNull(directory, "The parameter 'directory' should be non-null value.");
+
+        SiteDefinitions definitions = new SiteDefinitions(directory);
+        definitions.reload();
+
+        return definitions;
+    }
+
+    /**
+     * 重新读取目录中的所有站点定义，并替换当前生效的定义。
+     *
+     * @throws IOException 目录读取失败，或部分定义文件读取、编译失败（其余定义仍会生效）
+     */
+    public synchronized void reload() throws IOException {
+        Map<Path, SiteDefinition> next = new TreeMap<>();
+        IOException failure = null;
+
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, "*.properties")) {
+            for (Path file : files) {
+                try {
+                    next.put(file, SiteDefinition.load(file));
+                } catch (IOException | IllegalArgumentException e) {
+                    // 保留该文件之前生效的定义
+                    SiteDefinition previous = active.get(file);
+                    if (nonNull(previous))
+                        next.put(file, previous);
+
+                    if (isNull(failure))
+                        failure = new IOException("Failed to load site definitions in " + directory);
+                    failure.addSuppressed(new IOException(file.toString(), e));
+                }
+            }
+        }
+
+        // 先注册新的定义，再注销被替换或删除的定义，避免站点暂时不可用
+        for (Map.Entry<Path, SiteDefinition> e : next.entrySet())
+            if (active.get(e.getKey()) != e.getValue())
+                SongRef.register(e.getValue(), true);
+        for (Map.Entry<Path, SiteDefinition> e : active.entrySet())
+            if (next.get(e.getKey()) != e.getValue())
+                SongRef.unregister(e.getValue());
+
+        active = next;
+        lastFailure = failure;
+
+        if (nonNull(failure))
+            throw failure;
+    }
+
+    /**
+     * 启动后台守护线程监视目录，目录中的文件发生变化时自动调用 {@link #reload()}。<br>
+     * 自动重新加载时发生的错误可通过 {@link #getLastFailure()} 获取。
+     *
+     * @return 该 {@code SiteDefinitions} 对象，便于链式编程
+     * @throws IOException 无法监视该目录
+     */
+    public synchronized SiteDefinitions watch() throws IOException {
+        if (nonNull(watchService))
+            return this;
+
+        WatchService service = directory.getFileSystem().newWatchService();
+        directory.register(service, ENTRY_CREATE, ENTRY_MODIFY, ENTRY_DELETE);
+        watchService = service;
+
+        Thread watcher = new Thread(() -> watchLoop(service), "site-definitions-watcher");
+        watcher.setDaemon(true);
+        watcher.start();
+
+        return this;
+    }
+
+    private void watchLoop(WatchService service) {
+        try {
+            while (true) {
+                WatchKey key = service.take();
+                // 同一次修改通常产生多个事件，合并为一次重新加载
+                key.pollEvents();
+
+                try {
+                    reload();
+                } catch (IOException e) {
+                    // 已记录在 lastFailure 中，继续监视
+                }
+
+                if (!key.reset())
+                    return;
+            }
+        } catch (InterruptedException | ClosedWatchServiceException e) {
+            // 已关闭，结束监视
+        }
+    }
+
+    /**
+     * 获取最近一次重新加载时发生的错误。
+     *
+     * @return 最近一次重新加载时发生的错误，没有错误时返回 {@code null}
+     */
+    public IOException getLastFailure() {
+        return lastFailure;
+    }
+
+    /**
+     * 获取当前生效的站点定义。
+     *
+     * @return 站点定义集合，该集合不可修改
+     */
+    public synchronized Collection<SiteDefinition> definitions() {
+        return Collections.unmodifiableCollection(new ArrayList<>(active.values()));
+    }
+
+    /**
+     * 停止监视目录，并注销所有由该对象注册的站点定义。
+     *
+     * @throws IOException 关闭监视失败
+     */
+    @Override
+    public synchronized void close() throws IOException {
+        active.values().forEach(SongRef::unregister);
+        active = new TreeMap<>();
+
+        if (nonNull(watchService)) {
+            watchService.close();
+            watchService = null;
+        }
+    }
+}
@@ -0,0 +1,71 @@
+package com.kumasuke.fetcher.util;
+
+import com.kumasuke.fetcher.Fetcher;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.Set;
+
+/**
+ * 歌词网站提供者，描述一个站点的地址规则并负责构造对应的 {@code Fetcher} 对象。<br>
+ * <p>
+ * 提供者通过 {@link java.util.ServiceLoader} 加载：实现类需为公开类且具有公开的无参构造器，
+ * 并在 <code>META-INF/services/com.kumasuke.fetcher.util.SiteProvider</code> 中列出。<br>
+ * 加载提供者时不应加载该站点的分析器，分析器只应在 {@link #newFetcher(SongRef, Transport)}
+ * 第一次被调用时才被加载。<br>
+ * 多个提供者声明同一站点时，仅第一个被加载的提供者生效。</p>
+ *
+ * @see SongRef
+ * @see FetcherBuilder
+ */
+public interface SiteProvider {
+    /**
+     * 获取站点的域名，即 {@link FetcherBuilder#site(String)} 中使用的名称。
+     *
+     * @return 站点的域名
+     */
+    String site();
+
+    /**
+     * 获取歌词页所在的主机名，自动匹配时带有子域名（如 www）的地址同样可以匹配。
+     *
+     * @return 主机名
+     */
+    String host();
+
+    /**
+     * 获取匹配歌词页路径（含查询字符串）的正则表达式。<br>
+     * 各分组依次以 / 连接即为歌曲代码。
+     *
+     * @return 正则表达式
+     */
+    String pathPattern();
+
+    /**
+     * 获取匹配歌曲代码的正则表达式，为 {@code null} 时只接受完整的歌词页地址。
+     *
+     * @return 正则表达式，默认为 {@code null}
+     */
+    default String codePattern() {
+        return null;
+    }
+
+    /**
+     * 获取该站点支持的可选功能。
+     *
+     * @return 可选功能集合，默认为空集合
+     */
+    default Set<Capability> capabilities() {
+        return Collections.emptySet();
+    }
+
+    /**
+     * 根据给定的歌曲引用和连接设置构造相应的 {@code Fetcher} 对象。
+     *
+     * @param ref       歌曲引用，其站点必定为该提供者的站点
+     * @param transport 连接设置
+     * @return {@code Fetcher} 对象
+     * @throws IOException 页面连接、解析、处理失败
+     */
+    Fetcher newFetcher(SongRef ref, Transport transport) throws IOException;
+}
@@ -0,0 +1,176 @@
+package com.kumasuke.fetcher.util;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * 各歌词网站的滚动访问统计，记录每个站点最近若干次访问的耗时和成败。<br>
+ * <p>
+ * 通过 {@link FetcherBuilder} 和 {@link FetcherFactory} 构造 {@code Fetcher} 对象时，
+ * 每次访问都会被记录到 {@link SiteStatistics#getDefault()} 中。<br>
+ * 该类的所有方法都可以被多个线程同时调用。</p>
+ *
+ * @see SourceResolver
+ */
+public final class SiteStatistics {
+    /**
+     * 默认保留的最近访问记录数目
+     */
+    public static final int DEFAULT_WINDOW = 32;
+
+    private static final SiteStatistics DEFAULT = new SiteStatistics(DEFAULT_WINDOW);
+
+    private final int window;
+    private final ConcurrentMap<String, Window> windows = new ConcurrentHashMap<>();
+
+    /**
+     * 构造一个 {@code SiteStatistics} 对象。
+     *
+     * @param window 每个站点保留的最近访问记录数目
+     */
+    public SiteStatistics(int window) {
+        if (window <= 0)
+            throw new IllegalArgumentException("The parameter 'window' should be positive value.");
+
+        this.window = window;
+    }
+
+    /**
+     * 获取全局共享的 {@code SiteStatistics} 对象。
+     *
+     * @return 全局共享的 {@code SiteStatistics} 对象
+     */
+    public static SiteStatistics getDefault() {
+        return DEFAULT;
+    }
+
+    /**
+     * 记录一次访问。
+     *
+     * @param site    歌词网站的域名，不区分大小写
+     * @param elapsed 访问耗时
+     * @param unit    耗时单位
+     * @param success 访问是否成功
+     */
+    public void record(String site, long elapsed, TimeUnit unit, boolean success) {
+        requireNonNull(site, "The parameter 'site' should be non-null value.");
+        requireNonNull(unit, "The parameter 'unit' should be non-null value.");
+
+        windows.computeIfAbsent(site.toLowerCase(), s -> new Window(window))
+                .record(unit.toNanos(elapsed), success);
+    }
+
+    /**
+     * 获取指定站点当前的统计快照。
+     *
+     * @param site 歌词网站的域名，不区分大小写
+     * @return 统计快照，未曾访问的站点返回样本数为 0 的快照
+     */
+    public Snapshot snapshotOf(String site) {
+        requireNonNull(site, "The parameter 'site' should be non-null value.");
+
+        Window w = windows.get(site.toLowerCase());
+
+        return w == null ? Snapshot.EMPTY : w.snapshot();
+    }
+
+    /**
+     * 清空所有统计记录。
+     */
+    public void clear() {
+        windows.clear();
+    }
+
+    // 单个站点的环形访问记录
+    private static class Window {
+        private final long[] latencies;
+        private final boolean[] successes;
+        private int next;
+        private int size;
+
+        Window(int capacity) {
+            this.latencies = new long[capacity];
+            this.successes = new boolean[capacity];
+        }
+
+        synchronized void record(long nanos, boolean success) {
+            latencies[next] = nanos;
+            successes[next] = success;
+            next = (next + 1) % latencies.length;
+            if (size < latencies.length)
+                size++;
+        }
+
+        synchronized Snapshot snapshot() {
+            int succeeded = 0;
+            long totalLatency = 0;
+
+            for (int i = 0; i < size; i++) {
+                if (successes[i]) {
+                    succeeded++;
+                    totalLatency += latencies[i];
+                }
+            }
+
+            // 没有成功记录时，平均耗时视为无穷大
+            long meanLatency = succeeded == 0 ? Long.MAX_VALUE : totalLatency / succeeded;
+
+            return new Snapshot(size, (double) succeeded / size, meanLatency);
+        }
+    }
+
+    /**
+     * 单个站点的统计快照，一旦创建完成，无法修改
+     */
+    public static final class Snapshot {
+        static final Snapshot EMPTY = new Snapshot(0, 1, 0);
+
+        private final int samples;
+        private final double successRate;
+        private final long meanLatencyNanos;
+
+        private Snapshot(int samples, double successRate, long meanLatencyNanos) {
+            this.samples = samples;
+            this.successRate = successRate;
+            this.meanLatencyNanos = meanLatencyNanos;
+        }
+
+        /**
+         * 获取样本数目。
+         *
+         * @return 样本数目
+         */
+        public int getSamples() {
+            return samples;
+        }
+
+        /**
+         * 获取成功率，没有样本时为 1。
+         *
+         * @return 成功率，取值范围为 [0, 1]
+         */
+        public double getSuccessRate() {
+            return successRate;
+        }
+
+        /**
+         * 获取成功访问的平均耗时，没有成功记录时为 {@code Long.MAX_VALUE}，没有样本时为 0。
+         *
+         * @param unit 耗时单位
+         * @return 平均耗时
+         */
+        public long getMeanLatency(TimeUnit unit) {
+            return meanLatencyNanos == Long.MAX_VALUE ? Long.MAX_VALUE :
+                    unit.convert(meanLatencyNanos, TimeUnit.NANOSECONDS);
+        }
+
+        @Override
+        public String toString() {
+            return String.format("samples=%d, successRate=%.2f, meanLatency=%dms",
+                    samples, successRate, getMeanLatency(TimeUnit.MILLISECONDS));
+        }
+    }
+}
@@ -0,0 +1,355 @@
+package com.kumasuke.fetcher.util;
+
+import java.util.*;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static java.util.Objects.isNull;
+import static java.util.Objects.nonNull;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * 歌曲引用，由歌词网站域名和歌曲代码组成，指向某个站点上的一首歌曲。<br>
+ * <p>
+ * 同一首歌曲的完整歌词页地址和歌曲代码将得到相等的 {@code SongRef} 对象，因此可直接用作缓存的键。<br>
+ * 解析完整歌词页地址时，只需一次扫描提取主机名，通过主机名表找到对应站点，再匹配该站点的路径规则，
+ * 耗时与支持的站点数目无关。<br>
+ * 支持的站点由通过 {@link ServiceLoader} 加载的 {@link SiteProvider} 决定。<br>
+ * 一旦创建完成，无法修改。</p>
+ */
+public final class SongRef {
+    // 通过 ServiceLoader 加载的站点提供者，同一站点仅第一个提供者生效
+    private static final Map<String, SiteProvider> BUILT_IN = new LinkedHashMap<>();
+
+    // 站点域名至站点规则的映射，修改时整体替换，读取时无需同步
+    private static volatile Map<String, SiteRule> siteRules = Collections.emptyMap();
+    // 主机名至站点规则的映射，修改时整体替换，读取时无需同步
+    private static volatile Map<String, SiteRule> hostRules = Collections.emptyMap();
+
+    static {
+        // 只实例化各站点的提供者，分析器在该站点第一次被使用时才会被加载
+        for (SiteProvider provider : ServiceLoader.load(SiteProvider.class, SiteProvider.class.getClassLoader()))
+            BUILT_IN.putIfAbsent(provider.site().toLowerCase(), provider);
+
+        BUILT_IN.values().forEach(p -> register(p, false));
+    }
+
+    private final String site;
+    private final String code;
+
+    private SongRef(String site, String code) {
+        this.site = site;
+        this.code = code;
+    }
+
+    /**
+     * 注册站点提供者。
+     *
+     * @param provider 站点提供者
+     * @param replace  是否替换已注册的同一站点
+     */
+    static synchronized void register(SiteProvider provider, boolean replace) {
+        String site = provider.site().toLowerCase();
+
+        if (!replace && siteRules.containsKey(site))
+            return;
+
+        SiteRule rule = new SiteRule(site, provider);
+        Map<String, SiteRule> sites = new LinkedHashMap<>(siteRules);
+        sites.put(site, rule);
+
+        publish(sites, rule);
+    }
+
+    /**
+     * 注销站点提供者，仅当其仍是该站点的当前提供者时有效。<br>
+     * 若该站点存在通过 {@link ServiceLoader} 加载的提供者，将恢复为该提供者。
+     *
+     * @param provider 站点提供者
+     */
+    static synchronized void unregister(SiteProvider provider) {
+        String site = provider.site().toLowerCase();
+        SiteRule current = siteRules.get(site);
+
+        if (isNull(current) || current.provider != provider)
+            return;
+
+        Map<String, SiteRule> sites = new LinkedHashMap<>(siteRules);
+        sites.remove(site);
+
+        SiteProvider builtIn = BUILT_IN.get(site);
+        if (nonNull(builtIn) && builtIn != provider)
+            sites.put(site, new SiteRule(site, builtIn));
+
+        publish(sites, null);
+    }
+
+    // 根据站点规则重建主机名表，preferred 优先占用其主机名
+    private static void publish(Map<String, SiteRule> sites, SiteRule preferred) {
+        Map<String, SiteRule> hosts = new HashMap<>();
+
+        if (nonNull(preferred))
+            hosts.put(preferred.provider.host().toLowerCase(), preferred);
+        for (SiteRule rule : sites.values())
+            hosts.putIfAbsent(rule.provider.host().toLowerCase(), rule);
+
+        siteRules = sites;
+        hostRules = hosts;
+    }
+
+    /**
+     * 根据完整的歌词页地址自动匹配站点并获取 {@code SongRef} 对象。
+     *
+     * @param url 完整的歌词页地址
+     * @return {@code SongRef} 对象
+     * @throws IllegalArgumentException 无法匹配站点
+     */
+    public static SongRef parse(String url) {
+        SongRef ref = tryParse(requireNonNull(url, "The parameter 'url' should be non-null value."));
+
+        if (isNull(ref))
+            throw new IllegalArgumentException("Cannot match site according to given parameter 'page'!");
+
+        return ref;
+    }
+
+    /**
+     * 根据完整的歌词页地址自动匹配站点，无法匹配时返回 {@code null}。
+     *
+     * @param url 完整的歌词页地址
+     * @return {@code SongRef} 对象，无法匹配时返回 {@code null}
+     */
+    static SongRef tryParse(String url) {
+        int hostStart = url.indexOf("://");
+        hostStart = hostStart < 0 ? 0 : hostStart + 3;
+
+        int hostEnd = hostStart;
+        while (hostEnd < url.length() && !isHostEnd(url.charAt(hostEnd)))
+            hostEnd++;
+        if (hostEnd == url.length())
+            return null;
+
+        SiteRule rule = lookupHost(url.substring(hostStart, hostEnd).toLowerCase());
+
+        return isNull(rule) ? null : rule.matchPath(url, pathStart(url, hostEnd));
+    }
+
+    /**
+     * 获取指定站点上指定页面的 {@code SongRef} 对象。
+     *
+     * @param site 歌词网站的域名，不区分大小写，不能为 *
+     * @param page 歌词页地址或歌曲代码
+     * @return {@code SongRef} 对象
+     * @throws IllegalArgumentException 不支持的歌词网站或无法解析页面参数
+     */
+    public static SongRef of(String site, String page) {
+        requireNonNull(site, "The parameter 'site' should be non-null value.");
+        requireNonNull(page, "The parameter 'page' should be non-null value.");
+
+        SiteRule rule = siteRules.get(site.toLowerCase());
+        if (isNull(rule))
+            throw new IllegalArgumentException("Unable to resolve the parameter 'site': " + site);
+
+        SongRef ref = rule.match(page);
+        if (isNull(ref))
+            throw new IllegalArgumentException("Unable to resolve the parameter page: " + page);
+
+        return ref;
+    }
+
+    /**
+     * 获取指定歌词网站的提供者。
+     *
+     * @param site 歌词网站的域名，不区分大小写
+     * @return 站点提供者，不支持该站点时返回 {@code null}
+     */
+    static SiteProvider providerOf(String site) {
+        SiteRule rule = siteRules.get(site.toLowerCase());
+
+        return isNull(rule) ? null : rule.provider;
+    }
+
+    /**
+     * 获取指定歌词网站支持的可选功能。
+     *
+     * @param site 歌词网站的域名，不区分大小写
+     * @return 可选功能集合，该集合不可修改；不支持该站点时返回 {@code null}
+     */
+    static Set<Capability> capabilitiesOf(String site) {
+        SiteRule rule = siteRules.get(site.toLowerCase());
+
+        return isNull(rule) ? null : rule.capabilities();
+    }
+
+    /**
+     * 返回是否支持指定的歌词网站。
+     *
+     * @param site 歌词网站的域名，不区分大小写
+     * @return 是否支持该站点
+     */
+    public static boolean isSupported(String site) {
+        return siteRules.containsKey(requireNonNull(site).toLowerCase());
+    }
+
+    /**
+     * 获取所有支持的歌词网站域名。
+     *
+     * @return 歌词网站域名集合，该集合不可修改
+     */
+    public static Set<String> sites() {
+        return Collections.unmodifiableSet(siteRules.keySet());
+    }
+
+    private static boolean isHostEnd(char c) {
+        return c == '/' || c == '?' || c == '#' || c == ':';
+    }
+
+    // 跳过端口号，返回路径的起始位置
+    private static int pathStart(String url, int hostEnd) {
+        int i = hostEnd;
+
+        if (url.charAt(i) == ':')
+            while (i < url.length() && url.charAt(i) != '/')
+                i++;
+
+        return i;
+    }
+
+    // 依次去掉最左侧的子域名进行查找，如 www.uta-net.com -> uta-net.com
+    private static SiteRule lookupHost(String host) {
+        String h = host;
+
+        while (true) {
+            SiteRule rule = hostRules.get(h);
+            if (nonNull(rule))
+                return rule;
+
+            int dot = h.indexOf('.');
+            if (dot < 0 || h.indexOf('.', dot + 1) < 0)
+                return null;
+
+            h = h.substring(dot + 1);
+        }
+    }
+
+    /**
+     * 获取歌词网站域名。
+     *
+     * @return 歌词网站域名（小写）
+     */
+    public String getSite() {
+        return site;
+    }
+
+    /**
+     * 获取歌曲代码。<br>
+     * 由多段组成的歌曲代码（如 j-lyric.net 的歌手代码和歌曲代码）以 / 连接。
+     *
+     * @return 歌曲代码
+     */
+    public String getCode() {
+        return code;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj) return true;
+        if (!(obj instanceof SongRef)) return false;
+
+        SongRef other = (SongRef) obj;
+        return site.equals(other.site) && code.equals(other.code);
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * site.hashCode() + code.hashCode();
+    }
+
+    @Override
+    public String toString() {
+        return site + " " + code;
+    }
+
+    // 单个站点的地址规则，正则表达式在第一次使用时才会编译
+    private static class SiteRule {
+        private final String site;
+        private final SiteProvider provider;
+        // 匹配歌词页路径的正则表达式，各分组以 / 连接即为歌曲代码
+        private volatile Pattern path;
+        // 匹配歌曲代码的正则表达式，为 null 时只接受完整歌词页地址
+        private volatile Pattern code;
+        private volatile Set<Capability> capabilities;
+
+        SiteRule(String site, SiteProvider provider) {
+            this.site = site;
+            this.provider = provider;
+        }
+
+        private Pattern path() {
+            Pattern p = path;
+            if (isNull(p))
+                path = p = Pattern.compile(provider.pathPattern());
+
+            return p;
+        }
+
+        private Pattern code() {
+            Pattern c = code;
+            if (isNull(c)) {
+                String regex = provider.codePattern();
+                if (isNull(regex))
+                    return null;
+
+                code = c = Pattern.compile(regex);
+            }
+
+            return c;
+        }
+
+        Set<Capability> capabilities() {
+            Set<Capability> c = capabilities;
+            if (isNull(c)) {
+                Set<Capability> declared = provider.capabilities();
+                c = declared.isEmpty() ? Collections.emptySet()
+                        : Collections.unmodifiableSet(EnumSet.copyOf(declared));
+                capabilities = c;
+            }
+
+            return c;
+        }
+
+        SongRef match(String page) {
+            int hostStart = page.indexOf("://");
+            if (hostStart < 0) {
+                // 多段的歌曲代码以 / 连接，因此先按歌曲代码匹配，不符合时再视为省略了协议的地址
+                Pattern c = code();
+                if (nonNull(c) && c.matcher(page).matches())
+                    return new SongRef(site, page);
+
+                int slash = page.indexOf('/');
+                return slash < 0 ? null : matchPath(page, slash);
+            }
+
+            int hostEnd = hostStart + 3;
+            while (hostEnd < page.length() && !isHostEnd(page.charAt(hostEnd)))
+                hostEnd++;
+
+            return hostEnd == page.length() ? null : matchPath(page, pathStart(page, hostEnd));
+        }
+
+        SongRef matchPath(String url, int pathStart) {
+            Matcher m = path().matcher(url).region(pathStart, url.length());
+            if (!m.matches())
+                return null;
+
+            if (m.groupCount() == 1)
+                return new SongRef(site, m.group(1));
+
+            StringBuilder sb = new StringBuilder(m.group(1));
+            for (int i = 2; i <= m.groupCount(); i++)
+                sb.append('/').append(m.group(i));
+
+            return new SongRef(site, sb.toString());
+        }
+    }
+}
@@ -0,0 +1,217 @@
+package com.kumasuke.fetcher.util;
+
+import com.kumasuke.fetcher.Fetcher;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.*;
+import java.util.concurrent.*;
+
+import static java.util.Objects.isNull;
+import static java.util.Objects.nonNull;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * 歌词来源选择器，用于在同一首歌曲存在于多个歌词网站时选择最合适的来源。<br>
+ * <p>
+ * 选择依据为 {@link SiteStatistics#getDefault()} 中记录的各站点最近访问情况：
+ * 健康的站点（成功率不低于阈值）按平均耗时从低到高优先，其次是尚无记录的站点，最后是不健康的站点。<br>
+ * 若某个来源获取失败或未能在截止时间内完成，将自动转向下一个来源。<br>
+ * 一旦构造完成便无法修改，可以在任意多个线程间共享同一个对象。</p>
+ *
+ * @see SiteStatistics
+ */
+public final class SourceResolver {
+    /**
+     * 默认的健康成功率阈值
+     */
+    public static final double DEFAULT_HEALTHY_THRESHOLD = 0.5;
+
+    private final FetcherFactory factory;
+    private final long deadlineNanos;
+    private final double healthyThreshold;
+    private final Executor executor;
+
+    private SourceResolver(Builder builder) {
+        this.factory = builder.factory;
+        this.deadlineNanos = builder.deadlineNanos;
+        this.healthyThreshold = builder.healthyThreshold;
+        this.executor = nonNull(builder.executor) ? builder.executor : DaemonExecutor.shared();
+    }
+
+    /**
+     * 获取一个新的 {@code SourceResolver.Builder} 对象。
+     *
+     * @return {@code SourceResolver.Builder} 对象
+     */
+    public static Builder newBuilder() {
+        return new Builder();
+    }
+
+    /**
+     * 按当前统计情况对候选来源排序，不进行任何访问。<br>
+     * 优先级相同的来源保持给定的顺序。
+     *
+     * @param candidates 指向同一首歌曲的候选页面引用
+     * @return 按优先级从高到低排列的页面引用
+     */
+    public List<PageRef> rank(Collection<PageRef> candidates) {
+        requireNonNull(candidates, "The parameter 'candidates' should be non-null value.");
+
+        // 每个站点只取一次快照，保证排序期间比较结果一致
+        Map<String, SiteStatistics.Snapshot> snapshots = new HashMap<>();
+        for (PageRef r : candidates)
+            snapshots.computeIfAbsent(r.getSite(), SiteStatistics.getDefault()::snapshotOf);
+
+        List<PageRef> ranked = new ArrayList<>(candidates);
+        ranked.sort(Comparator
+                .comparingInt((PageRef r) -> tierOf(snapshots.get(r.getSite())))
+                .thenComparingLong(r -> snapshots.get(r.getSite()).getMeanLatency(TimeUnit.NANOSECONDS))
+                .thenComparingDouble(r -> -snapshots.get(r.getSite()).getSuccessRate()));
+
+        return ranked;
+    }
+
+    // 0：健康，1：尚无记录，2：不健康
+    private int tierOf(SiteStatistics.Snapshot snapshot) {
+        if (snapshot.getSamples() == 0)
+            return 1;
+
+        return snapshot.getSuccessRate() >= healthyThreshold ? 0 : 2;
+    }
+
+    /**
+     * 按优先级依次尝试候选来源，返回第一个在截止时间内成功获取的 {@code Fetcher} 对象。<br>
+     * 每次访问只在其实际结束时被计入统计一次：超时的来源不会立即被记为失败，
+     * 而是在访问最终完成或失败时按实际耗时记录。
+     *
+     * @param candidates 指向同一首歌曲的候选页面引用
+     * @return {@code Fetcher} 对象
+     * @throws InterruptedIOException 等待时被中断
+     * @throws IOException             所有来源均获取失败或超时
+     */
+    public Fetcher resolve(Collection<PageRef> candidates) throws IOException {
+        List<PageRef> ranked = rank(candidates);
+
+        if (ranked.isEmpty())
+            throw new IllegalArgumentException("The parameter 'candidates' shouldn't be empty value.");
+
+        IOException failure = new IOException("All candidate sources failed: " + ranked);
+        for (PageRef ref : ranked) {
+            FutureTask<Fetcher> task = new FutureTask<>(() -> factory.fetch(ref.getSite(), ref.getPage()));
+            executor.execute(task);
+
+            try {
+                return task.get(deadlineNanos, TimeUnit.NANOSECONDS);
+            } catch (InterruptedException e) {
+                task.cancel(true);
+                // 恢复中断状态
+                Thread.currentThread().interrupt();
+                InterruptedIOException ie = new InterruptedIOException("Interrupted while resolving the source.");
+                ie.initCause(e);
+                throw ie;
+            } catch (TimeoutException e) {
+                // 中断无法停止阻塞中的连接，该访问实际结束时由 FetcherBuilder 按真实结果和耗时计入统计，
+                // 此处不再记录，以免同一次访问被记录两次
+                task.cancel(true);
+                failure.addSuppressed(new IOException(ref + " missed the deadline.", e));
+            } catch (ExecutionException e) {
+                Throwable cause = e.getCause();
+
+                if (cause instanceof IOException || cause instanceof IllegalArgumentException)
+                    failure.addSuppressed(cause);
+                else if (cause instanceof RuntimeException)
+                    throw (RuntimeException) cause;
+                else if (cause instanceof Error)
+                    throw (Error) cause;
+                else
+                    throw new AssertionError("Won't happen if coded right.", cause);
+            }
+        }
+
+        throw failure;
+    }
+
+    /**
+     * {@code SourceResolver} 构造器，用于设置选择参数
+     */
+    public static class Builder {
+        private FetcherFactory factory;
+        private long deadlineNanos = TimeUnit.MILLISECONDS.toNanos(Transport.DEFAULT_TIMEOUT);
+        private double healthyThreshold = DEFAULT_HEALTHY_THRESHOLD;
+        private Executor executor;
+
+        private Builder() {
+
+        }
+
+        /**
+         * 设置用于获取 {@code Fetcher} 对象的工厂，如未设置则使用默认设置的工厂。
+         *
+         * @param factory {@code FetcherFactory} 对象
+         * @return {@code SourceResolver.Builder} 对象，便于链式编程
+         */
+        public Builder factory(FetcherFactory factory) {
+            this.factory = requireNonNull(factory);
+
+            return this;
+        }
+
+        /**
+         * 设置每个来源的截止时间，如未设置则为 {@link Transport#DEFAULT_TIMEOUT} 毫秒。
+         *
+         * @param deadline 截止时间
+         * @param unit     时间单位
+         * @return {@code SourceResolver.Builder} 对象，便于链式编程
+         */
+        public Builder deadline(long deadline, TimeUnit unit) {
+            requireNonNull(unit, "The parameter 'unit' should be non-null value.");
+
+            if (deadline <= 0)
+                throw new IllegalArgumentException("The parameter 'deadline' should be positive value.");
+
+            this.deadlineNanos = unit.toNanos(deadline);
+
+            return this;
+        }
+
+        /**
+         * 设置健康成功率阈值，如未设置则为 {@link SourceResolver#DEFAULT_HEALTHY_THRESHOLD}。
+         *
+         * @param healthyThreshold 成功率阈值，取值范围为 [0, 1]
+         * @return {@code SourceResolver.Builder} 对象，便于链式编程
+         */
+        public Builder healthyThreshold(double healthyThreshold) {
+            if (healthyThreshold < 0 || healthyThreshold > 1)
+                throw new IllegalArgumentException("The parameter 'healthyThreshold' should be in [0, 1].");
+
+            this.healthyThreshold = healthyThreshold;
+
+            return this;
+        }
+
+        /**
+         * 设置执行访问的线程池，如未设置则使用内部共享的守护线程池。
+         *
+         * @param executor 线程池
+         * @return {@code SourceResolver.Builder} 对象，便于链式编程
+         */
+        public Builder executor(Executor executor) {
+            this.executor = requireNonNull(executor);
+
+            return this;
+        }
+
+        /**
+         * 根据设置的参数构造 {@code SourceResolver} 对象。
+         *
+         * @return {@code SourceResolver} 对象
+         */
+        public SourceResolver build() {
+            if (isNull(factory))
+                factory = FetcherFactory.newBuilder().build();
+
+            return new SourceResolver(this);
+        }
+    }
+}
@@ -1,6 +1,9 @@
 package com.kumasuke.fetcher.util;
 
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -9,6 +12,7 @@ import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
 import static java.util.Objects.isNull;
+import static java.util.Objects.nonNull;
 import static java.util.Objects.requireNonNull;
 
 /**
@@ -26,7 +30,7 @@ public class Tools {
      * @param collection 集合类
      * @return 是否非 null 且非空
      */
-    public static boolean nonNullAndNonEmpty(Collection collection) {
+    public static boolean nonNullAndNonEmpty(Collection<?> collection) {
         return !isNullOrEmpty(collection);
     }
 
@@ -46,7 +50,7 @@ public class Tools {
      * @param collection 集合类
      * @return 是否为 null 或空
      */
-    public static boolean isNullOrEmpty(Collection collection) {
+    public static boolean isNullOrEmpty(Collection<?> collection) {
         return isNull(collection) || collection.isEmpty();
     }
 
@@ -77,9 +81,12 @@ public class Tools {
      */
     @SafeVarargs
     public static <T, R> Set<R> toSet(Function<T, R> mapper, T... args) {
-        return Stream.of(args)
-                .map(mapper)
-                .collect(Collectors.toSet());
+        // 参数通常只有 1 ~ 3 个，直接遍历，避免构造 Stream
+        Set<R> result = new HashSet<>();
+        for (T arg : args)
+            result.add(mapper.apply(arg));
+
+        return result;
     }
 
     /**
@@ -105,8 +112,14 @@ public class Tools {
      */
     @SafeVarargs
     public static <K, V> Map<K, V> toMap(P<K, V>... args) {
-        return Stream.of(args)
-                .collect(Collectors.toMap(P::getKey, P::getValue));
+        // 与 Collectors.toMap 相同：值不能为 null，键重复时抛出异常
+        Map<K, V> map = new HashMap<>();
+        for (P<K, V> p : args) {
+            if (nonNull(map.putIfAbsent(p.getKey(), requireNonNull(p.getValue()))))
+                throw new IllegalStateException("Duplicate key " + p.getKey());
+        }
+
+        return map;
     }
 
 /*    @SafeVarargs
@@ -126,9 +139,11 @@ public class Tools {
      */
     @SafeVarargs
     public static <T, R> List<R> toList(Function<T, R> mapper, T... args) {
-        return Stream.of(args)
-                .map(mapper)
-                .collect(Collectors.toList());
+        List<R> result = new ArrayList<>(args.length);
+        for (T arg : args)
+            result.add(mapper.apply(arg));
+
+        return result;
     }
 
     /**
@@ -0,0 +1,237 @@
+package com.kumasuke.fetcher.util;
+
+import org.jsoup.HttpStatusException;
+import org.jsoup.Jsoup;
+import org.jsoup.nodes.Document;
+
+import java.io.*;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.charset.Charset;
+import java.nio.charset.IllegalCharsetNameException;
+import java.nio.charset.StandardCharsets;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.zip.GZIPInputStream;
+
+import static java.util.Objects.isNull;
+import static java.util.Objects.nonNull;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * 连接设置，统一管理访问歌词网站时使用的 {@code UserAgent} 字符串和等待延迟。<br>
+ * 一旦创建完成，无法修改，可以在多个线程间安全地共享。
+ */
+public final class Transport {
+    /**
+     * 默认等待延迟（单位：{@code ms}）
+     */
+    public static final int DEFAULT_TIMEOUT = 5000;
+
+    // 查找文档字符集时读取的最大字节数
+    private static final int SNIFF_LIMIT = 1024;
+    // 最多跟随的重定向次数，与 Jsoup 相同
+    private static final int MAX_REDIRECTS = 20;
+    // 提取 Content-Type 中字符集的正则表达式
+    private static final Pattern charsetPattern;
+    // 提取 <meta> 标签中字符集的正则表达式
+    private static final Pattern metaCharsetPattern;
+
+    static {
+        charsetPattern = Pattern.compile("(?i)\\bcharset=\\s*[\"']?([^\\s,;\"']+)");
+        metaCharsetPattern = Pattern.compile("(?i)<meta[^>]*?charset=\\s*[\"']?([-\\w]+)");
+    }
+
+    private final String userAgent;
+    private final int timeout;
+
+    private Transport(String userAgent, int timeout) {
+        this.userAgent = userAgent;
+        this.timeout = timeout;
+    }
+
+    /**
+     * 获取一个使用默认等待延迟的 {@code Transport} 对象。
+     *
+     * @param userAgent {@code UserAgent} 字符串
+     * @return {@code Transport} 对象
+     */
+    public static Transport of(String userAgent) {
+        return of(userAgent, DEFAULT_TIMEOUT);
+    }
+
+    /**
+     * 获取一个 {@code Transport} 对象。
+     *
+     * @param userAgent {@code UserAgent} 字符串
+     * @param timeout   等待延迟（单位：{@code ms}），设置 0 代表不限制
+     * @return {@code Transport} 对象
+     */
+    public static Transport of(String userAgent, int timeout) {
+        requireNonNull(userAgent, "The parameter 'userAgent' should be non-null value.");
+
+        if (userAgent.isEmpty())
+            throw new IllegalArgumentException("The parameter 'userAgent' shouldn't be empty value.");
+        if (timeout < 0)
+            throw new IllegalArgumentException("The parameter 'timeout' shouldn't be negative value.");
+
+        return new Transport(userAgent, timeout);
+    }
+
+    /**
+     * 获取 {@code UserAgent} 字符串。
+     *
+     * @return {@code UserAgent} 字符串
+     */
+    public String getUserAgent() {
+        return userAgent;
+    }
+
+    /**
+     * 获取等待延迟。
+     *
+     * @return 等待延迟（单位：{@code ms}）
+     */
+    public int getTimeout() {
+        return timeout;
+    }
+
+    /**
+     * 使用该连接设置获取并解析指定地址的 Html 文档。
+     *
+     * @param url 文档地址
+     * @return {@code Jsoup} 文档对象
+     * @throws IOException 页面连接、解析失败
+     */
+    public Document document(String url) throws IOException {
+        return Jsoup.connect(url)
+                .timeout(timeout)
+                .userAgent(userAgent)
+                .get();
+    }
+
+    /**
+     * 获取一个已按照该连接设置配置好的 {@code URLReader} 对象。
+     *
+     * @param url URL 文档所在地址
+     * @return {@code URLReader} 对象
+     * @throws IOException URL 连接失败
+     */
+    public URLReader connect(String url) throws IOException {
+        return URLReader.connect(url)
+                .timeout(timeout)
+                .readTimeout(timeout)
+                .userAgent(userAgent);
+    }
+
+    /**
+     * 使用该连接设置打开指定地址的 Html 文档，以便边读取边处理。<br>
+     * 与 {@link #document(String)} 相同，跟随重定向（包括 http 与 https 之间的重定向），
+     * 字符集依次取自响应头和文档开头的 {@code <meta>} 标签，默认为 UTF-8。<br>
+     * 使用完毕后需将 {@code Reader} 对象关闭，提前关闭将中止剩余内容的传输。
+     *
+     * @param url 文档地址
+     * @return {@code Reader} 对象
+     * @throws IOException 页面连接失败
+     */
+    public Reader reader(String url) throws IOException {
+        HttpURLConnection conn = open(url);
+        InputStream in = body(conn);
+
+        Charset charset = charsetOf(charsetPattern, conn.getContentType());
+        if (isNull(charset))
+            charset = sniffCharset(in);
+
+        return new InputStreamReader(in, charset);
+    }
+
+    /**
+     * 使用该连接设置打开指定地址的文档，以字节流的形式边读取边处理，适用于自行声明编码的 XML 等文档。<br>
+     * 与 {@link #reader(String)} 相同，跟随重定向。<br>
+     * 使用完毕后需将 {@code InputStream} 对象关闭。
+     *
+     * @param url 文档地址
+     * @return {@code InputStream} 对象，已解压缩并带有缓冲
+     * @throws IOException 页面连接失败
+     */
+    public InputStream stream(String url) throws IOException {
+        return body(open(url));
+    }
+
+    // 打开连接并跟随重定向，HttpURLConnection 不会跟随 http 与 https 之间的重定向，因此逐次手动处理
+    private HttpURLConnection open(String url) throws IOException {
+        URL current = new URL(url);
+
+        for (int hops = 0; hops <= MAX_REDIRECTS; hops++) {
+            HttpURLConnection conn = (HttpURLConnection) current.openConnection();
+            conn.setInstanceFollowRedirects(false);
+            conn.setConnectTimeout(timeout);
+            conn.setReadTimeout(timeout);
+            conn.setRequestProperty("User-Agent", userAgent);
+            conn.setRequestProperty("Accept-Encoding", "gzip");
+
+            int status = conn.getResponseCode();
+            if (status >= 200 && status < 300)
+                return conn;
+
+            String location = isRedirect(status) ? conn.getHeaderField("Location") : null;
+            conn.disconnect();
+            if (isNull(location))
+                throw new HttpStatusException("HTTP error fetching URL", status, current.toString());
+
+            current = new URL(current, location);
+            if (!current.getProtocol().equals("http") && !current.getProtocol().equals("https"))
+                throw new IOException("Unsupported redirect to " + current);
+        }
+
+        throw new IOException("Too many redirects occurred trying to load URL " + url);
+    }
+
+    private static boolean isRedirect(int status) {
+        return status == HttpURLConnection.HTTP_MOVED_PERM || status == HttpURLConnection.HTTP_MOVED_TEMP
+                || status == HttpURLConnection.HTTP_SEE_OTHER || status == 307 || status == 308;
+    }
+
+    private static InputStream body(HttpURLConnection conn) throws IOException {
+        InputStream in = conn.getInputStream();
+        if ("gzip".equalsIgnoreCase(conn.getContentEncoding()))
+            in = new GZIPInputStream(in);
+
+        return new BufferedInputStream(in);
+    }
+
+    // 在不消耗输入的前提下从文档开头的 <meta> 标签中查找字符集
+    private static Charset sniffCharset(InputStream in) throws IOException {
+        byte[] head = new byte[SNIFF_LIMIT];
+        int length = 0;
+
+        in.mark(SNIFF_LIMIT);
+        try {
+            int n;
+            while (length < SNIFF_LIMIT && (n = in.read(head, length, SNIFF_LIMIT - length)) > 0)
+                length += n;
+        } finally {
+            in.reset();
+        }
+
+        Charset charset = charsetOf(metaCharsetPattern, new String(head, 0, length, StandardCharsets.ISO_8859_1));
+
+        return nonNull(charset) ? charset : StandardCharsets.UTF_8;
+    }
+
+    private static Charset charsetOf(Pattern pattern, String text) {
+        if (isNull(text))
+            return null;
+
+        Matcher matcher = pattern.matcher(text);
+        if (!matcher.find())
+            return null;
+
+        try {
+            String name = matcher.group(1);
+            return Charset.isSupported(name) ? Charset.forName(name) : null;
+        } catch (IllegalCharsetNameException e) {
+            return null;
+        }
+    }
+}
@@ -115,6 +115,22 @@ public class URLReader {
         return this;
     }
 
+    /**
+     * 设置读取 URL 文档内容时的等待延迟。<br>
+     * 如若未设置，则默认为 0，即不限制。
+     *
+     * @param timeout 延迟值（单位：{@code ms}），设置 0 代表不限制
+     * @return {@code URLReader} 对象，便于链式编程
+     * @throws IllegalStateException 请求已经提交
+     */
+    public URLReader readTimeout(int timeout) {
+        checkSubmitted();
+
+        urlConn.setReadTimeout(timeout);
+
+        return this;
+    }
+
     /**
      * 设置访问 URL 文档的 Http / Https 请求中的 {@code User-Agent} 字段。
      *
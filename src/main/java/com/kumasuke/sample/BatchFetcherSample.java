@@ -3,8 +3,13 @@ package com.kumasuke.sample;
 import com.kumasuke.fetcher.Fetcher;
 import com.kumasuke.fetcher.Header;
 import com.kumasuke.fetcher.Lyrics;
+import com.kumasuke.fetcher.RubyLyricsSupport;
+import com.kumasuke.fetcher.util.Capability;
+import com.kumasuke.fetcher.util.FetchScheduler;
 import com.kumasuke.fetcher.util.FetcherBuilder;
+import com.kumasuke.fetcher.util.FetcherFactory;
 import com.kumasuke.fetcher.util.Formatter;
+import com.kumasuke.fetcher.util.LyricsFootprint;
 
 import java.io.File;
 import java.io.IOException;
@@ -15,13 +20,13 @@ import java.nio.file.Paths;
 import java.util.ArrayList;
 import java.util.Date;
 import java.util.List;
-import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.Executors;
-import java.util.concurrent.TimeUnit;
+import java.util.concurrent.Future;
 
 import static com.kumasuke.fetcher.util.Tools.isNullOrEmpty;
+import static java.lang.Math.max;
 import static java.lang.Math.min;
-import static java.util.Objects.nonNull;
 
 /**
  * 批量歌词获取示例（多线程）
@@ -37,6 +42,9 @@ public class BatchFetcherSample {
     private static String site = "*";
     private static String fileNameFormat;
 
+    // 已下载歌词的内存占用统计
+    private static final LyricsFootprint footprint = new LyricsFootprint();
+
     public static void main(String[] args) {
         // 分析命令行参数并检查设置是否正确
         parseCmdArgs(args);
@@ -55,9 +63,17 @@ public class BatchFetcherSample {
 
         // 下载完成，显示提示和用时
         System.out.printf("[%s] 歌词下载完成，用时 %.0f 秒！%n", new Date(), elapsedTime / 1e9);
+        System.out.printf("[%s] 歌词内存占用估算：%s%n", new Date(), footprint);
     }
 
     private static void outputFiles(List<String> pages) {
+        // 指定了站点时，事先查询该站点是否支持获取含有注音的歌词
+        if (enableRubyOutput && !site.equals("*")
+                && !FetcherBuilder.capabilitiesOf(site).contains(Capability.RUBY_LYRICS)) {
+            System.out.printf("[%s] 该站点不支持获取含有注音的歌词，将不会输出 Ruby 目录！%n", new Date());
+            enableRubyOutput = false;
+        }
+
         // 检查并创建目标输出目录
         checkAndCreateDir(directoryOutput);
         if (enableRubyOutput)
@@ -70,23 +86,42 @@ public class BatchFetcherSample {
         System.out.printf("[%s] 开始下载共 %d 首歌词...%n", new Date(), pages.size());
         // 计算所需线程的实际个数
         final int nThreads = min(pages.size(), maximumThreadNumber);
-        ExecutorService executor = Executors.newFixedThreadPool(nThreads);
-
-        // 添加任务至 ExecutorService 中
+        // 每个站点拥有独立的执行通道，自动匹配时单个站点最多占用一半线程，避免一个慢速站点拖慢其它站点
+        FetchScheduler scheduler = FetchScheduler.newBuilder()
+                .threads(nThreads)
+                .interactiveReserve(0)
+                .siteLimit(site.equals("*") ? max(1, nThreads / 2) : nThreads)
+                .build();
+        // 所有任务共享同一个 FetcherFactory，排队等待写出的结果不保留页面文档
+        FetcherFactory fetcherFactory = FetcherFactory.newBuilder()
+                .site(site)
+                .eager(true)
+                .build();
+
+        // 按站点添加任务至调度器中
+        List<Future<?>> futures = new ArrayList<>(pages.size());
         for (int i = 0; i < pages.size(); i++) {
-            DownloadTask task = new DownloadTask(i + 1, pages.get(i));
-            executor.execute(task);
+            String page = pages.get(i);
+            String siteKey;
+            try {
+                siteKey = fetcherFactory.pageRef(page).getSite();
+            } catch (IllegalArgumentException e) {
+                System.err.println("输入文件中的地址有误。无法解析，请检查！");
+                e.printStackTrace();
+                System.exit(1);
+                return;
+            }
+
+            DownloadTask task = new DownloadTask(fetcherFactory, i + 1, page);
+            futures.add(scheduler.submit(siteKey, FetchScheduler.Priority.BATCH, Executors.callable(task)));
         }
 
-        // 结束 ExecutorService，使其不能再添加新任务，
-        // 并将在所有任务执行完毕后关闭所有新建的线程
-        executor.shutdown();
         try {
             // 等待所有任务执行完毕
-            while (!executor.isTerminated())
-                executor.awaitTermination(60, TimeUnit.SECONDS);
-        } catch (InterruptedException e) {
-            // 出现中断异常，结束程序
+            for (Future<?> f : futures)
+                f.get();
+        } catch (InterruptedException | ExecutionException e) {
+            // 出现中断或未预料的异常，结束程序
             System.err.printf("[%s] 出现致命性错误，即将退出！%n", new Date());
             System.exit(1);
         }
@@ -209,18 +244,19 @@ public class BatchFetcherSample {
      * 失败时，将在指定次数内进行重试。
      */
     public static class DownloadTask implements Runnable {
-        private final FetcherBuilder fetcherBuilder;
+        private final FetcherFactory fetcherFactory;
         private final int index;
         private final String page;
 
         /**
          * 创建一个下载任务。
          *
-         * @param index 该任务的下载序号
-         * @param page  改任务的页面地址
+         * @param fetcherFactory 用于构造获取器的 {@code FetcherFactory} 对象，可在多个任务间共享
+         * @param index          该任务的下载序号
+         * @param page           改任务的页面地址
          */
-        public DownloadTask(int index, String page) {
-            fetcherBuilder = FetcherBuilder.newBuilder();
+        public DownloadTask(FetcherFactory fetcherFactory, int index, String page) {
+            this.fetcherFactory = fetcherFactory;
             this.index = index;
             this.page = page;
         }
@@ -237,12 +273,10 @@ public class BatchFetcherSample {
                     printCurProgress(index, retryTime);
 
                     // 构造获取器
-                    Fetcher fetcher = fetcherBuilder
-                            .site(site)
-                            .page(page)
-                            .build();
+                    Fetcher fetcher = fetcherFactory.fetch(page);
                     Header header = fetcher.getHeader();
                     Lyrics lyrics = fetcher.getLyrics();
+                    footprint.add(lyrics);
 
                     // 获取并处理输出文件名
                     String filename = Formatter.headerToFormattedString(header, "%ar%「%ti%」.txt");
@@ -251,16 +285,10 @@ public class BatchFetcherSample {
 
                     // 输出歌词文件到指定目录
                     writeTo(directoryOutput + "\\" + filename, header, lyrics);
-                    // 如果有需要，则输出带有注音的歌词文本
-                    if (enableRubyOutput) {
-                        @SuppressWarnings("deprecation")
-                        Lyrics lyricsWithRuby = fetcher.getLyricsWithRuby();
-
-                        if (nonNull(lyricsWithRuby))
-                            writeTo(directoryOutput + "\\Ruby\\" + filename, header, lyricsWithRuby);
-                        else if (!site.equals("*"))
-                            // 该站点不支持获取含有注音的歌词
-                            enableRubyOutput = false;
+                    // 如果有需要且站点支持，则输出带有注音的歌词文本
+                    if (enableRubyOutput && fetcher instanceof RubyLyricsSupport) {
+                        Lyrics lyricsWithRuby = ((RubyLyricsSupport) fetcher).getLyricsWithRuby();
+                        writeTo(directoryOutput + "\\Ruby\\" + filename, header, lyricsWithRuby);
                     }
 
                     // 下载完成，结束循环
@@ -282,10 +310,7 @@ public class BatchFetcherSample {
                         System.err.printf("[%s] 第 %d 首下载失败！%n", new Date(), index);
                         e.printStackTrace();
                     }
-                } finally {
-                    // 重置构造器
-                    fetcherBuilder.reset();
-                } // try-catch-finally
+                } // try-catch
             } // while
         }
     }
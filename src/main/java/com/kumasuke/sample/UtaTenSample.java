@@ -2,13 +2,12 @@ package com.kumasuke.sample;
 
 import com.kumasuke.fetcher.Fetcher;
 import com.kumasuke.fetcher.Lyrics;
+import com.kumasuke.fetcher.RubyLyricsSupport;
 import com.kumasuke.fetcher.ftr.UtaTenFetcher;
 import com.kumasuke.fetcher.util.UserAgent;
 
 import java.util.Scanner;
 
-import static java.util.Objects.nonNull;
-
 /**
  * UtaTen (UtaTen.com) 歌词获取示例<br>
  * 该网站可获取含有注音的歌词
@@ -31,9 +30,9 @@ public class UtaTenSample {
         System.out.println("------------------------------------");
 
         // 获取含有注音的歌词
-        @SuppressWarnings("deprecation")
-        Lyrics lyricsWithRuby = fetcher.getLyricsWithRuby();
-        if (nonNull(lyricsWithRuby))
+        if (fetcher instanceof RubyLyricsSupport) {
+            Lyrics lyricsWithRuby = ((RubyLyricsSupport) fetcher).getLyricsWithRuby();
             lyricsWithRuby.forEach(System.out::println);
+        }
     }
 }
@@ -0,0 +1,149 @@
+package com.kumasuke.fetcher.ftr;
+
+import com.kumasuke.fetcher.Header;
+import com.kumasuke.fetcher.Lyrics;
+import com.kumasuke.fetcher.util.HeaderField;
+import com.kumasuke.fetcher.util.SongRef;
+import org.jsoup.Jsoup;
+import org.jsoup.nodes.Document;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.net.URL;
+import java.util.*;
+
+import static org.junit.Assert.*;
+
+/**
+ * 附带的站点定义测试<br>
+ * 在手写和随机生成的歌词页上，与对应的分析器比较提取的歌曲基本信息和歌词文本。
+ */
+public class BundledDefinitionsTest {
+    private static final SongRef KGET = SongRef.of("kget.jp", "171135");
+    private static final SongRef EVESTA = SongRef.parse("http://www.evesta.jp/lyric/artists/a359772/lyrics/l223589.html");
+
+    private static SiteDefinition load(String site) throws IOException {
+        URL resource = SiteDefinition.class.getResource("/com/kumasuke/fetcher/definitions/" + site + ".properties");
+        assertNotNull(site, resource);
+
+        return SiteDefinition.load(resource);
+    }
+
+    private static String kgetPage(String title, String artist, String lyricist, String composer, String lyrics) {
+        return "<html><head><title>" + title + " 歌詞 - 歌詞ＧＥＴ</title></head><body>" +
+                "<div id=\"status-heading\"><h1 itemprop=\"name\">" + title + "</h1></div>" +
+                "<table class=\"lyric-data\"><tbody>" +
+                "<tr><th>歌手</th><td>" + artist + "</td></tr>" +
+                "<tr><th>作詞</th><td>" + lyricist + "</td></tr>" +
+                "<tr><th>作曲</th><td>" + composer + "</td></tr>" +
+                "</tbody></table>" +
+                "<div id=\"lyric-trunk\">" + lyrics + "</div>" +
+                "</body></html>";
+    }
+
+    private static String evestaPage(String title, String info, String lyrics) {
+        return "<html><head><title>" + title + "</title></head><body>" +
+                "<div id=\"titleBand\"><h1>" + title + "</h1></div>" +
+                "<div id=\"descriptionBand\"><div class=\"artists\">" + info + "</div></div>" +
+                "<div id=\"lyricview\"><div class=\"body\"><p>" + lyrics + "</p></div></div>" +
+                "</body></html>";
+    }
+
+    @Test
+    public void kgetDefinitionMatchesParser() throws IOException {
+        SiteDefinition definition = load("kget.jp");
+        assertEquals("kget.jp", definition.site());
+        assertEquals(new KGetUnitedParser(KGET, new StringReader("")).songPageUrl(), definition.songPageUrl(KGET));
+
+        assertSameResult(definition, KGET, kgetPage("Good Time (with Owl City)",
+                "<a href=\"/artist/1\">Carly Rae Jepsen</a>, <a href=\"/artist/2\">Owl City</a>",
+                "Adam Young, Matthew Thiessen,&nbsp;Brian Lee", "Adam Young",
+                "Woah-oh-oh-oh<br>It's always a good time<br />\n<br>Woah-oh-oh-oh&nbsp;<br/>"));
+
+        String[] titles = {"終わり", "の", " ", "　", "&amp;", "(TV Size)", "世界"};
+        String[] names = {"ryo", "supercell", ",", ", ", " ", "　", "&nbsp;", "<a href=\"/a\">Owl City</a>"};
+        String[] lines = {"夢", "a", " ", "　", "&nbsp;", "&lt;", "<br>", "<br />", "\n", "<b>b</b>",
+                "<span class=\"x\">c</span>"};
+        Random random = new Random(36);
+
+        for (int i = 0; i < 2_000; i++) {
+            String page = kgetPage(random(random, titles, 6), random(random, names, 6),
+                    random(random, names, 6), random(random, names, 6), random(random, lines, 16));
+            assertSameResult(definition, KGET, page);
+        }
+    }
+
+    @Test
+    public void evestaDefinitionMatchesParser() throws IOException {
+        SiteDefinition definition = load("evesta.jp");
+        assertEquals("evesta.jp", definition.site());
+        // 分析器的地址中有重复的 /，定义使用规范的地址
+        assertEquals("http://www.evesta.jp/lyric/artists/a359772/lyrics/l223589.html", definition.songPageUrl(EVESTA));
+
+        assertSameResult(definition, EVESTA, evestaPage("君の知らない物語 歌詞 / supercell",
+                "歌：supercell 作詞：ryo 作曲：ryo / kz", "いつも通りのある日の事<br>君は突然立ち上がり言った<br><br>"));
+
+        String[] titles = {"君の", "物語", " ", "　", "歌詞", "歌詞 /", "/", "supercell"};
+        String[] names = {"ryo", "supercell", "/", " / ", " ", "　", "&nbsp;", "歌：", "作詞：", "作曲："};
+        String[] lines = {"夢", "a", " ", "　", "&nbsp;", "&amp;", "<br>", "<br />", "\n", "<ruby>漢<rt>かん</rt></ruby>"};
+        Random random = new Random(36);
+
+        for (int i = 0; i < 2_000; i++) {
+            String info = random.nextInt(4) == 0 ? random(random, names, 10) :
+                    "歌：" + random(random, names, 3) + "作詞：" + random(random, names, 3) +
+                            "作曲：" + random(random, names, 3);
+            String page = evestaPage(random(random, titles, 6), info, random(random, lines, 16));
+            assertSameResult(definition, EVESTA, page);
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void indexRequiresSelector() {
+        Properties props = new Properties();
+        props.setProperty("site", "test.local");
+        props.setProperty("host", "127.0.0.1");
+        props.setProperty("path", "/song/(\\d+)");
+        props.setProperty("url", "http://127.0.0.1/song/{1}");
+        props.setProperty("lyrics", "#kashi");
+        props.setProperty("title.regex", "(.*)");
+        props.setProperty("title.index", "0");
+
+        SiteDefinition.compile(props);
+    }
+
+    private static void assertSameResult(SiteDefinition definition, SongRef ref, String page) throws IOException {
+        UnitedParser parser = ref.getSite().equals("kget.jp") ?
+                new KGetUnitedParser(ref, new StringReader(page)) : new EvestaUnitedParser(ref, new StringReader(page));
+        Document doc = Jsoup.parse(page, definition.songPageUrl(ref));
+
+        assertEquals(page, fieldsOf(parser.header()), fieldsOf(definition.header(doc)));
+        assertEquals(page, linesOf(parser.lyrics()), linesOf(definition.lyrics(doc)));
+    }
+
+    // 具有值的条目，缺少条目与空集合视为相同
+    private static Map<HeaderField, Object> fieldsOf(Header header) {
+        Map<HeaderField, Object> fields = new EnumMap<>(HeaderField.class);
+        for (HeaderField f : HeaderField.values())
+            if (f.isPresentIn(header))
+                fields.put(f, f.valueOf(header));
+
+        return fields;
+    }
+
+    private static List<String> linesOf(Lyrics lyrics) {
+        List<String> lines = new ArrayList<>();
+        lyrics.forEach(lines::add);
+
+        return lines;
+    }
+
+    private static String random(Random random, String[] tokens, int maxTokens) {
+        StringBuilder sb = new StringBuilder();
+        int count = random.nextInt(maxTokens + 1);
+        for (int i = 0; i < count; i++)
+            sb.append(tokens[random.nextInt(tokens.length)]);
+
+        return sb.toString();
+    }
+}
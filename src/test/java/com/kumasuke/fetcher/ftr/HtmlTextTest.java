@@ -0,0 +1,83 @@
+package com.kumasuke.fetcher.ftr;
+
+import org.jsoup.Jsoup;
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Html 片段转换测试<br>
+ * 在随机片段上与 {@code Jsoup.parse(html).text()} 比较结果，包括需要退回 {@code Jsoup} 解析的片段。
+ */
+public class HtmlTextTest {
+    // 扫描中直接处理的片段
+    private static final String[] FAST = {"歌詞", "a", "b c", " ", "  ", "\n", "\t", "\r\n", "　",
+            "&amp;", "&lt;", "&gt;", "&quot;", "&nbsp;", "&#12354;", "&#x3042;", "&#x1F600;", "&#32;", "&#10;",
+            "& ", "&", "<", "< a", "<3", "<br>", "<br/>", "<br />", "</br>", "<BR>", "<p>", "</p>", "<div>",
+            "</div>", "<h1>", "</h1>", "<h2>", "</h3>", "<span class=\"a\">", "</span>", "<b>", "</b>",
+            "<a href=\"/x?a=1&b=2\">", "</a>", "<img src=x.png>", "<img src=\"x.png\" />", "<ruby>", "<rt>",
+            "</rt>", "</ruby>", "<font color='red'>", "</font>", "<p/>", "<div />", "<span title=\"a>b\">"};
+    // 需要退回 Jsoup 解析的片段
+    private static final String[] FALLBACK = {"<!-- c -->", "<table><tr><td>x</td></tr></table>",
+            "<script>a < b</script>", "&copy;", "&unknown;", "&#0;", "&#128;", "&#xD800;", "&amp", "<li>",
+            "<span", "</", "<?xml?>", "<br/x>", "<a href=x/>", "\0", "<td>", "<p title=\"x\"", "</span x>"};
+
+    @Test
+    public void matchesJsoupOnCommonFragments() {
+        assertSameAsJsoup("いつも通りの<br>ある日の事&nbsp;&amp;<span class=\"ruby\">君</span>");
+        assertSameAsJsoup("  <p>a</p>  <p>b<div>c</div>d</p>");
+        assertSameAsJsoup("a</p>b</br>c<br/>d");
+        assertSameAsJsoup("<h1>a<h2>b</h2>c</h1>");
+        assertSameAsJsoup("&#x1F3B5; &#12354;&#x3044;");
+    }
+
+    @Test
+    public void matchesJsoupOnRandomFragments() {
+        Random random = new Random(38);
+
+        for (int i = 0; i < 50_000; i++) {
+            StringBuilder html = new StringBuilder();
+            int count = random.nextInt(12);
+            for (int j = 0; j < count; j++) {
+                String[] tokens = random.nextInt(20) == 0 ? FALLBACK : FAST;
+                html.append(tokens[random.nextInt(tokens.length)]);
+            }
+
+            assertSameAsJsoup(html.toString());
+        }
+    }
+
+    @Test
+    public void appenderMatchesJsoupAcrossFragments() {
+        Random random = new Random(38);
+
+        for (int i = 0; i < 20_000; i++) {
+            HtmlText.Appender appender = new HtmlText.Appender(16);
+            StringBuilder html = new StringBuilder();
+            boolean fast = true;
+
+            int count = random.nextInt(6);
+            for (int j = 0; j < count && fast; j++) {
+                StringBuilder fragment = new StringBuilder();
+                for (int k = random.nextInt(4); k > 0; k--)
+                    fragment.append(FAST[random.nextInt(FAST.length)]);
+
+                html.append(fragment);
+                fast = appender.append(fragment.toString());
+            }
+
+            if (fast) {
+                String expected = Jsoup.parse(html.toString()).text();
+                assertEquals(html.toString(), expected, appender.text());
+                assertTrue(html.toString(), appender.length() - appender.leading() >= expected.length());
+            }
+        }
+    }
+
+    private static void assertSameAsJsoup(String html) {
+        assertEquals(html, Jsoup.parse(html).text(), HtmlText.toText(html));
+    }
+}
@@ -0,0 +1,156 @@
+package com.kumasuke.fetcher.ftr;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+/**
+ * 流式 JSON 读取器测试<br>
+ * 检查转义、按行拆分、跳过嵌套的值以及格式错误的输入。
+ */
+public class JsonScannerTest {
+    private static JsonScanner scanner(String json) {
+        return new JsonScanner(new StringReader(json));
+    }
+
+    // 每次只读取一个字符，使所有内容都跨越缓冲区边界
+    private static JsonScanner slowScanner(String json) {
+        return new JsonScanner(new Reader() {
+            private int pos = 0;
+
+            @Override
+            public int read(char[] buffer, int offset, int length) {
+                if (pos == json.length())
+                    return -1;
+
+                buffer[offset] = json.charAt(pos++);
+                return 1;
+            }
+
+            @Override
+            public void close() {
+
+            }
+        });
+    }
+
+    // 将文本编码为 JSON 字符串，换行符随机使用转义或 \u000a
+    private static String quote(String s, Random random) {
+        StringBuilder sb = new StringBuilder("\"");
+        for (char c : s.toCharArray()) {
+            if (c == '"' || c == '\\')
+                sb.append('\\').append(c);
+            else if (c == '\n')
+                sb.append(random.nextBoolean() ? "\\n" : "\\u000a");
+            else if (c == '\t')
+                sb.append("\\t");
+            else
+                sb.append(c);
+        }
+
+        return sb.append('"').toString();
+    }
+
+    @Test
+    public void decodesEscapes() throws IOException {
+        String json = "[\"a\\\"b\\\\c\\/d\\n\\t\\r\\b\\f\", \"\\u3042\\u30A4\\uD83C\\uDFB5\", null]";
+        for (JsonScanner in : Arrays.asList(scanner(json), slowScanner(json))) {
+            in.beginArray();
+            assertEquals("a\"b\\c/d\n\t\r\b\f", in.nextString());
+            assertEquals("\u3042\u30a4\ud83c\udfb5", in.nextString());
+            assertNull(in.nextString());
+            assertFalse(in.hasNext());
+            in.endArray();
+        }
+    }
+
+    @Test
+    public void nextLinesMatchesSplit() throws IOException {
+        String[] tokens = {"歌詞", "a", " ", "\n", "\n", "\t", "\"", "\\", "/", "\r"};
+        Random random = new Random(42);
+
+        for (int i = 0; i < 20_000; i++) {
+            StringBuilder sb = new StringBuilder();
+            for (int j = random.nextInt(10); j > 0; j--)
+                sb.append(tokens[random.nextInt(tokens.length)]);
+            String text = sb.toString();
+            String json = "{\"lyric\":" + quote(text, random) + "}";
+
+            JsonScanner in = i % 2 == 0 ? scanner(json) : slowScanner(json);
+            in.beginObject();
+            assertEquals("lyric", in.nextName());
+            assertEquals(json, Arrays.asList(text.split("\n")), in.nextLines());
+            in.endObject();
+        }
+
+        JsonScanner in = scanner("[null]");
+        in.beginArray();
+        assertNull(in.nextLines());
+    }
+
+    @Test
+    public void longStringsCrossTheBuffer() throws IOException {
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < 3_000; i++)
+            text.append("いつも通りのある日の事\n");
+
+        JsonScanner in = scanner("[" + quote(text.toString(), new Random(42)) + ", \"next\"]");
+        in.beginArray();
+        assertEquals(Arrays.asList(text.toString().split("\n")), in.nextLines());
+        assertEquals("next", in.nextString());
+        in.endArray();
+    }
+
+    @Test
+    public void skipValueSkipsNestedValues() throws IOException {
+        String json = "{\"skip\" : {\"a\": [1, -2.5e+3, {\"b\": [true, false, null, \"x\\\"]}\"]}, []], " +
+                "\"c\": {}}, \"number\": 0, \"keep\": \"v\", \"rest\": [[[]], {\"d\": \"\\u007d\"}]}";
+        for (JsonScanner in : Arrays.asList(scanner(json), slowScanner(json))) {
+            in.beginObject();
+            assertEquals("skip", in.nextName());
+            in.skipValue();
+            assertEquals("number", in.nextName());
+            in.skipValue();
+            assertEquals("keep", in.nextName());
+            assertEquals("v", in.nextString());
+            assertEquals("rest", in.nextName());
+            in.skipValue();
+            assertFalse(in.hasNext());
+            in.endObject();
+        }
+    }
+
+    @Test
+    public void rejectsMalformedInput() {
+        for (String json : Arrays.asList("{\"a\":1 \"b\":2}", "[1 2]", "[1,,2]", "[,1]", "[1,]", "{\"a\":1,}",
+                "{\"a\" 1}", "{a:1}", "[tru]", "[\"a]", "[\"\\x\"]", "[\"\\u12G4\"]", "[1", "{\"a\":[}]")) {
+            try {
+                scanner(json).skipValue();
+                fail(json);
+            } catch (IOException e) {
+                assertTrue(json, e.getMessage().startsWith("Malformed JSON: "));
+            }
+        }
+    }
+
+    @Test
+    public void requiresCommasBetweenFields() throws IOException {
+        JsonScanner in = scanner("{\"songName\":\"a\" \"artistName\":\"b\"}");
+        in.beginObject();
+        assertEquals("songName", in.nextName());
+        assertEquals("a", in.nextString());
+        assertTrue(in.hasNext());
+        try {
+            in.nextName();
+            fail();
+        } catch (IOException e) {
+            assertEquals("Malformed JSON: Expected ',' but was '\"'", e.getMessage());
+        }
+    }
+}
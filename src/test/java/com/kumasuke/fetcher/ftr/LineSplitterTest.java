@@ -0,0 +1,67 @@
+package com.kumasuke.fetcher.ftr;
+
+import org.jsoup.Jsoup;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * 单次扫描拆分器测试<br>
+ * 在随机文本上与 {@code String.split} 加逐行 {@code trim()} 的结果比较。
+ */
+public class LineSplitterTest {
+    @Test
+    public void htmlBreaksMatchRegexSplit() {
+        String[] tokens = {"a", " ", "\n", "\r", "<", "<b", "<br", "<br>", "<br/>", "<br />",
+                "<br  />", "<br\n>", "/", ">", "<BR>", "　"};
+        Random random = new Random(47);
+
+        for (int i = 0; i < 50_000; i++) {
+            String text = random(random, tokens, 16);
+
+            assertEquals(text, splitAndTrim(text, "<br\\s*/?>"), LineSplitter.HTML_BREAKS.split(text));
+        }
+    }
+
+    @Test
+    public void lineBreaksMatchRegexSplit() {
+        String[] tokens = {"a", " ", "\t", "\n", "\r", "\r\n", "<br>", "　"};
+        Random random = new Random(47);
+
+        for (int i = 0; i < 50_000; i++) {
+            String text = random(random, tokens, 16);
+
+            assertEquals(text, splitAndTrim(text, "\\r?\\n"), LineSplitter.LINE_BREAKS.split(text));
+        }
+    }
+
+    @Test
+    public void prettyPrintedHtmlKeepsLineCount() {
+        String html = Jsoup.parse("<div>line one<br>line two<br /><br>line four<br></div>")
+                .select("div").first().html();
+
+        assertEquals(Arrays.asList("line one", "line two", "", "line four"), LineSplitter.HTML_BREAKS.split(html));
+    }
+
+    private static List<String> splitAndTrim(String text, String regex) {
+        List<String> result = new ArrayList<>();
+        for (String s : text.split(regex))
+            result.add(s.trim());
+
+        return result;
+    }
+
+    private static String random(Random random, String[] tokens, int maxTokens) {
+        StringBuilder sb = new StringBuilder();
+        int count = random.nextInt(maxTokens + 1);
+        for (int i = 0; i < count; i++)
+            sb.append(tokens[random.nextInt(tokens.length)]);
+
+        return sb.toString();
+    }
+}
@@ -0,0 +1,184 @@
+package com.kumasuke.fetcher.ftr;
+
+import org.junit.Test;
+
+import java.io.FilterReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.regex.Pattern;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * 流式标记扫描器测试<br>
+ * 在随机文本上与先读取完整文本再使用 {@code String.indexOf} 和 {@code String.split} 的结果比较，
+ * 读取时每次只返回少量字符，使标记跨越缓冲区边界。<br>
+ * 直接运行 {@link #main(String[])} 可比较两者在各站点接口形式的文本上的吞吐量。
+ */
+public class MarkerScannerTest {
+    @Test
+    public void skipToMatchesIndexOf() throws IOException {
+        String[] tokens = {"a", "w", "wr", "write(", "write('", "'", "\n", "あ"};
+        Random random = new Random(48);
+
+        for (int i = 0; i < 20_000; i++) {
+            String text = random(random, tokens, 16);
+            int index = text.indexOf("write('");
+
+            MarkerScanner scanner = new MarkerScanner(chunked(text, random));
+            assertEquals(text, index >= 0, scanner.skipTo("write('"));
+            if (index >= 0)
+                assertEquals(text, text.substring(index + 7), rest(scanner));
+        }
+    }
+
+    @Test
+    public void untilInLineMatchesIndexOf() throws IOException {
+        String[] tokens = {"x", "'", ",", "',", "\n", "\r", " ", "カ"};
+        Random random = new Random(48);
+
+        for (int i = 0; i < 20_000; i++) {
+            String text = random(random, tokens, 16);
+            int lineEnd = TextScanner.lineEnd(text, 0);
+            int end = text.indexOf("',");
+            String expected = end >= 0 && end + 2 <= lineEnd ? text.substring(0, end) : null;
+
+            assertEquals(text, expected, new MarkerScanner(chunked(text, random)).untilInLine("',"));
+        }
+    }
+
+    @Test
+    public void linesMatchSplit() throws IOException {
+        String[] tokens = {"x", "\\", "'", ");", "');", "<br>", "<br />", "<br", "\n", "歌"};
+        Pattern separators = Pattern.compile("<br>|<br />");
+        Random random = new Random(48);
+
+        for (int i = 0; i < 20_000; i++) {
+            String text = random(random, tokens, 16);
+            int end = escapedEnd(text, "');", '\\');
+            String body = end >= 0 ? text.substring(0, end) : text;
+            List<String> expected = Arrays.asList(separators.split(body));
+
+            MarkerScanner scanner = new MarkerScanner(chunked(text, random)).escapedBy('\\');
+            assertEquals(text, expected, scanner.lines("');", "<br>", "<br />"));
+        }
+    }
+
+    /**
+     * 比较流式扫描与读取完整文本后拆分的吞吐量。
+     *
+     * @param args 未使用
+     * @throws IOException 读取失败
+     */
+    public static void main(String[] args) throws IOException {
+        String kasiTime = "document.write('" + lyricsLines("<br>", 60) + "');";
+        String aniMap = "test1=x&test2=" + lyricsLines("\n", 60);
+        StringBuilder utaMap = new StringBuilder();
+        for (int i = 0; i < 60; i++)
+            utaMap.append("context.fillText('").append(line(i)).append("', 0, ").append(i * 20).append(");\n");
+
+        int songs = 50_000;
+        for (int round = 0; round < 3; round++) {
+            System.out.printf("round %d%n", round + 1);
+
+            long start = System.nanoTime();
+            int sink = 0;
+            for (int n = 0; n < songs; n++) {
+                MarkerScanner scanner = new MarkerScanner(new StringReader(kasiTime)).escapedBy('\\');
+                scanner.skipTo("write('");
+                sink += scanner.lines("');", "<br>", "<br />").size();
+            }
+            report("KasiTime", System.nanoTime() - start, songs, kasiTime.length(), sink);
+
+            start = System.nanoTime();
+            for (int n = 0; n < songs; n++) {
+                MarkerScanner scanner = new MarkerScanner(new StringReader(aniMap));
+                scanner.skipTo("test2=");
+                sink += scanner.lines(null, "\n").size();
+            }
+            report("AniMap", System.nanoTime() - start, songs, aniMap.length(), sink);
+
+            start = System.nanoTime();
+            for (int n = 0; n < songs; n++)
+                sink += UtaMapLyricsParser.extract(new StringReader(utaMap.toString())).size();
+            report("UtaMap", System.nanoTime() - start, songs, utaMap.length(), sink);
+
+            start = System.nanoTime();
+            for (int n = 0; n < songs; n++) {
+                String text = rest(new StringReader(aniMap));
+                sink += text.substring(text.indexOf("test2=") + 6).split("\n").length;
+            }
+            report("AniMap (read + split)", System.nanoTime() - start, songs, aniMap.length(), sink);
+        }
+    }
+
+    private static void report(String name, long time, int songs, int chars, int sink) {
+        System.out.printf("  %-22s %7.2f us/song, %7.1f M chars/s (%d)%n",
+                name, time / 1e3 / songs, (double) chars * songs / time * 1e3, sink);
+    }
+
+    private static String lyricsLines(String separator, int count) {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < count; i++)
+            sb.append(line(i)).append(separator);
+
+        return sb.toString();
+    }
+
+    private static String line(int i) {
+        return i % 5 == 4 ? "" : "夢の中へ 夢の中へ 行ってみたいと思いませんか " + i;
+    }
+
+    // 结束标记前有偶数个转义字符时才是结束标记
+    private static int escapedEnd(String text, String end, char escape) {
+        for (int i = text.indexOf(end); i >= 0; i = text.indexOf(end, i + 1)) {
+            int count = 0;
+            for (int j = i - 1; j >= 0 && text.charAt(j) == escape; j--)
+                count++;
+            if (count % 2 == 0)
+                return i;
+        }
+
+        return -1;
+    }
+
+    private static String rest(MarkerScanner scanner) throws IOException {
+        List<String> lines = scanner.lines(null);
+
+        return lines.isEmpty() ? "" : lines.get(0);
+    }
+
+    private static String rest(Reader reader) throws IOException {
+        StringBuilder sb = new StringBuilder();
+        char[] buffer = new char[8192];
+        for (int n; (n = reader.read(buffer)) > 0; )
+            sb.append(buffer, 0, n);
+
+        return sb.toString();
+    }
+
+    // 每次最多返回 1 ~ 3 个字符
+    private static Reader chunked(String text, Random random) {
+        int chunk = random.nextInt(3) + 1;
+
+        return new FilterReader(new StringReader(text)) {
+            @Override
+            public int read(char[] cbuf, int off, int len) throws IOException {
+                return super.read(cbuf, off, Math.min(len, chunk));
+            }
+        };
+    }
+
+    private static String random(Random random, String[] tokens, int maxTokens) {
+        StringBuilder sb = new StringBuilder();
+        int count = random.nextInt(maxTokens + 1);
+        for (int i = 0; i < count; i++)
+            sb.append(tokens[random.nextInt(tokens.length)]);
+
+        return sb.toString();
+    }
+}
@@ -0,0 +1,119 @@
+package com.kumasuke.fetcher.ftr;
+
+import com.kumasuke.fetcher.Lyrics;
+import com.kumasuke.fetcher.Ruby;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.regex.Pattern;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * 注音分词器测试<br>
+ * 在随机片段上与原先的正则表达式替换、{@code String.split} 和逐行转换的结果比较，并检查注音的位置。<br>
+ * 随机片段不会在注音两侧拼出换行标签（如 <code>&lt;br</code> 与 <code> /&gt;</code> 之间夹有注音），
+ * 原先去除注音后才出现的这种换行不被视为换行。
+ */
+public class RubyTokenizerTest {
+    // 原先使用的正则表达式
+    private static final Pattern RUBY = Pattern.compile("<span class=\"ruby\"><span class=\"rb\">(.*?)</span>" +
+            "<span class=\"rt\">(.*?)</span></span>");
+    private static final String[] BASES = {"君", "物語", "", " ", "a b", "&amp;", "&nbsp;", "<b>強</b>", "\n", "<br>"};
+    private static final String[] READINGS = {"きみ", "ものがたり", "", " ", "&lt;", "\n", "<br />", "き<br>み"};
+    private static final String[] TEXT = {"の", "知らない", " ", "  ", "　", "\n", "&amp;", "&nbsp;", "&#12354;",
+            "<br>", "<br />", "<br/>", "<b>", "</b>", "<span class=\"rb\">", "</span>", "(", ")", "$1",
+            "<span class=\"ruby\"><span class=\"rb\">", "<!-- c -->", "&copy;", "<p>", ">", " />"};
+
+    private static String ruby(String base, String reading) {
+        return "<span class=\"ruby\"><span class=\"rb\">" + base + "</span><span class=\"rt\">" + reading +
+                "</span></span>";
+    }
+
+    @Test
+    public void rubiesPointIntoPlainLines() {
+        String html = ruby("君", "きみ") + "の知らない" + ruby("物語", "ものがたり") + "<br />\n" +
+                "  " + ruby("夢", "ゆめ") + " &amp; " + ruby("<b>希望</b>", "きぼう") + "<br>";
+        RubyTokenizer tokens = RubyTokenizer.tokenize(html);
+
+        assertEquals(Arrays.asList("君の知らない物語", "夢 & 希望"), lines(tokens.plain()));
+        assertEquals(Arrays.asList("君(きみ)の知らない物語(ものがたり)", "夢(ゆめ) & 希望(きぼう)"),
+                lines(tokens.withRuby()));
+        assertEquals(Arrays.asList(
+                new Ruby(0, 0, "君", "きみ"),
+                new Ruby(0, 6, "物語", "ものがたり"),
+                new Ruby(1, 0, "夢", "ゆめ"),
+                new Ruby(1, 4, "希望", "きぼう")), tokens.rubies());
+    }
+
+    @Test
+    public void lineBreaksInsideRuby() {
+        RubyTokenizer tokens = RubyTokenizer.tokenize("あ" + ruby("夢<br>希望", "ゆめ<br />きぼう") + "い");
+
+        // 注音中的换行只分隔含注音的歌词行，注音只属于被注音的文字中最后一行的部分
+        assertEquals(Arrays.asList("あ夢", "希望い"), lines(tokens.plain()));
+        assertEquals(Arrays.asList("あ夢", "希望(ゆめ", "きぼう)い"), lines(tokens.withRuby()));
+        assertEquals(Arrays.asList(new Ruby(1, 0, "希望", "ゆめ きぼう")), tokens.rubies());
+    }
+
+    @Test
+    public void matchesRegexPipelineOnRandomFragments() {
+        Random random = new Random(40);
+
+        for (int i = 0; i < 30_000; i++) {
+            String html = random(random);
+            RubyTokenizer tokens = RubyTokenizer.tokenize(html);
+            List<String> plain = lines(tokens.plain());
+
+            assertEquals(html, expected(html, "$1"), plain);
+            assertEquals(html, expected(html, "$1($2)"), lines(tokens.withRuby()));
+            assertRubiesPointInto(html, plain, tokens.rubies());
+        }
+    }
+
+    // 原先的转换方法
+    private static List<String> expected(String html, String replacement) {
+        String[] lines = RUBY.matcher(html.replaceAll("\\n", "")).replaceAll(replacement).split("<br(?: /)?>");
+
+        return lines(Parser.toLyrics(Parser::parseHtml, lines));
+    }
+
+    // 每处注音的位置都指向该行中被注音的文字，且按出现顺序排列
+    private static void assertRubiesPointInto(String html, List<String> plain, List<Ruby> rubies) {
+        Ruby previous = null;
+        for (Ruby r : rubies) {
+            assertTrue(html, r.getLine() < plain.size());
+            assertEquals(html, r.getBase(), plain.get(r.getLine()).substring(r.getOffset(), r.getEnd()));
+            assertEquals(html, r.getBase().trim(), r.getBase());
+            if (previous != null)
+                assertTrue(html, previous.getLine() < r.getLine() ||
+                        (previous.getLine() == r.getLine() && previous.getEnd() <= r.getOffset()));
+            previous = r;
+        }
+    }
+
+    private static String random(Random random) {
+        StringBuilder sb = new StringBuilder();
+        int count = random.nextInt(12);
+
+        for (int i = 0; i < count; i++) {
+            if (random.nextInt(3) == 0)
+                sb.append(ruby(BASES[random.nextInt(BASES.length)], READINGS[random.nextInt(READINGS.length)]));
+            else
+                sb.append(TEXT[random.nextInt(TEXT.length)]);
+        }
+
+        return sb.toString();
+    }
+
+    private static List<String> lines(Lyrics lyrics) {
+        List<String> lines = new ArrayList<>();
+        lyrics.forEach(lines::add);
+
+        return lines;
+    }
+}
@@ -0,0 +1,148 @@
+package com.kumasuke.fetcher.ftr;
+
+import org.jsoup.Jsoup;
+import org.jsoup.nodes.Document;
+import org.jsoup.nodes.Element;
+import org.jsoup.select.Elements;
+import org.junit.Test;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * 预编译选择器测试<br>
+ * 检查各分析器使用的选择器均能编译且结果与 {@code Element.select(String)} 相同。<br>
+ * 直接运行 {@link #main(String[])} 可比较每首歌曲在选择器上花费的时间。
+ */
+public class SelectorPlanTest {
+    // 各分析器每处理一首歌曲所使用的选择器，依次在整个页面上查找
+    private static final Map<String, String[]> SITES = new LinkedHashMap<>();
+
+    static {
+        SITES.put("AniMap", new String[]{"table[width=442]", "td[bgcolor=#ffffff]"});
+        SITES.put("AnimeSong", new String[]{"td.b pre"});
+        SITES.put("KashiNavi", new String[]{"table[cellpadding=2] table[cellspacing=5]",
+                "table[cellpadding=2] table[cellspacing=0]", "td"});
+        SITES.put("KasiTime", new String[]{"div.person_list_and_other_contents > h1",
+                "div.person_list th + td", "a"});
+        SITES.put("KGet", new String[]{"td"});
+        SITES.put("UtaMap", new String[]{"td.kasi1", "td.pad5x10x0x10"});
+        SITES.put("UtaNet", new String[]{"#sound_uri + h2", "div.kashi_artist"});
+    }
+
+    @Test
+    public void parserSelectorsAreCompiledAndMatchJsoup() {
+        Document doc = Jsoup.parse(samplePage(20));
+
+        for (String[] queries : SITES.values()) {
+            for (String query : queries) {
+                SelectorPlan plan = SelectorPlan.of(query);
+                assertTrue(query, plan.isCompiled());
+
+                Elements expected = doc.select(query);
+                Elements actual = plan.select(doc);
+                assertEquals(query, expected.size(), actual.size());
+                for (int i = 0; i < expected.size(); i++)
+                    assertSame(query, expected.get(i), actual.get(i));
+            }
+        }
+    }
+
+    @Test
+    public void descendantDoesNotMatchRoot() {
+        Element table = Jsoup.parse("<table cellpadding=2><tr><td><table cellspacing=5></table></td></tr></table>")
+                .select("table[cellpadding=2]").first();
+
+        // 与 Jsoup 相同，后代组合符不把根元素视为祖先
+        assertEquals(0, SelectorPlan.of("table[cellpadding=2] table[cellspacing=5]").select(table).size());
+        assertEquals(1, SelectorPlan.of("table[cellspacing=5]").select(table).size());
+    }
+
+    @Test
+    public void unsupportedSelectorFallsBackToJsoup() {
+        Document doc = Jsoup.parse("<p>a</p><p class=x>b</p>");
+        SelectorPlan plan = SelectorPlan.of("p:not(.x)");
+
+        assertFalse(plan.isCompiled());
+        assertEquals("a", plan.first(doc).text());
+        assertSame(plan, SelectorPlan.of("p:not(.x)"));
+    }
+
+    /**
+     * 比较每首歌曲使用选择器字符串和预编译选择器的耗时。
+     *
+     * @param args 未使用
+     */
+    public static void main(String[] args) {
+        Document doc = Jsoup.parse(samplePage(40));
+        int songs = 20_000;
+
+        for (int round = 0; round < 3; round++) {
+            System.out.printf("round %d%n", round + 1);
+            for (Map.Entry<String, String[]> site : SITES.entrySet()) {
+                String[] queries = site.getValue();
+                SelectorPlan[] plans = new SelectorPlan[queries.length];
+                for (int i = 0; i < queries.length; i++)
+                    plans[i] = SelectorPlan.of(queries[i]);
+
+                long start = System.nanoTime();
+                int sink = 0;
+                for (int n = 0; n < songs; n++)
+                    for (String query : queries)
+                        sink += doc.select(query).size();
+                long stringTime = System.nanoTime() - start;
+
+                start = System.nanoTime();
+                for (int n = 0; n < songs; n++)
+                    for (SelectorPlan plan : plans)
+                        sink -= plan.select(doc).size();
+                long planTime = System.nanoTime() - start;
+
+                System.out.printf("  %-10s select(String) %7.2f us/song, plan %7.2f us/song, saved %6.2f us/song (%d)%n",
+                        site.getKey(), stringTime / 1e3 / songs, planTime / 1e3 / songs,
+                        (stringTime - planTime) / 1e3 / songs, sink);
+            }
+        }
+    }
+
+    // 包含各分析器所查找元素的页面，rows 为填充用的表格行数
+    private static String samplePage(int rows) {
+        StringBuilder sb = new StringBuilder("<div id=\"header\"><h1>site</h1></div>");
+
+        sb.append("<table width=\"442\"><tr>");
+        for (int i = 0; i < 4; i++)
+            sb.append("<td bgcolor=\"#ffffff\">cell ").append(i).append("</td><td>label</td>");
+        sb.append("</tr></table>");
+
+        sb.append("<table cellpadding=\"2\"><tr><td>")
+                .append("<table cellspacing=\"5\"><tr><td>title</td><td>-</td><td>artist</td></tr></table>")
+                .append("<table cellspacing=\"0\"><tr><td>lyricist composer</td></tr></table>")
+                .append("</td></tr></table>");
+
+        sb.append("<div class=\"person_list_and_other_contents\"><h1>title</h1>")
+                .append("<div class=\"person_list\"><table>");
+        for (int i = 0; i < 4; i++)
+            sb.append("<tr><th>role</th><td><a href=\"#\">name ").append(i).append("</a></td></tr>");
+        sb.append("</table></div></div>");
+
+        sb.append("<table><tr><td class=\"kasi1\">title</td></tr><tr>");
+        for (int i = 0; i < 6; i++)
+            sb.append("<td class=\"pad5x10x0x10\">info ").append(i).append("</td>");
+        sb.append("</tr></table>");
+
+        sb.append("<div id=\"sound_uri\"></div><h2>title</h2><div class=\"kashi_artist\">artist</div>");
+        sb.append("<table><tr><td class=\"b\"><pre>title\n lyrics</pre></td></tr></table>");
+
+        sb.append("<table class=\"lyric-data\">");
+        for (int i = 0; i < rows; i++)
+            sb.append("<tr><td>row ").append(i).append("</td><td><span>value</span></td></tr>");
+        sb.append("</table>");
+
+        return sb.toString();
+    }
+}
@@ -0,0 +1,384 @@
+package com.kumasuke.fetcher.ftr;
+
+import com.kumasuke.fetcher.util.Transport;
+import com.sun.net.httpserver.HttpServer;
+import org.jsoup.Jsoup;
+import org.jsoup.nodes.Element;
+import org.jsoup.select.Elements;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.Reader;
+import java.io.StringReader;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+/**
+ * 流式 Html 提取器测试<br>
+ * 对各分析器注册的选择器，在手写和随机生成的页面上与 {@code Jsoup.parse(...).select(...)} 比较匹配的元素。
+ */
+public class StreamingExtractorTest {
+    private static final String BASE_URI = "http://www.example.jp/lyric/1/";
+
+    // 与各分析器注册的选择器及所需数目相同
+    private static final Object[][] PARSER_SELECTORS = {
+            {"h1[itemprop=name]", 1}, {"table.lyric-data", 1}, {"#lyric-trunk", 1},
+            {"div.contentBox__title--lyricTitle h1", 1}, {"span.contentBox__titleSub", 1},
+            {"dd.lyricWork__body", 2}, {"div.lyricBody div.medium", 1},
+            {"div.caption", 1}, {"div.body table", 1}, {"#lyricBody", 1},
+            {"#titleBand h1", 1}, {"#descriptionBand div.artists", 1}, {"#lyricview div.body p", 1}
+    };
+
+    // 随机页面中可能匹配上述选择器的容器元素的开始标签
+    private static final String[] CONTAINERS = {
+            "<div id=\"lyric-trunk\">", "<div class=\"contentBox__title--lyricTitle\">",
+            "<div class=\"lyricBody\">", "<div class=\"medium\">", "<div class=\"caption\">",
+            "<div class=\"body\">", "<div id=\"lyricBody\">", "<div id=\"titleBand\">",
+            "<div id=\"descriptionBand\">", "<div class=\"artists\">", "<div id=\"lyricview\">",
+            "<div class=\"body medium\">", "<DIV ID=lyricBody>", "<div data-x='>' class=\"caption\">"
+    };
+    // 后代选择器所需的两层容器元素
+    private static final String[] NESTED_CONTAINERS = {
+            "<div id=\"lyricview\"><div class=\"body\">", "<div class=\"lyricBody\"><div class=\"medium\">",
+            "<div id=\"descriptionBand\"><div class=\"artists\">", "<div class=\"body\"><div class=\"lyricBody\">"
+    };
+    private static final String[] INLINE = {
+            "歌詞", "a", " ", "\n", "&amp;", "&lt;div&gt;", "&nbsp;", "<br>", "<br/>", "<BR />",
+            "<img src=\"a.png\" />", "<!-- <div id=\"lyricBody\"> -->", "<!---->",
+            "<script>if (a < b) document.write('</div><div class=\"caption\">');</script>",
+            "<style>p > span { color: red }</style>", "<title>a </div> <p>b</title>",
+            "<textarea><div class=\"caption\"></textarea>", "<a href=\"/a\">link</a>", "<b>bold</b>"
+    };
+
+    private static StreamingExtractor.Result extract(String page, Object[][] selectors) throws IOException {
+        StreamingExtractor.Builder builder = StreamingExtractor.newBuilder();
+        for (Object[] s : selectors)
+            builder.select((String) s[0], (Integer) s[1]);
+
+        return builder.build().extract(new StringReader(page), BASE_URI);
+    }
+
+    private static void assertSameAsJsoup(String page, Object[][] selectors) throws IOException {
+        StreamingExtractor.Result result = extract(page, selectors);
+        Element doc = Jsoup.parse(page, BASE_URI);
+
+        for (Object[] s : selectors) {
+            String query = (String) s[0];
+            assertEquals(query + " in " + page, outerHtml(expected(doc.select(query), (Integer) s[1])),
+                    outerHtml(result.all(query)));
+        }
+    }
+
+    // 匹配元素中嵌套的匹配元素不会被单独提取，取得所需数目后不再匹配
+    private static Elements expected(Elements all, int limit) {
+        Elements expected = new Elements();
+        for (Element e : all) {
+            if (expected.size() == limit)
+                break;
+            if (expected.stream().noneMatch(m -> e.parents().contains(m)))
+                expected.add(e);
+        }
+
+        return expected;
+    }
+
+    private static List<String> outerHtml(Elements elements) {
+        List<String> html = new ArrayList<>();
+        for (Element e : elements)
+            html.add(e.outerHtml());
+
+        return html;
+    }
+
+    private static Object[][] select(String query) {
+        return new Object[][]{{query, 1}};
+    }
+
+    @Test
+    public void impliedEndTags() throws IOException {
+        assertSameAsJsoup("<div id=\"lyricview\"><div class=\"body\"><p>first<p>second</div></div>",
+                new Object[][]{{"#lyricview div.body p", 2}});
+        assertSameAsJsoup("<div id=\"lyricview\"><div class=\"body\"><p>one<div>block</div>after</div></div>",
+                new Object[][]{{"#lyricview div.body p", 1}, {"#lyricview div.body", 1}});
+        assertSameAsJsoup("<dl><dt>作詞<dd class=\"lyricWork__body\">ryo<dt>作曲<dd class=\"lyricWork__body\">kz</dl>",
+                new Object[][]{{"dd.lyricWork__body", 2}});
+        assertSameAsJsoup("<table class=\"lyric-data\"><tr><th>歌手<td>a<tr><th>作詞<td>b</table><p>c",
+                new Object[][]{{"table.lyric-data", 1}, {"td", 2}, {"p", 1}});
+        assertSameAsJsoup("<ul><li class=\"a\">1<li class=\"a\">2<li>3</ul>", new Object[][]{{"li.a", 2}});
+    }
+
+    @Test
+    public void rawTextIsNotParsed() throws IOException {
+        String page = "<div id=\"lyricBody\"><script>var s = '<div class=\"caption\">' + '</div>';</script>" +
+                "<style>div > p { }</style>歌詞</div><div class=\"caption\">real</div>";
+
+        assertSameAsJsoup(page, new Object[][]{{"#lyricBody", 1}, {"div.caption", 1}});
+        assertEquals("real", extract(page, select("div.caption")).first("div.caption").text());
+        // 以标签名开头的文本不会结束原始文本
+        assertSameAsJsoup("<div id=\"lyricBody\"><script>a</scripts> b</script>c</div>", select("#lyricBody"));
+    }
+
+    @Test
+    public void rcdataKeepsTextAfterEndTag() throws IOException {
+        assertSameAsJsoup("<div id=\"lyricBody\"><title>x </div> y</title>after</div>", select("#lyricBody"));
+        assertSameAsJsoup("<div id=\"lyricBody\"><textarea>x <p> y</textarea>after</div><p>z",
+                new Object[][]{{"#lyricBody", 1}, {"p", 1}});
+        assertSameAsJsoup("<html><head><title>a <div class=\"caption\"> &amp; b</title></head>" +
+                "<body><div class=\"caption\">real</div></body></html>", select("div.caption"));
+        assertEquals("x </div> yafter", extract("<div id=\"lyricBody\"><TITLE>x </div> y</Title >after</div>",
+                select("#lyricBody")).first("#lyricBody").text());
+    }
+
+    @Test
+    public void commentsAreIgnored() throws IOException {
+        assertSameAsJsoup("<!DOCTYPE html><!-- <div id=\"lyricBody\">fake</div> -->" +
+                "<div id=\"lyricBody\">a<!-- </div> -->b<!--->c--></div>", select("#lyricBody"));
+        assertSameAsJsoup("<div class=\"caption\"><!-- a -- b -->x</div>", select("div.caption"));
+    }
+
+    @Test
+    public void voidAndSelfClosingTags() throws IOException {
+        assertSameAsJsoup("<div id=\"lyric-trunk\">a<br>b<br/>c<BR />d<img src=\"x.png\"><hr>e</div>",
+                select("#lyric-trunk"));
+        assertSameAsJsoup("<div class=\"lyricBody\"><div class=\"medium\"/>text</div>",
+                select("div.lyricBody div.medium"));
+        assertSameAsJsoup("<h1 itemprop=\"name\" title='a > b'>Title<br></h1>", select("h1[itemprop=name]"));
+    }
+
+    @Test
+    public void unclosedElementsEndWithInput() throws IOException {
+        assertSameAsJsoup("<div id=\"titleBand\"><h1>title", select("#titleBand h1"));
+        assertSameAsJsoup("<div id=\"lyricview\"><div class=\"body\"><p>a<br>b", select("#lyricview div.body p"));
+    }
+
+    @Test
+    public void limitsAndNesting() throws IOException {
+        String page = "<div class=\"caption\">1<div class=\"caption\">nested</div></div>" +
+                "<div class=\"caption\">2</div><div class=\"caption\">3</div>";
+
+        assertSameAsJsoup(page, new Object[][]{{"div.caption", 1}});
+        assertSameAsJsoup(page, new Object[][]{{"div.caption", 2}});
+        assertSameAsJsoup(page, new Object[][]{{"div.caption", 5}});
+        assertSameAsJsoup(page, new Object[][]{{"div.caption div.caption", 1}});
+        assertEquals(0, extract(page, select("#lyricBody")).all("#lyricBody").size());
+    }
+
+    @Test
+    public void stopsOnceAllSelectorsAreSatisfied() throws IOException {
+        StringBuilder page = new StringBuilder("<div id=\"lyricBody\">歌詞</div><div class=\"caption\">c</div>");
+        int matched = page.length();
+        for (int i = 0; i < 10_000; i++)
+            page.append("<p>padding</p>");
+
+        CountingReader in = new CountingReader(page.toString());
+        StreamingExtractor extractor = StreamingExtractor.newBuilder()
+                .select("#lyricBody")
+                .select("div.caption")
+                .build();
+        StreamingExtractor.Result result = extractor.extract(in, BASE_URI);
+
+        assertEquals("歌詞", result.first("#lyricBody").text());
+        assertEquals("c", result.first("div.caption").text());
+        assertEquals(matched, in.read);
+    }
+
+    @Test
+    public void backtracksOverAncestorsWithMixedCombinators() throws IOException {
+        // 最近的 div 的父元素不是 div.a，需要退回到更外层的 div 才能匹配
+        String page = "<div class=\"a\"><div><div><span>x</span></div></div></div>";
+
+        assertEquals(1, extract(page, new Object[][]{{"div.a > div span", 1}}).all("div.a > div span").size());
+        assertSameAsJsoup(page, new Object[][]{{"div.a > div span", 1}});
+        assertSameAsJsoup(page, new Object[][]{{"div.a > div > div span", 1}});
+        assertSameAsJsoup(page, new Object[][]{{"div.a > div > div > div span", 1}});
+    }
+
+    @Test
+    public void matchesJsoupWithMixedCombinators() throws IOException {
+        Object[][] selectors = {
+                {"div.a > div span", 100}, {"div.a > div.b div span", 100}, {"div > div.b > span", 100},
+                {"div.a div.b > div span", 100}, {"div.b > div.a > div.b span", 100}, {"div.a span", 100}
+        };
+        String[] opens = {"<div>", "<div class=\"a\">", "<div class=\"b\">", "<div class=\"a b\">"};
+        Random random = new Random(43);
+
+        for (int i = 0; i < 3_000; i++)
+            assertSameAsJsoup("<html><body>" + nested(random, opens, 5) + "</body></html>", selectors);
+    }
+
+    // 生成随机嵌套的 div 与 span
+    private static String nested(Random random, String[] opens, int depth) {
+        StringBuilder sb = new StringBuilder();
+
+        for (int i = random.nextInt(4); i > 0; i--) {
+            if (depth > 0 && random.nextInt(3) > 0)
+                sb.append(opens[random.nextInt(opens.length)]).append(nested(random, opens, depth - 1))
+                        .append("</div>");
+            else
+                sb.append("<span>s").append(i).append("</span>");
+        }
+
+        return sb.toString();
+    }
+
+    @Test
+    public void matchesJsoupOnRandomPages() throws IOException {
+        Random random = new Random(37);
+
+        for (int i = 0; i < 3_000; i++)
+            assertSameAsJsoup("<html><head><title>t</title></head><body>" + block(random, 4) + "</body></html>",
+                    PARSER_SELECTORS);
+    }
+
+    // 生成随机的块级内容，可省略的结束标签随机省略
+    private static String block(Random random, int depth) {
+        StringBuilder sb = new StringBuilder();
+        int count = random.nextInt(5);
+
+        for (int i = 0; i < count; i++) {
+            int kind = depth > 0 ? random.nextInt(10) : 0;
+            switch (kind) {
+                case 0:
+                case 1:
+                    sb.append(inline(random, 2));
+                    break;
+                case 2:
+                case 3:
+                    sb.append(CONTAINERS[random.nextInt(CONTAINERS.length)])
+                            .append(block(random, depth - 1)).append("</div>");
+                    break;
+                case 4:
+                    // 未关闭的 <p> 由之后的块级元素或父元素的结束标签隐式结束
+                    sb.append("<p>").append(inline(random, 2));
+                    if (random.nextBoolean())
+                        sb.append("</p>");
+                    sb.append("<div>").append(inline(random, 1)).append("</div>");
+                    break;
+                case 5:
+                    sb.append(random.nextBoolean() ? "<h1 itemprop=\"name\">" : "<h1>")
+                            .append(inline(random, 2)).append("</h1>");
+                    break;
+                case 6:
+                    sb.append("<span class=\"contentBox__titleSub\">").append(inline(random, 2)).append("</span>");
+                    break;
+                case 7:
+                    sb.append(NESTED_CONTAINERS[random.nextInt(NESTED_CONTAINERS.length)])
+                            .append(block(random, depth - 1)).append("</div></div>");
+                    break;
+                case 8:
+                    sb.append("<dl>");
+                    for (int j = random.nextInt(4); j > 0; j--)
+                        sb.append("<dt>").append(inline(random, 1)).append(random.nextBoolean() ? "</dt>" : "")
+                                .append(random.nextBoolean() ? "<dd class=\"lyricWork__body\">" : "<dd>")
+                                .append(block(random, depth - 1)).append(random.nextBoolean() ? "</dd>" : "");
+                    sb.append("</dl>");
+                    break;
+                default:
+                    sb.append(random.nextBoolean() ? "<table class=\"lyric-data\">" : "<table>");
+                    for (int j = random.nextInt(3); j > 0; j--) {
+                        sb.append("<tr><th>").append(inline(random, 1));
+                        sb.append("<td>").append(block(random, depth - 1)).append(random.nextBoolean() ? "</td>" : "");
+                        if (random.nextBoolean())
+                            sb.append("</tr>");
+                    }
+                    sb.append("</table>");
+            }
+        }
+
+        return sb.toString();
+    }
+
+    private static String inline(Random random, int depth) {
+        StringBuilder sb = new StringBuilder();
+        int count = random.nextInt(5);
+
+        for (int i = 0; i < count; i++) {
+            if (depth > 0 && random.nextInt(6) == 0)
+                sb.append("<span>").append(inline(random, depth - 1)).append("</span>");
+            else
+                sb.append(INLINE[random.nextInt(INLINE.length)]);
+        }
+
+        return sb.toString();
+    }
+
+    /**
+     * 每次最多读取一个字符并记录读取数目的 {@code Reader}
+     */
+    private static final class CountingReader extends Reader {
+        private final String text;
+        private int read = 0;
+
+        CountingReader(String text) {
+            this.text = text;
+        }
+
+        @Override
+        public int read(char[] buffer, int offset, int length) {
+            if (read == text.length())
+                return -1;
+
+            buffer[offset] = text.charAt(read++);
+            return 1;
+        }
+
+        @Override
+        public void close() {
+
+        }
+    }
+
+    @Test
+    public void rejectsUnsupportedSelectors() {
+        for (String query : Arrays.asList("div:eq(1)", "a[href^=http]", "a[href*=x]", "[]", "", "div + p", "#")) {
+            try {
+                StreamingExtractor.newBuilder().select(query);
+                fail(query);
+            } catch (IllegalArgumentException expected) {
+                // 不支持的选择器在注册时即被拒绝
+            }
+        }
+    }
+
+    @Test
+    public void followsRedirectsWhenStreaming() throws IOException {
+        // http 到 https 等的重定向由 Transport 逐次跟随，重定向响应的内容不会被提取
+        byte[] moved = "<html><body><div id=\"lyricBody\">moved</div></body></html>".getBytes(StandardCharsets.UTF_8);
+        byte[] page = "<html><body><div id=\"lyricBody\">歌詞</div></body></html>".getBytes(StandardCharsets.UTF_8);
+        HttpServer server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/old/", exchange -> {
+            exchange.getResponseHeaders().set("Location", "/lyric/1/");
+            exchange.sendResponseHeaders(301, moved.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(moved);
+            }
+        });
+        server.createContext("/lyric/", exchange -> {
+            exchange.getResponseHeaders().set("Content-Type", "text/html; charset=UTF-8");
+            exchange.sendResponseHeaders(200, page.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(page);
+            }
+        });
+        server.start();
+
+        try {
+            String url = "http://127.0.0.1:" + server.getAddress().getPort() + "/old/";
+            StreamingExtractor.Result result = StreamingExtractor.newBuilder()
+                    .select("#lyricBody")
+                    .build()
+                    .extract(Transport.of("Mozilla/5.0", 2000), url);
+
+            assertEquals("歌詞", result.first("#lyricBody").text());
+        } finally {
+            server.stop(0);
+        }
+    }
+}
@@ -0,0 +1,100 @@
+package com.kumasuke.fetcher.ftr;
+
+import org.dom4j.DocumentException;
+import org.dom4j.Element;
+import org.dom4j.io.SAXReader;
+import org.junit.Test;
+import org.xml.sax.SAXException;
+
+import javax.xml.stream.XMLStreamException;
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * 歌ネット歌词 SVG 提取测试<br>
+ * 与原先使用的 {@code dom4j} 的 {@code root.element("g").elements("text")} 及 {@code getText()} 比较结果。
+ */
+public class UtaNetLyricsParserTest {
+    private static final String PROLOG = "<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n" +
+            "<!DOCTYPE svg PUBLIC \"-//W3C//DTD SVG 1.1//EN\" " +
+            "\"http://www.w3.org/Graphics/SVG/1.1/DTD/svg11.dtd\">\n" +
+            "<svg xmlns=\"http://www.w3.org/2000/svg\" xmlns:xlink=\"http://www.w3.org/1999/xlink\" " +
+            "width=\"500\" height=\"2000\">\n";
+
+    private static final String SVG = PROLOG +
+            "<desc>歌ネット</desc>\n" +
+            "<g font-size=\"15\">\n" +
+            "  <text x=\"0\" y=\"20\">君の知らない物語</text>\n" +
+            "  <text x=\"0\" y=\"40\">  いつも通りの <tspan fill=\"red\">ある日</tspan>の事  </text>\n" +
+            "  <text x=\"0\" y=\"60\"><![CDATA[<君は> & 突然]]>立ち上がり言った</text>\n" +
+            "  <text x=\"0\" y=\"80\">&amp;&lt;&gt;&quot;&apos;&#12354;&#x3044;</text>\n" +
+            "  <text x=\"0\" y=\"100\"/>\n" +
+            "  <text x=\"0\" y=\"120\"> </text>\n" +
+            "  <g><text>入れ子の g の中の text</text></g>\n" +
+            "  <a xlink:href=\"#\"><text>a の中の text</text></a>\n" +
+            "  <text x=\"0\" y=\"140\">今夜<tspan>星を<tspan>見に</tspan></tspan>行こう</text>\n" +
+            "</g>\n" +
+            "<g><text>二つ目の g</text></g>\n" +
+            "</svg>\n";
+
+    private static InputStream stream(String svg) {
+        return new ByteArrayInputStream(svg.getBytes(StandardCharsets.UTF_8));
+    }
+
+    // 原先的提取方法
+    private static List<String> dom4j(String svg) throws DocumentException, SAXException {
+        SAXReader reader = new SAXReader();
+        reader.setFeature("http://apache.org/xml/features/nonvalidating/load-external-dtd", false);
+        Element group = reader.read(stream(svg)).getRootElement().element("g");
+
+        List<String> result = new ArrayList<>();
+        for (Object text : group.elements("text"))
+            result.add(((Element) text).getText());
+
+        return result;
+    }
+
+    @Test
+    public void matchesDom4jGetText() throws Exception {
+        List<String> expected = Arrays.asList("君の知らない物語", "  いつも通りの の事  ",
+                "<君は> & 突然立ち上がり言った", "&<>\"'あい", "", " ", "今夜行こう");
+
+        assertEquals(expected, dom4j(SVG));
+        assertEquals(expected, UtaNetLyricsParser.extract(stream(SVG)));
+    }
+
+    @Test
+    public void stopsAtTheEndOfTheFirstGroup() throws XMLStreamException {
+        // 第一个 <g> 之后的内容不会被解析
+        String svg = PROLOG + "<g><text>a</text><text>b</text></g><g><text>c</text></g><<<not xml";
+
+        assertEquals(Arrays.asList("a", "b"), UtaNetLyricsParser.extract(stream(svg)));
+    }
+
+    @Test
+    public void matchesDom4jOnRandomTexts() throws Exception {
+        String[] tokens = {"歌詞", "a", " ", "  ", "\n", "\t", "　", "&amp;", "&lt;", "&#12354;", "&#x1F3B5;",
+                "<![CDATA[x < y]]>", "<![CDATA[]]>", "<tspan>t</tspan>", "<tspan/>", "<!-- c -->", "<?pi data?>"};
+        Random random = new Random(41);
+
+        for (int i = 0; i < 2_000; i++) {
+            StringBuilder svg = new StringBuilder(PROLOG).append("<g>");
+            for (int j = random.nextInt(6); j > 0; j--) {
+                svg.append(random.nextBoolean() ? "\n" : "").append("<text>");
+                for (int k = random.nextInt(6); k > 0; k--)
+                    svg.append(tokens[random.nextInt(tokens.length)]);
+                svg.append("</text>");
+            }
+            svg.append("</g></svg>");
+
+            assertEquals(svg.toString(), dom4j(svg.toString()), UtaNetLyricsParser.extract(stream(svg.toString())));
+        }
+    }
+}
@@ -0,0 +1,210 @@
+package com.kumasuke.fetcher.ftr;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.function.Function;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+/**
+ * 线性扫描提取器测试<br>
+ * 在随机片段上与原先的正则表达式比较结果，并在最坏情况的输入上限制耗时。<br>
+ * 直接运行 {@link #main(String[])} 可比较两者在最坏情况输入上的耗时。
+ */
+public class WorstCaseInputTest {
+    // 原先使用的正则表达式
+    private static final Pattern ANIME_SONG = Pattern.compile("(?<title>.*?)\\n\\s+" +
+            "作詞：(?<lyricist>.*?)／\\s*" +
+            "作曲：(?<composer>.*?)／\\s*" +
+            "編曲：(?<arranger>.*?)／\\s*" +
+            "歌：(?<artist>.*?)\\n\\s+" +
+            "(?<lyrics>.*)", Pattern.DOTALL);
+    private static final Pattern PETIT_TITLE = Pattern.compile("<div class=\"title-bar\">(.+?)</div");
+    private static final Pattern PETIT_ARTISTS = Pattern.compile(
+            "<div class=\"pure-u-1\">.*?<div align=\"left\".*?<p>(.*?)</p>", Pattern.DOTALL);
+    private static final Pattern PETIT_LYRICS = Pattern.compile("<canvas id=\"lyrics\".*?>([^<]+)\\n</canvas>");
+    private static final Pattern UTA_MAP = Pattern.compile("\\.fillText\\('(.*?)',");
+
+    // 最坏情况输入的重复次数
+    private static final int REPEAT = 200_000;
+
+    @Test
+    public void animeSongScanMatchesRegex() {
+        String[] skeleton = {"a", "\n", " ", "作詞：", "a", "／", "作曲：", "a", "／", " ",
+                "編曲：", "a", "／", "歌：", "a", "\n", " ", "a"};
+        String[] tokens = {"a", " ", "\n", "　", "作詞：", "作曲：",
+                "編曲：", "歌：", "／", "、"};
+        Random random = new Random(43);
+
+        for (int i = 0; i < 20_000; i++) {
+            String text = mutate(random, skeleton, tokens);
+            Matcher m = ANIME_SONG.matcher(text);
+            String[] expected = m.matches() ? new String[]{m.group("title"), m.group("lyricist"),
+                    m.group("composer"), m.group("arranger"), m.group("artist"), m.group("lyrics")} : null;
+
+            assertArrayEquals(text, expected, AnimeSongUnitedParser.scan(text));
+        }
+    }
+
+    @Test
+    public void petitLyricsScanMatchesRegex() {
+        String[] tokens = {"x", ">", "<", "\n", "\r", "</div", "</p>", "<p>", "</canvas>",
+                "<div class=\"title-bar\">", "<div class=\"pure-u-1\">", "<div align=\"left\"",
+                "<canvas id=\"lyrics\""};
+        Random random = new Random(43);
+
+        for (int i = 0; i < 20_000; i++) {
+            String text = random(random, tokens, 24);
+
+            assertEquals(text, firstGroup(PETIT_TITLE, text), PetitLyricsUnitedParser.title(text));
+            assertEquals(text, firstGroup(PETIT_ARTISTS, text), PetitLyricsUnitedParser.allArtists(text));
+            assertEquals(text, firstGroup(PETIT_LYRICS, text), PetitLyricsUnitedParser.lyricsText(text));
+        }
+    }
+
+    @Test
+    public void utaMapExtractMatchesRegex() throws IOException {
+        String[] tokens = {"x", "'", ",", "',", "\n", " ", ".fillText('", ".fillText("};
+        Random random = new Random(43);
+
+        for (int i = 0; i < 20_000; i++) {
+            String text = random(random, tokens, 24);
+            List<String> expected = new ArrayList<>();
+            Matcher m = UTA_MAP.matcher(text);
+            while (m.find())
+                expected.add(m.group(1));
+
+            assertEquals(text, expected, UtaMapLyricsParser.extract(new StringReader(text)));
+        }
+    }
+
+    @Test(timeout = 5000)
+    public void animeSongWorstCaseIsLinear() {
+        AnimeSongUnitedParser.scan(animeSongWorstCase(REPEAT));
+    }
+
+    @Test(timeout = 5000)
+    public void petitLyricsWorstCaseIsLinear() {
+        PetitLyricsUnitedParser.title(petitTitleWorstCase(REPEAT));
+        PetitLyricsUnitedParser.allArtists(petitArtistsWorstCase(REPEAT));
+        PetitLyricsUnitedParser.lyricsText(petitLyricsWorstCase(REPEAT));
+    }
+
+    @Test(timeout = 5000)
+    public void utaMapWorstCaseIsLinear() throws IOException {
+        UtaMapLyricsParser.extract(new StringReader(utaMapWorstCase(REPEAT)));
+    }
+
+    /**
+     * 比较正则表达式与线性扫描在最坏情况输入上的耗时。
+     *
+     * @param args 未使用
+     */
+    public static void main(String[] args) {
+        for (int n = 1_000; n <= 8_000; n *= 2) {
+            System.out.printf("n = %d%n", n);
+            compare("AnimeSong", animeSongWorstCase(n),
+                    s -> ANIME_SONG.matcher(s).matches(), AnimeSongUnitedParser::scan);
+            compare("PetitLyrics title", petitTitleWorstCase(n),
+                    s -> PETIT_TITLE.matcher(s).find(), PetitLyricsUnitedParser::title);
+            compare("PetitLyrics artists", petitArtistsWorstCase(n),
+                    s -> PETIT_ARTISTS.matcher(s).find(), PetitLyricsUnitedParser::allArtists);
+            compare("PetitLyrics lyrics", petitLyricsWorstCase(n),
+                    s -> PETIT_LYRICS.matcher(s).find(), PetitLyricsUnitedParser::lyricsText);
+            compare("UtaMap", utaMapWorstCase(n),
+                    s -> UTA_MAP.matcher(s).find(), WorstCaseInputTest::utaMapExtract);
+        }
+    }
+
+    private static void compare(String name, String input, Function<String, ?> regex, Function<String, ?> scanner) {
+        long regexTime = time(regex, input);
+        long scannerTime = time(scanner, input);
+
+        System.out.printf("  %-20s regex %8.2f ms, scanner %6.3f ms%n", name, regexTime / 1e6, scannerTime / 1e6);
+    }
+
+    private static long time(Function<String, ?> function, String input) {
+        long start = System.nanoTime();
+        function.apply(input);
+
+        return System.nanoTime() - start;
+    }
+
+    // 大量“作詞：”和分隔符，但没有“作曲：”，正则表达式对每个标题位置都要尝试每个分隔符
+    private static String animeSongWorstCase(int n) {
+        return repeat("\n 作詞：／", n);
+    }
+
+    // 同一行中大量开始标记而没有结束标记
+    private static String petitTitleWorstCase(int n) {
+        return repeat("<div class=\"title-bar\">", n);
+    }
+
+    private static String petitArtistsWorstCase(int n) {
+        return repeat("<div class=\"pure-u-1\">", n);
+    }
+
+    // 开始标签中大量 '>'，且文本不以换行符和结束标签结尾
+    private static String petitLyricsWorstCase(int n) {
+        return "<canvas id=\"lyrics\"" + repeat(">", n) + repeat("x\n", n);
+    }
+
+    private static String utaMapWorstCase(int n) {
+        return repeat(".fillText('", n);
+    }
+
+    private static List<String> utaMapExtract(String js) {
+        try {
+            return UtaMapLyricsParser.extract(new StringReader(js));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static String repeat(String s, int n) {
+        StringBuilder sb = new StringBuilder(s.length() * n);
+        for (int i = 0; i < n; i++)
+            sb.append(s);
+
+        return sb.toString();
+    }
+
+    private static String random(Random random, String[] tokens, int maxTokens) {
+        StringBuilder sb = new StringBuilder();
+        int count = random.nextInt(maxTokens + 1);
+        for (int i = 0; i < count; i++)
+            sb.append(tokens[random.nextInt(tokens.length)]);
+
+        return sb.toString();
+    }
+
+    // 随机替换、插入或删除骨架中的片段
+    private static String mutate(Random random, String[] skeleton, String[] tokens) {
+        StringBuilder sb = new StringBuilder();
+        for (String part : skeleton) {
+            int dice = random.nextInt(20);
+            if (dice == 0)
+                continue;
+            sb.append(dice == 1 ? tokens[random.nextInt(tokens.length)] : part);
+            if (dice == 2)
+                sb.append(tokens[random.nextInt(tokens.length)]);
+        }
+
+        return sb.toString();
+    }
+
+    private static String firstGroup(Pattern pattern, String text) {
+        Matcher m = pattern.matcher(text);
+
+        return m.find() ? m.group(1) : null;
+    }
+}
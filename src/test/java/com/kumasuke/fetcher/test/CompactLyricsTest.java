@@ -0,0 +1,121 @@
+package com.kumasuke.fetcher.test;
+
+import com.kumasuke.fetcher.Lyrics;
+import com.kumasuke.fetcher.util.CompactLyrics;
+import com.kumasuke.fetcher.util.LyricsFootprint;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Spliterator;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.junit.Assert.*;
+
+/**
+ * 紧凑歌词文本容器测试
+ */
+public class CompactLyricsTest {
+    @Test
+    public void linesAreKeptInOrder() {
+        CompactLyrics lyrics = CompactLyrics.newBuilder()
+                .addLine("夢の中へ")
+                .addLine("")
+                .addLine(new StringBuilder("行ってみたいと"))
+                .build();
+
+        assertEquals(3, lyrics.lineCount());
+        assertEquals("夢の中へ", lyrics.getLine(0));
+        assertEquals("", lyrics.getLine(1));
+        assertEquals("行ってみたいと", lyrics.lineView(2).toString());
+        assertEquals(Arrays.asList("夢の中へ", "", "行ってみたいと"), lyrics.stream().collect(Collectors.toList()));
+    }
+
+    @Test
+    public void repeatedLinesAreStoredOnce() {
+        String chorus = "夢の中へ 夢の中へ 行ってみたいと思いませんか";
+        List<String> song = Arrays.asList("探しものは何ですか", chorus, "", "見つけにくいものですか", chorus, "", chorus);
+        CompactLyrics.Builder builder = CompactLyrics.newBuilder();
+        song.forEach(builder::addLine);
+        CompactLyrics lyrics = builder.build();
+
+        assertEquals(7, lyrics.lineCount());
+        assertEquals(4, lyrics.uniqueLineCount());
+        for (int i = 0; i < song.size(); i++)
+            assertEquals(song.get(i), lyrics.getLine(i));
+        assertEquals(song, lyrics.stream().parallel().collect(Collectors.toList()));
+
+        LyricsFootprint footprint = new LyricsFootprint();
+        footprint.add(lyrics);
+        assertEquals(4, footprint.uniqueLineCount());
+        assertTrue(footprint.dictionaryBytes() < footprint.bufferBytes());
+        assertTrue(footprint.bufferBytes() < footprint.listBytes());
+    }
+
+    @Test
+    public void shortRepeatedLinesAreNotIndexed() {
+        List<String> song = Arrays.asList("a", "", "a", "", "b");
+        CompactLyrics.Builder builder = CompactLyrics.newBuilder();
+        song.forEach(builder::addLine);
+        CompactLyrics lyrics = builder.build();
+
+        // 序号数组比重复的字符占用更多，按行依次保存
+        assertEquals(5, lyrics.uniqueLineCount());
+        assertEquals(song, lyrics.stream().collect(Collectors.toList()));
+    }
+
+    @Test(expected = IndexOutOfBoundsException.class)
+    public void lineIndexIsChecked() {
+        CompactLyrics.newBuilder().addLine("a").build().getLine(1);
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void iteratorCannotRemove() {
+        Iterator<String> iterator = CompactLyrics.newBuilder().addLine("a").build().iterator();
+        iterator.next();
+        iterator.remove();
+    }
+
+    @Test
+    public void spliteratorSplitsByLine() {
+        CompactLyrics.Builder builder = CompactLyrics.newBuilder();
+        IntStream.range(0, 1000).forEach(i -> builder.addLine("line " + i));
+        CompactLyrics lyrics = builder.build();
+
+        Spliterator<String> suffix = lyrics.spliterator();
+        Spliterator<String> prefix = suffix.trySplit();
+        assertEquals(500, prefix.estimateSize());
+        assertEquals(500, suffix.estimateSize());
+
+        List<String> expected = new ArrayList<>();
+        lyrics.forEach(expected::add);
+        assertEquals(expected, lyrics.stream().parallel().collect(Collectors.toList()));
+    }
+
+    @Test
+    public void copyOfKeepsLines() {
+        CompactLyrics lyrics = CompactLyrics.newBuilder().addLine("a").addLine("b").build();
+        Lyrics other = new Lyrics() {
+            @Override
+            public String getLine(int index) {
+                return lyrics.getLine(index);
+            }
+
+            @Override
+            public int lineCount() {
+                return lyrics.lineCount();
+            }
+
+            @Override
+            public Iterator<String> iterator() {
+                return lyrics.iterator();
+            }
+        };
+
+        assertSame(lyrics, CompactLyrics.copyOf(lyrics));
+        assertEquals(lyrics.toString(), CompactLyrics.copyOf(other).toString());
+    }
+}
@@ -0,0 +1,153 @@
+package com.kumasuke.fetcher.test;
+
+import com.kumasuke.fetcher.*;
+import com.kumasuke.fetcher.util.DetachedFetcher;
+import org.junit.Test;
+
+import java.util.*;
+
+import static org.junit.Assert.*;
+
+/**
+ * 立即提取模式测试
+ */
+public class DetachedFetcherTest {
+    @Test
+    public void copiesHeaderAndLyrics() {
+        List<String> lines = new ArrayList<>(Arrays.asList("first", "", "second"));
+        Fetcher detached = DetachedFetcher.of(new StubFetcher(lines));
+
+        assertEquals("title", detached.getHeader().getTitle());
+        assertEquals(Collections.singleton("artist"), detached.getHeader().getArtist());
+        assertNull(detached.getHeader().getArranger());
+        assertEquals("http://example.com/song/1", detached.getSource());
+        assertEquals(3, detached.getLyrics().lineCount());
+        assertEquals("", detached.getLyrics().getLine(1));
+
+        // 副本不受原对象的影响
+        lines.set(0, "changed");
+        assertEquals("first", detached.getLyrics().getLine(0));
+    }
+
+    @Test
+    public void headerItemsKeepOrder() {
+        Fetcher detached = DetachedFetcher.of(new StubFetcher(Collections.singletonList("line")));
+        List<String> names = new ArrayList<>();
+        detached.getHeader().forEach((name, value) -> names.add(name));
+
+        assertEquals(Arrays.asList("Title", "Artist", "Lyricist"), names);
+    }
+
+    @Test
+    public void rubySupportIsKept() {
+        Fetcher plain = DetachedFetcher.of(new StubFetcher(Collections.singletonList("line")));
+        Fetcher ruby = DetachedFetcher.of(new StubRubyFetcher(Collections.singletonList("漢字")));
+
+        assertFalse(plain instanceof RubyLyricsSupport);
+        assertTrue(ruby instanceof RubyLyricsSupport);
+        assertEquals("漢字(かんじ)", ((RubyLyricsSupport) ruby).getLyricsWithRuby().getLine(0));
+        assertEquals(1, ((RubyLyricsSupport) ruby).getRubies().size());
+    }
+
+    @Test
+    public void detachingTwiceReturnsSameObject() {
+        DetachedFetcher detached = DetachedFetcher.of(new StubFetcher(Collections.singletonList("line")));
+
+        assertSame(detached, DetachedFetcher.of(detached));
+    }
+
+    private static class StubFetcher implements Fetcher {
+        private final List<String> lines;
+
+        StubFetcher(List<String> lines) {
+            this.lines = lines;
+        }
+
+        @Override
+        public Header getHeader() {
+            return new StubHeader();
+        }
+
+        @Override
+        public Lyrics getLyrics() {
+            return new StubLyrics(lines);
+        }
+
+        @Override
+        public String getSource() {
+            return "http://example.com/song/1";
+        }
+    }
+
+    private static class StubRubyFetcher extends StubFetcher implements RubyLyricsSupport {
+        StubRubyFetcher(List<String> lines) {
+            super(lines);
+        }
+
+        @SuppressWarnings("deprecation")
+        @Override
+        public Lyrics getLyricsWithRuby() {
+            return new StubLyrics(Collections.singletonList("漢字(かんじ)"));
+        }
+
+        @Override
+        public List<Ruby> getRubies() {
+            return Collections.singletonList(new Ruby(0, 0, "漢字", "かんじ"));
+        }
+    }
+
+    private static class StubHeader implements Header {
+        @Override
+        public String getTitle() {
+            return "title";
+        }
+
+        @Override
+        public Set<String> getArtist() {
+            return Collections.singleton("artist");
+        }
+
+        @Override
+        public Set<String> getLyricist() {
+            return new LinkedHashSet<>(Arrays.asList("a", "b"));
+        }
+
+        @Override
+        public Set<String> getComposer() {
+            return null;
+        }
+
+        @Override
+        public Set<String> getArranger() {
+            return null;
+        }
+
+        @Override
+        public Iterator<Item> iterator() {
+            return Collections.emptyIterator();
+        }
+    }
+
+    private static class StubLyrics implements Lyrics {
+        private final List<String> lines;
+
+        StubLyrics(List<String> lines) {
+            this.lines = lines;
+        }
+
+        @Override
+        public String getLine(int index) {
+            return lines.get(index);
+        }
+
+        @Override
+        public int lineCount() {
+            return lines.size();
+        }
+
+        @Override
+        public Iterator<String> iterator() {
+            return Collections.unmodifiableList(lines).iterator();
+        }
+    }
+}
@@ -0,0 +1,123 @@
+package com.kumasuke.fetcher.test;
+
+import com.kumasuke.fetcher.util.FetchScheduler;
+import com.kumasuke.fetcher.util.FetchScheduler.Priority;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.*;
+
+import static org.junit.Assert.*;
+
+/**
+ * 获取任务调度器测试
+ */
+public class FetchSchedulerTest {
+    private static Callable<Void> blockOn(CountDownLatch gate) {
+        return () -> {
+            gate.await();
+            return null;
+        };
+    }
+
+    @Test
+    public void slowSiteStaysInItsLane() throws Exception {
+        FetchScheduler scheduler = FetchScheduler.newBuilder()
+                .threads(4)
+                .interactiveReserve(0)
+                .siteLimit(2)
+                .build();
+        CountDownLatch gate = new CountDownLatch(1);
+
+        // 慢速站点占满自己的通道
+        for (int i = 0; i < 5; i++)
+            scheduler.submit("kashinavi.com", Priority.BATCH, blockOn(gate));
+
+        // 其它站点不受影响
+        Future<String> other = scheduler.submit("uta-net.com", Priority.BATCH, () -> "done");
+        assertEquals("done", other.get(2, TimeUnit.SECONDS));
+        assertEquals(3, scheduler.queuedCount("kashinavi.com"));
+
+        gate.countDown();
+    }
+
+    @Test
+    public void overflowIsRejected() {
+        FetchScheduler scheduler = FetchScheduler.newBuilder()
+                .threads(2)
+                .interactiveReserve(0)
+                .siteLimit(1)
+                .queueCapacity("kashinavi.com", 2)
+                .build();
+        CountDownLatch gate = new CountDownLatch(1);
+
+        scheduler.submit("kashinavi.com", Priority.BATCH, blockOn(gate));
+        scheduler.submit("kashinavi.com", Priority.BATCH, blockOn(gate));
+        Future<Void> queued = scheduler.submit("kashinavi.com", Priority.BATCH, blockOn(gate));
+
+        try {
+            scheduler.submit("kashinavi.com", Priority.BATCH, blockOn(gate));
+            fail("The full queue should reject new tasks.");
+        } catch (RejectedExecutionException expected) {
+            // 队列已满
+        }
+
+        // 取消的任务释放队列位置
+        queued.cancel(false);
+        scheduler.submit("kashinavi.com", Priority.BATCH, blockOn(gate));
+
+        gate.countDown();
+    }
+
+    @Test
+    public void interactiveRunsBeforeQueuedBatch() throws Exception {
+        FetchScheduler scheduler = FetchScheduler.newBuilder()
+                .threads(2)
+                .interactiveReserve(1)
+                .siteLimit(2)
+                .build();
+        CountDownLatch gate = new CountDownLatch(1);
+        List<String> order = Collections.synchronizedList(new ArrayList<>());
+
+        // 批量任务只能使用 1 个线程，其余排队
+        List<Future<?>> futures = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            String name = "batch" + i;
+            futures.add(scheduler.submit("kget.jp", Priority.BATCH, () -> {
+                gate.await();
+                order.add(name);
+                return null;
+            }));
+        }
+
+        futures.add(scheduler.submit("kget.jp", Priority.INTERACTIVE, 10, TimeUnit.SECONDS, () -> {
+            order.add("late");
+            return null;
+        }));
+        futures.add(scheduler.submit("kget.jp", Priority.INTERACTIVE, 1, TimeUnit.SECONDS, () -> {
+            order.add("early");
+            return null;
+        }));
+
+        gate.countDown();
+        for (Future<?> f : futures)
+            f.get(2, TimeUnit.SECONDS);
+
+        // 交互任务先于排队中的批量任务
+        assertTrue(order.indexOf("late") < order.indexOf("batch1"));
+        assertTrue(order.indexOf("early") < order.indexOf("batch1"));
+    }
+
+    @Test(expected = TimeoutException.class)
+    public void expiredInteractiveFails() throws Throwable {
+        FetchScheduler scheduler = FetchScheduler.newBuilder().build();
+
+        try {
+            scheduler.submit("kget.jp", Priority.INTERACTIVE, -1, TimeUnit.MILLISECONDS, () -> null).get();
+        } catch (ExecutionException e) {
+            throw e.getCause();
+        }
+    }
+}
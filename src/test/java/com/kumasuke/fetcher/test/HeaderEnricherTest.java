@@ -0,0 +1,216 @@
+package com.kumasuke.fetcher.test;
+
+import com.kumasuke.fetcher.util.*;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+/**
+ * 使用本地替身服务器的歌曲基本信息补全测试<br>
+ * 各替身站点通过声明式站点定义注册，共用同一份定义模板。
+ */
+public class HeaderEnricherTest {
+    private static final String SHORT_PAGE = "<html><body>" +
+            "<h1>君の知らない物語</h1>" +
+            "<p class=\"info\">歌：supercell 作詞：ryo</p>" +
+            "</body></html>";
+
+    private static final String FULL_PAGE = "<html><body>" +
+            "<h1>君の知らない物語 (TV Size)</h1>" +
+            "<p class=\"info\">歌：supercell 作詞：ryo 作曲：ryo 編曲：ryo</p>" +
+            "</body></html>";
+
+    private static final PageRef SHORT = PageRef.of("short.enrich.test", "1");
+    private static final PageRef FULL = PageRef.of("full.enrich.test", "1");
+    private static final PageRef STALLED = PageRef.of("stalled.enrich.test", "1");
+    private static final PageRef BROKEN = PageRef.of("broken.enrich.test", "1");
+    // 只用于取消测试的来源，不受其他测试中迟到的请求影响
+    private static final PageRef CANCELLED = PageRef.of("cancelled.enrich.test", "1");
+
+    private static HttpServer server;
+    private static Path directory;
+    private static SiteDefinitions definitions;
+    // 阻塞中的请求在测试结束时放行
+    private static final CountDownLatch release = new CountDownLatch(1);
+    private static final AtomicInteger cancelledHits = new AtomicInteger();
+
+    @BeforeClass
+    public static void startServer() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/short", e -> respond(e, 200, SHORT_PAGE));
+        server.createContext("/full", e -> {
+            sleep(1000);
+            respond(e, 200, FULL_PAGE);
+        });
+        server.createContext("/stalled", e -> {
+            try {
+                release.await();
+            } catch (InterruptedException ignored) {
+                Thread.currentThread().interrupt();
+            }
+            respond(e, 200, FULL_PAGE);
+        });
+        server.createContext("/broken", e -> respond(e, 500, "error"));
+        server.createContext("/cancelled", e -> {
+            cancelledHits.incrementAndGet();
+            respond(e, 200, FULL_PAGE);
+        });
+        server.setExecutor(Executors.newCachedThreadPool());
+        server.start();
+
+        directory = Files.createTempDirectory("enrich-definitions");
+        for (PageRef ref : Arrays.asList(SHORT, FULL, STALLED, BROKEN, CANCELLED)) {
+            String name = ref.getSite().substring(0, ref.getSite().indexOf('.'));
+            Files.write(directory.resolve(name + ".properties"),
+                    definition(ref.getSite(), name).getBytes(StandardCharsets.UTF_8));
+        }
+        definitions = SiteDefinitions.open(directory);
+    }
+
+    @AfterClass
+    public static void stopServer() throws IOException {
+        release.countDown();
+        definitions.close();
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory)) {
+            for (Path file : files)
+                Files.delete(file);
+        }
+        Files.delete(directory);
+        server.stop(0);
+    }
+
+    private static String definition(String site, String path) {
+        return "site = " + site + "\n" +
+                "host = 127.0.0.1\n" +
+                "path = /" + path + "/(\\\\d+)/?\n" +
+                "code = \\\\d+\n" +
+                "url = http://127.0.0.1:" + server.getAddress().getPort() + "/" + path + "/{1}/\n" +
+                "title = h1\n" +
+                "artist = p.info\n" +
+                "artist.regex = 歌：(.*?) 作詞\n" +
+                "lyricist = p.info\n" +
+                "lyricist.regex = 作詞：(\\\\S+)\n" +
+                "composer = p.info\n" +
+                "composer.regex = 作曲：(\\\\S+)\n" +
+                "arranger = p.info\n" +
+                "arranger.regex = 編曲：(\\\\S+)\n" +
+                "lyrics = #kashi\n";
+    }
+
+    private static void respond(HttpExchange exchange, int status, String body) throws IOException {
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "text/html; charset=UTF-8");
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException ignored) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static HeaderEnricher enricher(long deadlineMillis, Executor executor) {
+        return HeaderEnricher.newBuilder()
+                .deadline(deadlineMillis, TimeUnit.MILLISECONDS)
+                .executor(executor)
+                .build();
+    }
+
+    @Test
+    public void returnsOnceWantedFieldsAreFilled() throws IOException {
+        long start = System.nanoTime();
+        EnrichedHeader header = enricher(5000, Executors.newCachedThreadPool())
+                .enrich(Arrays.asList(STALLED, SHORT), EnumSet.of(HeaderField.TITLE, HeaderField.ARTIST));
+
+        // 不等待仍在阻塞的来源
+        assertTrue(System.nanoTime() - start < TimeUnit.SECONDS.toNanos(2));
+        assertEquals("君の知らない物語", header.getTitle());
+        assertEquals(Collections.singleton("supercell"), header.getArtist());
+        assertEquals(SHORT, header.getSource(HeaderField.TITLE));
+    }
+
+    @Test
+    public void mergesWhatArrivedByTheDeadline() throws IOException {
+        long start = System.nanoTime();
+        EnrichedHeader header = enricher(300, Executors.newCachedThreadPool())
+                .enrich(Arrays.asList(STALLED, SHORT));
+        long elapsed = System.nanoTime() - start;
+
+        assertTrue(elapsed >= TimeUnit.MILLISECONDS.toNanos(300));
+        assertTrue(elapsed < TimeUnit.SECONDS.toNanos(2));
+        assertTrue(header.has(HeaderField.TITLE));
+        assertTrue(header.has(HeaderField.LYRICIST));
+        assertFalse(header.has(HeaderField.COMPOSER));
+        assertFalse(header.has(HeaderField.ARRANGER));
+        assertNull(header.getSource(HeaderField.COMPOSER));
+    }
+
+    @Test
+    public void recordsTheSourceOfEachField() throws IOException {
+        EnrichedHeader header = enricher(5000, Executors.newCachedThreadPool())
+                .enrich(Arrays.asList(FULL, BROKEN, SHORT));
+
+        // 先返回的来源优先，后返回的来源只补全缺少的条目
+        assertEquals("君の知らない物語", header.getTitle());
+        assertEquals(Collections.singleton("ryo"), header.getComposer());
+        assertEquals(Collections.singleton("ryo"), header.getArranger());
+
+        Map<HeaderField, PageRef> expected = new EnumMap<>(HeaderField.class);
+        expected.put(HeaderField.TITLE, SHORT);
+        expected.put(HeaderField.ARTIST, SHORT);
+        expected.put(HeaderField.LYRICIST, SHORT);
+        expected.put(HeaderField.COMPOSER, FULL);
+        expected.put(HeaderField.ARRANGER, FULL);
+        assertEquals(expected, header.getSources());
+    }
+
+    @Test
+    public void cancelsSourcesThatAreNoLongerNeeded() throws IOException {
+        // 第一个来源立即执行，其余来源在补全返回后才开始执行
+        List<Runnable> deferred = new ArrayList<>();
+        AtomicInteger submitted = new AtomicInteger();
+        Executor firstNow = task -> {
+            if (submitted.getAndIncrement() == 0)
+                new Thread(task).start();
+            else
+                deferred.add(task);
+        };
+
+        EnrichedHeader header = enricher(5000, firstNow)
+                .enrich(Arrays.asList(SHORT, CANCELLED), EnumSet.of(HeaderField.TITLE));
+        assertEquals(SHORT, header.getSource(HeaderField.TITLE));
+
+        // 已被取消的来源即使开始执行也不会再访问站点
+        assertEquals(1, deferred.size());
+        deferred.forEach(Runnable::run);
+        assertEquals(0, cancelledHits.get());
+    }
+
+    @Test(expected = IOException.class)
+    public void failsWhenNoSourceSucceeds() throws IOException {
+        enricher(5000, Executors.newCachedThreadPool()).enrich(Collections.singletonList(BROKEN));
+    }
+}
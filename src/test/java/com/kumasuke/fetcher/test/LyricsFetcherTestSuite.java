@@ -1,5 +1,16 @@
 package com.kumasuke.fetcher.test;
 
+import com.kumasuke.fetcher.ftr.BundledDefinitionsTest;
+import com.kumasuke.fetcher.ftr.HtmlTextTest;
+import com.kumasuke.fetcher.ftr.JsonScannerTest;
+import com.kumasuke.fetcher.ftr.LineSplitterTest;
+import com.kumasuke.fetcher.ftr.MarkerScannerTest;
+import com.kumasuke.fetcher.ftr.RubyTokenizerTest;
+import com.kumasuke.fetcher.ftr.SelectorPlanTest;
+import com.kumasuke.fetcher.ftr.StreamingExtractorTest;
+import com.kumasuke.fetcher.ftr.UtaNetLyricsParserTest;
+import com.kumasuke.fetcher.ftr.WorstCaseInputTest;
+import com.kumasuke.fetcher.util.SourceResolverTest;
 import org.junit.runner.RunWith;
 import org.junit.runners.Suite;
 
@@ -9,7 +20,27 @@ import org.junit.runners.Suite;
 @RunWith(Suite.class)
 @Suite.SuiteClasses({
         AutoMatchAndFetchTest.class,
-        FetchAndPrintResultTest.class
+        FetchAndPrintResultTest.class,
+        LyricsSearcherTest.class,
+        FetchSchedulerTest.class,
+        SongRefTest.class,
+        SiteDefinitionsTest.class,
+        DetachedFetcherTest.class,
+        CompactLyricsTest.class,
+        WorstCaseInputTest.class,
+        SelectorPlanTest.class,
+        LineSplitterTest.class,
+        MarkerScannerTest.class,
+        SingleFlightTest.class,
+        SourceResolverTest.class,
+        HeaderEnricherTest.class,
+        BundledDefinitionsTest.class,
+        StreamingExtractorTest.class,
+        HtmlTextTest.class,
+        RubyTokenizerTest.class,
+        UtaNetLyricsParserTest.class,
+        JsonScannerTest.class,
+        TransportTest.class
 })
 public class LyricsFetcherTestSuite {
 }
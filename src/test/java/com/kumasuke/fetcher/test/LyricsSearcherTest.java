@@ -0,0 +1,132 @@
+package com.kumasuke.fetcher.test;
+
+import com.kumasuke.fetcher.util.LyricsSearcher;
+import com.kumasuke.fetcher.util.PageRef;
+import com.kumasuke.fetcher.util.SearchEndpoint;
+import com.kumasuke.fetcher.util.SearchResult;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+/**
+ * 使用本地替身服务器的歌曲搜索测试
+ */
+public class LyricsSearcherTest {
+    private static final String FAST_PAGE = "<html><body><table>" +
+            "<tr><td><a href=\"http://www.uta-net.com/song/1001/\">君の知らない物語 (TV Size)</a></td>" +
+            "<td class=\"artist\">supercell</td></tr>" +
+            "<tr><td><a href=\"http://www.uta-net.com/song/1002/\">君の知らない物語</a></td>" +
+            "<td class=\"artist\">supercell</td></tr>" +
+            "<tr><td><a href=\"http://www.uta-net.com/artist/1/\">supercell</a></td></tr>" +
+            "</table></body></html>";
+
+    private static final String OTHER_PAGE = "<html><body><ul>" +
+            "<li><a href=\"http://j-lyric.net/artist/a04cb21/l00c0b2.html\">君の知らない物語</a><span>別の歌手</span></li>" +
+            "</ul></body></html>";
+
+    private static final String SLOW_PAGE = "<html><body><table>" +
+            "<tr><td><a href=\"http://www.kasi-time.com/item-4423.html\">君の知らない物語</a></td></tr>" +
+            "</table></body></html>";
+
+    private static HttpServer server;
+    private static String base;
+
+    @BeforeClass
+    public static void startServer() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/fast", e -> respond(e, 200, FAST_PAGE));
+        server.createContext("/other", e -> respond(e, 200, OTHER_PAGE));
+        server.createContext("/broken", e -> respond(e, 500, "error"));
+        server.createContext("/slow", e -> {
+            try {
+                Thread.sleep(10000);
+            } catch (InterruptedException ignored) {
+                Thread.currentThread().interrupt();
+            }
+            respond(e, 200, SLOW_PAGE);
+        });
+        server.setExecutor(Executors.newCachedThreadPool());
+        server.start();
+
+        base = "http://127.0.0.1:" + server.getAddress().getPort();
+    }
+
+    @AfterClass
+    public static void stopServer() {
+        server.stop(0);
+    }
+
+    private static void respond(HttpExchange exchange, int status, String body)
+            throws IOException {
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "text/html; charset=UTF-8");
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+
+    private static SearchEndpoint fast() {
+        return SearchEndpoint.newBuilder("uta-net.com", base + "/fast?q={title}&a={artist}")
+                .rows("tr")
+                .link("a")
+                .artist("td.artist")
+                .build();
+    }
+
+    @Test
+    public void rankedAndFetcherReady() throws InterruptedException {
+        LyricsSearcher searcher = LyricsSearcher.newBuilder()
+                .endpoint(fast())
+                .build();
+
+        List<SearchResult> results = searcher.search("君の知らない物語", "supercell", 5, 2, TimeUnit.SECONDS);
+
+        // 歌手页链接无法构造 Fetcher，应被忽略
+        assertEquals(2, results.size());
+        assertEquals(PageRef.of("uta-net.com", "http://www.uta-net.com/song/1002/"), results.get(0).getPageRef());
+        assertEquals(1.0, results.get(0).getScore(), 1e-9);
+        assertTrue(results.get(0).getScore() > results.get(1).getScore());
+    }
+
+    @Test
+    public void deadlineCancelsSlowSites() throws InterruptedException {
+        SearchEndpoint other = SearchEndpoint.newBuilder("j-lyric.net", base + "/other?q={title}")
+                .rows("li")
+                .artist("span")
+                .build();
+        SearchEndpoint slow = SearchEndpoint.newBuilder("slow", base + "/slow?q={title}").rows("tr").build();
+        SearchEndpoint broken = SearchEndpoint.newBuilder("broken", base + "/broken?q={title}").rows("tr").build();
+        LyricsSearcher searcher = LyricsSearcher.newBuilder()
+                .endpoint(slow, fast(), broken, other)
+                .build();
+
+        List<SearchResult> streamed = new ArrayList<>();
+        long start = System.nanoTime();
+        List<SearchResult> results = searcher.search("君の知らない物語", "supercell", 2, 2,
+                TimeUnit.SECONDS, streamed::add);
+        long elapsed = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+        assertTrue("Search should return at the deadline, took " + elapsed + " ms", elapsed < 5000);
+        assertEquals(3, streamed.size());
+        assertEquals(2, results.size());
+        assertEquals("http://www.uta-net.com/song/1002/", results.get(0).getPageRef().getPage());
+
+        for (SearchResult r : streamed)
+            assertNotEquals("kasi-time.com", r.getPageRef().getSite());
+        assertTrue(streamed.stream().anyMatch(r -> r.getPageRef().getSite().equals("j-lyric.net")));
+    }
+}
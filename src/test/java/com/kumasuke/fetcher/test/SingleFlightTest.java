@@ -0,0 +1,176 @@
+package com.kumasuke.fetcher.test;
+
+import com.kumasuke.fetcher.util.SingleFlight;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+/**
+ * 请求合并器测试<br>
+ * 执行请求的线程阻塞在闸门上，待其余线程均已进入等待后再放行。
+ */
+public class SingleFlightTest {
+    private static final String KEY = "kget.jp/lyric/1";
+
+    // 阻塞在闸门上的请求，开始执行时通知 started
+    private static SingleFlight.Call<String> blockOn(CountDownLatch started, CountDownLatch gate,
+                                                     SingleFlight.Call<String> then) {
+        return () -> {
+            started.countDown();
+            try {
+                gate.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Interrupted while loading.");
+            }
+
+            return then.call();
+        };
+    }
+
+    @Test
+    public void concurrentCallersShareOneLoad() throws Exception {
+        SingleFlight<String, String> flight = new SingleFlight<>();
+        AtomicInteger loads = new AtomicInteger();
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch gate = new CountDownLatch(1);
+        SingleFlight.Call<String> call = blockOn(started, gate, () -> "load" + loads.incrementAndGet());
+
+        Caller leader = new Caller(flight, call);
+        assertTrue(started.await(2, TimeUnit.SECONDS));
+
+        List<Caller> followers = new ArrayList<>();
+        for (int i = 0; i < 4; i++)
+            followers.add(new Caller(flight, call).awaitWaiting());
+        assertEquals(1, flight.inFlightCount());
+
+        gate.countDown();
+        assertEquals("load1", leader.get());
+        for (Caller c : followers)
+            assertEquals("load1", c.get());
+        assertEquals(1, loads.get());
+        assertEquals(0, flight.inFlightCount());
+
+        // 请求完成后不保留结果
+        assertEquals("again", flight.execute(KEY, () -> "again"));
+    }
+
+    @Test
+    public void failureReachesAllWaiters() throws Exception {
+        SingleFlight<String, String> flight = new SingleFlight<>();
+        IOException failure = new IOException("Site is down.");
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch gate = new CountDownLatch(1);
+        SingleFlight.Call<String> call = blockOn(started, gate, () -> {
+            throw failure;
+        });
+
+        List<Caller> callers = new ArrayList<>();
+        callers.add(new Caller(flight, call));
+        assertTrue(started.await(2, TimeUnit.SECONDS));
+        for (int i = 0; i < 3; i++)
+            callers.add(new Caller(flight, call).awaitWaiting());
+
+        gate.countDown();
+        for (Caller c : callers)
+            assertSame(failure, c.failure());
+        assertEquals(0, flight.inFlightCount());
+    }
+
+    @Test
+    public void interruptedWaiterGetsInterruptedIOException() throws Exception {
+        SingleFlight<String, String> flight = new SingleFlight<>();
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch gate = new CountDownLatch(1);
+        Caller leader = new Caller(flight, blockOn(started, gate, () -> "done"));
+        assertTrue(started.await(2, TimeUnit.SECONDS));
+
+        Caller waiter = new Caller(flight, () -> "never").awaitWaiting();
+        waiter.thread.interrupt();
+        assertTrue(waiter.failure() instanceof InterruptedIOException);
+        // 中断状态已恢复
+        assertTrue(waiter.interruptedAfter.get());
+
+        // 正在进行的请求不受影响
+        assertEquals(1, flight.inFlightCount());
+        gate.countDown();
+        assertEquals("done", leader.get());
+    }
+
+    @Test
+    public void waiterRetriesAfterLeaderIsCancelled() throws Exception {
+        SingleFlight<String, String> flight = new SingleFlight<>();
+        AtomicInteger loads = new AtomicInteger();
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch gate = new CountDownLatch(1);
+        Caller leader = new Caller(flight, blockOn(started, gate, () -> "leader"));
+        assertTrue(started.await(2, TimeUnit.SECONDS));
+
+        Caller follower = new Caller(flight, () -> "retried" + loads.incrementAndGet()).awaitWaiting();
+
+        // 执行请求的线程被中断，等待中的线程不共享该异常，而是重新发起请求
+        leader.thread.interrupt();
+        assertTrue(leader.failure() instanceof InterruptedIOException);
+        assertEquals("retried1", follower.get());
+        assertEquals(0, flight.inFlightCount());
+    }
+
+    /**
+     * 在独立线程中执行请求的调用者
+     */
+    private static class Caller {
+        private final FutureTask<String> task;
+        private final Thread thread;
+        // 请求结束时线程是否处于中断状态
+        private final AtomicBoolean interruptedAfter = new AtomicBoolean();
+
+        Caller(SingleFlight<String, String> flight, SingleFlight.Call<String> call) {
+            this.task = new FutureTask<>(() -> {
+                try {
+                    return flight.execute(KEY, call);
+                } finally {
+                    interruptedAfter.set(Thread.currentThread().isInterrupted());
+                }
+            });
+            this.thread = new Thread(task);
+            thread.start();
+        }
+
+        // 等待该线程开始等待正在进行的请求，此时它只可能阻塞在请求结果上
+        Caller awaitWaiting() throws InterruptedException {
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(2);
+            while (thread.getState() != Thread.State.WAITING) {
+                if (System.nanoTime() > deadline)
+                    throw new AssertionError("The caller never started waiting: " + thread.getState());
+                Thread.sleep(1);
+            }
+
+            return this;
+        }
+
+        String get() throws Exception {
+            return task.get(2, TimeUnit.SECONDS);
+        }
+
+        Throwable failure() throws Exception {
+            try {
+                task.get(2, TimeUnit.SECONDS);
+            } catch (ExecutionException e) {
+                return e.getCause();
+            }
+
+            throw new AssertionError("The call should fail.");
+        }
+    }
+}
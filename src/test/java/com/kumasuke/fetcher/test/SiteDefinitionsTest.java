@@ -0,0 +1,119 @@
+package com.kumasuke.fetcher.test;
+
+import com.kumasuke.fetcher.Fetcher;
+import com.kumasuke.fetcher.util.FetcherBuilder;
+import com.kumasuke.fetcher.util.SiteDefinitions;
+import com.kumasuke.fetcher.util.SongRef;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+
+import static org.junit.Assert.*;
+
+/**
+ * 使用本地替身服务器的声明式站点定义测试
+ */
+public class SiteDefinitionsTest {
+    private static final String SONG_PAGE = "<html><body>" +
+            "<h1>君の知らない物語</h1>" +
+            "<p class=\"info\">歌：supercell 作詞：ryo 作曲：ryo</p>" +
+            "<div id=\"kashi\">いつも通りのある日の事<br>君は突然立ち上がり言った<br />" +
+            "「今夜星を見に行こう」<br></div>" +
+            "</body></html>";
+
+    private static HttpServer server;
+    private static int port;
+
+    @BeforeClass
+    public static void startServer() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/song", e -> {
+            byte[] bytes = SONG_PAGE.getBytes(StandardCharsets.UTF_8);
+            e.getResponseHeaders().set("Content-Type", "text/html; charset=UTF-8");
+            e.sendResponseHeaders(200, bytes.length);
+            try (OutputStream out = e.getResponseBody()) {
+                out.write(bytes);
+            }
+        });
+        server.start();
+
+        port = server.getAddress().getPort();
+    }
+
+    @AfterClass
+    public static void stopServer() {
+        server.stop(0);
+    }
+
+    private static String definition(String titleQuery) {
+        return "site = test.local\n" +
+                "host = 127.0.0.1\n" +
+                "path = /song/(\\\\d+)/?\n" +
+                "code = \\\\d+\n" +
+                "url = http://127.0.0.1:" + port + "/song/{1}/\n" +
+                "title = " + titleQuery + "\n" +
+                "artist = p.info\n" +
+                "artist.regex = 歌：(.*?) 作詞\n" +
+                "lyricist = p.info\n" +
+                "lyricist.regex = 作詞：(\\\\S+)\n" +
+                "lyrics = #kashi\n";
+    }
+
+    @Test
+    public void definitionIsCompiledAndReloaded() throws IOException {
+        Path dir = Files.createTempDirectory("site-definitions");
+        Path file = dir.resolve("test-local.properties");
+        Files.write(file, definition("h1").getBytes(StandardCharsets.UTF_8));
+
+        try (SiteDefinitions definitions = SiteDefinitions.open(dir)) {
+            assertTrue(SongRef.isSupported("test.local"));
+
+            Fetcher fetcher = FetcherBuilder.newBuilder()
+                    .autoMatch()
+                    .page("http://127.0.0.1:" + port + "/song/42/")
+                    .build();
+            assertEquals("君の知らない物語", fetcher.getHeader().getTitle());
+            assertEquals(Collections.singleton("supercell"), fetcher.getHeader().getArtist());
+            assertEquals(Collections.singleton("ryo"), fetcher.getHeader().getLyricist());
+            assertEquals(Arrays.asList("いつも通りのある日の事", "君は突然立ち上がり言った", "「今夜星を見に行こう」"),
+                    Arrays.asList(fetcher.getLyrics().getLine(0), fetcher.getLyrics().getLine(1),
+                            fetcher.getLyrics().getLine(2)));
+            assertEquals(3, fetcher.getLyrics().lineCount());
+
+            // 修改定义后重新加载，无需重启
+            Files.write(file, definition("p.info").getBytes(StandardCharsets.UTF_8));
+            definitions.reload();
+
+            Fetcher reloaded = FetcherBuilder.newBuilder().site("test.local").page("42").build();
+            assertEquals("歌：supercell 作詞：ryo 作曲：ryo", reloaded.getHeader().getTitle());
+            assertEquals("君の知らない物語", fetcher.getHeader().getTitle());
+
+            // 编译失败时保留之前的定义
+            Files.write(file, "site = test.local\n".getBytes(StandardCharsets.UTF_8));
+            try {
+                definitions.reload();
+                fail("A broken definition should be reported.");
+            } catch (IOException expected) {
+                assertSame(expected, definitions.getLastFailure());
+            }
+            assertTrue(SongRef.isSupported("test.local"));
+        } finally {
+            Files.delete(file);
+            Files.delete(dir);
+        }
+
+        assertFalse(SongRef.isSupported("test.local"));
+        assertTrue(new HashSet<>(SongRef.sites()).contains("uta-net.com"));
+    }
+}
@@ -0,0 +1,76 @@
+package com.kumasuke.fetcher.test;
+
+import com.kumasuke.fetcher.util.SongRef;
+import org.junit.Test;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * 歌曲引用解析测试
+ */
+public class SongRefTest {
+    // 各站点的歌词页地址示例
+    private static final Map<String, String> SAMPLES = new LinkedHashMap<>();
+
+    static {
+        SAMPLES.put("uta-net.com", "http://www.uta-net.com/song/188939/");
+        SAMPLES.put("j-lyric.net", "http://j-lyric.net/artist/a0012a4/l02a4a2.html");
+        SAMPLES.put("utamap.com", "http://www.utamap.com/showkasi.php?surl=k-130522-016");
+        SAMPLES.put("kasi-time.com", "http://www.kasi-time.com/item-67253.html");
+        SAMPLES.put("kashinavi.com", "http://www.kashinavi.com/song_view.html?77027");
+        SAMPLES.put("kget.jp", "http://www.kget.jp/lyric/11066/");
+        SAMPLES.put("utaten.com", "http://utaten.com/lyric/supercell/kiminoshiranaimonogatari/");
+        SAMPLES.put("animap.jp", "http://www.animap.jp/kasi/showkasi.php?surl=dk130520_33");
+        SAMPLES.put("evesta.jp", "http://www.evesta.jp/lyric/artists/a10019/lyrics/l131497.html");
+        SAMPLES.put("joysound.com", "https://www.joysound.com/web/search/song/115474");
+        SAMPLES.put("jtw.zaq.ne.jp/animesong", "http://www.jtw.zaq.ne.jp/animesong/ma/majotaku/ruuju.html");
+        SAMPLES.put("petitlyrics.com", "http://petitlyrics.com/lyrics/914421");
+    }
+
+    @Test
+    public void fullUrlAndSongCodeAreEqual() {
+        SongRef byUrl = SongRef.parse("http://www.uta-net.com/song/188939/");
+        SongRef byCode = SongRef.of("Uta-Net.com", "188939");
+
+        assertEquals(byCode, byUrl);
+        assertEquals(byCode.hashCode(), byUrl.hashCode());
+        assertEquals("uta-net.com", byUrl.getSite());
+        assertEquals("188939", byUrl.getCode());
+    }
+
+    @Test
+    public void multiPartCodeIsJoined() {
+        SongRef ref = SongRef.parse("http://www.jtw.zaq.ne.jp/animesong/ma/majotaku/ruuju.html");
+
+        assertEquals("jtw.zaq.ne.jp/animesong", ref.getSite());
+        assertEquals("ma/majotaku/ruuju", ref.getCode());
+        assertEquals(ref, SongRef.of("jtw.zaq.ne.jp/animesong", "http://jtw.zaq.ne.jp/animesong/ma/majotaku/ruuju.html"));
+    }
+
+    @Test
+    public void songCodeRoundTripsOnEverySite() {
+        for (String site : SongRef.sites())
+            assertTrue(site, SAMPLES.containsKey(site));
+
+        // 多段的歌曲代码含有 /，同样可以用于获取同一首歌曲
+        for (Map.Entry<String, String> e : SAMPLES.entrySet()) {
+            SongRef byUrl = SongRef.parse(e.getValue());
+            assertEquals(e.getKey(), byUrl.getSite());
+            assertEquals(e.getValue(), byUrl, SongRef.of(e.getKey(), byUrl.getCode()));
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void unknownHostIsRejected() {
+        SongRef.parse("http://example.com/song/188939/");
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void bareCodeNeedsCodePattern() {
+        SongRef.of("j-lyric.net", "a04cb21");
+    }
+}
@@ -0,0 +1,106 @@
+package com.kumasuke.fetcher.test;
+
+import com.kumasuke.fetcher.util.Transport;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.jsoup.HttpStatusException;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.io.*;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.Assert.*;
+
+/**
+ * 使用本地替身服务器的连接设置测试，主要检查重定向的处理。
+ */
+public class TransportTest {
+    private static final String PAGE = "<html><head><meta charset=\"Shift_JIS\"></head><body>歌詞</body></html>";
+
+    private static HttpServer server;
+    private static Transport transport;
+
+    @BeforeClass
+    public static void startServer() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/page", e -> respond(e, 200, PAGE.getBytes("Shift_JIS")));
+        server.createContext("/moved", e -> redirect(e, 301, "/page"));
+        server.createContext("/found", e -> redirect(e, 302, base() + "/moved"));
+        server.createContext("/loop", e -> redirect(e, 307, "/loop"));
+        server.createContext("/nowhere", e -> respond(e, 301, "<html>moved</html>".getBytes(StandardCharsets.UTF_8)));
+        server.createContext("/ftp", e -> redirect(e, 301, "ftp://127.0.0.1/page"));
+        server.start();
+
+        transport = Transport.of("Mozilla/5.0", 2000);
+    }
+
+    @AfterClass
+    public static void stopServer() {
+        server.stop(0);
+    }
+
+    private static String base() {
+        return "http://127.0.0.1:" + server.getAddress().getPort();
+    }
+
+    private static void redirect(HttpExchange exchange, int status, String location) throws IOException {
+        exchange.getResponseHeaders().set("Location", location);
+        respond(exchange, status, "<html>moved</html>".getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static void respond(HttpExchange exchange, int status, byte[] body) throws IOException {
+        exchange.getResponseHeaders().set("Content-Type", "text/html");
+        exchange.sendResponseHeaders(status, body.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(body);
+        }
+    }
+
+    private static String readAll(Reader in) throws IOException {
+        StringBuilder sb = new StringBuilder();
+        char[] buffer = new char[256];
+        int n;
+        while ((n = in.read(buffer)) > 0)
+            sb.append(buffer, 0, n);
+
+        return sb.toString();
+    }
+
+    @Test
+    public void readerFollowsRedirects() throws IOException {
+        // 相对地址和绝对地址的重定向，字符集取自最终页面
+        try (Reader in = transport.reader(base() + "/found")) {
+            assertEquals(PAGE, readAll(in));
+        }
+    }
+
+    @Test
+    public void streamFollowsRedirects() throws IOException {
+        try (InputStream in = transport.stream(base() + "/moved")) {
+            assertEquals(PAGE, readAll(new InputStreamReader(in, "Shift_JIS")));
+        }
+    }
+
+    @Test
+    public void redirectWithoutLocationFails() throws IOException {
+        try {
+            transport.reader(base() + "/nowhere").close();
+            fail("The body of a redirect should never be returned.");
+        } catch (HttpStatusException e) {
+            assertEquals(301, e.getStatusCode());
+        }
+    }
+
+    @Test(expected = IOException.class)
+    public void redirectLoopFails() throws IOException {
+        transport.reader(base() + "/loop").close();
+    }
+
+    @Test(expected = IOException.class)
+    public void redirectToOtherProtocolFails() throws IOException {
+        transport.stream(base() + "/ftp").close();
+    }
+}
@@ -0,0 +1,223 @@
+package com.kumasuke.fetcher.util;
+
+import com.kumasuke.fetcher.Fetcher;
+import com.kumasuke.fetcher.Header;
+import com.kumasuke.fetcher.Lyrics;
+import org.junit.After;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+/**
+ * 歌词来源选择器测试<br>
+ * 使用直接注册的替身站点提供者，不访问网络。
+ */
+public class SourceResolverTest {
+    private final List<SiteProvider> registered = new ArrayList<>();
+    private final ExecutorService executor = Executors.newCachedThreadPool();
+
+    @After
+    public void tearDown() {
+        registered.forEach(SongRef::unregister);
+        executor.shutdownNow();
+    }
+
+    // 注册替身站点，每次访问时调用 body
+    private void stubSite(String site, StubBody body) {
+        SiteProvider provider = new SiteProvider() {
+            @Override
+            public String site() {
+                return site;
+            }
+
+            @Override
+            public String host() {
+                return site;
+            }
+
+            @Override
+            public String pathPattern() {
+                return "/(\\d+)";
+            }
+
+            @Override
+            public String codePattern() {
+                return "\\d+";
+            }
+
+            @Override
+            public Fetcher newFetcher(SongRef ref, Transport transport) throws IOException {
+                return body.fetch(ref);
+            }
+        };
+
+        SongRef.register(provider, true);
+        registered.add(provider);
+    }
+
+    private SourceResolver resolver(long deadlineMillis) {
+        return SourceResolver.newBuilder()
+                .factory(FetcherFactory.newBuilder().coalescing(false).build())
+                .deadline(deadlineMillis, TimeUnit.MILLISECONDS)
+                .executor(executor)
+                .build();
+    }
+
+    private static void record(String site, long millis, boolean success, int times) {
+        for (int i = 0; i < times; i++)
+            SiteStatistics.getDefault().record(site, millis, TimeUnit.MILLISECONDS, success);
+    }
+
+    @Test
+    public void rankOrdersByHealthThenLatency() {
+        SiteStatistics.getDefault().clear();
+        record("fast.rank.test", 100, true, 4);
+        record("slow.rank.test", 900, true, 3);
+        record("slow.rank.test", 900, false, 1);
+        record("flaky.rank.test", 50, true, 1);
+        record("flaky.rank.test", 50, false, 3);
+
+        List<PageRef> candidates = Arrays.asList(
+                PageRef.of("flaky.rank.test", "1"),
+                PageRef.of("unknown.rank.test", "1"),
+                PageRef.of("slow.rank.test", "1"),
+                PageRef.of("other.rank.test", "1"),
+                PageRef.of("fast.rank.test", "1"));
+
+        // 健康的站点按耗时排序，其次是尚无记录的站点（保持给定顺序），最后是不健康的站点
+        assertEquals(Arrays.asList(
+                PageRef.of("fast.rank.test", "1"),
+                PageRef.of("slow.rank.test", "1"),
+                PageRef.of("unknown.rank.test", "1"),
+                PageRef.of("other.rank.test", "1"),
+                PageRef.of("flaky.rank.test", "1")),
+                resolver(1000).rank(candidates));
+    }
+
+    @Test
+    public void resolveFailsOverInRankedOrder() throws IOException {
+        SiteStatistics.getDefault().clear();
+        record("first.failover.test", 10, true, 2);
+        record("second.failover.test", 20, true, 2);
+        record("third.failover.test", 30, true, 2);
+
+        List<String> attempts = Collections.synchronizedList(new ArrayList<>());
+        Fetcher expected = new StubFetcher("third.failover.test");
+        stubSite("first.failover.test", ref -> {
+            attempts.add(ref.getSite());
+            throw new IOException("Connection refused.");
+        });
+        stubSite("second.failover.test", ref -> {
+            attempts.add(ref.getSite());
+            throw new IOException("Page not found.");
+        });
+        stubSite("third.failover.test", ref -> {
+            attempts.add(ref.getSite());
+            return expected;
+        });
+
+        Fetcher fetcher = resolver(1000).resolve(Arrays.asList(
+                PageRef.of("third.failover.test", "3"),
+                PageRef.of("second.failover.test", "2"),
+                PageRef.of("first.failover.test", "1")));
+
+        assertSame(expected, fetcher);
+        assertEquals(Arrays.asList("first.failover.test", "second.failover.test", "third.failover.test"), attempts);
+        // 每次访问各记录一次
+        assertEquals(3, SiteStatistics.getDefault().snapshotOf("first.failover.test").getSamples());
+        assertEquals(3, SiteStatistics.getDefault().snapshotOf("third.failover.test").getSamples());
+
+        try {
+            resolver(1000).resolve(Arrays.asList(
+                    PageRef.of("first.failover.test", "1"),
+                    PageRef.of("second.failover.test", "2")));
+            fail("Every candidate failed.");
+        } catch (IOException e) {
+            assertEquals(2, e.getSuppressed().length);
+        }
+    }
+
+    @Test
+    public void lateCompletionIsRecordedOnce() throws Exception {
+        SiteStatistics.getDefault().clear();
+        CountDownLatch release = new CountDownLatch(1);
+        Fetcher fast = new StubFetcher("fast.deadline.test");
+
+        // 模拟无法被中断的阻塞连接
+        stubSite("slow.deadline.test", ref -> {
+            boolean interrupted = false;
+            while (true) {
+                try {
+                    release.await();
+                    break;
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                }
+            }
+            if (interrupted)
+                Thread.currentThread().interrupt();
+
+            return new StubFetcher(ref.getSite());
+        });
+        stubSite("fast.deadline.test", ref -> fast);
+
+        Fetcher fetcher = resolver(50).resolve(Arrays.asList(
+                PageRef.of("slow.deadline.test", "1"),
+                PageRef.of("fast.deadline.test", "1")));
+        assertSame(fast, fetcher);
+
+        // 超时的访问尚未结束，不计入统计
+        assertEquals(0, SiteStatistics.getDefault().snapshotOf("slow.deadline.test").getSamples());
+
+        // 再阻塞一段时间后放行，使实际耗时明显超过截止时间
+        Thread.sleep(50);
+        release.countDown();
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(2, TimeUnit.SECONDS));
+
+        // 实际结束时按真实结果和耗时记录一次
+        SiteStatistics.Snapshot slow = SiteStatistics.getDefault().snapshotOf("slow.deadline.test");
+        assertEquals(1, slow.getSamples());
+        assertEquals(1.0, slow.getSuccessRate(), 0.0);
+        assertTrue(slow.getMeanLatency(TimeUnit.MILLISECONDS) >= 50);
+        assertEquals(1, SiteStatistics.getDefault().snapshotOf("fast.deadline.test").getSamples());
+    }
+
+    @FunctionalInterface
+    private interface StubBody {
+        Fetcher fetch(SongRef ref) throws IOException;
+    }
+
+    private static class StubFetcher implements Fetcher {
+        private final String source;
+
+        StubFetcher(String source) {
+            this.source = source;
+        }
+
+        @Override
+        public Header getHeader() {
+            return null;
+        }
+
+        @Override
+        public Lyrics getLyrics() {
+            return null;
+        }
+
+        @Override
+        public String getSource() {
+            return source;
+        }
+    }
+}